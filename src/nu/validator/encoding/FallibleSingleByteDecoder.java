@@ -35,6 +35,8 @@ public final class FallibleSingleByteDecoder extends InfallibleSingleByteDecoder
     @Override protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
         if (!this.report) {
             return super.decodeLoop(in, out);
+        } else if (in.hasArray() && out.hasArray()) {
+            return decodeArrayLoop(in, out, true);
         } else {
             for (;;) {
                 if (!in.hasRemaining()) {
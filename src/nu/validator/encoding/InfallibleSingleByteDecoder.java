@@ -29,15 +29,27 @@ import java.nio.charset.CoderResult;
 public class InfallibleSingleByteDecoder extends Decoder {
 
     protected final char[] upperHalf;
+
+    /**
+     * All 256 byte values mapped, so that the array loop does not branch on
+     * the high bit.
+     */
+    private final char[] table;
     
     protected InfallibleSingleByteDecoder(Encoding cs, char[] upperHalf) {
         super(cs, 1.0f, 1.0f);
         this.upperHalf = upperHalf;
+        this.table = new char[256];
+        for (int i = 0; i < 128; i++) {
+            this.table[i] = (char) i;
+        }
+        System.arraycopy(upperHalf, 0, this.table, 128, 128);
     }
 
     @Override protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
-        // TODO figure out if it's worthwhile to optimize the case where both
-        // buffers are array-backed.
+        if (in.hasArray() && out.hasArray()) {
+            return decodeArrayLoop(in, out, false);
+        }
         for (;;) {
             if (!in.hasRemaining()) {
                 return CoderResult.UNDERFLOW;
@@ -53,5 +65,55 @@ public class InfallibleSingleByteDecoder extends Decoder {
             }
         }
     }
-    
+
+    /**
+     * Decodes between the arrays backing <code>in</code> and
+     * <code>out</code> with a single counted loop.
+     * 
+     * @param in
+     *            an array-backed input buffer
+     * @param out
+     *            an array-backed output buffer
+     * @param reportUnmapped
+     *            whether to stop at a byte that maps to U+FFFD and report
+     *            it as malformed
+     * @return the result
+     */
+    protected final CoderResult decodeArrayLoop(ByteBuffer in, CharBuffer out,
+            boolean reportUnmapped) {
+        byte[] src = in.array();
+        char[] dst = out.array();
+        int inRemaining = in.remaining();
+        int outRemaining = out.remaining();
+        int len = inRemaining < outRemaining ? inRemaining : outRemaining;
+        int srcStart = in.arrayOffset() + in.position();
+        int delta = out.arrayOffset() + out.position() - srcStart;
+        int srcEnd = srcStart + len;
+        char[] t = this.table;
+        CoderResult result = null;
+        int i = srcStart;
+        if (reportUnmapped) {
+            for (; i < srcEnd; i++) {
+                char mapped = t[src[i] & 0xFF];
+                if (mapped == '\uFFFD') {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                dst[i + delta] = mapped;
+            }
+        } else {
+            for (; i < srcEnd; i++) {
+                dst[i + delta] = t[src[i] & 0xFF];
+            }
+        }
+        int decoded = i - srcStart;
+        in.position(in.position() + decoded);
+        out.position(out.position() + decoded);
+        if (result != null) {
+            return result;
+        }
+        return inRemaining <= outRemaining ? CoderResult.UNDERFLOW
+                : CoderResult.OVERFLOW;
+    }
+
 }
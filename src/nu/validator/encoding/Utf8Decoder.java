@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+
+/**
+ * A UTF-8 decoder per the Encoding Standard. Besides the
+ * <code>CharsetDecoder</code> API, it has a <code>decode()</code> method
+ * that goes straight from a <code>byte[]</code> to a <code>char[]</code>,
+ * for callers that manage their own arrays. Runs of ASCII are copied eight
+ * bytes at a time.
+ * 
+ * Malformed sequences are reported as the longest prefix of a valid
+ * sequence, or as one byte if there is no such prefix, so replacing each
+ * reported sequence with U+FFFD gives the output required by the standard.
+ * Nothing is kept from one call to the next: an incomplete sequence at the
+ * end of the input is left unconsumed unless it is the last input.
+ */
+public class Utf8Decoder extends Decoder {
+
+    /**
+     * Returned by <code>decode()</code> when all input has been consumed
+     * or what is left is an incomplete sequence.
+     */
+    public static final int INPUT_EMPTY = 0;
+
+    /**
+     * Returned by <code>decode()</code> when there is no room for the next
+     * character.
+     */
+    public static final int OUTPUT_FULL = -1;
+
+    private int srcPos;
+
+    private int dstPos;
+
+    /**
+     * Scratch space for buffers without an accessible array.
+     */
+    private byte[] srcScratch;
+
+    private char[] dstScratch;
+
+    /**
+     * Constructor. <code>Encoding.UTF_8.newDecoder()</code> returns the JDK
+     * decoder, which is faster on ASCII-heavy input on current VMs, so this
+     * decoder is only used when asked for by name.
+     */
+    public Utf8Decoder() {
+        this(Encoding.UTF_8);
+    }
+
+    protected Utf8Decoder(Charset cs) {
+        super(cs, 1.0f, 1.0f);
+    }
+
+    /**
+     * Decodes from <code>src</code> into <code>dst</code> until the input
+     * runs out, the output is full or a malformed sequence is found. Then
+     * <code>getSrcPos()</code> and <code>getDstPos()</code> tell where
+     * decoding stopped.
+     * 
+     * @param src
+     *            the bytes
+     * @param srcStart
+     *            the index of the first byte to decode
+     * @param srcEnd
+     *            the index after the last byte to decode
+     * @param dst
+     *            the buffer to decode to
+     * @param dstStart
+     *            the index at which to write the first char
+     * @param dstEnd
+     *            the index after the last char that may be written
+     * @param last
+     *            <code>true</code> if there is no input after
+     *            <code>srcEnd</code>, so that an incomplete sequence at the
+     *            end is malformed
+     * @return <code>INPUT_EMPTY</code>, <code>OUTPUT_FULL</code> or the
+     *         length of a malformed sequence that ends at
+     *         <code>getSrcPos()</code>
+     */
+    public int decode(byte[] src, int srcStart, int srcEnd, char[] dst,
+            int dstStart, int dstEnd, boolean last) {
+        int sp = srcStart;
+        int dp = dstStart;
+        try {
+            outer: for (;;) {
+                // ASCII, eight bytes at a time.
+                while (sp + 8 <= srcEnd && dp + 8 <= dstEnd) {
+                    int b0 = src[sp];
+                    int b1 = src[sp + 1];
+                    int b2 = src[sp + 2];
+                    int b3 = src[sp + 3];
+                    int b4 = src[sp + 4];
+                    int b5 = src[sp + 5];
+                    int b6 = src[sp + 6];
+                    int b7 = src[sp + 7];
+                    if ((b0 | b1 | b2 | b3 | b4 | b5 | b6 | b7) < 0) {
+                        break;
+                    }
+                    dst[dp] = (char) b0;
+                    dst[dp + 1] = (char) b1;
+                    dst[dp + 2] = (char) b2;
+                    dst[dp + 3] = (char) b3;
+                    dst[dp + 4] = (char) b4;
+                    dst[dp + 5] = (char) b5;
+                    dst[dp + 6] = (char) b6;
+                    dst[dp + 7] = (char) b7;
+                    sp += 8;
+                    dp += 8;
+                }
+                // Mixed text, one character at a time, going back to the
+                // loop above after a run of ASCII.
+                int ascii = 0;
+                while (sp < srcEnd && dp < dstEnd) {
+                    int b = src[sp];
+                    if (b >= 0) {
+                        dst[dp++] = (char) b;
+                        sp++;
+                        if (++ascii == 8) {
+                            continue outer;
+                        }
+                        continue;
+                    }
+                    ascii = 0;
+                    // Well-formed two- and three-byte sequences that are
+                    // not at the end of the input
+                    if (b >= (byte) 0xC2 && b <= (byte) 0xDF) {
+                        if (sp + 1 < srcEnd) {
+                            int c = src[sp + 1];
+                            if (c <= (byte) 0xBF) {
+                                dst[dp++] = (char) (((b & 0x1F) << 6)
+                                        | (c & 0x3F));
+                                sp += 2;
+                                continue;
+                            }
+                        }
+                    } else if ((b >= (byte) 0xE1 && b <= (byte) 0xEC)
+                            || b >= (byte) 0xEE && b <= (byte) 0xEF) {
+                        if (sp + 2 < srcEnd) {
+                            int c = src[sp + 1];
+                            int d = src[sp + 2];
+                            if (c <= (byte) 0xBF && d <= (byte) 0xBF) {
+                                dst[dp++] = (char) (((b & 0xF) << 12)
+                                        | ((c & 0x3F) << 6) | (d & 0x3F));
+                                sp += 3;
+                                continue;
+                            }
+                        }
+                    }
+                    break;
+                }
+                // Everything else, including the ends of the buffers
+                if (sp == srcEnd) {
+                    return INPUT_EMPTY;
+                }
+                if (dp == dstEnd) {
+                    return OUTPUT_FULL;
+                }
+                int b = src[sp];
+                b &= 0xFF;
+                int needed;
+                int lower = 0x80;
+                int upper = 0xBF;
+                int codePoint;
+                if (b >= 0xC2 && b <= 0xDF) {
+                    needed = 1;
+                    codePoint = b & 0x1F;
+                } else if (b >= 0xE0 && b <= 0xEF) {
+                    needed = 2;
+                    codePoint = b & 0xF;
+                    if (b == 0xE0) {
+                        lower = 0xA0;
+                    } else if (b == 0xED) {
+                        upper = 0x9F;
+                    }
+                } else if (b >= 0xF0 && b <= 0xF4) {
+                    needed = 3;
+                    codePoint = b & 0x7;
+                    if (b == 0xF0) {
+                        lower = 0x90;
+                    } else if (b == 0xF4) {
+                        upper = 0x8F;
+                    }
+                } else {
+                    sp++;
+                    return 1;
+                }
+                for (int i = 1; i <= needed; i++) {
+                    if (sp + i == srcEnd) {
+                        if (last) {
+                            sp += i;
+                            return i;
+                        }
+                        return INPUT_EMPTY;
+                    }
+                    int c = src[sp + i] & 0xFF;
+                    if (c < lower || c > upper) {
+                        // The byte that does not fit is not part of the
+                        // malformed sequence.
+                        sp += i;
+                        return i;
+                    }
+                    lower = 0x80;
+                    upper = 0xBF;
+                    codePoint = (codePoint << 6) | (c & 0x3F);
+                }
+                if (codePoint >= 0x10000) {
+                    if (dp + 1 == dstEnd) {
+                        return OUTPUT_FULL;
+                    }
+                    dst[dp++] = (char) (0xD7C0 + (codePoint >> 10));
+                    dst[dp++] = (char) (0xDC00 + (codePoint & 0x3FF));
+                } else {
+                    dst[dp++] = (char) codePoint;
+                }
+                sp += needed + 1;
+            }
+        } finally {
+            srcPos = sp;
+            dstPos = dp;
+        }
+    }
+
+    /**
+     * Returns the index after the last byte consumed by the last call to
+     * <code>decode()</code>.
+     * 
+     * @return the source position
+     */
+    public int getSrcPos() {
+        return srcPos;
+    }
+
+    /**
+     * Returns the index after the last char written by the last call to
+     * <code>decode()</code>.
+     * 
+     * @return the destination position
+     */
+    public int getDstPos() {
+        return dstPos;
+    }
+
+    @Override protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        for (;;) {
+            int result;
+            int consumed;
+            if (in.hasArray() && out.hasArray()) {
+                int srcStart = in.arrayOffset() + in.position();
+                int dstStart = out.arrayOffset() + out.position();
+                result = decode(in.array(), srcStart, srcStart
+                        + in.remaining(), out.array(), dstStart, dstStart
+                        + out.remaining(), false);
+                consumed = srcPos - srcStart;
+                out.position(out.position() + dstPos - dstStart);
+            } else {
+                if (srcScratch == null) {
+                    srcScratch = new byte[1024];
+                    dstScratch = new char[1024];
+                }
+                int len = Math.min(in.remaining(), srcScratch.length);
+                int room = out.remaining();
+                in.duplicate().get(srcScratch, 0, len);
+                result = decode(srcScratch, 0, len, dstScratch, 0, Math.min(
+                        room, dstScratch.length), false);
+                consumed = srcPos;
+                out.put(dstScratch, 0, dstPos);
+                if ((result == INPUT_EMPTY && in.remaining() > len)
+                        || (result == OUTPUT_FULL && room > dstScratch.length)) {
+                    // Only the scratch space ran out.
+                    in.position(in.position() + consumed);
+                    continue;
+                }
+            }
+            in.position(in.position() + consumed);
+            if (result == INPUT_EMPTY) {
+                return CoderResult.UNDERFLOW;
+            }
+            if (result == OUTPUT_FULL) {
+                return CoderResult.OVERFLOW;
+            }
+            if (this.report) {
+                in.position(in.position() - result);
+                return CoderResult.malformedForLength(result);
+            }
+            if (!out.hasRemaining()) {
+                in.position(in.position() - result);
+                return CoderResult.OVERFLOW;
+            }
+            out.put('\uFFFD');
+        }
+    }
+}
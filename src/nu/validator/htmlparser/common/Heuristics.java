@@ -48,5 +48,10 @@ public enum Heuristics {
     /**
      * Use ICU4J only.
      */
-    ICU
+    ICU,
+    
+    /**
+     * Use the built-in statistical detector only.
+     */
+    STATISTICAL
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.common;
+
+/**
+ * Bounds on the memory and time one document may take, for parsing
+ * untrusted input. Every limit is off by default. The parser reads the
+ * limits when a parse starts, so changing them affects the next parse.
+ * 
+ * <p>Checking a limit costs a comparison on paths that already do more work
+ * than that, so limits that are not reached do not slow the parser down.
+ * 
+ * @see LimitPolicy
+ */
+public final class ParserLimits {
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private int maxAttributes = Integer.MAX_VALUE;
+
+    private int maxTextLength = Integer.MAX_VALUE;
+
+    private int maxTokenLength = Integer.MAX_VALUE;
+
+    private int maxElements = Integer.MAX_VALUE;
+
+    private long maxInputLength = Long.MAX_VALUE;
+
+    private LimitPolicy policy = LimitPolicy.FATAL;
+
+    /**
+     * Returns the maximum depth of the stack of open elements.
+     * 
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum depth of the stack of open elements. Truncating ends
+     * the document after the token that goes over it.
+     * 
+     * @param maxDepth
+     *            the maximum depth
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns the maximum number of attributes on a tag.
+     * 
+     * @return the maximum number of attributes
+     */
+    public int getMaxAttributes() {
+        return maxAttributes;
+    }
+
+    /**
+     * Sets the maximum number of attributes on a tag. Truncating drops the
+     * attributes after it, like duplicate attributes are dropped.
+     * 
+     * @param maxAttributes
+     *            the maximum number of attributes
+     */
+    public void setMaxAttributes(int maxAttributes) {
+        this.maxAttributes = maxAttributes;
+    }
+
+    /**
+     * Returns the maximum length of a run of text.
+     * 
+     * @return the maximum text length
+     */
+    public int getMaxTextLength() {
+        return maxTextLength;
+    }
+
+    /**
+     * Sets the maximum length of a run of text between two tags, which
+     * bounds the size of a text node. Truncating drops the rest of the run.
+     * 
+     * @param maxTextLength
+     *            the maximum text length
+     */
+    public void setMaxTextLength(int maxTextLength) {
+        this.maxTextLength = maxTextLength;
+    }
+
+    /**
+     * Returns the maximum length of a comment, a doctype identifier, a tag
+     * name, an attribute name or an attribute value.
+     * 
+     * @return the maximum token length
+     */
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * Sets the maximum length of a comment, a doctype identifier, a tag
+     * name, an attribute name or an attribute value. Truncating drops the
+     * rest of it.
+     * 
+     * @param maxTokenLength
+     *            the maximum token length
+     */
+    public void setMaxTokenLength(int maxTokenLength) {
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    /**
+     * Returns the maximum number of elements in a document.
+     * 
+     * @return the maximum number of elements
+     */
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Sets the maximum number of elements in a document, counting the ones
+     * the parser makes up, such as the copies of misnested formatting
+     * elements. Truncating ends the document after the token that goes over
+     * it.
+     * 
+     * @param maxElements
+     *            the maximum number of elements
+     */
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Returns the maximum length of a document in UTF-16 code units.
+     * 
+     * @return the maximum input length
+     */
+    public long getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * Sets the maximum length of a document in UTF-16 code units. Truncating
+     * parses the document as if the input ended there.
+     * 
+     * @param maxInputLength
+     *            the maximum input length
+     */
+    public void setMaxInputLength(long maxInputLength) {
+        this.maxInputLength = maxInputLength;
+    }
+
+    /**
+     * Returns what happens when a limit is reached.
+     * 
+     * @return the policy
+     */
+    public LimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sets what happens when a limit is reached. The default is
+     * <code>FATAL</code>.
+     * 
+     * @param policy
+     *            the policy
+     */
+    public void setPolicy(LimitPolicy policy) {
+        this.policy = policy;
+    }
+}
@@ -23,11 +23,13 @@
 
 package nu.validator.htmlparser.dom;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -36,9 +38,11 @@ import javax.xml.parsers.ParserConfigurationException;
 import nu.validator.htmlparser.common.CharacterHandler;
 import nu.validator.htmlparser.common.DocumentModeHandler;
 import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.common.ParserLimits;
 import nu.validator.htmlparser.common.TokenHandler;
 import nu.validator.htmlparser.common.TransitionHandler;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.impl.AttributeValueCache;
 import nu.validator.htmlparser.impl.ErrorReportingTokenizer;
 import nu.validator.htmlparser.impl.Tokenizer;
 import nu.validator.htmlparser.io.Driver;
@@ -75,6 +79,12 @@ import org.xml.sax.SAXException;
  * <p>The form pointer is also stored as user data with the key 
  * <code>nu.validator.form-pointer</code>.
  * 
+ * <p>An instance can be used for any number of parses one after another and 
+ * keeps its internal buffers between them, so reusing one instance is 
+ * cheaper than creating a new one for each document. Instances are not 
+ * thread-safe; use one per thread (for example, via a 
+ * <code>ThreadLocal</code>) when parsing concurrently.
+ * 
  * @version $Id$
  * @author hsivonen
  */
@@ -125,6 +135,10 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
 
     private boolean scriptingEnabled = false;
 
+    private int adoptionAgencyBudget = Integer.MAX_VALUE;
+
+    private ParserLimits limits = null;
+
     private final List<CharacterHandler> characterHandlers = new LinkedList<CharacterHandler>();
     
     private XmlViolationPolicy contentSpacePolicy = XmlViolationPolicy.FATAL;
@@ -139,6 +153,8 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
     
     private boolean mappingLangToXmlLang = false;
 
+    private AttributeValueCache attributeValueCache = null;
+
     private XmlViolationPolicy xmlnsPolicy = XmlViolationPolicy.FATAL;
     
     private boolean reportingDoctype = true;
@@ -147,6 +163,12 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
 
     private Heuristics heuristics = Heuristics.NONE;
 
+    private int rewindLimit = Integer.MAX_VALUE;
+
+    private boolean pipelined = false;
+
+    private Executor speculationExecutor = null;
+
     private TransitionHandler transitionHandler = null;
 
     /**
@@ -219,13 +241,19 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
             this.driver.setContentNonXmlCharPolicy(contentNonXmlCharPolicy);
             this.driver.setContentSpacePolicy(contentSpacePolicy);
             this.driver.setMappingLangToXmlLang(mappingLangToXmlLang);
+            this.driver.setAttributeValueCache(attributeValueCache);
             this.driver.setXmlnsPolicy(xmlnsPolicy);
             this.driver.setHeuristics(heuristics);
+            this.driver.setRewindLimit(rewindLimit);
+            this.driver.setPipelined(pipelined);
+            this.driver.setSpeculationExecutor(speculationExecutor);
             for (CharacterHandler characterHandler : characterHandlers) {
                 this.driver.addCharacterHandler(characterHandler);
             }
             this.treeBuilder.setDocumentModeHandler(documentModeHandler);
             this.treeBuilder.setScriptingEnabled(scriptingEnabled);
+            this.treeBuilder.setAdoptionAgencyBudget(adoptionAgencyBudget);
+            this.driver.setLimits(limits);
             this.treeBuilder.setReportingDoctype(reportingDoctype);
             this.treeBuilder.setNamePolicy(namePolicy);
         }
@@ -313,6 +341,61 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
         return treeBuilder.getDocument();
     }
 
+    /**
+     * Parses a local file by mapping it into memory instead of reading it
+     * through a stream.
+     * @param file the file
+     * @return the doc
+     * @throws SAXException if stuff goes wrong
+     * @throws IOException if the file could not be mapped
+     * @see javax.xml.parsers.DocumentBuilder#parse(java.io.File)
+     */
+    @Override public Document parse(File file) throws SAXException,
+            IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        treeBuilder.setFragmentContext(null);
+        if (driver == null) lazyInit();
+        driver.tokenize(file);
+        return treeBuilder.getDocument();
+    }
+
+    /**
+     * Parses a document held in memory. The tokenizer runs over the array
+     * without going through a <code>Reader</code>.
+     * @param buf the document
+     * @param offset the start of the document in the array
+     * @param length the length of the document
+     * @return the doc
+     * @throws SAXException if stuff goes wrong
+     * @throws IOException if a character handler threw
+     */
+    public Document parse(char[] buf, int offset, int length)
+            throws SAXException, IOException {
+        treeBuilder.setFragmentContext(null);
+        if (driver == null) lazyInit();
+        driver.tokenize(buf, offset, length);
+        return treeBuilder.getDocument();
+    }
+
+    /**
+     * Parses a document held in memory as a <code>CharSequence</code>.
+     * (<code>parse(String)</code> takes a URI, as in
+     * <code>DocumentBuilder</code>.)
+     * @param text the document
+     * @return the doc
+     * @throws SAXException if stuff goes wrong
+     * @throws IOException if a character handler threw
+     */
+    public Document parseCharSequence(CharSequence text) throws SAXException,
+            IOException {
+        treeBuilder.setFragmentContext(null);
+        if (driver == null) lazyInit();
+        driver.tokenize(text);
+        return treeBuilder.getDocument();
+    }
+
     /**
      * Parses a document fragment from a SAX <code>InputSource</code> with 
      * an HTML element as the fragment context.
@@ -450,6 +533,55 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
         }
     }
 
+    /**
+     * Returns the adoption agency budget.
+     * 
+     * @return the adoption agency budget
+     * @see nu.validator.htmlparser.impl.TreeBuilder#getAdoptionAgencyBudget()
+     */
+    public int getAdoptionAgencyBudget() {
+        return adoptionAgencyBudget;
+    }
+
+    /**
+     * Sets how much work misnested formatting elements may cost per
+     * document before they are treated like ordinary elements.
+     * 
+     * @param adoptionAgencyBudget the adoption agency budget to set
+     * @see nu.validator.htmlparser.impl.TreeBuilder#setAdoptionAgencyBudget(int)
+     */
+    public void setAdoptionAgencyBudget(int adoptionAgencyBudget) {
+        this.adoptionAgencyBudget = adoptionAgencyBudget;
+        if (treeBuilder != null) {
+            treeBuilder.setAdoptionAgencyBudget(adoptionAgencyBudget);
+        }
+    }
+
+    /**
+     * Returns the limits.
+     * 
+     * @return the limits or <code>null</code> if there are none
+     * @see nu.validator.htmlparser.impl.Tokenizer#getLimits()
+     */
+    public ParserLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Sets the limits on how large and deep a document may get and what
+     * happens when it goes over them. <code>null</code> (the default) means
+     * no limits.
+     * 
+     * @param limits the limits to set
+     * @see nu.validator.htmlparser.impl.Tokenizer#setLimits(nu.validator.htmlparser.common.ParserLimits)
+     */
+    public void setLimits(ParserLimits limits) {
+        this.limits = limits;
+        if (driver != null) {
+            driver.setLimits(limits);
+        }
+    }
+
     /**
      * Returns the document mode handler.
      * 
@@ -499,6 +631,32 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
         return driver.getDocumentLocator();
     }
 
+    /**
+     * Returns the number of times a late internal encoding declaration made
+     * the document be parsed again. The count is kept by the underlying
+     * driver, which starts over when a setting that the tokenizer is
+     * built with changes.
+     * 
+     * @return the number of reparses
+     * @see nu.validator.htmlparser.io.Driver#getReparseCount()
+     */
+    public long getReparseCount() {
+        return driver == null ? 0 : driver.getReparseCount();
+    }
+
+    /**
+     * Returns the number of times a late internal encoding declaration
+     * changed the encoding without parsing the document again, because the
+     * document had been ASCII up to that point. Kept like
+     * <code>getReparseCount()</code>.
+     * 
+     * @return the number of encoding changes without a reparse
+     * @see nu.validator.htmlparser.io.Driver#getInPlaceEncodingChangeCount()
+     */
+    public long getInPlaceEncodingChangeCount() {
+        return driver == null ? 0 : driver.getInPlaceEncodingChangeCount();
+    }
+
     /**
      * Whether <code>lang</code> is mapped to <code>xml:lang</code>.
      * @param mappingLangToXmlLang
@@ -520,6 +678,29 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
         return mappingLangToXmlLang;
     }
 
+    /**
+     * Sets the cache that lets repeated attribute values share one
+     * <code>String</code> instance. The cache keeps hit and miss counts, so
+     * it should not be shared with other parsers used at the same time.
+     * @param attributeValueCache the cache or <code>null</code> for none
+     * @see nu.validator.htmlparser.impl.Tokenizer#setAttributeValueCache(nu.validator.htmlparser.impl.AttributeValueCache)
+     */
+    public void setAttributeValueCache(AttributeValueCache attributeValueCache) {
+        this.attributeValueCache = attributeValueCache;
+        if (driver != null) {
+            driver.setAttributeValueCache(attributeValueCache);
+        }
+    }
+
+    /**
+     * Returns the cache for repeated attribute values.
+     * 
+     * @return the cache or <code>null</code>
+     */
+    public AttributeValueCache getAttributeValueCache() {
+        return attributeValueCache;
+    }
+
     /**
      * Whether the <code>xmlns</code> attribute on the root element is 
      * passed to through. (FATAL not allowed.)
@@ -622,6 +803,60 @@ public class HtmlDocumentBuilder extends DocumentBuilder {
         return this.heuristics;
     }
 
+    /**
+     * Sets the number of bytes kept for reading a byte stream again when an
+     * internal encoding declaration calls for it.
+     * 
+     * @param rewindLimit the rewindLimit to set
+     * @see nu.validator.htmlparser.io.Driver#setRewindLimit(int)
+     */
+    public void setRewindLimit(int rewindLimit) {
+        this.rewindLimit = rewindLimit;
+        if (driver != null) {
+            driver.setRewindLimit(rewindLimit);
+        }
+    }
+
+    public int getRewindLimit() {
+        return this.rewindLimit;
+    }
+
+    /**
+     * Sets whether byte streams are decoded on a thread of their own while
+     * the calling thread parses.
+     * 
+     * @param pipelined the pipelined to set
+     * @see nu.validator.htmlparser.io.Driver#setPipelined(boolean)
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+        if (driver != null) {
+            driver.setPipelined(pipelined);
+        }
+    }
+
+    public boolean isPipelined() {
+        return this.pipelined;
+    }
+
+    /**
+     * Sets the executor on which large documents given as chars are
+     * tokenized ahead in chunks while the calling thread builds the tree.
+     * 
+     * @param speculationExecutor the speculationExecutor to set
+     * @see nu.validator.htmlparser.io.Driver#setSpeculationExecutor(Executor)
+     */
+    public void setSpeculationExecutor(Executor speculationExecutor) {
+        this.speculationExecutor = speculationExecutor;
+        if (driver != null) {
+            driver.setSpeculationExecutor(speculationExecutor);
+        }
+    }
+
+    public Executor getSpeculationExecutor() {
+        return this.speculationExecutor;
+    }
+
     /**
      * This is a catch-all convenience method for setting name, xmlns, content space, 
      * content non-XML char and comment policies in one go. This does not affect the 
@@ -0,0 +1,758 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.extra;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.validator.htmlparser.common.ByteReadable;
+import nu.validator.htmlparser.io.Encoding;
+
+/**
+ * Guesses the encoding of a document from the bytes that are not ASCII. It
+ * does not use a third-party detector.
+ *
+ * <p>One pass over the bytes does all the work:
+ * <ul>
+ * <li>UTF-8 is checked for validity.</li>
+ * <li>The double-byte encodings are checked for structure and score the
+ * characters that are common in their language.</li>
+ * <li>The bytes from 0x80 up are counted, noting those next to ASCII
+ * letters.</li>
+ * </ul>
+ * Each single-byte encoding, windows-1252 included, is then scored from the
+ * counts once for every language written in it, with common letters scoring
+ * much more than rare ones and letters the language does not use scoring
+ * less than nothing. Letters of a non-Latin script next to ASCII letters
+ * are penalized. Another encoding has to beat windows-1252 by a margin.
+ * The tables are built once from the decoders and encoders in
+ * <code>nu.validator.encoding</code>. Sniffing allocates nothing, so one
+ * instance per thread can be reused.
+ *
+ * <p>Like the other sniffers in this package, this one returns
+ * <code>null</code> rather than windows-1252 or an encoding that is not an
+ * ASCII superset.
+ */
+public class StatisticalSniffer {
+
+    /**
+     * The score of a byte that decodes to a control or an unmapped
+     * character.
+     */
+    private static final int INVALID = -20;
+
+    /**
+     * The score of a byte that decodes to a symbol that is unlikely in
+     * text.
+     */
+    private static final int SYMBOL = -4;
+
+    /**
+     * The score of a letter that the language being scored does not use.
+     */
+    private static final int FOREIGN = -6;
+
+    /**
+     * The score of a letter of a non-Latin script next to an ASCII letter
+     * instead of its own.
+     */
+    private static final int MIXED_SCRIPT = -20;
+
+    /**
+     * How much more than windows-1252 in the Western language that suits it
+     * best another encoding has to score. A stray accented letter in
+     * English is not evidence for another encoding.
+     */
+    private static final int MARGIN = 8;
+
+    /**
+     * The score of a two-byte character per tier.
+     */
+    private static final int PAIR_SCORE = 12;
+
+    private static final int DEAD = -1;
+
+    private static final int EUC_JP_THREE_SECOND = -2;
+
+    private static final int EUC_JP_THREE_THIRD = -3;
+
+    private static final int GBK_FOUR_THIRD = -4;
+
+    private static final int GBK_FOUR_FOURTH = -5;
+
+    private static final int SHIFT_JIS = 0;
+
+    private static final int EUC_JP = 1;
+
+    private static final int EUC_KR = 2;
+
+    private static final int GBK = 3;
+
+    private static final int BIG5 = 4;
+
+    private static final String[] WESTERN_LANGUAGES = {
+            StatisticalSnifferData.FRENCH, StatisticalSnifferData.GERMAN,
+            StatisticalSnifferData.SPANISH, StatisticalSnifferData.PORTUGUESE,
+            StatisticalSnifferData.ITALIAN, StatisticalSnifferData.CATALAN,
+            StatisticalSnifferData.SWEDISH, StatisticalSnifferData.FINNISH,
+            StatisticalSnifferData.DANISH, StatisticalSnifferData.ICELANDIC };
+
+    private static final int[][] WESTERN_FREQUENCIES = {
+            StatisticalSnifferData.FRENCH_FREQUENCIES,
+            StatisticalSnifferData.GERMAN_FREQUENCIES,
+            StatisticalSnifferData.SPANISH_FREQUENCIES,
+            StatisticalSnifferData.PORTUGUESE_FREQUENCIES,
+            StatisticalSnifferData.ITALIAN_FREQUENCIES,
+            StatisticalSnifferData.CATALAN_FREQUENCIES,
+            StatisticalSnifferData.SWEDISH_FREQUENCIES,
+            StatisticalSnifferData.FINNISH_FREQUENCIES,
+            StatisticalSnifferData.DANISH_FREQUENCIES,
+            StatisticalSnifferData.ICELANDIC_FREQUENCIES };
+
+    private static final String[] CENTRAL_LANGUAGES = {
+            StatisticalSnifferData.POLISH, StatisticalSnifferData.CZECH,
+            StatisticalSnifferData.HUNGARIAN, StatisticalSnifferData.ROMANIAN,
+            StatisticalSnifferData.CROATIAN };
+
+    private static final int[][] CENTRAL_FREQUENCIES = {
+            StatisticalSnifferData.POLISH_FREQUENCIES,
+            StatisticalSnifferData.CZECH_FREQUENCIES,
+            StatisticalSnifferData.HUNGARIAN_FREQUENCIES,
+            StatisticalSnifferData.ROMANIAN_FREQUENCIES,
+            StatisticalSnifferData.CROATIAN_FREQUENCIES };
+
+    private static final nu.validator.encoding.Encoding[] MULTI_BYTE_SOURCES = {
+            nu.validator.encoding.Encoding.SHIFT_JIS,
+            nu.validator.encoding.Encoding.EUC_JP,
+            nu.validator.encoding.Encoding.EUC_KR,
+            nu.validator.encoding.Encoding.GBK,
+            nu.validator.encoding.Encoding.BIG5 };
+
+    private static final String[] MULTI_BYTE_LANGUAGES = {
+            StatisticalSnifferData.JAPANESE, StatisticalSnifferData.JAPANESE,
+            StatisticalSnifferData.KOREAN,
+            StatisticalSnifferData.SIMPLIFIED_CHINESE,
+            StatisticalSnifferData.TRADITIONAL_CHINESE };
+
+    /**
+     * The score of each byte from 0x80 to 0xFF as windows-1252 for each
+     * Western language.
+     */
+    private static final byte[][] WINDOWS_1252_SCORES = new byte[WESTERN_LANGUAGES.length][];
+
+    /**
+     * The encoding to return for each single-byte candidate, which is an
+     * encoding other than windows-1252 paired with a language written in
+     * it, or <code>null</code> if the JDK lacks the encoding.
+     */
+    private static final Encoding[] SINGLE_BYTE_ENCODINGS;
+
+    /**
+     * For each single-byte candidate, the score of each byte from 0x80 to
+     * 0xFF.
+     */
+    private static final byte[][] SINGLE_BYTE_SCORES;
+
+    /**
+     * For each single-byte candidate, <code>MIXED_SCRIPT</code> for each
+     * byte from 0x80 to 0xFF that is a letter of a non-Latin script and 0
+     * otherwise.
+     */
+    private static final byte[][] MIXED_SCRIPT_SCORES;
+
+    private static final Encoding[] MULTI_BYTE_ENCODINGS = new Encoding[MULTI_BYTE_SOURCES.length];
+
+    /**
+     * The tier of each two-byte sequence for each double-byte candidate, two
+     * bits per sequence.
+     */
+    private static final int[][] PAIR_TIERS = new int[MULTI_BYTE_SOURCES.length][];
+
+    static {
+        char[] windows1252 = decode(nu.validator.encoding.Encoding.WINDOWS_1252);
+        for (int i = 0; i < WESTERN_LANGUAGES.length; i++) {
+            WINDOWS_1252_SCORES[i] = scores(windows1252,
+                    WESTERN_LANGUAGES[i], WESTERN_FREQUENCIES[i]);
+        }
+        List<Encoding> encodings = new ArrayList<Encoding>();
+        List<byte[]> scores = new ArrayList<byte[]>();
+        List<byte[]> mixedScripts = new ArrayList<byte[]>();
+        for (int i = 0; i < CENTRAL_LANGUAGES.length; i++) {
+            addCandidate(encodings, scores, mixedScripts,
+                    nu.validator.encoding.Encoding.WINDOWS_1250,
+                    CENTRAL_LANGUAGES[i], CENTRAL_FREQUENCIES[i], true);
+            addCandidate(encodings, scores, mixedScripts,
+                    nu.validator.encoding.Encoding.ISO_8859_2,
+                    CENTRAL_LANGUAGES[i], CENTRAL_FREQUENCIES[i], true);
+        }
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_1254,
+                StatisticalSnifferData.TURKISH,
+                StatisticalSnifferData.TURKISH_FREQUENCIES, true);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_1251,
+                StatisticalSnifferData.CYRILLIC,
+                StatisticalSnifferData.CYRILLIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.KOI8_R,
+                StatisticalSnifferData.CYRILLIC,
+                StatisticalSnifferData.CYRILLIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.IBM866,
+                StatisticalSnifferData.CYRILLIC,
+                StatisticalSnifferData.CYRILLIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.ISO_8859_5,
+                StatisticalSnifferData.CYRILLIC,
+                StatisticalSnifferData.CYRILLIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_1253,
+                StatisticalSnifferData.GREEK,
+                StatisticalSnifferData.GREEK_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.ISO_8859_7,
+                StatisticalSnifferData.GREEK,
+                StatisticalSnifferData.GREEK_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_1255,
+                StatisticalSnifferData.HEBREW,
+                StatisticalSnifferData.HEBREW_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_1256,
+                StatisticalSnifferData.ARABIC,
+                StatisticalSnifferData.ARABIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.ISO_8859_6,
+                StatisticalSnifferData.ARABIC,
+                StatisticalSnifferData.ARABIC_FREQUENCIES, false);
+        addCandidate(encodings, scores, mixedScripts,
+                nu.validator.encoding.Encoding.WINDOWS_874,
+                StatisticalSnifferData.THAI,
+                StatisticalSnifferData.THAI_FREQUENCIES, false);
+        SINGLE_BYTE_ENCODINGS = encodings.toArray(new Encoding[encodings.size()]);
+        SINGLE_BYTE_SCORES = scores.toArray(new byte[scores.size()][]);
+        MIXED_SCRIPT_SCORES = mixedScripts.toArray(new byte[mixedScripts.size()][]);
+        for (int i = 0; i < MULTI_BYTE_SOURCES.length; i++) {
+            MULTI_BYTE_ENCODINGS[i] = toHtmlEncoding(MULTI_BYTE_SOURCES[i]);
+            PAIR_TIERS[i] = pairTiers(MULTI_BYTE_SOURCES[i],
+                    MULTI_BYTE_LANGUAGES[i]);
+        }
+    }
+
+    private static char[] decode(nu.validator.encoding.Encoding encoding) {
+        CharsetDecoder decoder = encoding.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] chars = new char[0x80];
+        ByteBuffer in = ByteBuffer.allocate(1);
+        CharBuffer out = CharBuffer.allocate(2);
+        for (int b = 0x80; b <= 0xFF; b++) {
+            decoder.reset();
+            ((Buffer) in).clear();
+            in.put((byte) b);
+            ((Buffer) in).flip();
+            ((Buffer) out).clear();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+            ((Buffer) out).flip();
+            chars[b - 0x80] = out.remaining() == 1 ? out.get() : '\uFFFD';
+        }
+        return chars;
+    }
+
+    private static byte[] scores(char[] chars, String letters,
+            int[] frequencies) {
+        byte[] scores = new byte[0x80];
+        for (int b = 0; b < 0x80; b++) {
+            scores[b] = (byte) charScore(chars[b], letters, frequencies);
+        }
+        return scores;
+    }
+
+    private static void addCandidate(List<Encoding> encodings,
+            List<byte[]> scores, List<byte[]> mixedScripts,
+            nu.validator.encoding.Encoding encoding, String letters,
+            int[] frequencies, boolean latin) {
+        byte[] candidateScores = scores(decode(encoding), letters,
+                frequencies);
+        byte[] mixedScript = new byte[0x80];
+        for (int b = 0; b < 0x80; b++) {
+            if (!latin && candidateScores[b] > 0) {
+                mixedScript[b] = MIXED_SCRIPT;
+            }
+        }
+        encodings.add(toHtmlEncoding(encoding));
+        scores.add(candidateScores);
+        mixedScripts.add(mixedScript);
+    }
+
+    private static Encoding toHtmlEncoding(
+            nu.validator.encoding.Encoding encoding) {
+        try {
+            Encoding enc = Encoding.forName(encoding.name());
+            Encoding actual = enc.getActualHtmlEncoding();
+            if (actual != null) {
+                enc = actual;
+            }
+            if (enc != Encoding.WINDOWS1252 && enc.isAsciiSuperset()) {
+                return enc;
+            }
+        } catch (UnsupportedCharsetException e) {
+        }
+        return null;
+    }
+
+    /**
+     * Scores a letter by its frequency: two points for each doubling from
+     * once in 10,000 letters. Capital letters are assumed to be 20 times
+     * rarer than small ones.
+     */
+    private static int letterScore(int frequency) {
+        return 1 + (int) Math.round(2 * Math.log(Math.max(1, frequency))
+                / Math.log(2));
+    }
+
+    private static int charScore(char c, String letters, int[] frequencies) {
+        int index = letters.indexOf(c);
+        if (index != -1) {
+            return letterScore(frequencies[index]);
+        }
+        char lower = Character.toLowerCase(c);
+        if (lower != c) {
+            index = letters.indexOf(lower);
+            if (index != -1) {
+                return letterScore(frequencies[index] / 20);
+            }
+        }
+        if (c == '\uFFFD') {
+            return INVALID;
+        }
+        if (Character.isLetter(c)) {
+            return FOREIGN;
+        }
+        if (c <= '\u00FF') {
+            // Latin-1 symbols such as the copyright sign are common.
+            return Character.isISOControl(c) ? INVALID : 0;
+        }
+        switch (Character.getType(c)) {
+            case Character.NON_SPACING_MARK:
+            case Character.SPACE_SEPARATOR:
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.CURRENCY_SYMBOL:
+                return 0;
+            case Character.CONTROL:
+            case Character.UNASSIGNED:
+            case Character.PRIVATE_USE:
+                return INVALID;
+            default:
+                return SYMBOL;
+        }
+    }
+
+    /**
+     * Returns 3, 2 or 1 depending on which third of the language the
+     * character at <code>index</code> is in.
+     */
+    private static int tier(int index, String language) {
+        return 3 - (index * 3 / language.length());
+    }
+
+    private static int[] pairTiers(nu.validator.encoding.Encoding encoding,
+            String language) {
+        CharsetEncoder encoder = encoding.newEncoder();
+        int[] tiers = new int[0x10000 >> 4];
+        for (int i = 0; i < language.length(); i++) {
+            ByteBuffer bytes;
+            try {
+                bytes = encoder.encode(CharBuffer.wrap(language, i, i + 1));
+            } catch (CharacterCodingException e) {
+                continue;
+            }
+            if (bytes.remaining() != 2) {
+                continue;
+            }
+            int pair = ((bytes.get(0) & 0xFF) << 8) | (bytes.get(1) & 0xFF);
+            tiers[pair >> 4] |= tier(i, language) << ((pair & 0xF) << 1);
+        }
+        return tiers;
+    }
+
+    /**
+     * How many times each byte from 0x80 up occurred.
+     */
+    private final int[] counts = new int[0x80];
+
+    /**
+     * How many times each byte from 0x80 up was next to an ASCII letter.
+     */
+    private final int[] mixedCounts = new int[0x80];
+
+    /**
+     * The bytes from 0x80 up that occurred, less 0x80.
+     */
+    private final int[] seen = new int[0x80];
+
+    private int seenLength;
+
+    private final int[] multiByteScores = new int[MULTI_BYTE_SOURCES.length];
+
+    /**
+     * For each double-byte candidate, 0 between characters, the lead byte
+     * of a two-byte sequence, <code>DEAD</code> once the input is not
+     * valid or one of the states of a longer sequence.
+     */
+    private final int[] multiByteStates = new int[MULTI_BYTE_SOURCES.length];
+
+    private int previous;
+
+    private boolean utf8Valid;
+
+    private int utf8Sequences;
+
+    private int utf8Needed;
+
+    private int utf8Lower;
+
+    private int utf8Upper;
+
+    public StatisticalSniffer() {
+    }
+
+    /**
+     * Reads <code>source</code> to its end and guesses its encoding.
+     *
+     * @param source
+     *            the start of the document
+     * @return the encoding or <code>null</code> if there was no good guess
+     *         other than windows-1252
+     * @throws IOException
+     *             if reading threw
+     */
+    public Encoding sniff(ByteReadable source) throws IOException {
+        reset();
+        int b;
+        while ((b = source.readByte()) != -1) {
+            consume(b);
+        }
+        return guess();
+    }
+
+    /**
+     * Guesses the encoding of the bytes in <code>source</code> from
+     * <code>offset</code> to <code>offset + length</code>.
+     *
+     * @param source
+     *            the array holding the start of the document
+     * @param offset
+     *            the start of the document in the array
+     * @param length
+     *            the number of bytes to look at
+     * @return the encoding or <code>null</code> if there was no good guess
+     *         other than windows-1252
+     */
+    public Encoding sniff(byte[] source, int offset, int length) {
+        reset();
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            consume(source[i] & 0xFF);
+        }
+        return guess();
+    }
+
+    private void reset() {
+        for (int i = 0; i < seenLength; i++) {
+            counts[seen[i]] = 0;
+            mixedCounts[seen[i]] = 0;
+        }
+        seenLength = 0;
+        for (int i = 0; i < multiByteScores.length; i++) {
+            multiByteScores[i] = 0;
+            multiByteStates[i] = 0;
+        }
+        previous = 0;
+        utf8Valid = true;
+        utf8Sequences = 0;
+        utf8Needed = 0;
+    }
+
+    private static boolean isAsciiLetter(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private void consume(int b) {
+        if (b >= 0x80) {
+            int i = b - 0x80;
+            if (counts[i]++ == 0) {
+                seen[seenLength++] = i;
+            }
+            if (isAsciiLetter(previous)) {
+                mixedCounts[i]++;
+            }
+        } else if (previous < 0x80) {
+            previous = b;
+            return;
+        } else if (isAsciiLetter(b)) {
+            mixedCounts[previous - 0x80]++;
+        }
+        if (utf8Valid) {
+            utf8(b);
+        }
+        shiftJis(b);
+        eucJp(b);
+        eucKr(b);
+        gbk(b);
+        big5(b);
+        previous = b;
+    }
+
+    private void utf8(int b) {
+        if (utf8Needed == 0) {
+            if (b < 0x80) {
+                return;
+            }
+            utf8Lower = 0x80;
+            utf8Upper = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                utf8Needed = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                if (b == 0xE0) {
+                    utf8Lower = 0xA0;
+                } else if (b == 0xED) {
+                    utf8Upper = 0x9F;
+                }
+                utf8Needed = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                if (b == 0xF0) {
+                    utf8Lower = 0x90;
+                } else if (b == 0xF4) {
+                    utf8Upper = 0x8F;
+                }
+                utf8Needed = 3;
+            } else {
+                utf8Valid = false;
+            }
+            return;
+        }
+        if (b < utf8Lower || b > utf8Upper) {
+            utf8Valid = false;
+            return;
+        }
+        utf8Lower = 0x80;
+        utf8Upper = 0xBF;
+        if (--utf8Needed == 0) {
+            utf8Sequences++;
+        }
+    }
+
+    /**
+     * Adds the score of a complete two-byte character.
+     */
+    private void pair(int candidate, int lead, int trail) {
+        int pair = (lead << 8) | trail;
+        int tier = (PAIR_TIERS[candidate][pair >> 4] >>> ((pair & 0xF) << 1)) & 3;
+        multiByteScores[candidate] += tier * PAIR_SCORE;
+        multiByteStates[candidate] = 0;
+    }
+
+    private void shiftJis(int b) {
+        int state = multiByteStates[SHIFT_JIS];
+        if (state == DEAD) {
+            return;
+        }
+        if (state == 0) {
+            if ((b >= 0x81 && b <= 0x9F) || (b >= 0xE0 && b <= 0xFC)) {
+                multiByteStates[SHIFT_JIS] = b;
+            } else if (b >= 0x80 && (b < 0xA1 || b > 0xDF)) {
+                multiByteStates[SHIFT_JIS] = DEAD;
+            }
+        } else if ((b >= 0x40 && b <= 0x7E) || (b >= 0x80 && b <= 0xFC)) {
+            pair(SHIFT_JIS, state, b);
+        } else {
+            multiByteStates[SHIFT_JIS] = DEAD;
+        }
+    }
+
+    private void eucJp(int b) {
+        int state = multiByteStates[EUC_JP];
+        if (state == DEAD) {
+            return;
+        }
+        boolean inRange = b >= 0xA1 && b <= 0xFE;
+        switch (state) {
+            case 0:
+                if (b == 0x8F) {
+                    multiByteStates[EUC_JP] = EUC_JP_THREE_SECOND;
+                } else if (b == 0x8E || inRange) {
+                    multiByteStates[EUC_JP] = b;
+                } else if (b >= 0x80) {
+                    multiByteStates[EUC_JP] = DEAD;
+                }
+                return;
+            case 0x8E:
+                multiByteStates[EUC_JP] = (b >= 0xA1 && b <= 0xDF) ? 0 : DEAD;
+                return;
+            case EUC_JP_THREE_SECOND:
+                multiByteStates[EUC_JP] = inRange ? EUC_JP_THREE_THIRD : DEAD;
+                return;
+            case EUC_JP_THREE_THIRD:
+                multiByteStates[EUC_JP] = inRange ? 0 : DEAD;
+                return;
+            default:
+                if (inRange) {
+                    pair(EUC_JP, state, b);
+                } else {
+                    multiByteStates[EUC_JP] = DEAD;
+                }
+                return;
+        }
+    }
+
+    private void eucKr(int b) {
+        int state = multiByteStates[EUC_KR];
+        if (state == DEAD) {
+            return;
+        }
+        if (state == 0) {
+            if (b >= 0x81 && b <= 0xFE) {
+                multiByteStates[EUC_KR] = b;
+            } else if (b >= 0x80) {
+                multiByteStates[EUC_KR] = DEAD;
+            }
+        } else if (b >= 0x41 && b <= 0xFE) {
+            pair(EUC_KR, state, b);
+        } else {
+            multiByteStates[EUC_KR] = DEAD;
+        }
+    }
+
+    private void gbk(int b) {
+        int state = multiByteStates[GBK];
+        switch (state) {
+            case DEAD:
+                return;
+            case 0:
+                if (b >= 0x81 && b <= 0xFE) {
+                    multiByteStates[GBK] = b;
+                } else if (b == 0xFF) {
+                    multiByteStates[GBK] = DEAD;
+                }
+                return;
+            case GBK_FOUR_THIRD:
+                multiByteStates[GBK] = (b >= 0x81 && b <= 0xFE) ? GBK_FOUR_FOURTH
+                        : DEAD;
+                return;
+            case GBK_FOUR_FOURTH:
+                multiByteStates[GBK] = (b >= 0x30 && b <= 0x39) ? 0 : DEAD;
+                return;
+            default:
+                if (b >= 0x30 && b <= 0x39) {
+                    multiByteStates[GBK] = GBK_FOUR_THIRD;
+                } else if ((b >= 0x40 && b <= 0x7E) || (b >= 0x80 && b <= 0xFE)) {
+                    pair(GBK, state, b);
+                } else {
+                    multiByteStates[GBK] = DEAD;
+                }
+                return;
+        }
+    }
+
+    private void big5(int b) {
+        int state = multiByteStates[BIG5];
+        if (state == DEAD) {
+            return;
+        }
+        if (state == 0) {
+            if (b >= 0x81 && b <= 0xFE) {
+                multiByteStates[BIG5] = b;
+            } else if (b >= 0x80) {
+                multiByteStates[BIG5] = DEAD;
+            }
+        } else if ((b >= 0x40 && b <= 0x7E) || (b >= 0xA1 && b <= 0xFE)) {
+            pair(BIG5, state, b);
+        } else {
+            multiByteStates[BIG5] = DEAD;
+        }
+    }
+
+    /**
+     * Picks the candidate that beats windows-1252 by the most, if any beats
+     * it clearly.
+     */
+    private Encoding guess() {
+        if (seenLength == 0) {
+            return null;
+        }
+        if (utf8Valid && utf8Sequences > 0) {
+            return Encoding.UTF8;
+        }
+        int windows1252Score = Integer.MIN_VALUE;
+        for (int l = 0; l < WINDOWS_1252_SCORES.length; l++) {
+            byte[] scores = WINDOWS_1252_SCORES[l];
+            int score = 0;
+            for (int i = 0; i < seenLength; i++) {
+                int b = seen[i];
+                score += counts[b] * scores[b];
+            }
+            windows1252Score = Math.max(windows1252Score, score);
+        }
+        Encoding best = null;
+        int bestScore = windows1252Score + MARGIN;
+        for (int c = 0; c < SINGLE_BYTE_SCORES.length; c++) {
+            byte[] scores = SINGLE_BYTE_SCORES[c];
+            byte[] mixedScript = MIXED_SCRIPT_SCORES[c];
+            int score = 0;
+            for (int i = 0; i < seenLength; i++) {
+                int b = seen[i];
+                score += counts[b] * scores[b] + mixedCounts[b]
+                        * mixedScript[b];
+            }
+            if (score > bestScore) {
+                best = SINGLE_BYTE_ENCODINGS[c];
+                bestScore = score;
+            }
+        }
+        for (int i = 0; i < multiByteScores.length; i++) {
+            int score = multiByteScores[i];
+            if (multiByteStates[i] != DEAD && score > bestScore) {
+                best = MULTI_BYTE_ENCODINGS[i];
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.extra;
+
+/**
+ * The characters other than ASCII that <code>StatisticalSniffer</code> looks
+ * for. Each language written in a single-byte encoding has its letters in
+ * lower case and how many times each occurs per 10,000 letters of text. The
+ * languages written in double-byte encodings have their common characters
+ * roughly in the order of decreasing frequency.
+ */
+final class StatisticalSnifferData {
+
+    /**
+     * French.
+     */
+    static final String FRENCH = "\u00E9\u00E0\u00E8\u00EA\u00E7\u00F9\u00FB\u00EE\u00E2\u00F4\u0153\u00EB"
+            + "\u00EF\u00FF";
+
+    static final int[] FRENCH_FREQUENCIES = {
+            194, 49, 27, 22, 9, 6, 6, 5, 3, 2, 2, 1, 1, 1 };
+
+    /**
+     * German.
+     */
+    static final String GERMAN = "\u00FC\u00E4\u00DF\u00F6";
+
+    static final int[] GERMAN_FREQUENCIES = {
+            65, 54, 31, 30 };
+
+    /**
+     * Spanish.
+     */
+    static final String SPANISH = "\u00F3\u00ED\u00E1\u00E9\u00F1\u00FA\u00FC";
+
+    static final int[] SPANISH_FREQUENCIES = {
+            83, 50, 50, 43, 31, 17, 2 };
+
+    /**
+     * Portuguese.
+     */
+    static final String PORTUGUESE = "\u00E3\u00F4\u00E2\u00E7\u00EA\u00E9\u00F3\u00FA\u00ED\u00E1\u00E0\u00F5";
+
+    static final int[] PORTUGUESE_FREQUENCIES = {
+            73, 64, 56, 53, 45, 34, 30, 21, 13, 12, 7, 4 };
+
+    /**
+     * Italian.
+     */
+    static final String ITALIAN = "\u00E0\u00E8\u00F9\u00EC\u00F2\u00E9";
+
+    static final int[] ITALIAN_FREQUENCIES = {
+            64, 26, 17, 3, 2, 2 };
+
+    /**
+     * Catalan.
+     */
+    static final String CATALAN = "\u00E8\u00E0\u00E9\u00ED\u00F3\u00F2\u00FA\u00E7\u00EF\u00FC";
+
+    static final int[] CATALAN_FREQUENCIES = {
+            47, 54, 39, 43, 34, 16, 10, 8, 5, 2 };
+
+    /**
+     * Swedish.
+     */
+    static final String SWEDISH = "\u00E4\u00E5\u00F6\u00E9";
+
+    static final int[] SWEDISH_FREQUENCIES = {
+            180, 134, 131, 5 };
+
+    /**
+     * Finnish.
+     */
+    static final String FINNISH = "\u00E4\u00F6\u00E5";
+
+    static final int[] FINNISH_FREQUENCIES = {
+            358, 44, 1 };
+
+    /**
+     * Danish and Norwegian.
+     */
+    static final String DANISH = "\u00E5\u00F8\u00E6\u00E9";
+
+    static final int[] DANISH_FREQUENCIES = {
+            119, 94, 87, 5 };
+
+    /**
+     * Icelandic.
+     */
+    static final String ICELANDIC = "\u00F0\u00E1\u00ED\u00FE\u00F3\u00E6\u00F6\u00E9\u00FA\u00FD";
+
+    static final int[] ICELANDIC_FREQUENCIES = {
+            439, 180, 157, 146, 99, 87, 78, 65, 61, 23 };
+
+    /**
+     * Polish.
+     */
+    static final String POLISH = "\u0142\u0119\u0105\u00F3\u017C\u015B\u0107\u0144\u017A";
+
+    static final int[] POLISH_FREQUENCIES = {
+            182, 111, 99, 85, 83, 66, 40, 20, 6 };
+
+    /**
+     * Czech and Slovak.
+     */
+    static final String CZECH = "\u00ED\u011B\u00FD\u00E1\u017E\u0161\u00E9\u010D\u0159\u016F\u00FA\u013E"
+            + "\u00F3\u00F4\u010F\u0165\u0148\u00E4\u013A\u0155";
+
+    static final int[] CZECH_FREQUENCIES = {
+            164, 122, 100, 87, 72, 69, 63, 46, 38, 20, 5, 4, 2, 2, 2, 1, 1, 1,
+            1, 1 };
+
+    /**
+     * Hungarian.
+     */
+    static final String HUNGARIAN = "\u00E9\u00E1\u00F6\u0151\u00F3\u00ED\u00FC\u00FA\u0171";
+
+    static final int[] HUNGARIAN_FREQUENCIES = {
+            330, 300, 100, 90, 90, 60, 50, 30, 10 };
+
+    /**
+     * Romanian.
+     */
+    static final String ROMANIAN = "\u0103\u015F\u0219\u0163\u021B\u00EE\u00E2";
+
+    static final int[] ROMANIAN_FREQUENCIES = {
+            400, 140, 140, 100, 100, 100, 50 };
+
+    /**
+     * Croatian and Slovenian.
+     */
+    static final String CROATIAN = "\u010D\u0161\u0107\u017E\u0111";
+
+    static final int[] CROATIAN_FREQUENCIES = {
+            110, 100, 90, 70, 30 };
+
+    /**
+     * Turkish.
+     */
+    static final String TURKISH = "\u0131\u00FC\u015F\u00E7\u011F\u00F6\u00E2\u00EE\u00FB";
+
+    static final int[] TURKISH_FREQUENCIES = {
+            510, 185, 180, 120, 110, 78, 5, 1, 1 };
+
+    /**
+     * Russian and other languages in Cyrillic.
+     */
+    static final String CYRILLIC = "\u043E\u0435\u0430\u0438\u043D\u0442\u0441\u0440\u0432\u043B\u043A\u043C"
+            + "\u0434\u043F\u0443\u044F\u044B\u044C\u0433\u0437\u0431\u0447\u0439\u0456"
+            + "\u0445\u0436\u0448\u044E\u0457\u0446\u0454\u0449\u044D\u0444\u0458\u045E"
+            + "\u044A\u0451\u0491\u0452\u0459\u045A\u045B\u045F\u0453\u045C\u0455";
+
+    static final int[] CYRILLIC_FREQUENCIES = {
+            1098, 845, 801, 735, 670, 626, 547, 473, 454, 440, 349, 321, 298,
+            281, 262, 201, 190, 174, 170, 165, 159, 144, 121, 100, 97, 94, 73,
+            64, 50, 48, 40, 36, 32, 26, 20, 10, 4, 4, 5, 5, 5, 5, 5, 2, 2, 2,
+            1 };
+
+    /**
+     * Greek.
+     */
+    static final String GREEK = "\u03B1\u03BF\u03C4\u03B9\u03B5\u03BD\u03C1\u03B7\u03C3\u03C5\u03C0\u03BA"
+            + "\u03BC\u03BB\u03C2\u03B4\u03B3\u03AC\u03AF\u03CC\u03AD\u03C9\u03B8\u03C7"
+            + "\u03AE\u03C6\u03CD\u03B2\u03CE\u03BE\u03B6\u03C8\u03CA\u0390\u03CB\u03B0";
+
+    static final int[] GREEK_FREQUENCIES = {
+            1200, 980, 800, 790, 760, 660, 460, 450, 440, 420, 420, 410, 330,
+            280, 260, 180, 180, 150, 150, 140, 130, 140, 120, 100, 100, 80,
+            80, 60, 60, 40, 30, 10, 5, 1, 1, 1 };
+
+    /**
+     * Hebrew.
+     */
+    static final String HEBREW = "\u05D9\u05D5\u05D4\u05DC\u05D0\u05E8\u05DE\u05EA\u05D1\u05E9\u05E0\u05DD"
+            + "\u05E2\u05D3\u05DB\u05D7\u05E7\u05E4\u05E1\u05DF\u05D2\u05D8\u05E6\u05D6"
+            + "\u05DA\u05E3\u05E5";
+
+    static final int[] HEBREW_FREQUENCIES = {
+            1100, 1050, 870, 720, 630, 560, 520, 520, 480, 420, 350, 350, 320,
+            290, 270, 230, 200, 170, 130, 120, 120, 110, 90, 80, 60, 30, 20 };
+
+    /**
+     * Arabic and Persian.
+     */
+    static final String ARABIC = "\u0627\u0644\u064A\u0645\u0648\u0646\u0631\u0647\u0628\u062A\u0639\u062F"
+            + "\u0641\u0643\u0633\u0629\u0642\u062D\u0623\u062C\u0649\u0634\u0637\u0635"
+            + "\u0625\u062E\u0630\u062B\u0636\u0632\u063A\u0621\u0626\u0638\u0622\u0624"
+            + "\u067E\u0686\u06AF\u06A9\u06CC\u0698";
+
+    static final int[] ARABIC_FREQUENCIES = {
+            1250, 1050, 750, 650, 600, 600, 450, 400, 400, 400, 300, 300, 250,
+            250, 250, 250, 230, 200, 200, 150, 150, 100, 100, 100, 100, 80,
+            80, 60, 60, 50, 40, 30, 30, 20, 10, 10, 10, 10, 10, 10, 10, 2 };
+
+    /**
+     * Thai.
+     */
+    static final String THAI = "\u0E32\u0E19\u0E23\u0E01\u0E2D\u0E48\u0E40\u0E07\u0E21\u0E31\u0E22\u0E25"
+            + "\u0E27\u0E14\u0E17\u0E35\u0E34\u0E2A\u0E15\u0E49\u0E2B\u0E30\u0E1B\u0E1A"
+            + "\u0E04\u0E1E\u0E44\u0E02\u0E08\u0E38\u0E41\u0E43\u0E39\u0E33\u0E47\u0E0A"
+            + "\u0E42\u0E37\u0E1C\u0E4C\u0E36\u0E16\u0E18\u0E28\u0E0B\u0E20\u0E0D\u0E1F"
+            + "\u0E29\u0E46\u0E09\u0E1D\u0E10\u0E24\u0E12\u0E2E\u0E0E\u0E0F\u0E11\u0E06"
+            + "\u0E2C";
+
+    static final int[] THAI_FREQUENCIES = {
+            860, 700, 600, 550, 500, 500, 450, 450, 400, 350, 330, 300, 300,
+            300, 300, 300, 300, 290, 260, 250, 250, 200, 200, 200, 200, 200,
+            150, 150, 150, 150, 150, 100, 100, 100, 100, 100, 80, 80, 80, 80,
+            50, 50, 50, 40, 30, 30, 30, 20, 20, 20, 10, 10, 10, 5, 5, 5, 5, 5,
+            5, 1, 1 };
+
+    /**
+     * Japanese.
+     */
+    static final String JAPANESE = "\u3001\u3002\u306E\u306B\u306F\u3092\u305F\u304C\u3067\u3066\u3068\u3057"
+            + "\u308C\u3055\u308B\u3063\u304B\u306A\u3044\u3046\u3082\u307E\u3059\u3089"
+            + "\u3053\u308A\u304F\u3042\u304D\u3051\u3048\u304A\u305D\u305B\u3093\u3061"
+            + "\u3064\u3084\u3088\u308F\u3069\u3060\u3070\u3058\u3054\u3052\u304E\u3050"
+            + "\u305A\u305C\u305E\u3065\u3079\u3073\u3076\u307C\u3071\u3074\u3077\u307A"
+            + "\u307D\u307F\u3080\u3081\u3072\u3075\u3078\u307B\u306D\u306C\u308D\u3086"
+            + "\u3087\u3083\u3085\u3041\u3043\u3045\u3047\u3049\u30FC\u300C\u300D\u30FB"
+            + "\u30F3\u30B9\u30EB\u30C8\u30A4\u30EA\u30AF\u30E9\u30B7\u30C9\u30BF\u30EC"
+            + "\u30AB\u30DE\u30C6\u30ED\u30A2\u30B3\u30D5\u30E1\u30B8\u30D7\u30C3\u30AD"
+            + "\u30C7\u30A3\u30AA\u30B0\u30A8\u30D6\u30B5\u30E5\u30A6\u30DF\u30C1\u30E3"
+            + "\u30D3\u30E7\u30CA\u30CB\u30D0\u30D1\u30CE\u30E2\u30BB\u30BD\u30C4\u30C0"
+            + "\u30CC\u30CF\u30D2\u30D8\u30DB\u30CD\u30BC\u30BE\u30C5\u30D9\u30DC\u30D4"
+            + "\u30DA\u30DD\u30E4\u30E6\u30E8\u30EF\u30F2\u30F4\u30A1\u30A5\u30A7\u30A9"
+            + "\u65E5\u4E00\u56FD\u4F1A\u4EBA\u5E74\u5927\u5341\u4E8C\u672C\u4E2D\u9577"
+            + "\u51FA\u4E09\u6642\u884C\u898B\u6708\u5206\u5F8C\u524D\u751F\u4E94\u9593"
+            + "\u4E0A\u6771\u56DB\u4ECA\u91D1\u4E5D\u5165\u5B66\u9AD8\u5186\u5B50\u5916"
+            + "\u516B\u516D\u4E0B\u6765\u6C17\u5C0F\u4E03\u5C71\u8A71\u5973\u5317\u5348"
+            + "\u767E\u66F8\u5148\u540D\u5DDD\u5343\u6C34\u534A\u7537\u897F\u96FB\u6821"
+            + "\u8A9E\u571F\u6728\u805E\u98DF\u8ECA\u4F55\u5357\u4E07\u6BCE\u767D\u5929"
+            + "\u6BCD\u706B\u53F3\u8AAD\u53CB\u5DE6\u4F11\u7236\u96E8\u4E8B\u81EA\u793E"
+            + "\u8005\u5730\u696D\u65B9\u65B0\u5834\u54E1\u7ACB\u958B\u624B\u529B\u554F"
+            + "\u4EE3\u660E\u52D5\u4EAC\u76EE\u901A\u8A00\u7406\u4F53\u7530\u4E3B\u984C"
+            + "\u610F\u4E0D\u4F5C\u7528\u5EA6\u5F37\u516C\u6301\u91CE\u4EE5\u601D\u5BB6"
+            + "\u4E16\u591A\u6B63\u5B89\u9662\u5FC3\u754C\u6559\u6587\u5143\u91CD\u8FD1"
+            + "\u8003\u753B\u6D77\u58F2\u77E5\u9053\u96C6\u5225\u7269\u4F7F\u54C1\u8A08"
+            + "\u6B7B\u7279\u79C1\u59CB\u671D\u904B\u7D42\u53F0\u5E83\u4F4F\u771F\u6709"
+            + "\u53E3\u5C11\u753A\u6599\u5DE5\u5EFA\u7A7A\u6025\u6B62\u9001\u5207\u8EE2"
+            + "\u7814\u8DB3\u7A76\u697D\u8D77\u7740\u5E97\u75C5\u8CEA\u5F85\u8A66\u65CF"
+            + "\u9280\u65E9\u6620\u89AA\u9A13\u82F1\u533B\u4ED5\u53BB\u5473\u5199\u5B57"
+            + "\u7B54\u591C\u97F3\u6CE8\u5E30\u53E4\u6B4C\u8CB7\u60AA\u56F3\u9031\u5BA4"
+            + "\u6B69\u98A8\u7D19\u9ED2\u82B1\u6625\u8D64\u9752\u9928\u5C4B\u8272\u8D70"
+            + "\u79CB\u590F\u7FD2\u99C5\u6D0B\u65C5\u670D\u5915\u501F\u66DC\u98F2\u8089"
+            + "\u8CB8\u5802\u9CE5\u98EF\u52C9\u51AC\u663C\u8336\u5F1F\u725B\u9B5A\u5144"
+            + "\u72AC\u59B9\u59C9\u6F22\u767A\u8868\u60C5\u5831\u8A18\u653F\u5E9C\u95A2"
+            + "\u4FC2\u7D4C\u6E08\u5185\u5BB9\u5BFE\u5FDC\u5FC5\u8981\u53EF\u80FD\u7D50"
+            + "\u679C\u90E8\u5229\u6700\u5168\u72B6\u6CC1\u822C";
+
+    /**
+     * Chinese in simplified characters.
+     */
+    static final String SIMPLIFIED_CHINESE = "\uFF0C\u3002\u3001\u7684\u4E00\u662F\u4E0D\u4E86\u5728\u4EBA\u6709\u6211"
+            + "\u4ED6\u8FD9\u4E2A\u4EEC\u4E2D\u6765\u4E0A\u5927\u4E3A\u548C\u56FD\u5730"
+            + "\u5230\u4EE5\u8BF4\u65F6\u8981\u5C31\u51FA\u4F1A\u53EF\u4E5F\u4F60\u5BF9"
+            + "\u751F\u80FD\u800C\u5B50\u90A3\u5F97\u4E8E\u7740\u4E0B\u81EA\u4E4B\u5E74"
+            + "\u8FC7\u53D1\u540E\u4F5C\u91CC\u7528\u9053\u884C\u6240\u7136\u5BB6\u79CD"
+            + "\u4E8B\u6210\u65B9\u591A\u7ECF\u4E48\u53BB\u6CD5\u5B66\u5982\u90FD\u540C"
+            + "\u73B0\u5F53\u6CA1\u52A8\u9762\u8D77\u770B\u5B9A\u5929\u5206\u8FD8\u8FDB"
+            + "\u597D\u5C0F\u90E8\u5176\u4E9B\u4E3B\u6837\u7406\u5FC3\u5979\u672C\u524D"
+            + "\u5F00\u4F46\u56E0\u53EA\u4ECE\u60F3\u5B9E\u65E5\u519B\u8005\u610F\u65E0"
+            + "\u529B\u5B83\u4E0E\u957F\u628A\u673A\u5341\u6C11\u7B2C\u516C\u6B64\u5DF2"
+            + "\u5DE5\u4F7F\u60C5\u660E\u6027\u77E5\u5168\u4E09\u53C8\u5173\u70B9\u6B63"
+            + "\u4E1A\u5916\u5C06\u4E24\u9AD8\u95F4\u7531\u95EE\u5F88\u6700\u91CD\u5E76"
+            + "\u7269\u624B\u5E94\u6218\u5411\u5934\u6587\u4F53\u653F\u7F8E\u76F8\u89C1"
+            + "\u88AB\u5229\u4EC0\u4E8C\u7B49\u4EA7\u6216\u65B0\u5DF1\u5236\u8EAB\u679C"
+            + "\u52A0\u897F\u65AF\u6708\u8BDD\u5408\u56DE\u7279\u4EE3\u5185\u4FE1\u8868"
+            + "\u5316\u8001\u7ED9\u4E16\u4F4D\u6B21\u5EA6\u95E8\u4EFB\u5E38\u5148\u6D77"
+            + "\u901A\u6559\u513F\u539F\u4E1C\u58F0\u63D0\u7ACB\u53CA\u6BD4\u5458\u89E3"
+            + "\u6C34\u540D\u771F\u8BBA\u5904\u8D70\u4E49\u5404\u5165\u51E0\u53E3\u8BA4"
+            + "\u6761\u5E73\u7CFB\u6C14\u9898\u6D3B\u5C14\u66F4\u522B\u6253\u5973\u53D8"
+            + "\u56DB\u795E\u603B\u4F55\u7535\u6570\u5B89\u5C11\u62A5\u624D\u7ED3\u53CD"
+            + "\u53D7\u76EE\u592A\u91CF\u518D\u611F\u5EFA\u52A1\u505A\u63A5\u5FC5\u573A"
+            + "\u4EF6\u8BA1\u7BA1\u671F\u5E02\u76F4\u5FB7\u8D44\u547D\u5C71\u91D1\u6307"
+            + "\u514B\u8BB8\u7EDF\u533A\u4FDD\u81F3\u961F\u5F62\u793E\u4FBF\u7A7A\u51B3"
+            + "\u6CBB\u5C55\u9A6C\u79D1\u53F8\u4E94\u57FA\u773C\u4E66\u975E\u5219\u542C"
+            + "\u767D\u5374\u754C\u8FBE\u5149\u653E\u5F3A\u5373\u50CF\u96BE\u4E14\u6743"
+            + "\u601D\u738B\u8C61\u5B8C\u8BBE\u5F0F\u8272\u8DEF\u8BB0\u5357\u54C1\u4F4F"
+            + "\u544A\u7C7B\u6C42\u636E\u7A0B\u5317\u8FB9\u6B7B\u5F20\u8BE5\u4EA4\u89C4"
+            + "\u4E07\u53D6\u62C9\u683C\u671B\u89C9\u672F\u9886\u5171\u786E\u4F20\u5E08"
+            + "\u89C2\u6E05\u4ECA\u5207\u9662\u8BA9\u8BC6\u5019\u5E26\u5BFC\u4E89\u8FD0"
+            + "\u7B11\u98DE\u98CE\u6B65\u6539\u6536\u6839\u5E72\u9020\u8A00\u8054\u6301"
+            + "\u7EC4\u6BCF\u6D4E\u8F66\u4EB2\u6781\u6797\u670D\u5FEB\u529E\u8BAE\u5F80"
+            + "\u5143\u82F1\u58EB\u8BC1\u8FD1\u5931\u8F6C\u592B\u4EE4\u51C6\u5E03\u59CB"
+            + "\u600E\u5462\u5B58\u672A\u8FDC\u53EB\u53F0\u5355\u5F71\u5177\u7F57\u5B57"
+            + "\u7231\u51FB\u6D41\u5907\u5175\u8FDE\u8C03\u6DF1\u5546\u7B97\u8D28\u56E2"
+            + "\u96C6\u767E\u9700\u4EF7\u82B1\u515A\u534E\u57CE\u77F3\u7EA7\u6574\u5E9C"
+            + "\u79BB\u51B5\u4E9A\u8BF7\u6280\u9645\u7EA6\u793A\u590D\u75C5\u606F\u7A76"
+            + "\u7EBF\u4F3C\u5B98\u706B\u65AD\u7CBE\u6EE1\u652F\u89C6\u6D88\u8D8A\u5668"
+            + "\u5BB9\u7167\u987B\u4E5D\u589E\u7814\u5199\u79F0\u4F01\u516B\u529F\u5417"
+            + "\u5305\u7247\u53F2\u59D4\u4E4E\u67E5\u8F7B\u6613\u65E9\u66FE\u9664\u519C"
+            + "\u627E\u88C5\u5E7F\u663E\u5427\u963F\u674E\u6807\u8C08\u5403\u56FE\u5FF5"
+            + "\u516D\u5F15\u5386\u9996\u533B\u5C40\u7A81\u4E13\u8D39\u53F7\u5C3D\u53E6"
+            + "\u5468\u8F83\u6CE8\u8BED\u4EC5\u8003\u843D\u9752\u968F\u9009\u5217\u6B66"
+            + "\u7EA2\u54CD\u867D\u63A8\u52BF\u53C2\u5E0C\u53E4\u4F17\u6784\u623F\u534A"
+            + "\u8282\u571F\u6295\u67D0\u6848\u9ED1\u7EF4\u9769\u5212\u654C\u81F4\u9648"
+            + "\u5F8B\u8DB3\u6001\u62A4\u4E03\u5174\u6D3E\u5B69\u9A8C\u8D23\u8425\u661F"
+            + "\u591F\u7AE0\u97F3\u8DDF\u5FD7\u5E95\u7AD9\u4E25\u5DF4\u4F8B\u9632\u65CF"
+            + "\u4F9B\u6548\u7EED\u65BD\u7559\u8BB2\u578B\u6599\u7EC8\u7B54\u7D27\u9EC4"
+            + "\u7EDD\u5947\u5BDF\u6BCD\u4EAC\u6BB5\u4F9D\u6279\u7FA4\u9879\u6545\u6309"
+            + "\u6CB3\u7C73\u56F4\u6C5F\u7EC7\u5BB3\u6597\u53CC\u5883\u5BA2\u7EAA\u91C7"
+            + "\u4E3E\u6740\u653B\u7236\u82CF\u5BC6\u4F4E\u671D\u53CB\u8BC9\u6B62\u7EC6"
+            + "\u613F\u5343\u503C\u4ECD\u7537\u94B1\u7834\u7F51\u70ED\u52A9\u5012\u80B2"
+            + "\u5C5E\u5750\u5E1D\u9650\u8239\u8138\u804C\u901F\u523B\u4E50\u5426\u521A"
+            + "\u5A01\u6BDB\u72B6\u7387\u751A\u72EC\u7403\u822C\u666E\u6015\u5F39\u6821"
+            + "\u82E6\u521B\u5047\u4E45\u9519\u627F\u5370\u665A\u5170\u8BD5\u80A1\u62FF"
+            + "\u8111\u9884\u8C01\u76CA\u9633\u82E5\u54EA\u5FAE\u5C3C\u7EE7\u9001\u6025"
+            + "\u8840\u60CA\u4F24\u7D20\u836F\u9002\u6CE2\u591C\u7701\u521D\u559C\u536B"
+            + "\u6E90\u98DF\u9669\u5F85\u8FF0\u9646\u4E60\u7F6E\u5C45\u52B3\u8D22\u73AF"
+            + "\u6392\u798F\u7EB3\u6B22\u96F7\u8B66\u83B7\u6A21\u5145\u8D1F\u4E91\u505C"
+            + "\u6728\u6E38\u9F99\u6811\u7591\u5C42\u51B7\u6D32\u51B2\u5C04\u7565\u8303"
+            + "\u7ADF\u53E5\u5BA4\u5F02\u6FC0\u6C49\u6751\u54C8\u7B56\u6F14\u7B80\u5361"
+            + "\u7F6A\u5224\u62C5\u5DDE\u9759\u9000\u65E2\u8863\u60A8\u5B97\u79EF\u4F59"
+            + "\u75DB\u68C0\u5DEE\u5BCC\u7075\u534F\u89D2\u5360\u914D\u5F81\u4FEE\u76AE"
+            + "\u6325\u80DC\u964D\u9636\u5BA1\u6C89\u575A\u5584\u5988\u5218\u8BFB\u554A"
+            + "\u8D85\u514D\u538B\u94F6\u4E70\u7687\u517B\u4F0A\u6000\u6267\u526F\u4E71"
+            + "\u6297\u72AF\u8FFD\u5E2E\u5BA3\u4F5B\u5C81\u822A\u4F18\u602A\u9999\u8457"
+            + "\u7530\u94C1\u63A7\u7A0E\u5DE6\u53F3\u4EFD\u7A7F\u827A\u80CC\u9635\u8349"
+            + "\u811A\u6982\u6076\u5757\u987F\u6562\u5B88\u9152\u5C9B\u6258\u592E\u6237"
+            + "\u70C8\u6D0B\u54E5\u7D22\u80E1\u6B3E\u9760\u8BC4\u7248\u5B9D\u5EA7\u91CA"
+            + "\u666F\u987E\u5F1F\u767B\u8D27\u4E92\u4ED8\u4F2F\u6162\u6B27\u6362\u95FB"
+            + "\u5371\u5FD9\u6838\u6697\u59D0\u4ECB\u574F\u8BA8\u4E3D\u826F\u5E8F\u5347"
+            + "\u76D1\u4E34\u4EAE\u9732\u6C38\u547C\u5473\u91CE\u67B6\u57DF\u6C99\u6389"
+            + "\u62EC\u8230\u9C7C\u6742\u8BEF\u6E7E\u5409\u51CF\u7F16\u695A\u80AF\u6D4B"
+            + "\u8D25\u5C4B\u8DD1\u68A6\u6563\u6E29\u56F0\u5251\u6E10\u5C01\u6551\u8D35"
+            + "\u67AA\u7F3A\u697C\u53BF\u5C1A\u6BEB\u79FB\u5A18\u670B\u753B\u73ED\u667A"
+            + "\u4EA6\u8033\u6069\u77ED\u638C\u6050\u9057\u56FA\u5E2D\u677E\u79D8\u8C22"
+            + "\u9C81\u9047\u5EB7\u8651\u5E78\u5747\u9500\u949F\u8BD7\u85CF\u8D76\u5267"
+            + "\u7968\u635F\u5FFD\u5DE8\u70AE\u65E7\u7AEF\u63A2\u6E56\u5F55\u53F6\u6625"
+            + "\u4E61\u9644\u5438\u4E88\u793C\u6E2F\u96E8\u5440\u677F\u5EAD\u5987\u5F52"
+            + "\u775B\u996D\u989D\u542B\u987A\u8F93\u6447\u62DB\u5A5A\u8131\u8865\u8C13"
+            + "\u7763\u6BD2\u6CB9\u7597\u65C5\u6CFD\u6750\u706D\u9010\u83AB\u7B14\u4EA1"
+            + "\u9C9C\u8BCD\u5723\u62E9\u5BFB\u5382\u7761\u535A\u52D2\u70DF\u6388\u8BFA"
+            + "\u4F26\u5CB8\u5965\u5510\u5356\u4FC4\u70B8\u8F7D\u6D1B\u5065\u5802\u65C1"
+            + "\u5BAB\u559D\u501F\u541B\u7981\u9634\u56ED\u8C0B\u5B8B\u907F\u6293\u8363"
+            + "\u59D1\u5B59\u9003\u7259\u675F\u8DF3\u9876\u7389\u9547\u96EA\u5348\u7EC3"
+            + "\u8FEB\u7237\u7BC7\u8089\u5634\u9986\u904D\u51E1\u7840\u6D1E\u5377\u5766"
+            + "\u725B\u5B81\u7EB8\u8BF8\u8BAD\u79C1\u5E84\u7956\u4E1D\u7FFB\u66B4\u68EE"
+            + "\u5854\u9ED8\u63E1\u620F\u9690\u719F\u9AA8\u8BBF\u5F31\u8499\u6B4C\u5E97"
+            + "\u9B3C\u8F6F\u5178\u6B32\u8428\u4F19\u906D\u76D8\u7238\u6269\u76D6\u5F04"
+            + "\u96C4\u7A33\u5FD8\u4EBF\u523A\u62E5\u5F92\u59C6\u6768\u9F50\u8D5B\u8DA3"
+            + "\u66F2\u5200\u5E8A\u8FCE\u51B0\u865A\u73A9\u6790\u7A97\u9192\u59BB\u900F"
+            + "\u8D2D\u66FF\u585E\u52AA\u4F11\u864E\u626C\u9014\u4FB5\u5211\u7EFF\u5144"
+            + "\u8FC5\u5957\u8D38\u6BD5\u552F\u8C37\u8F6E\u5E93\u8FF9\u5C24\u7ADE\u8857"
+            + "\u4FC3\u5EF6\u9707\u5F03\u7532\u4F1F\u9EBB\u5DDD\u7533\u7F13\u6F5C\u95EA"
+            + "\u552E\u706F\u9488\u54F2\u7EDC\u62B5\u6731\u57C3\u62B1\u9F13\u690D\u7EAF"
+            + "\u590F\u5FCD\u9875\u6770\u7B51\u6298\u90D1\u8D1D\u5C0A\u5434\u79C0\u6DF7"
+            + "\u81E3\u96C5\u632F\u67D3\u76DB\u6012\u821E\u5706\u641E\u72C2\u63AA\u59D3"
+            + "\u6B8B\u79CB\u57F9\u8FF7\u8BDA\u5BBD\u5B87\u731B\u6446\u6885\u6BC1\u4F38"
+            + "\u6469\u76DF\u672B\u4E43\u60B2\u62CD\u4E01\u8D75\u786C\u9EA6\u848B\u64CD"
+            + "\u8036\u963B\u8BA2\u5F69\u62BD\u8D5E\u9B54\u7EB7\u6CBF\u558A\u8FDD\u59B9"
+            + "\u6D6A\u6C47\u5E01\u4E30\u84DD\u6B8A\u732E\u684C\u5566\u74E6\u83B1\u63F4"
+            + "\u8BD1\u593A\u6C7D\u70E7\u8DDD\u88C1\u504F\u7B26\u52C7\u89E6\u8BFE\u656C"
+            + "\u54ED\u61C2\u5899\u88AD\u53EC\u7F5A\u4FA0\u5385\u62DC\u5DE7\u4FA7\u97E9"
+            + "\u5192\u503A\u66FC\u878D\u60EF\u4EAB\u6234\u7AE5\u72B9\u4E58\u6302\u5956"
+            + "\u7ECD\u539A\u7EB5\u969C\u8BAF\u6D89\u5F7B\u520A\u4E08\u7206\u4E4C\u5F79"
+            + "\u63CF\u6D17\u739B\u60A3\u5999\u955C\u5531\u70E6\u7B7E\u4ED9\u5F7C\u5F17"
+            + "\u75C7\u4EFF\u503E\u724C\u9677\u9E1F\u8F70\u54B1\u83DC\u95ED\u594B\u5E86"
+            + "\u64A4\u6CEA\u8336\u75BE\u7F18\u64AD\u6717\u675C\u5976\u5B63\u4E39\u72D7"
+            + "\u5C3E\u4EEA\u5077\u5954\u73E0\u866B\u9A7B\u5B54\u5B9C\u827E\u6865\u6DE1"
+            + "\u7FFC\u6068\u7E41\u5BD2\u4F34\u53F9\u65E6\u6108\u6F6E\u7CAE\u7F29\u7F62"
+            + "\u805A\u5F84\u6070\u6311\u888B\u7070\u6355\u5F90\u73CD\u5E55\u6620\u88C2"
+            + "\u6CF0\u9694\u542F\u5C16\u5FE0\u7D2F\u708E\u6682\u4F30\u6CDB\u8352\u507F"
+            + "\u6A2A\u62D2\u745E\u5FC6\u5B64\u9F3B\u95F9\u7F8A\u5446\u5389\u8861\u80DE"
+            + "\u96F6\u7A77\u820D\u7801\u8D6B\u5A46\u9B42\u707E\u6D2A\u817F\u80C6\u6D25"
+            + "\u4FD7\u8FA9\u80F8\u6653\u52B2\u8D2B\u4EC1\u5076\u8F91\u90A6\u6062\u8D56"
+            + "\u5708\u6478\u4EF0\u6DA6\u5806\u78B0\u8247\u7A0D\u8FDF\u8F86\u5E9F\u51C0"
+            + "\u51F6\u7F72\u58C1\u5FA1\u5949\u65CB\u51AC\u77FF\u62AC\u86CB\u6668\u4F0F"
+            + "\u5439\u9E21\u500D\u7CCA\u79E6\u76FE\u676F\u79DF\u9A91\u4E4F\u9686\u8BCA"
+            + "\u5974\u6444\u4E27\u6C61\u6E21\u65D7\u7518\u8010\u51ED\u624E\u62A2\u7EEA"
+            + "\u7C97\u80A9\u6881\u5E7B\u83F2\u7686\u788E\u5B99\u53D4\u5CA9\u8361\u7EFC"
+            + "\u722C\u8377\u6089\u8482\u8FD4\u4E95\u58EE\u8584\u6084\u626B\u654F\u788D"
+            + "\u6B96\u8BE6\u8FEA\u77DB\u970D\u5141\u5E45\u6492\u5269\u51EF\u9897\u9A82"
+            + "\u8D4F\u6DB2\u756A\u7BB1\u8D34\u6F2B\u9178\u90CE\u8170\u8212\u7709\u5FE7"
+            + "\u6D6E\u8F9B\u604B\u9910\u5413\u633A\u52B1\u8F9E\u8258\u952E\u4F0D\u5CF0"
+            + "\u5C3A\u6628\u9ECE\u8F88\u8D2F\u4FA6\u6ED1\u5238\u5D07\u6270\u5BAA\u7ED5"
+            + "\u8D8B\u6148\u4E54\u9605\u6C57\u679D\u62D6\u58A8\u80C1\u63D2\u7BAD\u814A"
+            + "\u7C89\u6CE5\u6C0F\u5F6D\u62D4\u9A97\u51E4\u6167\u5A92\u4F69\u6124\u6251"
+            + "\u9F84\u9A71\u60DC\u8C6A\u63A9\u517C\u8DC3\u5C38\u8083\u5E15\u9A76\u5821"
+            + "\u5C4A\u6B23\u60E0\u518C\u50A8\u98D8\u6851\u95F2\u60E8\u6D01\u8E2A\u52C3"
+            + "\u5BBE\u9891\u4EC7\u78E8\u9012\u90AA\u649E\u62DF\u6EDA\u594F\u5DE1\u989C"
+            + "\u5242\u7EE9\u8D21\u75AF\u5761\u77A7\u622A\u71C3\u7126\u6BBF\u4F2A\u67F3"
+            + "\u9501\u903C\u9887\u660F\u529D\u5448\u641C\u52E4\u6212\u9A7E\u6F02\u996E"
+            + "\u66F9\u6735\u4ED4\u67D4\u4FE9\u5B5F\u8150\u5E7C\u8DF5\u7C4D\u7267\u51C9"
+            + "\u7272\u4F73\u5A1C\u6D53\u82B3\u7A3F\u7AF9\u8179\u8DCC\u903B\u5782\u9075"
+            + "\u8109\u8C8C\u67CF\u72F1\u731C\u601C\u60D1\u9676\u517D\u5E10\u9970\u8D37"
+            + "\u660C\u53D9\u8EBA\u94A2\u6C9F\u5BC4\u6276\u94FA\u9093\u5BFF\u60E7\u8BE2"
+            + "\u6C64\u76D7\u80A5\u5C1D\u5306\u8F89\u5948\u6263\u5EF7\u6FB3\u561B\u8463"
+            + "\u8FC1\u51DD\u6170\u538C\u810F\u817E\u5E7D\u6028\u978B\u4E22\u57CB\u6CC9"
+            + "\u6D8C\u8F96\u8EB2\u664B\u7D2B\u8270\u9B4F\u543E\u614C\u795D\u90AE\u5410"
+            + "\u72E0\u9274\u66F0\u68B0\u54AC\u90BB\u8D64\u6324\u5F2F\u6905\u966A\u5272"
+            + "\u63ED\u97E6\u609F\u806A\u96FE\u950B\u68AF\u732B\u7965\u9614\u8A89\u7B79"
+            + "\u4E1B\u7275\u9E23\u6C88\u9601\u7A46\u5C48\u65E8\u8896\u730E\u81C2\u86C7"
+            + "\u8D3A\u67F1\u629B\u9F20\u745F\u6208\u7262\u900A\u8FC8\u6B3A\u5428\u7434"
+            + "\u8870\u74F6\u607C\u71D5\u4EF2\u8BF1\u72FC\u6C60\u75BC\u5362\u4ED7\u51A0"
+            + "\u7C92\u9065\u5415\u7384\u5C18\u51AF\u629A\u6D45\u6566\u7EA0\u94BB\u6676"
+            + "\u5C82\u5CE1\u82CD\u55B7\u8017\u51CC\u6572\u83CC\u8D54\u6D82\u7CB9\u6241"
+            + "\u4E8F\u5BC2\u7164\u718A\u606D\u6E7F\u5FAA\u6696\u7CD6\u8D4B\u6291\u79E9"
+            + "\u5E3D\u54C0\u5BBF\u8E0F\u70C2\u8881\u4FAF\u6296\u5939\u6606\u809D\u64E6"
+            + "\u732A\u70BC\u6052\u614E\u642C\u7EBD\u7EB9\u73BB\u6E14\u78C1\u94DC\u9F7F"
+            + "\u8DE8\u62BC\u6016\u6F20\u75B2\u53DB\u9063\u5179\u796D\u9189\u62F3\u5F25"
+            + "\u659C\u6863\u7A00\u6377\u80A4\u75AB\u80BF\u8C46\u524A\u5C97\u6643\u541E"
+            + "\u5B8F\u764C\u809A\u96B6\u5C65\u6DA8\u8000\u626D\u575B\u62E8\u6C83\u7ED8"
+            + "\u4F10\u582A\u4EC6\u90ED\u727A\u6B7C\u5893\u96C7\u5EC9\u5951\u62FC\u60E9"
+            + "\u6349\u8986\u5237\u52AB\u5ACC\u74DC\u6B47\u96D5\u95F7\u4E73\u4E32\u5A03"
+            + "\u7F34\u5524\u8D62\u83B2\u9738\u6843\u59A5\u7626\u642D\u8D74\u5CB3\u5609"
+            + "\u8231\u4FCA\u5740\u5E9E\u8015\u9510\u7F1D\u6094\u9080\u73B2\u60DF\u65A5"
+            + "\u5B85\u6DFB\u6316\u5475\u8BBC\u6C27\u6D69\u7FBD\u65A4\u9177\u63A0\u5996"
+            + "\u7978\u4F8D\u4E59\u59A8\u8D2A\u6323\u6C6A\u5C3F\u8389\u60AC\u5507\u7FF0"
+            + "\u4ED3\u8F68\u679A\u76D0\u89C8\u5085\u5E05\u5E99\u82AC\u5C4F\u5BFA\u80D6"
+            + "\u7483\u611A\u6EF4\u758F\u8427\u59FF\u98A4\u4E11\u52A3\u67EF\u5BF8\u6254"
+            + "\u76EF\u8FB1\u5339\u4FF1\u8FA8\u997F\u8702\u54E6\u8154\u90C1\u6E83\u8C28"
+            + "\u7CDF\u845B\u82D7\u80A0\u5FCC\u6E9C\u9E3F\u7235\u9E4F\u9E70\u7B3C\u4E18"
+            + "\u6842\u6ECB\u804A\u6321\u7EB2\u808C\u8328\u58F3\u75D5\u7897\u7A74\u8180"
+            + "\u5353\u8D24\u5367\u819C\u6BC5\u9526\u6B20\u54E9\u51FD\u832B\u6602\u859B"
+            + "\u76B1\u5938\u8C6B\u80C3\u820C\u5265\u50B2\u62FE\u7A9D\u7741\u643A\u9675"
+            + "\u54FC\u68C9\u6674\u94C3\u586B\u9972\u6E34\u543B\u626E\u9006\u8106\u5598"
+            + "\u7F69\u535C\u7089\u67F4\u6109\u7EF3\u80CE\u84C4\u7720\u7AED\u5582\u50BB"
+            + "\u6155\u6D51\u5978\u6247\u67DC\u60A6\u62E6\u8BDE\u9971\u4E7E\u6CE1\u8D3C"
+            + "\u4EAD\u5915\u7239\u916C\u5112\u59FB\u5375\u6C1B\u6CC4\u6746\u6328\u50E7"
+            + "\u871C\u541F\u7329\u9042\u72ED\u8096\u751C\u971E\u9A73\u88D5\u987D\u65BC"
+            + "\u6458\u77EE\u79D2\u537F\u755C\u54BD\u62AB\u8F85\u52FE\u76C6\u7586\u8D4C"
+            + "\u5851\u754F\u5435\u56CA\u55EF\u6CCA\u80BA\u9AA4\u7F20\u5188\u7F9E\u77AA"
+            + "\u540A\u8D3E\u6F0F\u6591\u6D9B\u60A0\u9E7F\u4FD8\u9521\u5351\u846C\u94ED"
+            + "\u6EE9\u5AC1\u50AC\u7487\u7FC5\u76D2\u86EE\u77E3\u6F58\u6B67\u8D50\u9C8D"
+            + "\u9505\u5ECA\u62C6\u704C\u52C9\u76F2\u5BB0\u4F50\u5565\u80C0\u626F\u79A7"
+            + "\u8FBD\u62B9\u7B52\u68CB\u88E4\u5509\u6734\u5490\u5B55\u8A93\u5589\u5984"
+            + "\u62D8\u94FE\u9A70\u680F\u901D\u7A83\u8273\u81ED\u7EA4\u7391\u68F5\u8D81"
+            + "\u5320\u76C8\u7FC1\u6101\u77AC\u5A74\u5B5D\u9888\u5018\u6D59\u8C05\u853D"
+            + "\u7545\u8D60\u59AE\u838E\u5C09\u51BB\u8DEA\u95EF\u8461\u53A8\u9E2D\u98A0"
+            + "\u906E\u8C0A\u5733\u5401\u4ED1\u8F9F\u7624\u5AC2\u9640\u6846\u8C2D\u4EA8"
+            + "\u94A6\u5EB8\u6B49\u829D\u543C\u752B\u886B\u644A\u5BB4\u5631\u8877\u5A07"
+            + "\u9655\u77E9\u6D66\u8BB6\u8038\u88F8\u78A7\u6467\u85AA\u6DCB\u803B\u80F6"
+            + "\u5C60\u9E45\u9965\u76FC\u8116\u8679\u7FE0\u5D29\u8D26\u840D\u9022\u8D5A"
+            + "\u6491\u7FD4\u5021\u7EF5\u7334\u67AF\u5DEB\u662D\u6014\u6E0A\u51D1\u6EAA"
+            + "\u8822\u7985\u9610\u65FA\u5BD3\u85E4\u532A\u4F1E\u7891\u632A\u743C\u8102"
+            + "\u8C0E\u6168\u83E9\u8404\u72EE\u6398\u6284\u5CAD\u6655\u902E\u780D\u638F"
+            + "\u72C4\u6670\u7F55\u633D\u813E\u821F\u75F4\u8521\u526A\u810A\u5F13\u61D2"
+            + "\u53C9\u62D0\u5583\u50DA\u6350\u59CA\u9A9A\u62D3\u6B6A\u7C98\u67C4\u5751"
+            + "\u964C\u7A84\u6E58\u5146\u5D16\u9A84\u5239\u97AD\u8292\u7B4B\u8058\u94A9"
+            + "\u68CD\u56B7\u817A\u5F26\u7130\u800D\u4FEF\u5398\u6123\u53A6\u6073\u9976"
+            + "\u9489\u5BE1\u61BE\u6454\u53E0\u60F9\u55BB\u8C31\u6127\u714C\u5FBD\u6EB6"
+            + "\u5760\u715E\u5DFE\u6EE5\u6D12\u5835\u74F7\u5492\u59E8\u68D2\u90E1\u6D74"
+            + "\u5A9A\u7A23\u6DEE\u54CE\u5C41\u6F06\u6DEB\u5DE2\u201C\u201D\uFF1A\uFF1B"
+            + "\uFF01\uFF1F\uFF08\uFF09\u300A\u300B";
+
+    /**
+     * Chinese in traditional characters.
+     */
+    static final String TRADITIONAL_CHINESE = "\uFF0C\u3002\u3001\u7684\u4E00\u662F\u4E0D\u4E86\u5728\u4EBA\u6709\u6211"
+            + "\u4ED6\u9019\u500B\u5011\u4E2D\u4F86\u4E0A\u5927\u70BA\u548C\u570B\u5730"
+            + "\u5230\u4EE5\u8AAA\u6642\u8981\u5C31\u51FA\u6703\u53EF\u4E5F\u4F60\u5C0D"
+            + "\u751F\u80FD\u800C\u5B50\u90A3\u5F97\u65BC\u8457\u4E0B\u81EA\u4E4B\u5E74"
+            + "\u904E\u767C\u5F8C\u4F5C\u88E1\u7528\u9053\u884C\u6240\u7136\u5BB6\u7A2E"
+            + "\u4E8B\u6210\u65B9\u591A\u7D93\u9EBC\u53BB\u6CD5\u5B78\u5982\u90FD\u540C"
+            + "\u73FE\u7576\u6C92\u52D5\u9762\u8D77\u770B\u5B9A\u5929\u5206\u9084\u9032"
+            + "\u597D\u5C0F\u90E8\u5176\u4E9B\u4E3B\u6A23\u7406\u5FC3\u5979\u672C\u524D"
+            + "\u958B\u4F46\u56E0\u53EA\u5F9E\u60F3\u5BE6\u65E5\u8ECD\u8005\u610F\u7121"
+            + "\u529B\u5B83\u8207\u9577\u628A\u6A5F\u5341\u6C11\u7B2C\u516C\u6B64\u5DF2"
+            + "\u5DE5\u4F7F\u60C5\u660E\u6027\u77E5\u5168\u4E09\u53C8\u95DC\u9EDE\u6B63"
+            + "\u696D\u5916\u5C07\u5169\u9AD8\u9593\u7531\u554F\u5F88\u6700\u91CD\u4E26"
+            + "\u7269\u624B\u61C9\u6230\u5411\u982D\u6587\u9AD4\u653F\u7F8E\u76F8\u898B"
+            + "\u88AB\u5229\u4EC0\u4E8C\u7B49\u7522\u6216\u65B0\u5DF1\u5236\u8EAB\u679C"
+            + "\u52A0\u897F\u65AF\u6708\u8A71\u5408\u56DE\u7279\u4EE3\u5167\u4FE1\u8868"
+            + "\u5316\u8001\u7D66\u4E16\u4F4D\u6B21\u5EA6\u9580\u4EFB\u5E38\u5148\u6D77"
+            + "\u901A\u6559\u5152\u539F\u6771\u8072\u63D0\u7ACB\u53CA\u6BD4\u54E1\u89E3"
+            + "\u6C34\u540D\u771F\u8AD6\u8655\u8D70\u7FA9\u5404\u5165\u5E7E\u53E3\u8A8D"
+            + "\u689D\u5E73\u7CFB\u6C23\u984C\u6D3B\u723E\u66F4\u5225\u6253\u5973\u8B8A"
+            + "\u56DB\u795E\u7E3D\u4F55\u96FB\u6578\u5B89\u5C11\u5831\u624D\u7D50\u53CD"
+            + "\u53D7\u76EE\u592A\u91CF\u518D\u611F\u5EFA\u52D9\u505A\u63A5\u5FC5\u5834"
+            + "\u4EF6\u8A08\u7BA1\u671F\u5E02\u76F4\u5FB7\u8CC7\u547D\u5C71\u91D1\u6307"
+            + "\u514B\u8A31\u7D71\u5340\u4FDD\u81F3\u968A\u5F62\u793E\u4FBF\u7A7A\u6C7A"
+            + "\u6CBB\u5C55\u99AC\u79D1\u53F8\u4E94\u57FA\u773C\u66F8\u975E\u5247\u807D"
+            + "\u767D\u537B\u754C\u9054\u5149\u653E\u5F37\u5373\u50CF\u96E3\u4E14\u6B0A"
+            + "\u601D\u738B\u8C61\u5B8C\u8A2D\u5F0F\u8272\u8DEF\u8A18\u5357\u54C1\u4F4F"
+            + "\u544A\u985E\u6C42\u64DA\u7A0B\u5317\u908A\u6B7B\u5F35\u8A72\u4EA4\u898F"
+            + "\u842C\u53D6\u62C9\u683C\u671B\u89BA\u8853\u9818\u5171\u78BA\u50B3\u5E2B"
+            + "\u89C0\u6E05\u4ECA\u5207\u9662\u8B93\u8B58\u5019\u5E36\u5C0E\u722D\u904B"
+            + "\u7B11\u98DB\u98A8\u6B65\u6539\u6536\u6839\u4E7E\u9020\u8A00\u806F\u6301"
+            + "\u7D44\u6BCF\u6FDF\u8ECA\u89AA\u6975\u6797\u670D\u5FEB\u8FA6\u8B70\u5F80"
+            + "\u5143\u82F1\u58EB\u8B49\u8FD1\u5931\u8F49\u592B\u4EE4\u6E96\u5E03\u59CB"
+            + "\u600E\u5462\u5B58\u672A\u9060\u53EB\u53F0\u55AE\u5F71\u5177\u7F85\u5B57"
+            + "\u611B\u64CA\u6D41\u5099\u5175\u9023\u8ABF\u6DF1\u5546\u7B97\u8CEA\u5718"
+            + "\u96C6\u767E\u9700\u50F9\u82B1\u9EE8\u83EF\u57CE\u77F3\u7D1A\u6574\u5E9C"
+            + "\u96E2\u6CC1\u4E9E\u8ACB\u6280\u969B\u7D04\u793A\u5FA9\u75C5\u606F\u7A76"
+            + "\u7DDA\u4F3C\u5B98\u706B\u65B7\u7CBE\u6EFF\u652F\u8996\u6D88\u8D8A\u5668"
+            + "\u5BB9\u7167\u9808\u4E5D\u589E\u7814\u5BEB\u7A31\u4F01\u516B\u529F\u55CE"
+            + "\u5305\u7247\u53F2\u59D4\u4E4E\u67E5\u8F15\u6613\u65E9\u66FE\u9664\u8FB2"
+            + "\u627E\u88DD\u5EE3\u986F\u5427\u963F\u674E\u6A19\u8AC7\u5403\u5716\u5FF5"
+            + "\u516D\u5F15\u6B77\u9996\u91AB\u5C40\u7A81\u5C08\u8CBB\u865F\u76E1\u53E6"
+            + "\u5468\u8F03\u6CE8\u8A9E\u50C5\u8003\u843D\u9752\u96A8\u9078\u5217\u6B66"
+            + "\u7D05\u97FF\u96D6\u63A8\u52E2\u53C3\u5E0C\u53E4\u773E\u69CB\u623F\u534A"
+            + "\u7BC0\u571F\u6295\u67D0\u6848\u9ED1\u7DAD\u9769\u5283\u6575\u81F4\u9673"
+            + "\u5F8B\u8DB3\u614B\u8B77\u4E03\u8208\u6D3E\u5B69\u9A57\u8CAC\u71DF\u661F"
+            + "\u5920\u7AE0\u97F3\u8DDF\u5FD7\u5E95\u7AD9\u56B4\u5DF4\u4F8B\u9632\u65CF"
+            + "\u4F9B\u6548\u7E8C\u65BD\u7559\u8B1B\u578B\u6599\u7D42\u7B54\u7DCA\u9EC3"
+            + "\u7D55\u5947\u5BDF\u6BCD\u4EAC\u6BB5\u4F9D\u6279\u7FA4\u9805\u6545\u6309"
+            + "\u6CB3\u7C73\u570D\u6C5F\u7E54\u5BB3\u9B25\u96D9\u5883\u5BA2\u7D00\u63A1"
+            + "\u8209\u6BBA\u653B\u7236\u8607\u5BC6\u4F4E\u671D\u53CB\u8A34\u6B62\u7D30"
+            + "\u9858\u5343\u503C\u4ECD\u7537\u9322\u7834\u7DB2\u71B1\u52A9\u5012\u80B2"
+            + "\u5C6C\u5750\u5E1D\u9650\u8239\u81C9\u8077\u901F\u523B\u6A02\u5426\u525B"
+            + "\u5A01\u6BDB\u72C0\u7387\u751A\u7368\u7403\u822C\u666E\u6015\u5F48\u6821"
+            + "\u82E6\u5275\u5047\u4E45\u932F\u627F\u5370\u665A\u862D\u8A66\u80A1\u62FF"
+            + "\u8166\u9810\u8AB0\u76CA\u967D\u82E5\u54EA\u5FAE\u5C3C\u7E7C\u9001\u6025"
+            + "\u8840\u9A5A\u50B7\u7D20\u85E5\u9069\u6CE2\u591C\u7701\u521D\u559C\u885B"
+            + "\u6E90\u98DF\u96AA\u5F85\u8FF0\u9678\u7FD2\u7F6E\u5C45\u52DE\u8CA1\u74B0"
+            + "\u6392\u798F\u7D0D\u6B61\u96F7\u8B66\u7372\u6A21\u5145\u8CA0\u96F2\u505C"
+            + "\u6728\u904A\u9F8D\u6A39\u7591\u5C64\u51B7\u6D32\u885D\u5C04\u7565\u7BC4"
+            + "\u7ADF\u53E5\u5BA4\u7570\u6FC0\u6F22\u6751\u54C8\u7B56\u6F14\u7C21\u5361"
+            + "\u7F6A\u5224\u64D4\u5DDE\u975C\u9000\u65E2\u8863\u60A8\u5B97\u7A4D\u9918"
+            + "\u75DB\u6AA2\u5DEE\u5BCC\u9748\u5354\u89D2\u4F54\u914D\u5FB5\u4FEE\u76AE"
+            + "\u63EE\u52DD\u964D\u968E\u5BE9\u6C89\u5805\u5584\u5ABD\u5289\u8B80\u554A"
+            + "\u8D85\u514D\u58D3\u9280\u8CB7\u7687\u990A\u4F0A\u61F7\u57F7\u526F\u4E82"
+            + "\u6297\u72AF\u8FFD\u5E6B\u5BA3\u4F5B\u6B72\u822A\u512A\u602A\u9999\u7530"
+            + "\u9435\u63A7\u7A05\u5DE6\u53F3\u4EFD\u7A7F\u85DD\u80CC\u9663\u8349\u8173"
+            + "\u6982\u60E1\u584A\u9813\u6562\u5B88\u9152\u5CF6\u8A17\u592E\u6236\u70C8"
+            + "\u6D0B\u54E5\u7D22\u80E1\u6B3E\u9760\u8A55\u7248\u5BF6\u5EA7\u91CB\u666F"
+            + "\u9867\u5F1F\u767B\u8CA8\u4E92\u4ED8\u4F2F\u6162\u6B50\u63DB\u805E\u5371"
+            + "\u5FD9\u6838\u6697\u59D0\u4ECB\u58DE\u8A0E\u9E97\u826F\u5E8F\u5347\u76E3"
+            + "\u81E8\u4EAE\u9732\u6C38\u547C\u5473\u91CE\u67B6\u57DF\u6C99\u6389\u62EC"
+            + "\u8266\u9B5A\u96DC\u8AA4\u7063\u5409\u6E1B\u7DE8\u695A\u80AF\u6E2C\u6557"
+            + "\u5C4B\u8DD1\u5922\u6563\u6EAB\u56F0\u528D\u6F38\u5C01\u6551\u8CB4\u69CD"
+            + "\u7F3A\u6A13\u7E23\u5C1A\u6BEB\u79FB\u5A18\u670B\u756B\u73ED\u667A\u4EA6"
+            + "\u8033\u6069\u77ED\u638C\u6050\u907A\u56FA\u5E2D\u677E\u79D8\u8B1D\u9B6F"
+            + "\u9047\u5EB7\u616E\u5E78\u5747\u92B7\u9418\u8A69\u85CF\u8D95\u5287\u7968"
+            + "\u640D\u5FFD\u5DE8\u70AE\u820A\u7AEF\u63A2\u6E56\u9304\u8449\u6625\u9109"
+            + "\u9644\u5438\u4E88\u79AE\u6E2F\u96E8\u5440\u677F\u5EAD\u5A66\u6B78\u775B"
+            + "\u98EF\u984D\u542B\u9806\u8F38\u6416\u62DB\u5A5A\u812B\u88DC\u8B02\u7763"
+            + "\u6BD2\u6CB9\u7642\u65C5\u6FA4\u6750\u6EC5\u9010\u83AB\u7B46\u4EA1\u9BAE"
+            + "\u8A5E\u8056\u64C7\u5C0B\u5EE0\u7761\u535A\u52D2\u7159\u6388\u8AFE\u502B"
+            + "\u5CB8\u5967\u5510\u8CE3\u4FC4\u70B8\u8F09\u6D1B\u5065\u5802\u65C1\u5BAE"
+            + "\u559D\u501F\u541B\u7981\u9670\u5712\u8B00\u5B8B\u907F\u6293\u69AE\u59D1"
+            + "\u5B6B\u9003\u7259\u675F\u8DF3\u9802\u7389\u93AE\u96EA\u5348\u7DF4\u8FEB"
+            + "\u723A\u7BC7\u8089\u5634\u9928\u904D\u51E1\u790E\u6D1E\u5377\u5766\u725B"
+            + "\u5BE7\u7D19\u8AF8\u8A13\u79C1\u838A\u7956\u7D72\u7FFB\u66B4\u68EE\u5854"
+            + "\u9ED8\u63E1\u6232\u96B1\u719F\u9AA8\u8A2A\u5F31\u8499\u6B4C\u5E97\u9B3C"
+            + "\u8EDF\u5178\u6B32\u85A9\u5925\u906D\u76E4\u7238\u64F4\u84CB\u5F04\u96C4"
+            + "\u7A69\u5FD8\u5104\u523A\u64C1\u5F92\u59C6\u694A\u9F4A\u8CFD\u8DA3\u66F2"
+            + "\u5200\u5E8A\u8FCE\u51B0\u865B\u73A9\u6790\u7A97\u9192\u59BB\u900F\u8CFC"
+            + "\u66FF\u585E\u52AA\u4F11\u864E\u63DA\u9014\u4FB5\u5211\u7DA0\u5144\u8FC5"
+            + "\u5957\u8CBF\u7562\u552F\u8C37\u8F2A\u5EAB\u8DE1\u5C24\u7AF6\u8857\u4FC3"
+            + "\u5EF6\u9707\u68C4\u7532\u5049\u9EBB\u5DDD\u7533\u7DE9\u6F5B\u9583\u552E"
+            + "\u71C8\u91DD\u54F2\u7D61\u62B5\u6731\u57C3\u62B1\u9F13\u690D\u7D14\u590F"
+            + "\u5FCD\u9801\u5091\u7BC9\u6298\u912D\u8C9D\u5C0A\u5433\u79C0\u6DF7\u81E3"
+            + "\u96C5\u632F\u67D3\u76DB\u6012\u821E\u5713\u641E\u72C2\u63AA\u59D3\u6B98"
+            + "\u79CB\u57F9\u8FF7\u8AA0\u5BEC\u5B87\u731B\u64FA\u6885\u6BC0\u4F38\u6469"
+            + "\u76DF\u672B\u4E43\u60B2\u62CD\u4E01\u8D99\u786C\u9EA5\u8523\u64CD\u8036"
+            + "\u963B\u8A02\u5F69\u62BD\u8D0A\u9B54\u7D1B\u6CBF\u558A\u9055\u59B9\u6D6A"
+            + "\u532F\u5E63\u8C50\u85CD\u6B8A\u737B\u684C\u5566\u74E6\u840A\u63F4\u8B6F"
+            + "\u596A\u6C7D\u71D2\u8DDD\u88C1\u504F\u7B26\u52C7\u89F8\u8AB2\u656C\u54ED"
+            + "\u61C2\u7246\u8972\u53EC\u7F70\u4FE0\u5EF3\u62DC\u5DE7\u5074\u97D3\u5192"
+            + "\u50B5\u66FC\u878D\u6163\u4EAB\u6234\u7AE5\u7336\u4E58\u639B\u734E\u7D39"
+            + "\u539A\u7E31\u969C\u8A0A\u6D89\u5FB9\u520A\u4E08\u7206\u70CF\u5F79\u63CF"
+            + "\u6D17\u746A\u60A3\u5999\u93E1\u5531\u7169\u7C3D\u4ED9\u5F7C\u5F17\u75C7"
+            + "\u4EFF\u50BE\u724C\u9677\u9CE5\u8F5F\u54B1\u83DC\u9589\u596E\u6176\u64A4"
+            + "\u6DDA\u8336\u75BE\u7DE3\u64AD\u6717\u675C\u5976\u5B63\u4E39\u72D7\u5C3E"
+            + "\u5100\u5077\u5954\u73E0\u87F2\u99D0\u5B54\u5B9C\u827E\u6A4B\u6DE1\u7FFC"
+            + "\u6068\u7E41\u5BD2\u4F34\u5606\u65E6\u6108\u6F6E\u7CE7\u7E2E\u7F77\u805A"
+            + "\u5F91\u6070\u6311\u888B\u7070\u6355\u5F90\u73CD\u5E55\u6620\u88C2\u6CF0"
+            + "\u9694\u555F\u5C16\u5FE0\u7D2F\u708E\u66AB\u4F30\u6CDB\u8352\u511F\u6A6B"
+            + "\u62D2\u745E\u61B6\u5B64\u9F3B\u9B27\u7F8A\u5446\u53B2\u8861\u80DE\u96F6"
+            + "\u7AAE\u820D\u78BC\u8D6B\u5A46\u9B42\u707D\u6D2A\u817F\u81BD\u6D25\u4FD7"
+            + "\u8FAF\u80F8\u66C9\u52C1\u8CA7\u4EC1\u5076\u8F2F\u90A6\u6062\u8CF4\u5708"
+            + "\u6478\u4EF0\u6F64\u5806\u78B0\u8247\u7A0D\u9072\u8F1B\u5EE2\u6DE8\u5147"
+            + "\u7F72\u58C1\u5FA1\u5949\u65CB\u51AC\u7926\u62AC\u86CB\u6668\u4F0F\u5439"
+            + "\u96DE\u500D\u7CCA\u79E6\u76FE\u676F\u79DF\u9A0E\u4E4F\u9686\u8A3A\u5974"
+            + "\u651D\u55AA\u6C61\u6E21\u65D7\u7518\u8010\u6191\u624E\u6436\u7DD2\u7C97"
+            + "\u80A9\u6881\u5E7B\u83F2\u7686\u788E\u5B99\u53D4\u5CA9\u8569\u7D9C\u722C"
+            + "\u8377\u6089\u8482\u8FD4\u4E95\u58EF\u8584\u6084\u6383\u654F\u7919\u6B96"
+            + "\u8A73\u8FEA\u77DB\u970D\u5141\u5E45\u6492\u5269\u51F1\u9846\u7F75\u8CDE"
+            + "\u6DB2\u756A\u7BB1\u8CBC\u6F2B\u9178\u90CE\u8170\u8212\u7709\u6182\u6D6E"
+            + "\u8F9B\u6200\u9910\u5687\u633A\u52F5\u8FAD\u8258\u9375\u4F0D\u5CF0\u5C3A"
+            + "\u6628\u9ECE\u8F29\u8CAB\u5075\u6ED1\u5238\u5D07\u64FE\u61B2\u7E5E\u8DA8"
+            + "\u6148\u55AC\u95B1\u6C57\u679D\u62D6\u58A8\u8105\u63D2\u7BAD\u81D8\u7C89"
+            + "\u6CE5\u6C0F\u5F6D\u62D4\u9A19\u9CF3\u6167\u5A92\u4F69\u61A4\u64B2\u9F61"
+            + "\u9A45\u60DC\u8C6A\u63A9\u517C\u8E8D\u5C4D\u8085\u5E15\u99DB\u5821\u5C46"
+            + "\u6B23\u60E0\u518A\u5132\u98C4\u6851\u9592\u6158\u6F54\u8E64\u52C3\u8CD3"
+            + "\u983B\u4EC7\u78E8\u905E\u90AA\u649E\u64EC\u6EFE\u594F\u5DE1\u984F\u5291"
+            + "\u7E3E\u8CA2\u760B\u5761\u77A7\u622A\u71C3\u7126\u6BBF\u507D\u67F3\u9396"
+            + "\u903C\u9817\u660F\u52F8\u5448\u641C\u52E4\u6212\u99D5\u6F02\u98F2\u66F9"
+            + "\u6735\u4ED4\u67D4\u5006\u5B5F\u8150\u5E7C\u8E10\u7C4D\u7267\u6DBC\u7272"
+            + "\u4F73\u5A1C\u6FC3\u82B3\u7A3F\u7AF9\u8179\u8DCC\u908F\u5782\u9075\u8108"
+            + "\u8C8C\u67CF\u7344\u731C\u6190\u60D1\u9676\u7378\u5E33\u98FE\u8CB8\u660C"
+            + "\u6558\u8EBA\u92FC\u6E9D\u5BC4\u6276\u92EA\u9127\u58FD\u61FC\u8A62\u6E6F"
+            + "\u76DC\u80A5\u5617\u5306\u8F1D\u5948\u6263\u5EF7\u6FB3\u561B\u8463\u9077"
+            + "\u51DD\u6170\u53AD\u9AD2\u9A30\u5E7D\u6028\u978B\u4E1F\u57CB\u6CC9\u6E67"
+            + "\u8F44\u8EB2\u6649\u7D2B\u8271\u9B4F\u543E\u614C\u795D\u90F5\u5410\u72E0"
+            + "\u9451\u66F0\u68B0\u54AC\u9130\u8D64\u64E0\u5F4E\u6905\u966A\u5272\u63ED"
+            + "\u97CB\u609F\u8070\u9727\u92D2\u68AF\u8C93\u7965\u95CA\u8B7D\u7C4C\u53E2"
+            + "\u727D\u9CF4\u6C88\u95A3\u7A46\u5C48\u65E8\u8896\u7375\u81C2\u86C7\u8CC0"
+            + "\u67F1\u62CB\u9F20\u745F\u6208\u7262\u905C\u9081\u6B3A\u5678\u7434\u8870"
+            + "\u74F6\u60F1\u71D5\u4EF2\u8A98\u72FC\u6C60\u75BC\u76E7\u4ED7\u51A0\u7C92"
+            + "\u9059\u5442\u7384\u5875\u99AE\u64AB\u6DFA\u6566\u7CFE\u947D\u6676\u8C48"
+            + "\u5CFD\u84BC\u5674\u8017\u51CC\u6572\u83CC\u8CE0\u5857\u7CB9\u6241\u8667"
+            + "\u5BC2\u7164\u718A\u606D\u6FD5\u5FAA\u6696\u7CD6\u8CE6\u6291\u79E9\u5E3D"
+            + "\u54C0\u5BBF\u8E0F\u721B\u8881\u4FAF\u6296\u593E\u6606\u809D\u64E6\u8C6C"
+            + "\u7149\u6046\u614E\u642C\u7D10\u7D0B\u73BB\u6F01\u78C1\u9285\u9F52\u8DE8"
+            + "\u62BC\u6016\u6F20\u75B2\u53DB\u9063\u8332\u796D\u9189\u62F3\u5F4C\u659C"
+            + "\u6A94\u7A00\u6377\u819A\u75AB\u816B\u8C46\u524A\u5D17\u6643\u541E\u5B8F"
+            + "\u764C\u809A\u96B8\u5C65\u6F32\u8000\u626D\u58C7\u64A5\u6C83\u7E6A\u4F10"
+            + "\u582A\u50D5\u90ED\u72A7\u6BB2\u5893\u50F1\u5EC9\u5951\u62FC\u61F2\u6349"
+            + "\u8986\u5237\u52AB\u5ACC\u74DC\u6B47\u96D5\u60B6\u4E73\u4E32\u5A03\u7E73"
+            + "\u559A\u8D0F\u84EE\u9738\u6843\u59A5\u7626\u642D\u8D74\u5CB3\u5609\u8259"
+            + "\u4FCA\u5740\u9F90\u8015\u92B3\u7E2B\u6094\u9080\u73B2\u60DF\u65A5\u5B85"
+            + "\u6DFB\u6316\u5475\u8A1F\u6C27\u6D69\u7FBD\u65A4\u9177\u63A0\u5996\u798D"
+            + "\u4F8D\u4E59\u59A8\u8CAA\u6399\u6C6A\u5C3F\u8389\u61F8\u5507\u7FF0\u5009"
+            + "\u8ECC\u679A\u9E7D\u89BD\u5085\u5E25\u5EDF\u82AC\u5C4F\u5BFA\u80D6\u7483"
+            + "\u611A\u6EF4\u758F\u856D\u59FF\u986B\u919C\u52A3\u67EF\u5BF8\u6254\u76EF"
+            + "\u8FB1\u5339\u4FF1\u8FA8\u9913\u8702\u54E6\u8154\u9B31\u6F70\u8B39\u7CDF"
+            + "\u845B\u82D7\u8178\u5FCC\u6E9C\u9D3B\u7235\u9D6C\u9DF9\u7C60\u4E18\u6842"
+            + "\u6ECB\u804A\u64CB\u7DB1\u808C\u8328\u6BBC\u75D5\u7897\u7A74\u8180\u5353"
+            + "\u8CE2\u81E5\u819C\u6BC5\u9326\u6B20\u54E9\u51FD\u832B\u6602\u859B\u76BA"
+            + "\u8A87\u8C6B\u80C3\u820C\u525D\u50B2\u62FE\u7AA9\u775C\u651C\u9675\u54FC"
+            + "\u68C9\u6674\u9234\u586B\u98FC\u6E34\u543B\u626E\u9006\u8106\u5598\u7F69"
+            + "\u535C\u7210\u67F4\u6109\u7E69\u80CE\u84C4\u7720\u7AED\u9935\u50BB\u6155"
+            + "\u6E3E\u5978\u6247\u6AC3\u6085\u6514\u8A95\u98FD\u6CE1\u8CCA\u4EAD\u5915"
+            + "\u7239\u916C\u5112\u59FB\u5375\u6C1B\u6D29\u6746\u6328\u50E7\u871C\u541F"
+            + "\u7329\u9042\u72F9\u8096\u751C\u971E\u99C1\u88D5\u9811\u6458\u77EE\u79D2"
+            + "\u537F\u755C\u54BD\u62AB\u8F14\u52FE\u76C6\u7586\u8CED\u5851\u754F\u5435"
+            + "\u56CA\u55EF\u6CCA\u80BA\u9A5F\u7E8F\u5CA1\u7F9E\u77AA\u540A\u8CC8\u6F0F"
+            + "\u6591\u6FE4\u60A0\u9E7F\u4FD8\u932B\u5351\u846C\u9298\u7058\u5AC1\u50AC"
+            + "\u7487\u7FC5\u76D2\u883B\u77E3\u6F58\u6B67\u8CDC\u9B91\u934B\u5ECA\u62C6"
+            + "\u704C\u52C9\u76F2\u5BB0\u4F50\u5565\u8139\u626F\u79A7\u907C\u62B9\u7B52"
+            + "\u68CB\u8932\u5509\u6734\u5490\u5B55\u8A93\u5589\u5984\u62D8\u93C8\u99B3"
+            + "\u6B04\u901D\u7ACA\u8277\u81ED\u7E96\u74A3\u68F5\u8D81\u5320\u76C8\u7FC1"
+            + "\u6101\u77AC\u5B30\u5B5D\u9838\u5018\u6D59\u8AD2\u853D\u66A2\u8D08\u59AE"
+            + "\u838E\u5C09\u51CD\u8DEA\u95D6\u8461\u5EDA\u9D28\u985B\u906E\u8ABC\u300C"
+            + "\u300D\uFF1A\uFF1B\uFF01\uFF1F\uFF08\uFF09\u300A\u300B";
+
+    /**
+     * Korean.
+     */
+    static final String KOREAN = "\uC774\uB2E4\uC758\uB294\uC5D0\uD558\uACE0\uC744\uAC00\uB85C\uC9C0\uD55C"
+            + "\uC11C\uAE30\uC0AC\uB97C\uB9AC\uB3C4\uC815\uB300\uC790\uC5B4\uC218\uC77C"
+            + "\uC2DC\uC544\uBCF4\uC778\uB098\uD574\uAC8C\uC73C\uC788\uBD80\uC8FC\uC804"
+            + "\uAD6C\uC81C\uC801\uC18C\uB77C\uC704\uB9CC\uC0C1\uAD6D\uC7A5\uB4E4\uBE44"
+            + "\uC131\uC2E0\uC5EC\uBC29\uB3D9\uB0B4\uBBF8\uAD00\uC6D0\uD654\uACBD\uC6B0"
+            + "\uB9C8\uC2A4\uBA74\uC2DD\uC870\uAC83\uC138\uACC4\uC911\uACFC\uC694\uC720"
+            + "\uB370\uC0DD\uBB34\uACF5\uBB38\uBB3C\uC5F0\uAC1C\uD68C\uAC70\uCE58\uD559"
+            + "\uC624\uC9C4\uC120\uC2E4\uB7EC\uC6A9\uC800\uD588\uAC04\uB418\uBD84\uBC1C"
+            + "\uACB0\uD589\uBA85\uADF8\uB2C8\uD2B8\uCCB4\uD560\uB974\uAE08\uBAA8\uB2E8"
+            + "\uC601\uC57C\uC548\uD569\uB0A0\uB54C\uD1B5\uBC18\uD488\uC640\uB9D0\uC5C6"
+            + "\uD788\uBC14\uC5C5\uD604\uAE4C\uC74C\uC2EC\uBC95\uBD88\uD130\uD6C4\uCD5C"
+            + "\uAD50\uBCC0\uBBFC\uB4DC\uC6B4\uB2F9\uCD9C\uB4DD\uC810\uAC15\uC785\uADFC"
+            + "\uB610\uB825\uC7AC\uC885\uD45C\uCD08\uCC98\uCC28\uC0B0\uB4E0\uC784\uD06C"
+            + "\uC18D\uBC88\uB144\uC6D4\uC57D\uAC10\uB828\uC5ED\uD0C0\uC591\uC9D1\uB450"
+            + "\uBCF8\uD65C\uAC74\uAED8\uC558\uC5C8\uB358\uBA70\uC54C\uBCC4\uC678\uBCF5"
+            + "\uC99D\uC124\uD3EC\uD615\uC9C1\uD638\uAD70\uD568\uCC38\uB178\uC220\uB85D"
+            + "\uB798\uD655\uC0C8\uC88B\uBD10\uC65C\uB354\uB9CE\uAC19\uBC1B\uB41C\uACA0"
+            + "\uB124\uC2B5\uC8E0\uB7FC\uB824\uC2F6\uC600";
+
+    private StatisticalSnifferData() {
+    }
+}
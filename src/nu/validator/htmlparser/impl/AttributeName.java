@@ -483,6 +483,19 @@ public final class AttributeName
     }
 
     // [NOCPP[
+    /**
+     * Exposes the name hash to <code>AttributeNameCache</code>.
+     *
+     * @param buf
+     *            the buffer
+     * @param length
+     *            the length of the name in the buffer
+     * @return the hash
+     */
+    static int hashForCache(@NoLength char[] buf, int length) {
+        return bufToHash(buf, length);
+    }
+
     /**
      * Creator for use when the XML violation policy requires an attribute name
      * to be changed.
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.impl;
+
+import nu.validator.htmlparser.annotation.NoLength;
+import nu.validator.htmlparser.common.Interner;
+
+/**
+ * A fixed-size cache of <code>AttributeName</code> objects for attribute
+ * names that are not in the built-in table, such as <code>data-*</code>
+ * attributes and framework attributes. Without the cache, the tokenizer
+ * creates a new <code>AttributeName</code> (and checks whether the name is
+ * an NCName) for every occurrence of such an attribute.
+ * 
+ * <p>The cached objects are immutable, and the cache is a pair of plain
+ * arrays that are read and written without locking. A race between
+ * threads can only cause an extra cache miss, so one instance can be shared
+ * by any number of tokenizers.
+ */
+public final class AttributeNameCache {
+
+    /**
+     * The instance used by tokenizers that have not been given a cache.
+     */
+    static final AttributeNameCache SHARED = new AttributeNameCache(1024);
+
+    /**
+     * The largest number of cache slots.
+     */
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    /**
+     * Names created with the NCName check.
+     */
+    private final AttributeName[] checked;
+
+    /**
+     * Names created without the NCName check.
+     */
+    private final AttributeName[] unchecked;
+
+    private final int mask;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            the number of names to cache; rounded up to a power of two
+     *            and clamped between 16 and 2<sup>16</sup>
+     */
+    public AttributeNameCache(int capacity) {
+        int size = 16;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        checked = new AttributeName[size];
+        unchecked = new AttributeName[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns an <code>AttributeName</code> for a name that is not in the
+     * built-in table.
+     * 
+     * @param buf
+     *            the buffer holding the name
+     * @param length
+     *            the length of the name
+     * @param checkNcName
+     *            whether to check ncnameness
+     * @param interner
+     *            the interner for the local name
+     * @return an <code>AttributeName</code>
+     */
+    AttributeName nameByBuffer(@NoLength char[] buf, int length,
+            boolean checkNcName, Interner interner) {
+        AttributeName[] cache = checkNcName ? checked : unchecked;
+        int hash = AttributeName.hashForCache(buf, length);
+        // The hash was designed for the built-in names, so fold in the
+        // middle of the name, where unknown names that share a prefix and
+        // a suffix tend to differ.
+        hash += buf[length >> 1] * 31;
+        hash ^= (hash >>> 16);
+        int index = hash & mask;
+        AttributeName name = cache[index];
+        if (name != null
+                && Portability.localEqualsBuffer(
+                        name.getLocal(AttributeName.HTML), buf, length)) {
+            return name;
+        }
+        name = AttributeName.createAttributeName(
+                Portability.newLocalNameFromBuffer(buf, length, interner),
+                checkNcName);
+        cache[index] = name;
+        return name;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.impl;
+
+import nu.validator.htmlparser.annotation.NoLength;
+
+/**
+ * A fixed-size cache of attribute values, so that values that repeat, such
+ * as <code>class="btn btn-primary"</code> or <code>rel="stylesheet"</code>,
+ * share one <code>String</code> instance instead of each occurrence getting
+ * a copy in the tree.
+ * 
+ * <p>Entries are keyed on the attribute name, the length of the value and a
+ * hash of a few of its characters, and a hit is confirmed by comparing the
+ * whole value. Long values rarely repeat, so they are not cached.
+ * 
+ * <p>Unlike <code>AttributeNameCache</code>, this class keeps hit and miss
+ * counters without synchronization, so an instance should be used by one
+ * parser at a time.
+ */
+public final class AttributeValueCache {
+
+    /**
+     * The largest number of cache slots.
+     */
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    /**
+     * Values longer than this are not cached.
+     */
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    private final AttributeName[] names;
+
+    private final String[] values;
+
+    private final int mask;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            the number of values to cache; rounded up to a power of two
+     *            and clamped between 16 and 2<sup>16</sup>
+     */
+    public AttributeValueCache(int capacity) {
+        int size = 16;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        names = new AttributeName[size];
+        values = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the value in the buffer as a string, reusing an earlier
+     * instance when the same attribute had the same value.
+     * 
+     * @param name
+     *            the attribute name
+     * @param buf
+     *            the buffer holding the value
+     * @param length
+     *            the length of the value
+     * @return the value
+     */
+    String valueByBuffer(AttributeName name, @NoLength char[] buf, int length) {
+        if (length == 0) {
+            return Portability.newEmptyString();
+        }
+        if (length > MAX_VALUE_LENGTH) {
+            misses++;
+            return Portability.newStringFromBuffer(buf, 0, length);
+        }
+        int hash = System.identityHashCode(name) + length;
+        hash = 31 * hash + buf[0];
+        hash = 31 * hash + buf[length >> 1];
+        hash = 31 * hash + buf[length - 1];
+        hash ^= (hash >>> 16);
+        // Look at two adjacent slots like CachingInterner does.
+        int index = hash & mask;
+        String value = values[index];
+        if (names[index] == name
+                && Portability.localEqualsBuffer(value, buf, length)) {
+            hits++;
+            return value;
+        }
+        int otherIndex = index ^ 1;
+        String other = values[otherIndex];
+        if (names[otherIndex] == name
+                && Portability.localEqualsBuffer(other, buf, length)) {
+            hits++;
+            return other;
+        }
+        misses++;
+        String str = Portability.newStringFromBuffer(buf, 0, length);
+        if (value == null || other != null) {
+            names[index] = name;
+            values[index] = str;
+        } else {
+            names[otherIndex] = name;
+            values[otherIndex] = str;
+        }
+        return str;
+    }
+
+    /**
+     * Returns the number of values that were found in the cache.
+     * 
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of values that were not found in the cache,
+     * including the values too long to cache.
+     * 
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Empties the cache and resets the counters.
+     */
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            names[i] = null;
+            values[i] = null;
+        }
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.impl;
+
+import nu.validator.htmlparser.common.Interner;
+
+/**
+ * An <code>Interner</code> that keeps a fixed-size cache of recently seen
+ * local names in front of <code>String.intern()</code>. A name found in the
+ * cache is returned without creating a temporary string or consulting the
+ * JVM string table, which matters for documents that use lots of custom
+ * element names and framework attributes.
+ * 
+ * <p>The cache is a plain array that is read and written without locking.
+ * Since the cached strings are immutable and already interned, a race
+ * between threads can only cause an extra cache miss, never a wrong answer.
+ * Thus, one instance can be shared by any number of parsers.
+ */
+public final class CachingInterner implements Interner {
+
+    /**
+     * The instance used by tokenizers that have not been given an interner.
+     */
+    static final CachingInterner SHARED = new CachingInterner(4096);
+
+    /**
+     * The largest number of cache slots.
+     */
+    private static final int MAX_CAPACITY = 1 << 20;
+
+    private final String[] cache;
+
+    private final int mask;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            the number of names to cache; rounded up to a power of two
+     *            and clamped between 16 and 2<sup>20</sup>
+     */
+    public CachingInterner(int capacity) {
+        int size = 16;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        cache = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the local name consisting of the first <code>length</code>
+     * characters of <code>buf</code>. The return value is the same instance
+     * that <code>String.intern()</code> returns for those characters, since
+     * the parser compares local names by reference.
+     * 
+     * @param buf
+     *            the buffer holding the name
+     * @param length
+     *            the number of characters in the name
+     * @return the interned name
+     */
+    public String intern(char[] buf, int length) {
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        hash ^= (hash >>> 16);
+        // Look at two adjacent slots so that two hot names that collide
+        // do not keep evicting each other.
+        int index = hash & mask;
+        String[] cache = this.cache;
+        String name = cache[index];
+        if (name != null && Portability.localEqualsBuffer(name, buf, length)) {
+            return name;
+        }
+        int otherIndex = index ^ 1;
+        String other = cache[otherIndex];
+        if (other != null
+                && Portability.localEqualsBuffer(other, buf, length)) {
+            return other;
+        }
+        String interned = new String(buf, 0, length).intern();
+        if (name == null || other != null) {
+            cache[index] = interned;
+        } else {
+            cache[otherIndex] = interned;
+        }
+        return interned;
+    }
+}
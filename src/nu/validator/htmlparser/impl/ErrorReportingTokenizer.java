@@ -125,6 +125,13 @@ public class ErrorReportingTokenizer extends Tokenizer {
         this.contentNonXmlCharPolicy = contentNonXmlCharPolicy;
     }
 
+    /**
+     * @see nu.validator.htmlparser.impl.Tokenizer#isAlteringBuffer()
+     */
+    @Override public boolean isAlteringBuffer() {
+        return contentNonXmlCharPolicy == XmlViolationPolicy.ALTER_INFOSET;
+    }
+
     /**
      * Sets the errorProfile.
      *
@@ -296,6 +303,18 @@ public class ErrorReportingTokenizer extends Tokenizer {
         return c;
     }
 
+    /**
+     * Never skips anything, since every character has to go through
+     * <code>checkChar()</code> for location tracking and character checks.
+     *
+     * @see nu.validator.htmlparser.impl.Tokenizer#skipTextRun(char[], int,
+     *      int, long)
+     */
+    @Override protected int skipTextRun(@NoLength char[] buf, int pos,
+            int endPos, long runEnders) {
+        return pos;
+    }
+
     /**
      * @throws SAXException
      * @see nu.validator.htmlparser.impl.Tokenizer#transition(int, int, boolean,
@@ -490,7 +509,7 @@ public class ErrorReportingTokenizer extends Tokenizer {
         }
         SAXParseException spe = new SAXParseException(
                 "The string following \u201C&\u201D was interpreted as a character reference. (\u201C&\u201D probably should have been escaped as \u201C&amp;\u201D.)",
-                ampersandLocation);
+                new LocatorImpl(this, ampersandPosition));
         errorHandler.error(spe);
     }
 
@@ -504,7 +523,7 @@ public class ErrorReportingTokenizer extends Tokenizer {
         }
         SAXParseException spe = new SAXParseException(
                 "\u201C&\u201D did not start a character reference. (\u201C&\u201D probably should have been escaped as \u201C&amp;\u201D.)",
-                ampersandLocation);
+                new LocatorImpl(this, ampersandPosition));
         errorHandler.error(spe);
     }
 
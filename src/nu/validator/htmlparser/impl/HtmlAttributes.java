@@ -66,6 +66,46 @@ public final class HtmlAttributes implements Attributes {
 
     private String[] xmlnsValues;
 
+    /**
+     * The number of attributes at which lookups by name switch from
+     * scanning the arrays to a hash index.
+     */
+    private static final int INDEX_THRESHOLD = 16;
+
+    /**
+     * The index of <code>names</code> or <code>null</code> if
+     * <code>length</code> is below <code>INDEX_THRESHOLD</code>.
+     */
+    private LocalNameIndex namesIndex;
+
+    /**
+     * The index of <code>xmlnsNames</code> or <code>null</code> if
+     * <code>xmlnsLength</code> is below <code>INDEX_THRESHOLD</code>.
+     */
+    private LocalNameIndex xmlnsIndex;
+
+    /**
+     * The arena holding the characters of the values that have not been
+     * turned into strings yet. A <code>null</code> entry in
+     * <code>values</code> means that the value is the slice of this array
+     * given by <code>valueStarts</code> and <code>valueLengths</code>.
+     */
+    private char[] arena;
+
+    private int arenaLength;
+
+    private int[] valueStarts;
+
+    private int[] valueLengths;
+
+    /**
+     * Whether the arrays above may also be referenced by an instance made by
+     * <code>cloneAttributes</code> or the instance it was made from. If so,
+     * they are copied before they are changed. Never reset for the instance
+     * that was cloned, because there is no telling when the clone goes away.
+     */
+    private boolean sharing;
+
     public HtmlAttributes(int mode) {
         this.mode = mode;
         this.length = 0;
@@ -86,6 +126,32 @@ public final class HtmlAttributes implements Attributes {
 
     }
 
+    /**
+     * Instantiates a copy of <code>other</code> that shares its arrays until
+     * either is changed.
+     * 
+     * @param other
+     *            the attributes to copy
+     */
+    private HtmlAttributes(HtmlAttributes other) {
+        this.mode = 0;
+        this.length = other.length;
+        this.names = other.names;
+        this.values = other.values;
+        this.idValue = other.idValue;
+        this.xmlnsLength = other.xmlnsLength;
+        this.xmlnsNames = other.xmlnsNames;
+        this.xmlnsValues = other.xmlnsValues;
+        this.namesIndex = other.namesIndex;
+        this.xmlnsIndex = other.xmlnsIndex;
+        this.arena = other.arena;
+        this.arenaLength = other.arenaLength;
+        this.valueStarts = other.valueStarts;
+        this.valueLengths = other.valueLengths;
+        this.sharing = true;
+        other.sharing = true;
+    }
+
     /**
      * Only use with a static argument
      *
@@ -93,6 +159,13 @@ public final class HtmlAttributes implements Attributes {
      * @return
      */
     public int getIndex(AttributeName name) {
+        if (namesIndex != null) {
+            int index = namesIndex.find(names,
+                    name.getLocal(AttributeName.HTML));
+            if (index == -1 || names[index] == name) {
+                return index;
+            }
+        }
         for (int i = 0; i < length; i++) {
             if (names[i] == name) {
                 return i;
@@ -152,7 +225,7 @@ public final class HtmlAttributes implements Attributes {
      * @return the attribute value at index
      */
     public String getValueNoBoundsCheck(int index) {
-        return values[index];
+        return valueAt(index);
     }
 
     /**
@@ -287,7 +360,7 @@ public final class HtmlAttributes implements Attributes {
 
     public String getValue(int index) {
         if (index < length && index >= 0) {
-            return values[index];
+            return valueAt(index);
         } else {
             return null;
         }
@@ -326,6 +399,13 @@ public final class HtmlAttributes implements Attributes {
     }
 
     public int getXmlnsIndex(AttributeName name) {
+        if (xmlnsIndex != null) {
+            int index = xmlnsIndex.find(xmlnsNames,
+                    name.getLocal(AttributeName.HTML));
+            if (index == -1 || xmlnsNames[index] == name) {
+                return index;
+            }
+        }
         for (int i = 0; i < xmlnsLength; i++) {
             if (xmlnsNames[i] == name) {
                 return i;
@@ -354,6 +434,9 @@ public final class HtmlAttributes implements Attributes {
     void addAttribute(AttributeName name, String value
             , XmlViolationPolicy xmlnsPolicy
     ) throws SAXException {
+        if (sharing) {
+            unshare();
+        }
         if (name == AttributeName.ID) {
             idValue = value;
         }
@@ -370,6 +453,11 @@ public final class HtmlAttributes implements Attributes {
             }
             xmlnsNames[xmlnsLength] = name;
             xmlnsValues[xmlnsLength] = value;
+            if (xmlnsIndex != null) {
+                xmlnsIndex.add(xmlnsNames, xmlnsLength);
+            } else if (xmlnsLength == INDEX_THRESHOLD) {
+                xmlnsIndex = new LocalNameIndex(xmlnsNames, xmlnsLength + 1);
+            }
             xmlnsLength++;
             switch (xmlnsPolicy) {
                 case FATAL:
@@ -395,10 +483,148 @@ public final class HtmlAttributes implements Attributes {
         }
         names[length] = name;
         values[length] = value;
+        if (namesIndex != null) {
+            namesIndex.add(names, length);
+        } else if (length == INDEX_THRESHOLD) {
+            namesIndex = new LocalNameIndex(names, length + 1);
+        }
         length++;
     }
 
+    /**
+     * Adds an attribute whose value is copied into the arena and turned into
+     * a string only when it is asked for. The values of <code>id</code> and
+     * <code>xmlns</code> attributes are needed right away, so they are
+     * turned into strings here.
+     * 
+     * @param name
+     *            the attribute name
+     * @param buf
+     *            the buffer holding the value
+     * @param start
+     *            the start of the value in the buffer
+     * @param len
+     *            the length of the value
+     * @param xmlnsPolicy
+     *            the xmlns policy
+     * @throws SAXException
+     */
+    void addAttribute(AttributeName name, char[] buf, int start, int len,
+            XmlViolationPolicy xmlnsPolicy) throws SAXException {
+        if (name == AttributeName.ID || name.isXmlns()) {
+            addAttribute(name, Portability.newStringFromBuffer(buf, start, len),
+                    xmlnsPolicy);
+            return;
+        }
+        if (sharing) {
+            unshare();
+        }
+        if (arena == null) {
+            arena = new char[Math.max(len, 256)];
+        } else if (arena.length - arenaLength < len) {
+            char[] newArena = new char[Math.max(arenaLength + len,
+                    arena.length << 1)];
+            System.arraycopy(arena, 0, newArena, 0, arenaLength);
+            arena = newArena;
+        }
+        System.arraycopy(buf, start, arena, arenaLength, len);
+        int pos = length;
+        addAttribute(name, (String) null, xmlnsPolicy);
+        if (valueStarts == null || valueStarts.length < names.length) {
+            int[] newStarts = new int[names.length];
+            int[] newLengths = new int[names.length];
+            if (valueStarts != null) {
+                // Values added as strings grow the names but not these, so
+                // they may be shorter than pos. The entries past their end
+                // are for values that are strings already and are not read.
+                int copied = Math.min(pos, valueStarts.length);
+                System.arraycopy(valueStarts, 0, newStarts, 0, copied);
+                System.arraycopy(valueLengths, 0, newLengths, 0, copied);
+            }
+            valueStarts = newStarts;
+            valueLengths = newLengths;
+        }
+        valueStarts[pos] = arenaLength;
+        valueLengths[pos] = len;
+        arenaLength += len;
+    }
+
+    /**
+     * Gives this instance arrays of its own, so that changing them does not
+     * change the instances it shares them with.
+     */
+    private void unshare() {
+        AttributeName[] newNames = new AttributeName[names.length];
+        System.arraycopy(names, 0, newNames, 0, length);
+        names = newNames;
+        String[] newValues = new String[values.length];
+        System.arraycopy(values, 0, newValues, 0, length);
+        values = newValues;
+        if (xmlnsLength != 0) {
+            AttributeName[] newXmlnsNames = new AttributeName[xmlnsNames.length];
+            System.arraycopy(xmlnsNames, 0, newXmlnsNames, 0, xmlnsLength);
+            xmlnsNames = newXmlnsNames;
+            String[] newXmlnsValues = new String[xmlnsValues.length];
+            System.arraycopy(xmlnsValues, 0, newXmlnsValues, 0, xmlnsLength);
+            xmlnsValues = newXmlnsValues;
+        } else {
+            xmlnsNames = HtmlAttributes.EMPTY_ATTRIBUTENAMES;
+            xmlnsValues = HtmlAttributes.EMPTY_STRINGS;
+        }
+        if (namesIndex != null) {
+            namesIndex = new LocalNameIndex(names, length);
+        }
+        if (xmlnsIndex != null) {
+            xmlnsIndex = new LocalNameIndex(xmlnsNames, xmlnsLength);
+        }
+        if (arena != null) {
+            char[] newArena = new char[arena.length];
+            System.arraycopy(arena, 0, newArena, 0, arenaLength);
+            arena = newArena;
+        }
+        if (valueStarts != null) {
+            int[] newStarts = new int[valueStarts.length];
+            int[] newLengths = new int[valueLengths.length];
+            int copied = Math.min(length, valueStarts.length);
+            System.arraycopy(valueStarts, 0, newStarts, 0, copied);
+            System.arraycopy(valueLengths, 0, newLengths, 0, copied);
+            valueStarts = newStarts;
+            valueLengths = newLengths;
+        }
+        sharing = false;
+    }
+
+    /**
+     * Returns the value at <code>index</code>, turning it into a string first
+     * if it is still in the arena. The string is stored even if the arrays
+     * are shared, since it is the same value for every instance sharing
+     * them.
+     */
+    private String valueAt(int index) {
+        String value = values[index];
+        if (value == null) {
+            value = new String(arena, valueStarts[index], valueLengths[index]);
+            values[index] = value;
+        }
+        return value;
+    }
+
     void clear(int m) {
+        if (sharing) {
+            // Start over with arrays of our own instead of emptying the
+            // shared ones. The next tag likely needs about as much arena as
+            // this one did.
+            names = new AttributeName[names.length];
+            values = new String[values.length];
+            xmlnsNames = HtmlAttributes.EMPTY_ATTRIBUTENAMES;
+            xmlnsValues = HtmlAttributes.EMPTY_STRINGS;
+            arena = arenaLength == 0 ? null : new char[arenaLength];
+            valueStarts = null;
+            valueLengths = null;
+            length = 0;
+            xmlnsLength = 0;
+            sharing = false;
+        }
         for (int i = 0; i < length; i++) {
             names[i] = null;
             values[i] = null;
@@ -411,9 +637,18 @@ public final class HtmlAttributes implements Attributes {
             xmlnsValues[i] = null;
         }
         xmlnsLength = 0;
+        namesIndex = null;
+        xmlnsIndex = null;
+        arenaLength = 0;
+        if (arena != null && arena.length > 8192) {
+            arena = null;
+        }
     }
 
     boolean contains(AttributeName name) {
+        if (namesIndex != null || xmlnsIndex != null) {
+            return containsIndexed(name);
+        }
         for (int i = 0; i < length; i++) {
             if (name.equalsAnother(names[i])) {
                 return true;
@@ -427,6 +662,30 @@ public final class HtmlAttributes implements Attributes {
         return false;
     }
 
+    private boolean containsIndexed(AttributeName name) {
+        @Local String local = name.getLocal(AttributeName.HTML);
+        if (namesIndex != null) {
+            if (namesIndex.find(names, local) != -1) {
+                return true;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (name.equalsAnother(names[i])) {
+                    return true;
+                }
+            }
+        }
+        if (xmlnsIndex != null) {
+            return xmlnsIndex.find(xmlnsNames, local) != -1;
+        }
+        for (int i = 0; i < xmlnsLength; i++) {
+            if (name.equalsAnother(xmlnsNames[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void adjustForMath() {
         mode = AttributeName.MATHML;
     }
@@ -435,23 +694,20 @@ public final class HtmlAttributes implements Attributes {
         mode = AttributeName.SVG;
     }
 
+    /**
+     * Returns a copy of these attributes. The copy shares the arrays of this
+     * instance, so making it allocates nothing else. Whichever of the two
+     * is changed first copies the arrays then.
+     * 
+     * @return the copy
+     * @throws SAXException
+     */
     public HtmlAttributes cloneAttributes() throws SAXException {
         assert (length == 0
                 && xmlnsLength == 0
                 )
                 || mode == 0 || mode == 3;
-        HtmlAttributes clone = new HtmlAttributes(0);
-        for (int i = 0; i < length; i++) {
-            clone.addAttribute(names[i],
-                    values[i]
-                    , XmlViolationPolicy.ALLOW
-            );
-        }
-        for (int i = 0; i < xmlnsLength; i++) {
-            clone.addAttribute(xmlnsNames[i], xmlnsValues[i],
-                    XmlViolationPolicy.ALLOW);
-        }
-        return clone; // XXX!!!
+        return new HtmlAttributes(this);
     }
 
     public boolean equalsAnother(HtmlAttributes other) {
@@ -466,10 +722,17 @@ public final class HtmlAttributes implements Attributes {
             // The comparing just the local names is OK, since these attribute
             // holders are both supposed to belong to HTML formatting elements
             @Local String ownLocal = names[i].getLocal(AttributeName.HTML);
+            if (other.namesIndex != null) {
+                int j = other.namesIndex.find(other.names, ownLocal);
+                if (j == -1 || !valueEquals(i, other, j)) {
+                    return false;
+                }
+                continue;
+            }
             for (int j = 0; j < otherLength; j++) {
                 if (ownLocal == other.names[j].getLocal(AttributeName.HTML)) {
                     found = true;
-                    if (!values[i].equals(other.values[j])) {
+                    if (!valueEquals(i, other, j)) {
                         return false;
                     }
                     break;
@@ -482,6 +745,29 @@ public final class HtmlAttributes implements Attributes {
         return true;
     }
 
+    /**
+     * Compares the value at <code>index</code> with the value at
+     * <code>otherIndex</code> in <code>other</code> without turning values
+     * that are still in the arena into strings.
+     */
+    private boolean valueEquals(int index, HtmlAttributes other, int otherIndex) {
+        if (values[index] != null || other.values[otherIndex] != null) {
+            return valueAt(index).equals(other.valueAt(otherIndex));
+        }
+        int len = valueLengths[index];
+        if (len != other.valueLengths[otherIndex]) {
+            return false;
+        }
+        int start = valueStarts[index];
+        int otherStart = other.valueStarts[otherIndex];
+        for (int i = 0; i < len; i++) {
+            if (arena[start + i] != other.arena[otherStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     void processNonNcNames(TreeBuilder<?> treeBuilder, XmlViolationPolicy namePolicy) throws SAXException {
         for (int i = 0; i < length; i++) {
             AttributeName attName = names[i];
@@ -489,6 +775,9 @@ public final class HtmlAttributes implements Attributes {
                 String name = attName.getLocal(mode);
                 switch (namePolicy) {
                     case ALTER_INFOSET:
+                        if (sharing) {
+                            unshare();
+                        }
                         names[i] = AttributeName.create(NCName.escapeName(name));
                         // fall through
                     case ALLOW:
@@ -502,6 +791,10 @@ public final class HtmlAttributes implements Attributes {
                 }
             }
         }
+        if (namesIndex != null) {
+            // Escaping may have changed local names.
+            namesIndex = new LocalNameIndex(names, length);
+        }
     }
 
     public void merge(HtmlAttributes attributes) throws SAXException {
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.impl;
+
+/**
+ * An open-addressed hash index from the HTML-mode local name of an attribute
+ * to its position in one of the arrays of <code>HtmlAttributes</code>. Used
+ * only once a tag has so many attributes that scanning the array for each
+ * new attribute would make the tag quadratic to process.
+ */
+final class LocalNameIndex {
+
+    /**
+     * Positions plus one; zero marks an empty slot.
+     */
+    private int[] slots;
+
+    private int mask;
+
+    private int count;
+
+    /**
+     * Constructor.
+     * 
+     * @param names
+     *            the array to index
+     * @param length
+     *            the number of names in the array
+     */
+    LocalNameIndex(AttributeName[] names, int length) {
+        allocate(length);
+        for (int i = 0; i < length; i++) {
+            add(names, i);
+        }
+    }
+
+    private void allocate(int length) {
+        int size = 16;
+        while (size < length * 4) {
+            size <<= 1;
+        }
+        slots = new int[size];
+        mask = size - 1;
+        count = 0;
+    }
+
+    private static int hash(String local) {
+        int h = local.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Indexes the name at <code>pos</code> unless an earlier name has the same
+     * local name.
+     * 
+     * @param names
+     *            the indexed array
+     * @param pos
+     *            the position of the new name
+     */
+    void add(AttributeName[] names, int pos) {
+        if (count * 2 >= mask) {
+            int[] old = slots;
+            allocate(count);
+            for (int i = 0; i < old.length; i++) {
+                if (old[i] != 0) {
+                    insert(names, old[i] - 1);
+                }
+            }
+        }
+        insert(names, pos);
+    }
+
+    private void insert(AttributeName[] names, int pos) {
+        String local = names[pos].getLocal(AttributeName.HTML);
+        int i = hash(local) & mask;
+        int slot;
+        while ((slot = slots[i]) != 0) {
+            if (names[slot - 1].getLocal(AttributeName.HTML) == local) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = pos + 1;
+        count++;
+    }
+
+    /**
+     * Returns the position of the first name with the given HTML-mode local
+     * name.
+     * 
+     * @param names
+     *            the indexed array
+     * @param local
+     *            the local name
+     * @return the position or -1 if not found
+     */
+    int find(AttributeName[] names, String local) {
+        int i = hash(local) & mask;
+        int slot;
+        while ((slot = slots[i]) != 0) {
+            if (names[slot - 1].getLocal(AttributeName.HTML) == local) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+}
@@ -42,6 +42,36 @@ public class LocatorImpl implements Locator {
         this.line = locator.getLineNumber();
     }
 
+    /**
+     * Instantiates a locator for a position packed by {@link #pack(int, int)}
+     * in the document <code>ids</code> is in.
+     * 
+     * @param ids
+     *            the locator to take the public and system ids from
+     * @param position
+     *            the packed line and column
+     */
+    public LocatorImpl(Locator ids, long position) {
+        this.systemId = ids.getSystemId();
+        this.publicId = ids.getPublicId();
+        this.column = (int) position;
+        this.line = (int) (position >> 32);
+    }
+
+    /**
+     * Packs a line and a column into a <code>long</code> so that a position
+     * can be remembered without allocating a locator for it.
+     * 
+     * @param line
+     *            the line number
+     * @param column
+     *            the column number
+     * @return the packed position
+     */
+    public static long pack(int line, int column) {
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
     public final int getColumnNumber() {
         return column;
     }
@@ -201,6 +201,23 @@ public abstract class MetaScanner {
         return readable.readByte();
     }
 
+    /**
+     * Returns the scanner to its initial state so that the same instance
+     * can scan another document. The attribute value buffer is kept.
+     */
+    protected void reset() {
+        this.metaState = NO;
+        this.contentIndex = Integer.MAX_VALUE;
+        this.charsetIndex = Integer.MAX_VALUE;
+        this.httpEquivIndex = Integer.MAX_VALUE;
+        this.contentTypeIndex = Integer.MAX_VALUE;
+        this.stateSave = DATA;
+        this.strBufLen = 0;
+        this.content = null;
+        this.charset = null;
+        this.httpEquivState = HTTP_EQUIV_NOT_SEEN;
+    }
+
     // ]NOCPP]
 
     // WARNING When editing this, makes sure the bytecode length shown by javap
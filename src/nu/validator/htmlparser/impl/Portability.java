@@ -36,7 +36,10 @@ public final class Portability {
      * calling <code>releaseLocal</code> on the return value balances the refcount set by this method.
      */
     public static @Local String newLocalNameFromBuffer(@NoLength char[] buf, int length, Interner interner) {
-        return new String(buf, 0, length).intern();
+        if (interner instanceof CachingInterner) {
+            return ((CachingInterner) interner).intern(buf, length);
+        }
+        return CachingInterner.SHARED.intern(buf, length);
     }
 
     public static String newStringFromBuffer(@NoLength char[] buf, int offset, int length
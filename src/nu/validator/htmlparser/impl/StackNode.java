@@ -46,6 +46,11 @@ final class StackNode<T> {
     // Only used on the list of formatting elements
     HtmlAttributes attributes;
 
+    // Position on the tree builder's stack when last pushed. Stale once the
+    // node has left the stack, so only valid if the stack still holds this
+    // node there.
+    int stackPos = -1;
+
     private int refcount = 0;
 
     /*
@@ -55,10 +60,27 @@ final class StackNode<T> {
 
     // [NOCPP[
 
-    private TaintableLocatorImpl locator;
+    /**
+     * Where the element was created, packed by
+     * <code>LocatorImpl.pack</code>.
+     */
+    private long position;
+
+    /**
+     * Whether the element has already been reported as unclosed.
+     */
+    private boolean tainted;
+
+    public long getPosition() {
+        return position;
+    }
+
+    public boolean isTainted() {
+        return tainted;
+    }
 
-    public TaintableLocatorImpl getLocator() {
-        return locator;
+    public void markTainted() {
+        tainted = true;
     }
 
     // ]NOCPP]
@@ -127,7 +149,7 @@ final class StackNode<T> {
             @Local String popName, HtmlAttributes attributes,
             // CPPONLY: @HtmlCreator Object htmlCreator
             // [NOCPP[
-            TaintableLocatorImpl locator
+            long position, boolean tainted
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -143,7 +165,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = htmlCreator;
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = tainted;
         // ]NOCPP]
     }
 
@@ -155,7 +178,7 @@ final class StackNode<T> {
      */
     void setValues(ElementName elementName, T node
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -172,7 +195,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = null;
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = false;
         // ]NOCPP]
     }
 
@@ -185,7 +209,7 @@ final class StackNode<T> {
      */
     void setValues(ElementName elementName, T node, HtmlAttributes attributes
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -203,7 +227,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = elementName.getHtmlCreator();
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = false;
         // ]NOCPP]
     }
 
@@ -216,7 +241,7 @@ final class StackNode<T> {
      */
     void setValues(ElementName elementName, T node, @Local String popName
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -232,7 +257,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = null;
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = false;
         // ]NOCPP]
     }
 
@@ -248,7 +274,7 @@ final class StackNode<T> {
      */
     void setValues(ElementName elementName, @Local String popName, T node
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -264,7 +290,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = null;
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = false;
         // ]NOCPP]
     }
 
@@ -279,7 +306,7 @@ final class StackNode<T> {
     void setValues(ElementName elementName, T node, @Local String popName,
             boolean markAsIntegrationPoint
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         assert isUnused();
@@ -296,7 +323,8 @@ final class StackNode<T> {
          */
         // CPPONLY: this.htmlCreator = null;
         // [NOCPP[
-        this.locator = locator;
+        this.position = position;
+        this.tainted = false;
         // ]NOCPP]
     }
 
@@ -331,6 +359,17 @@ final class StackNode<T> {
     }
 
     // [NOCPP[
+
+    /**
+     * Drops the references to the tree of a finished parse, so that keeping
+     * this unused stack node for the next parse does not keep that tree
+     * alive.
+     */
+    void dropReferencesForReuse() {
+        assert isUnused();
+        node = null;
+        attributes = null;
+    }
     /**
      * @see java.lang.Object#toString()
      */
@@ -24,6 +24,15 @@ package nu.validator.htmlparser.impl;
 
 import org.xml.sax.Locator;
 
+/**
+ * A locator with a flag for suppressing repeated reports about the same
+ * element.
+ * 
+ * @deprecated The tree builder no longer uses this class. It keeps the
+ *             positions of elements as packed <code>long</code>s; see
+ *             {@link LocatorImpl#pack(int, int)}.
+ */
+@Deprecated
 public class TaintableLocatorImpl extends LocatorImpl {
 
     private boolean tainted;
@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.impl;
+
+import java.util.concurrent.Callable;
+
+import nu.validator.htmlparser.common.TokenHandler;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * The tokens of one chunk of a document held in memory, tokenized ahead of
+ * time on another thread on the assumption that the tokenizer is in the
+ * data state at the start of the chunk, and later replayed in order into
+ * the real tokenizer's tree builder.
+ *
+ * <p>Without a tree builder, the speculative tokenizer cannot know when a
+ * start tag switches it to RCDATA, RAWTEXT, script data or PLAINTEXT. It
+ * guesses from the element name as the tree builder would in HTML content,
+ * and suspends after such a tag, and after <code>svg</code> and
+ * <code>math</code>, to record a checkpoint. On replay, the real tokenizer
+ * state after the tag is compared with the guess. On a mismatch, the rest
+ * of the chunk has to be tokenized for real from the checkpoint on.
+ *
+ * <p>Only for the plain <code>Tokenizer</code> feeding a
+ * <code>TreeBuilder</code>.
+ */
+public final class TokenBuffer implements TokenHandler,
+        Callable<TokenBuffer> {
+
+    private static final int START_TAG = 0;
+
+    private static final int SELF_CLOSING_START_TAG = 1;
+
+    private static final int END_TAG = 2;
+
+    private static final int CHARACTERS = 3;
+
+    private static final int COMMENT = 4;
+
+    private static final int DOCTYPE = 5;
+
+    private static final int ZERO_ORIGINATING_REPLACEMENT_CHARACTER = 6;
+
+    private static final int ERROR = 7;
+
+    private static final int WARNING = 8;
+
+    private static final int FATAL = 9;
+
+    private static final int CHECKPOINT = 10;
+
+    /**
+     * Records the errors of the speculative tokenizer. Fatal errors are
+     * recorded when the tokenizer throws them.
+     */
+    private final class ErrorRecorder implements ErrorHandler {
+
+        public void error(SAXParseException exception) throws SAXException {
+            append(ERROR, exception.getMessage());
+        }
+
+        public void fatalError(SAXParseException exception)
+                throws SAXException {
+        }
+
+        public void warning(SAXParseException exception) throws SAXException {
+            append(WARNING, exception.getMessage());
+        }
+    }
+
+    private final Tokenizer tokenizer;
+
+    private final char[] buf;
+
+    private final int start;
+
+    private final int end;
+
+    /**
+     * The index from which the windows the real tokenizer would be handed
+     * are counted.
+     */
+    private final int origin;
+
+    private final int windowLength;
+
+    private final boolean wantsComments;
+
+    private final boolean scriptingEnabled;
+
+    private int[] kinds = new int[256];
+
+    /**
+     * The line of each token, counted from 0 at the start of the chunk.
+     */
+    private int[] lines = new int[256];
+
+    /**
+     * The start in <code>chars</code> of the text of characters and
+     * comments, or the offset in the document of a checkpoint.
+     */
+    private int[] starts = new int[256];
+
+    /**
+     * The length of the text of characters and comments, the tokenizer
+     * state guessed at a checkpoint, or whether a doctype forces quirks.
+     */
+    private int[] lengths = new int[256];
+
+    /**
+     * The element name of tags and checkpoints, the message of errors or
+     * the identifiers of a doctype.
+     */
+    private Object[] objects = new Object[256];
+
+    private HtmlAttributes[] attributes = new HtmlAttributes[256];
+
+    private int count = 0;
+
+    private char[] chars = new char[1024];
+
+    private int charsLength = 0;
+
+    /**
+     * The index of the checkpoint waiting for its offset or -1.
+     */
+    private int checkpoint = -1;
+
+    /**
+     * Whether the speculative tokenizer threw something other than a fatal
+     * error. Tokenizing on a wrong guess can trip the tokenizer where the
+     * real tokenizer never goes, so the chunk is left to the real tokenizer.
+     */
+    private boolean failed = false;
+
+    /**
+     * Prepares to tokenize a chunk of a document. Called on the thread of
+     * <code>model</code>.
+     *
+     * @param model
+     *            the tokenizer whose settings and tree builder to assume
+     * @param buf
+     *            the document
+     * @param start
+     *            the start of the chunk
+     * @param end
+     *            the end of the chunk
+     * @param origin
+     *            the start of the document
+     * @param windowLength
+     *            the number of chars the real tokenizer would be handed at a
+     *            time, counted from <code>origin</code>
+     * @throws SAXException
+     *             if the tree builder threw
+     */
+    public TokenBuffer(Tokenizer model, char[] buf, int start, int end,
+            int origin, int windowLength) throws SAXException {
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+        this.origin = origin;
+        this.windowLength = windowLength;
+        this.wantsComments = model.tokenHandler.wantsComments();
+        this.scriptingEnabled = ((TreeBuilder<?>) model.tokenHandler).isScriptingEnabled();
+        this.tokenizer = new Tokenizer(this, true);
+        tokenizer.loadSettings(model);
+        if (model.getErrorHandler() != null) {
+            tokenizer.setErrorHandler(new ErrorRecorder());
+        }
+    }
+
+    /**
+     * Tells whether chunks of the input of a tokenizer can be tokenized
+     * speculatively. Limits count across the whole document, which chunks
+     * tokenized on their own cannot do.
+     *
+     * @param tokenizer
+     *            the tokenizer
+     * @return <code>true</code> if <code>TokenBuffer</code> can stand in for
+     *         the tokenizer
+     */
+    public static boolean canSpeculate(Tokenizer tokenizer) {
+        return tokenizer.getClass() == Tokenizer.class
+                && tokenizer.tokenHandler instanceof TreeBuilder<?>
+                && tokenizer.getLimits() == null;
+    }
+
+    /**
+     * Tokenizes the chunk. Called on any thread. The chunk is handed to the
+     * tokenizer in the same windows as the real tokenizer would be handed
+     * it, since where a window ends can change the tokens of some malformed
+     * input, such as a long run of letters after an ampersand.
+     *
+     * @see java.util.concurrent.Callable#call()
+     */
+    public TokenBuffer call() throws SAXException {
+        tokenizer.start();
+        UTF16Buffer window = new UTF16Buffer(buf, start, start);
+        boolean lastCR = false;
+        try {
+            while (window.getEnd() < end) {
+                int windowEnd = window.getEnd() - origin;
+                window.setEnd(Math.min(end, origin + windowEnd + windowLength
+                        - windowEnd % windowLength));
+                while (window.hasMore()) {
+                    window.adjust(lastCR);
+                    lastCR = false;
+                    if (window.hasMore()) {
+                        lastCR = tokenizer.tokenizeBuffer(window);
+                        if (checkpoint != -1) {
+                            starts[checkpoint] = window.getStart();
+                            checkpoint = -1;
+                        }
+                    }
+                }
+            }
+        } catch (SAXParseException e) {
+            // Replayed in order, so the tokens before it still count.
+            append(FATAL, e.getMessage());
+        } catch (RuntimeException e) {
+            failed = true;
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        return this;
+    }
+
+    /**
+     * Feeds the tokens to the tree builder of <code>target</code> while
+     * keeping its line number in step. Called on the thread of
+     * <code>target</code> once the tokens before the chunk have been fed.
+     *
+     * @param target
+     *            the real tokenizer
+     * @return -1 if the whole chunk was replayed and <code>target</code> is
+     *         in the state it would be in after tokenizing it, or else the
+     *         offset in the document from which <code>target</code> has to
+     *         tokenize the rest of the chunk itself
+     * @throws SAXException
+     *             if the tree builder or the error handler threw or on a
+     *             fatal error
+     */
+    public int replay(Tokenizer target) throws SAXException {
+        TokenHandler tokenHandler = target.tokenHandler;
+        if (failed || !target.isInDataState()
+                || tokenHandler.cdataSectionAllowed()) {
+            return start;
+        }
+        ErrorHandler errorHandler = target.getErrorHandler();
+        int baseLine = target.getLineNumber();
+        for (int i = 0; i < count; i++) {
+            target.setLineNumber(baseLine + lines[i]);
+            switch (kinds[i]) {
+                case START_TAG:
+                case SELF_CLOSING_START_TAG:
+                    target.stateSave = Tokenizer.DATA;
+                    tokenHandler.startTag((ElementName) objects[i],
+                            attributes[i], kinds[i] == SELF_CLOSING_START_TAG);
+                    attributes[i] = null;
+                    break;
+                case END_TAG:
+                    target.stateSave = Tokenizer.DATA;
+                    tokenHandler.endTag((ElementName) objects[i]);
+                    break;
+                case CHARACTERS:
+                    tokenHandler.ensureBufferSpace(lengths[i]);
+                    tokenHandler.characters(chars, starts[i], lengths[i]);
+                    break;
+                case COMMENT:
+                    tokenHandler.comment(chars, starts[i], lengths[i]);
+                    break;
+                case DOCTYPE:
+                    String[] identifiers = (String[]) objects[i];
+                    tokenHandler.doctype(identifiers[0], identifiers[1],
+                            identifiers[2], lengths[i] != 0);
+                    break;
+                case ZERO_ORIGINATING_REPLACEMENT_CHARACTER:
+                    tokenHandler.zeroOriginatingReplacementCharacter();
+                    break;
+                case ERROR:
+                    if (errorHandler != null) {
+                        errorHandler.error(new SAXParseException(
+                                (String) objects[i], target));
+                    }
+                    break;
+                case WARNING:
+                    if (errorHandler != null) {
+                        errorHandler.warning(new SAXParseException(
+                                (String) objects[i], target));
+                    }
+                    break;
+                case FATAL:
+                    target.fatal((String) objects[i]);
+                    break;
+                case CHECKPOINT:
+                    ElementName expectation = (ElementName) objects[i];
+                    if (target.stateSave != lengths[i]
+                            || (expectation != null && target.endTagExpectation != expectation)
+                            || tokenHandler.cdataSectionAllowed()) {
+                        return starts[i];
+                    }
+                    break;
+            }
+        }
+        target.loadState(tokenizer);
+        target.setLineNumber(baseLine + tokenizer.getLineNumber() - 1);
+        return -1;
+    }
+
+    /**
+     * Appends a token and returns its index.
+     */
+    private int append(int kind, Object object) {
+        if (count == kinds.length) {
+            int newLength = count << 1;
+            int[] newKinds = new int[newLength];
+            System.arraycopy(kinds, 0, newKinds, 0, count);
+            kinds = newKinds;
+            int[] newLines = new int[newLength];
+            System.arraycopy(lines, 0, newLines, 0, count);
+            lines = newLines;
+            int[] newStarts = new int[newLength];
+            System.arraycopy(starts, 0, newStarts, 0, count);
+            starts = newStarts;
+            int[] newLengths = new int[newLength];
+            System.arraycopy(lengths, 0, newLengths, 0, count);
+            lengths = newLengths;
+            Object[] newObjects = new Object[newLength];
+            System.arraycopy(objects, 0, newObjects, 0, count);
+            objects = newObjects;
+            HtmlAttributes[] newAttributes = new HtmlAttributes[newLength];
+            System.arraycopy(attributes, 0, newAttributes, 0, count);
+            attributes = newAttributes;
+        }
+        kinds[count] = kind;
+        lines[count] = tokenizer.getLineNumber() - 1;
+        objects[count] = object;
+        return count++;
+    }
+
+    /**
+     * Appends a token whose text is copied into <code>chars</code>.
+     */
+    private void appendText(int kind, char[] buf, int start, int length) {
+        if (charsLength + length > chars.length) {
+            char[] newChars = new char[Math.max(chars.length << 1,
+                    charsLength + length)];
+            System.arraycopy(chars, 0, newChars, 0, charsLength);
+            chars = newChars;
+        }
+        System.arraycopy(buf, start, chars, charsLength, length);
+        int index = append(kind, null);
+        starts[index] = charsLength;
+        lengths[index] = length;
+        charsLength += length;
+    }
+
+    /**
+     * Returns the element name as is if interned or else a copy, since the
+     * tokenizer reuses the same instance for every name that is not.
+     */
+    private static ElementName keep(ElementName eltName) {
+        if (eltName.isInterned()) {
+            return eltName;
+        }
+        ElementName copy = new ElementName();
+        copy.setNameForNonInterned(eltName.getName());
+        return copy;
+    }
+
+    public void startTokenization(Tokenizer self) throws SAXException {
+    }
+
+    public boolean wantsComments() throws SAXException {
+        return wantsComments;
+    }
+
+    public void doctype(String name, String publicIdentifier,
+            String systemIdentifier, boolean forceQuirks) throws SAXException {
+        int index = append(DOCTYPE, new String[] { name, publicIdentifier,
+                systemIdentifier });
+        lengths[index] = forceQuirks ? 1 : 0;
+    }
+
+    public void startTag(ElementName eltName, HtmlAttributes attributes,
+            boolean selfClosing) throws SAXException {
+        int index = append(selfClosing ? SELF_CLOSING_START_TAG : START_TAG,
+                keep(eltName));
+        this.attributes[index] = attributes;
+        int state;
+        switch (eltName.getGroup()) {
+            case TreeBuilder.TITLE:
+            case TreeBuilder.TEXTAREA:
+                state = Tokenizer.RCDATA;
+                break;
+            case TreeBuilder.SCRIPT:
+                state = Tokenizer.SCRIPT_DATA;
+                break;
+            case TreeBuilder.STYLE:
+            case TreeBuilder.XMP:
+            case TreeBuilder.IFRAME:
+            case TreeBuilder.NOEMBED:
+            case TreeBuilder.NOFRAMES:
+                state = Tokenizer.RAWTEXT;
+                break;
+            case TreeBuilder.NOSCRIPT:
+                state = scriptingEnabled ? Tokenizer.RAWTEXT : Tokenizer.DATA;
+                break;
+            case TreeBuilder.PLAINTEXT:
+                state = Tokenizer.PLAINTEXT;
+                break;
+            case TreeBuilder.SVG:
+            case TreeBuilder.MATH:
+                state = Tokenizer.DATA;
+                break;
+            default:
+                return;
+        }
+        if (state != Tokenizer.DATA) {
+            tokenizer.setStateAndEndTagExpectation(state, eltName);
+        }
+        checkpoint = append(CHECKPOINT, state == Tokenizer.DATA ? null
+                : eltName);
+        lengths[checkpoint] = state;
+        tokenizer.requestSuspension();
+    }
+
+    public void endTag(ElementName eltName) throws SAXException {
+        append(END_TAG, keep(eltName));
+    }
+
+    public void comment(char[] buf, int start, int length)
+            throws SAXException {
+        // The text is junk unless comments are wanted.
+        appendText(COMMENT, buf, start, wantsComments ? length : 0);
+    }
+
+    public void characters(char[] buf, int start, int length)
+            throws SAXException {
+        appendText(CHARACTERS, buf, start, length);
+    }
+
+    public void zeroOriginatingReplacementCharacter() throws SAXException {
+        append(ZERO_ORIGINATING_REPLACEMENT_CHARACTER, null);
+    }
+
+    public void eof() throws SAXException {
+    }
+
+    public void endTokenization() throws SAXException {
+    }
+
+    /**
+     * Answers <code>false</code>, since speculation assumes HTML content.
+     *
+     * @see nu.validator.htmlparser.common.TokenHandler#cdataSectionAllowed()
+     */
+    public boolean cdataSectionAllowed() throws SAXException {
+        return false;
+    }
+
+    public void ensureBufferSpace(int inputLength) throws SAXException {
+    }
+}
@@ -48,6 +48,8 @@ import nu.validator.htmlparser.annotation.Local;
 import nu.validator.htmlparser.annotation.NoLength;
 import nu.validator.htmlparser.common.EncodingDeclarationHandler;
 import nu.validator.htmlparser.common.Interner;
+import nu.validator.htmlparser.common.LimitPolicy;
+import nu.validator.htmlparser.common.ParserLimits;
 import nu.validator.htmlparser.common.TokenHandler;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
 
@@ -260,6 +262,53 @@ public class Tokenizer implements Locator {
 
     // [NOCPP[
 
+    /**
+     * The largest buffer kept between parses.
+     */
+    private static final int MAX_SPARE_BUFFER_LENGTH = 8192;
+
+    /**
+     * The characters that end a text run in the data and RCDATA states:
+     * U+0000, LF, CR, ampersand and less-than sign. See
+     * <code>skipTextRun()</code>.
+     */
+    private static final long DATA_RUN_ENDERS = (1L << '\u0000') | (1L << '\n')
+            | (1L << '\r') | (1L << '&') | (1L << '<');
+
+    /**
+     * The characters that end a text run in the RAWTEXT and script data
+     * states.
+     */
+    private static final long RAWTEXT_RUN_ENDERS = (1L << '\u0000')
+            | (1L << '\n') | (1L << '\r') | (1L << '<');
+
+    /**
+     * The characters that end a text run in the script data escaped and
+     * script data double escaped states.
+     */
+    private static final long SCRIPT_DATA_ESCAPED_RUN_ENDERS = RAWTEXT_RUN_ENDERS
+            | (1L << '-');
+
+    /**
+     * The characters that end a text run in the PLAINTEXT state.
+     */
+    private static final long PLAINTEXT_RUN_ENDERS = (1L << '\u0000')
+            | (1L << '\n') | (1L << '\r');
+
+    /**
+     * The characters that end a run in the attribute value (double-quoted)
+     * state.
+     */
+    private static final long ATTRIBUTE_VALUE_DOUBLE_QUOTED_RUN_ENDERS = PLAINTEXT_RUN_ENDERS
+            | (1L << '&') | (1L << '"');
+
+    /**
+     * The characters that end a run in the attribute value (single-quoted)
+     * state.
+     */
+    private static final long ATTRIBUTE_VALUE_SINGLE_QUOTED_RUN_ENDERS = PLAINTEXT_RUN_ENDERS
+            | (1L << '&') | (1L << '\'');
+
     /**
      * Array version of space.
      */
@@ -500,8 +549,58 @@ public class Tokenizer implements Locator {
 
     private XmlViolationPolicy namePolicy = XmlViolationPolicy.ALTER_INFOSET;
 
+    /**
+     * Where the names of attributes that are not in the built-in table come
+     * from.
+     */
+    private AttributeNameCache attributeNameCache = AttributeNameCache.SHARED;
+
+    /**
+     * Whether attribute values are turned into strings only when asked for.
+     */
+    private boolean lazyAttributeValues = false;
+
+    /**
+     * The cache for sharing repeated attribute values or <code>null</code>.
+     */
+    private AttributeValueCache attributeValueCache = null;
+
     private int mappingLangToXmlLang;
 
+    /**
+     * The limits read at the start of each parse or <code>null</code>.
+     */
+    private ParserLimits limits = null;
+
+    private int maxAttributes = Integer.MAX_VALUE;
+
+    private int maxTokenLength = Integer.MAX_VALUE;
+
+    private long maxInputLength = Long.MAX_VALUE;
+
+    private boolean truncatingAtLimits;
+
+    /**
+     * The number of input characters tokenized so far in this parse.
+     */
+    private long inputLength;
+
+    private boolean reportedTokenTooLong;
+
+    /**
+     * The number of characters of the current token that did not fit in
+     * <code>strBuf</code> under the token length limit. Since they are the
+     * last ones appended, they include the provisional hyphens of a comment.
+     */
+    private int droppedFromStrBuf;
+
+    private boolean reportedInputTooLong;
+
+    /**
+     * Whether the rest of the input is ignored because a limit was reached.
+     */
+    private boolean truncated;
+
     // ]NOCPP]
 
     private final boolean newAttributesEachTime;
@@ -525,7 +624,11 @@ public class Tokenizer implements Locator {
 
     // [NOCPP[
 
-    protected LocatorImpl ampersandLocation;
+    /**
+     * Where the last character reference started, packed by
+     * <code>LocatorImpl.pack</code>.
+     */
+    protected long ampersandPosition;
 
     public Tokenizer(TokenHandler tokenHandler, boolean newAttributesEachTime) {
         this.tokenHandler = tokenHandler;
@@ -634,6 +737,15 @@ public class Tokenizer implements Locator {
         // CPPONLY: this.viewingXmlSource = viewingXmlSource;
     }
 
+    /**
+     * Sets the interner for the local names that are not in the built-in
+     * tables. In Java, a <code>CachingInterner</code> is used for the
+     * lookups; any other value, including <code>null</code>, means a cache
+     * shared by all tokenizers.
+     *
+     * @param interner
+     *            the interner
+     */
     public void setInterner(Interner interner) {
         this.interner = interner;
     }
@@ -734,6 +846,178 @@ public class Tokenizer implements Locator {
         this.namePolicy = namePolicy;
     }
 
+    /**
+     * Sets the cache for the names of attributes that are not in the
+     * built-in table. <code>null</code> means a cache shared by all
+     * tokenizers.
+     *
+     * @param attributeNameCache
+     *            the cache
+     */
+    public void setAttributeNameCache(AttributeNameCache attributeNameCache) {
+        if (attributeNameCache == null) {
+            attributeNameCache = AttributeNameCache.SHARED;
+        }
+        this.attributeNameCache = attributeNameCache;
+    }
+
+    /**
+     * Sets the limits on what one document may take. They are read at the
+     * start of each parse. The token handler reads the ones that concern it
+     * from here, too. <code>null</code> (the default) means no limits.
+     *
+     * @param limits
+     *            the limits
+     */
+    public void setLimits(ParserLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Returns the limits.
+     *
+     * @return the limits or <code>null</code>
+     */
+    public ParserLimits getLimits() {
+        return limits;
+    }
+
+    private void startLimits() {
+        if (limits == null) {
+            maxAttributes = Integer.MAX_VALUE;
+            maxTokenLength = Integer.MAX_VALUE;
+            maxInputLength = Long.MAX_VALUE;
+            truncatingAtLimits = false;
+        } else {
+            maxAttributes = limits.getMaxAttributes();
+            maxTokenLength = limits.getMaxTokenLength();
+            maxInputLength = limits.getMaxInputLength();
+            truncatingAtLimits = limits.getPolicy() == LimitPolicy.TRUNCATE;
+        }
+        inputLength = 0;
+        reportedTokenTooLong = false;
+        droppedFromStrBuf = 0;
+        reportedInputTooLong = false;
+        truncated = false;
+    }
+
+    /**
+     * Makes the tokenizer ignore the rest of the input, so that the document
+     * ends where it stopped once <code>eof()</code> is called.
+     */
+    public void truncate() {
+        truncated = true;
+        shouldSuspend = true;
+    }
+
+    /**
+     * Counts the line feed of a CRLF that the caller skipped instead of
+     * passing it to <code>tokenizeBuffer()</code>. A line feed right at the
+     * input length limit is not counted, since the input cut before it gives
+     * the same tokens.
+     */
+    public void lineFeedSkipped() {
+        if (inputLength < maxInputLength) {
+            inputLength++;
+        }
+    }
+
+    /**
+     * Tells whether the rest of the input is ignored because a limit was
+     * reached.
+     *
+     * @return <code>true</code> if truncated
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private void tooManyAttributes() throws SAXException {
+        String message = "A tag has more than the limit of " + maxAttributes
+                + " attributes.";
+        if (!truncatingAtLimits) {
+            fatal(message);
+        }
+        err(message + " Dropping attribute \u201C"
+                + attributeName.getLocal(AttributeName.HTML) + "\u201D.");
+    }
+
+    private void tokenTooLong() throws SAXException {
+        String message = "A comment, doctype, name or attribute value is longer than the limit of "
+                + maxTokenLength + " characters.";
+        if (!truncatingAtLimits) {
+            fatal(message);
+        }
+        if (!reportedTokenTooLong) {
+            reportedTokenTooLong = true;
+            err(message + " Dropping the rest of it.");
+        }
+    }
+
+    /**
+     * Reports that the buffer starting at <code>start</code> goes past the
+     * input length limit and returns where tokenizing it has to stop.
+     */
+    private int inputTooLong(int start) throws SAXException {
+        String message = "The document is longer than the limit of "
+                + maxInputLength + " characters.";
+        if (!truncatingAtLimits) {
+            fatal(message);
+        }
+        if (!reportedInputTooLong) {
+            // A suspension can stop the tokenizer before the limit, so the
+            // next buffer goes over it again.
+            reportedInputTooLong = true;
+            err(message + " Ignoring the rest of it.");
+        }
+        return start + (int) (maxInputLength - inputLength);
+    }
+
+    /**
+     * Sets whether attribute values are kept as characters and turned into
+     * strings only when the token handler asks for them. Saves allocation
+     * when the consumer reads only a few of the values.
+     *
+     * @param lazyAttributeValues
+     *            <code>true</code> to turn values into strings on demand
+     */
+    public void setLazyAttributeValues(boolean lazyAttributeValues) {
+        this.lazyAttributeValues = lazyAttributeValues;
+    }
+
+    /**
+     * Sets the cache through which attribute values are turned into
+     * strings, so that repeated values share one instance. When set, it
+     * takes precedence over lazy attribute values. <code>null</code> (the
+     * default) means no cache.
+     *
+     * @param attributeValueCache
+     *            the cache
+     */
+    public void setAttributeValueCache(AttributeValueCache attributeValueCache) {
+        this.attributeValueCache = attributeValueCache;
+    }
+
+    /**
+     * Makes this tokenizer turn the same input into the same tokens as
+     * <code>other</code> by copying its policies, its interner and its
+     * attribute name cache. The attribute value cache is not copied, since
+     * it must not be shared between threads.
+     *
+     * @param other
+     *            the tokenizer to copy the settings of
+     */
+    public void loadSettings(Tokenizer other) {
+        contentSpacePolicy = other.contentSpacePolicy;
+        commentPolicy = other.commentPolicy;
+        xmlnsPolicy = other.xmlnsPolicy;
+        namePolicy = other.namePolicy;
+        attributeNameCache = other.attributeNameCache;
+        lazyAttributeValues = other.lazyAttributeValues;
+        mappingLangToXmlLang = other.mappingLangToXmlLang;
+        interner = other.interner;
+    }
+
     // ]NOCPP]
 
     // For the token handler to call
@@ -815,6 +1099,20 @@ public class Tokenizer implements Locator {
         }
     }
 
+    // [NOCPP[
+
+    /**
+     * Returns the index just past the tag being emitted in the buffer being
+     * tokenized. Only meaningful while the token handler handles a tag.
+     * 
+     * @return the end of the current tag
+     */
+    public int getTagEnd() {
+        return cstart;
+    }
+
+    // ]NOCPP]
+
     /**
      * For C++ use only.
      */
@@ -896,6 +1194,9 @@ public class Tokenizer implements Locator {
 
     @Inline private void clearStrBufAfterUse() {
         strBufLen = 0;
+        // [NOCPP[
+        droppedFromStrBuf = 0;
+        // ]NOCPP]
     }
 
     @Inline private void clearStrBufBeforeUse() {
@@ -904,8 +1205,13 @@ public class Tokenizer implements Locator {
     }
 
     @Inline private void clearStrBufAfterOneHyphen() {
-        assert strBufLen == 1: "strBufLen length not one!";
-        assert strBuf[0] == '-': "strBuf does not start with a hyphen!";
+        // CPPONLY: assert strBufLen == 1: "strBufLen length not one!";
+        // CPPONLY: assert strBuf[0] == '-': "strBuf does not start with a hyphen!";
+        // [NOCPP[
+        assert strBufLen + droppedFromStrBuf == 1: "strBufLen length not one!";
+        assert strBufLen == 0 || strBuf[0] == '-': "strBuf does not start with a hyphen!";
+        droppedFromStrBuf = 0;
+        // ]NOCPP]
         strBufLen = 0;
     }
 
@@ -915,13 +1221,20 @@ public class Tokenizer implements Locator {
      * @param c
      *            the UTF-16 code unit to append
      */
-    @Inline private void appendStrBuf(char c) {
+    @Inline private void appendStrBuf(char c) throws SAXException {
         // CPPONLY: assert strBufLen < strBuf.length: "Previous buffer length insufficient.";
         // CPPONLY: if (strBufLen == strBuf.length) {
         // CPPONLY:     if (!EnsureBufferSpace(1)) {
         // CPPONLY:         assert false: "RELEASE: Unable to recover from buffer reallocation failure";
         // CPPONLY:     } // TODO: Add telemetry when outer if fires but inner does not
         // CPPONLY: }
+        // [NOCPP[
+        if (strBufLen >= maxTokenLength) {
+            tokenTooLong();
+            droppedFromStrBuf++;
+            return;
+        }
+        // ]NOCPP]
         strBuf[strBufLen++] = c;
     }
 
@@ -1027,7 +1340,16 @@ public class Tokenizer implements Locator {
         // ]NOCPP]
     }
 
-    private void appendStrBuf(@NoLength char[] buffer, int offset, int length) {
+    private void appendStrBuf(@NoLength char[] buffer, int offset, int length)
+            throws SAXException {
+        // [NOCPP[
+        if (length > maxTokenLength - strBufLen) {
+            tokenTooLong();
+            int room = Math.max(maxTokenLength - strBufLen, 0);
+            droppedFromStrBuf += length - room;
+            length = room;
+        }
+        // ]NOCPP]
         int newLen = strBufLen + length;
         // CPPONLY: assert newLen <= strBuf.length: "Previous buffer length insufficient.";
         // CPPONLY: if (strBuf.length < newLen) {
@@ -1042,7 +1364,7 @@ public class Tokenizer implements Locator {
     /**
      * Append the contents of the char reference buffer to the main one.
      */
-    @Inline private void appendCharRefBufToStrBuf() {
+    @Inline private void appendCharRefBufToStrBuf() throws SAXException {
         appendStrBuf(charRefBuf, 0, charRefBufLen);
         charRefBufLen = 0;
     }
@@ -1058,6 +1380,9 @@ public class Tokenizer implements Locator {
     private void emitComment(int provisionalHyphens, int pos)
             throws SAXException {
         // [NOCPP[
+        // The provisional hyphens that were dropped are not in strBuf.
+        provisionalHyphens = Math.max(provisionalHyphens - droppedFromStrBuf,
+                0);
         if (wantsComments) {
             // ]NOCPP]
             tokenHandler.comment(strBuf, 0, strBufLen
@@ -1223,10 +1548,9 @@ public class Tokenizer implements Locator {
         attributeName = AttributeName.nameByBuffer(strBuf, strBufLen, interner);
         if (attributeName == null) {
             // [NOCPP[
-            attributeName = AttributeName.createAttributeName(
-                    Portability.newLocalNameFromBuffer(strBuf, strBufLen,
-                            interner),
-                    namePolicy != XmlViolationPolicy.ALLOW);
+            attributeName = attributeNameCache.nameByBuffer(strBuf,
+                    strBufLen, namePolicy != XmlViolationPolicy.ALLOW,
+                    interner);
             // ]NOCPP]
             // CPPONLY:     nonInternedAttributeName.setNameForNonInterned(Portability.newLocalNameFromBuffer(strBuf, strBufLen, interner));
             // CPPONLY:     attributeName = nonInternedAttributeName;
@@ -1249,6 +1573,12 @@ public class Tokenizer implements Locator {
             errDuplicateAttribute();
             attributeName = null;
         }
+        // [NOCPP[
+        if (attributeName != null && attributes.getLength() >= maxAttributes) {
+            tooManyAttributes();
+            attributeName = null;
+        }
+        // ]NOCPP]
     }
 
     private void addAttributeWithoutValue() throws SAXException {
@@ -1290,6 +1620,23 @@ public class Tokenizer implements Locator {
         }
         // ]NOCPP]
         if (attributeName != null) {
+            // [NOCPP[
+            if (attributeValueCache != null) {
+                String val = attributeValueCache.valueByBuffer(attributeName,
+                        strBuf, strBufLen);
+                clearStrBufAfterUse();
+                attributes.addAttribute(attributeName, val, xmlnsPolicy);
+                attributeName = null;
+                return;
+            }
+            if (lazyAttributeValues) {
+                attributes.addAttribute(attributeName, strBuf, 0, strBufLen,
+                        xmlnsPolicy);
+                clearStrBufAfterUse();
+                attributeName = null;
+                return;
+            }
+            // ]NOCPP]
             String val = strBufToString(); // Ownership transferred to
             // HtmlAttributes
             // CPPONLY: if (mViewSource) {
@@ -1318,6 +1665,9 @@ public class Tokenizer implements Locator {
 
     public void start() throws SAXException {
         initializeWithoutStarting();
+        // [NOCPP[
+        startLimits();
+        // ]NOCPP]
         tokenHandler.startTokenization(this);
         // [NOCPP[
         startErrorReporting();
@@ -1325,6 +1675,12 @@ public class Tokenizer implements Locator {
     }
 
     public boolean tokenizeBuffer(UTF16Buffer buffer) throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            buffer.setStart(buffer.getEnd());
+            return false;
+        }
+        // ]NOCPP]
         int state = stateSave;
         int returnState = returnStateSave;
         char c = '\u0000';
@@ -1336,6 +1692,9 @@ public class Tokenizer implements Locator {
 
         // In C++, the caller of tokenizeBuffer needs to do this explicitly.
         // [NOCPP[
+        if (end - start > maxInputLength - inputLength) {
+            end = inputTooLong(start);
+        }
         ensureBufferSpace(end - start);
         // ]NOCPP]
 
@@ -1397,6 +1756,13 @@ public class Tokenizer implements Locator {
         } else {
             buffer.setStart(pos + 1);
         }
+        // [NOCPP[
+        inputLength += buffer.getStart() - start;
+        if (inputLength == maxInputLength && end != buffer.getEnd()) {
+            truncate();
+            buffer.setStart(buffer.getEnd());
+        }
+        // ]NOCPP]
         return lastCR;
     }
 
@@ -1416,6 +1782,10 @@ public class Tokenizer implements Locator {
             // ensureBufferSpace on tokenHandler.
             worstCase *= 2;
         }
+        if (worstCase > maxTokenLength) {
+            // Appending stops at the limit.
+            worstCase = maxTokenLength;
+        }
         if (strBuf == null) {
             // Add an arbitrary small value to avoid immediate reallocation
             // once there are a few characters in the buffer.
@@ -1505,6 +1875,15 @@ public class Tokenizer implements Locator {
          * were and LF, the lastCR field must be set to true and then this
          * method must return. The IO driver will then swallow the next
          * character if it is an LF to coalesce CRLF.
+         *
+         *
+         * Skipping text runs
+         *
+         * States that stay put for most characters may call skipTextRun()
+         * before consuming the next input character. It advances pos past the
+         * characters that would just hit the default case, so the switch only
+         * sees the characters that end the run. The skipped characters stay in
+         * the coalesced range that starts at cstart.
          */
         stateloop: for (;;) {
             switch (state) {
@@ -1513,6 +1892,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, DATA_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -2088,6 +2470,10 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = appendTextRunToStrBuf(buf, pos, endPos,
+                                    ATTRIBUTE_VALUE_DOUBLE_QUOTED_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -3106,6 +3492,10 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = appendTextRunToStrBuf(buf, pos, endPos,
+                                    ATTRIBUTE_VALUE_SINGLE_QUOTED_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -3731,6 +4121,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, PLAINTEXT_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -3841,6 +4234,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, DATA_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -3891,6 +4287,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, RAWTEXT_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -4163,6 +4562,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, RAWTEXT_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -4361,6 +4763,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, SCRIPT_DATA_ESCAPED_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -4575,6 +4980,9 @@ public class Tokenizer implements Locator {
                         if (reconsume) {
                             reconsume = false;
                         } else {
+                            // [NOCPP[
+                            pos = skipTextRun(buf, pos, endPos, SCRIPT_DATA_ESCAPED_RUN_ENDERS);
+                            // ]NOCPP]
                             if (++pos == endPos) {
                                 break stateloop;
                             }
@@ -6117,12 +6525,12 @@ public class Tokenizer implements Locator {
         adjustDoubleHyphenAndAppendToStrBufAndErr('\n', false);
     }
 
-    @Inline private void appendStrBufLineFeed() {
+    @Inline private void appendStrBufLineFeed() throws SAXException {
         silentLineFeed();
         appendStrBuf('\n');
     }
 
-    @Inline private void appendStrBufCarriageReturn() {
+    @Inline private void appendStrBufCarriageReturn() throws SAXException {
         silentCarriageReturn();
         appendStrBuf('\n');
     }
@@ -6161,7 +6569,8 @@ public class Tokenizer implements Locator {
     private void setAdditionalAndRememberAmpersandLocation(char add) {
         additional = add;
         // [NOCPP[
-        ampersandLocation = new LocatorImpl(this);
+        ampersandPosition = LocatorImpl.pack(getLineNumber(),
+                getColumnNumber());
         // ]NOCPP]
     }
 
@@ -6806,6 +7215,65 @@ public class Tokenizer implements Locator {
         return buf[pos];
     }
 
+    // [NOCPP[
+
+    /**
+     * Finds the end of a run of characters that the calling state would only
+     * step over. The characters that end a run must be below U+0040 and are
+     * given as a bit mask indexed by code unit, which lets the common case of
+     * a letter or a non-ASCII character be rejected with a single comparison.
+     *
+     * @param buf
+     *            the buffer
+     * @param pos
+     *            the index of the last consumed character
+     * @param endPos
+     *            the end of the significant part of the buffer
+     * @param runEnders
+     *            bit mask of the characters that end a run
+     * @return the index of the last character of the run or <code>pos</code>
+     *         if the next character already ends it
+     */
+    protected int skipTextRun(@NoLength char[] buf, int pos, int endPos,
+            long runEnders) {
+        int i = pos + 1;
+        while (i < endPos) {
+            char c = buf[i];
+            if (c < 64 && ((runEnders >>> c) & 1L) != 0) {
+                break;
+            }
+            i++;
+        }
+        return i - 1;
+    }
+
+    /**
+     * Like <code>skipTextRun()</code> but for the states that accumulate
+     * their input in <code>strBuf</code>. The run is appended with a single
+     * array copy.
+     *
+     * @param buf
+     *            the buffer
+     * @param pos
+     *            the index of the last consumed character
+     * @param endPos
+     *            the end of the significant part of the buffer
+     * @param runEnders
+     *            bit mask of the characters that end a run
+     * @return the index of the last character of the run or <code>pos</code>
+     *         if the next character already ends it
+     */
+    private int appendTextRunToStrBuf(@NoLength char[] buf, int pos,
+            int endPos, long runEnders) throws SAXException {
+        int runEnd = skipTextRun(buf, pos, endPos, runEnders);
+        if (runEnd != pos) {
+            appendStrBuf(buf, pos + 1, runEnd - pos);
+        }
+        return runEnd;
+    }
+
+    // ]NOCPP]
+
     public boolean internalEncodingDeclaration(String internalCharset)
             throws SAXException {
         if (encodingDeclarationHandler != null) {
@@ -6838,7 +7306,13 @@ public class Tokenizer implements Locator {
     }
 
     public void end() throws SAXException {
-        strBuf = null;
+        // [NOCPP[
+        if (strBuf != null && strBuf.length > MAX_SPARE_BUFFER_LENGTH) {
+            // ]NOCPP]
+            strBuf = null;
+            // [NOCPP[
+        }
+        // ]NOCPP]
         doctypeName = null;
         if (systemIdentifier != null) {
             Portability.releaseString(systemIdentifier);
@@ -6857,7 +7331,12 @@ public class Tokenizer implements Locator {
         tokenHandler.endTokenization();
         if (attributes != null) {
             // [NOCPP[
-            attributes = null;
+            if (newAttributesEachTime) {
+                attributes = null;
+            } else {
+                // Keep the holder for the next parse.
+                attributes.clear(mappingLangToXmlLang);
+            }
             // ]NOCPP]
             // CPPONLY: attributes.clear(mappingLangToXmlLang);
         }
@@ -6943,7 +7422,7 @@ public class Tokenizer implements Locator {
 
     public void loadState(Tokenizer other) throws SAXException {
         strBufLen = other.strBufLen;
-        if (strBufLen > strBuf.length) {
+        if (strBuf == null || strBufLen > strBuf.length) {
             strBuf = new char[strBufLen];
         }
         System.arraycopy(other.strBuf, 0, strBuf, 0, strBufLen);
@@ -7022,18 +7501,35 @@ public class Tokenizer implements Locator {
         } else {
             attributes = other.attributes.cloneAttributes();
         }
+        // [NOCPP[
+        if (attributes == null && !newAttributesEachTime) {
+            // The other tokenizer makes new attributes for each tag, but
+            // this one expects to reuse an instance.
+            attributes = new HtmlAttributes(mappingLangToXmlLang);
+        }
+        // ]NOCPP]
     }
 
     public void initializeWithoutStarting() throws SAXException {
         confident = false;
-        strBuf = null;
+        // [NOCPP[
+        if (strBuf != null && strBuf.length > MAX_SPARE_BUFFER_LENGTH) {
+            // ]NOCPP]
+            strBuf = null;
+            // [NOCPP[
+        }
+        // ]NOCPP]
         line = 1;
         // CPPONLY: attributeLine = 1;
         // [NOCPP[
         metaBoundaryPassed = false;
         wantsComments = tokenHandler.wantsComments();
-        if (!newAttributesEachTime) {
+        if (newAttributesEachTime) {
+            attributes = null;
+        } else if (attributes == null) {
             attributes = new HtmlAttributes(mappingLangToXmlLang);
+        } else {
+            attributes.clear(mappingLangToXmlLang);
         }
         // ]NOCPP]
         resetToDataState();
@@ -7265,6 +7761,17 @@ public class Tokenizer implements Locator {
 
     }
 
+    /**
+     * Tells whether <code>tokenizeBuffer()</code> may write to the buffer
+     * it is given. If it does not, a buffer owned by someone else can be
+     * tokenized in place.
+     *
+     * @return <code>true</code> if the buffer may be written to
+     */
+    public boolean isAlteringBuffer() {
+        return false;
+    }
+
     // ]NOCPP]
 
 }
@@ -55,6 +55,8 @@ import nu.validator.htmlparser.annotation.NsUri;
 import nu.validator.htmlparser.common.DocumentMode;
 import nu.validator.htmlparser.common.DocumentModeHandler;
 import nu.validator.htmlparser.common.Interner;
+import nu.validator.htmlparser.common.LimitPolicy;
+import nu.validator.htmlparser.common.ParserLimits;
 import nu.validator.htmlparser.common.TokenHandler;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
 
@@ -358,6 +360,11 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private static final @Local String HTML_LOCAL = "html";
 
+    /**
+     * The largest character buffer kept between parses.
+     */
+    private static final int MAX_SPARE_BUFFER_LENGTH = 8192;
+
     // ]NOCPP]
 
     private int mode = INITIAL;
@@ -381,6 +388,45 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private boolean scriptingEnabled = false;
 
+    /**
+     * How many entries of the list of active formatting elements and of the
+     * stack the adoption agency algorithm, the reconstruction of the active
+     * formatting elements and the Noah's Ark clause may visit per document.
+     */
+    private int adoptionAgencyBudget = Integer.MAX_VALUE;
+
+    /**
+     * How many entries they have visited so far in this document.
+     */
+    private int adoptionAgencyWork;
+
+    // [NOCPP[
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private int maxElements = Integer.MAX_VALUE;
+
+    private int maxTextLength = Integer.MAX_VALUE;
+
+    private boolean truncatingAtLimits;
+
+    /**
+     * The number of elements created so far in this document.
+     */
+    private int elementCount;
+
+    /**
+     * The length of the run of text since the last tag.
+     */
+    private int textLength;
+
+    /**
+     * Whether the tokens after a limit was reached are ignored.
+     */
+    private boolean truncated;
+
+    // ]NOCPP]
+
     private boolean needToDropLF;
 
     // [NOCPP[
@@ -409,17 +455,45 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private @Auto StackNode<T>[] stackNodes;
 
+    private int numStackNodes = 0;
+
     /**
-     * Index of the earliest possible unused or empty element in stackNodes.
+     * Indices of the unused elements in stackNodes. An element gets here
+     * once each time it becomes unused, so this is never longer than
+     * stackNodes.
      */
-    private int stackNodesIdx = -1;
+    private @Auto int[] unusedStackNodes;
 
-    private int numStackNodes = 0;
+    private int unusedStackNodesPtr = -1;
 
     private @Auto StackNode<T>[] stack;
 
     private int currentPtr = -1;
 
+    /**
+     * For each group, the position of the topmost element of the group on
+     * the stack or -1. Lets the scope checks skip the elements of other
+     * groups.
+     */
+    private @Auto int[] lastInGroup;
+
+    /**
+     * For each position on the stack, the position of the closest element of
+     * the same group below it or -1.
+     */
+    private @Auto int[] previousInGroup;
+
+    /**
+     * The position of the topmost scoping element on the stack or -1.
+     */
+    private int lastScoping = -1;
+
+    /**
+     * For each position on the stack that holds a scoping element, the
+     * position of the closest scoping element below it or -1.
+     */
+    private @Auto int[] previousScoping;
+
     private @Auto StackNode<T>[] listOfActiveFormattingElements;
 
     private int listPtr = -1;
@@ -444,6 +518,22 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private final Map<String, LocatorImpl> idLocations = new HashMap<String, LocatorImpl>();
 
+    /**
+     * Buffers kept from the previous parse so that the next parse with the
+     * same tree builder does not need to allocate them again. Only buffers
+     * that have not grown past their initial size are kept, which bounds the
+     * memory an idle tree builder holds onto.
+     */
+    private StackNode<T>[] spareStackNodes;
+
+    private StackNode<T>[] spareStack;
+
+    private StackNode<T>[] spareListOfActiveFormattingElements;
+
+    private int[] spareTemplateModeStack;
+
+    private char[] spareCharBuffer;
+
     // ]NOCPP]
 
     protected TreeBuilder() {
@@ -535,16 +625,26 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         if (node.isOptionalEndTag()) {
             return;
         }
-        TaintableLocatorImpl locator = node.getLocator();
-        if (locator.isTainted()) {
+        if (node.isTainted()) {
             return;
         }
-        locator.markTainted();
+        node.markTainted();
         SAXParseException spe = new SAXParseException(
-                "Unclosed element \u201C" + node.popName + "\u201D.", locator);
+                "Unclosed element \u201C" + node.popName + "\u201D.",
+                new LocatorImpl(tokenizer, node.getPosition()));
         errorHandler.error(spe);
     }
 
+    /**
+     * Returns the current position of the tokenizer packed for a stack node.
+     * 
+     * @return the packed line and column
+     */
+    private long currentPosition() {
+        return LocatorImpl.pack(tokenizer.getLineNumber(),
+                tokenizer.getColumnNumber());
+    }
+
     /**
      * Reports a warning
      *
@@ -579,16 +679,47 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     @SuppressWarnings("unchecked") public final void startTokenization(Tokenizer self) throws SAXException {
         tokenizer = self;
-        stackNodes = new StackNode[64];
-        stack = new StackNode[64];
-        templateModeStack = new int[64];
-        listOfActiveFormattingElements = new StackNode[64];
+        // [NOCPP[
+        if (spareStack != null) {
+            stackNodes = spareStackNodes;
+            stack = spareStack;
+            templateModeStack = spareTemplateModeStack;
+            listOfActiveFormattingElements = spareListOfActiveFormattingElements;
+            spareStackNodes = null;
+            spareStack = null;
+            spareTemplateModeStack = null;
+            spareListOfActiveFormattingElements = null;
+        } else {
+            // ]NOCPP]
+            stackNodes = new StackNode[64];
+            stack = new StackNode[64];
+            templateModeStack = new int[64];
+            listOfActiveFormattingElements = new StackNode[64];
+            // [NOCPP[
+        }
+        // ]NOCPP]
         needToDropLF = false;
         originalMode = INITIAL;
         templateModePtr = -1;
-        stackNodesIdx = 0;
         numStackNodes = 0;
+        unusedStackNodes = new int[stackNodes.length];
+        unusedStackNodesPtr = -1;
         currentPtr = -1;
+        if (lastInGroup == null) {
+            lastInGroup = new int[ElementName.GROUP_MASK + 1];
+        }
+        if (previousInGroup == null || previousInGroup.length < stack.length) {
+            previousInGroup = new int[stack.length];
+            previousScoping = new int[stack.length];
+        }
+        for (int i = 0; i < lastInGroup.length; i++) {
+            lastInGroup[i] = -1;
+        }
+        lastScoping = -1;
+        adoptionAgencyWork = 0;
+        // [NOCPP[
+        startLimits(self.getLimits());
+        // ]NOCPP]
         listPtr = -1;
         formPointer = null;
         headPointer = null;
@@ -598,7 +729,11 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         // ]NOCPP]
         start(fragment);
         charBufferLen = 0;
-        charBuffer = null;
+        // [NOCPP[
+        charBuffer = spareCharBuffer;
+        spareCharBuffer = null;
+        // ]NOCPP]
+        // CPPONLY: charBuffer = null;
         framesetOk = true;
         if (fragment) {
             T elt;
@@ -630,12 +765,12 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 StackNode<T> node = createStackNode(elementName,
                         elementName.getCamelCaseName(), elt
                         // [NOCPP[
-                        , errorHandler == null ? null
-                                : new TaintableLocatorImpl(tokenizer)
+                        , currentPosition()
                 // ]NOCPP]
                 );
                 currentPtr++;
                 stack[currentPtr] = node;
+                indexPushed();
                 tokenizer.setStateAndEndTagExpectation(Tokenizer.DATA,
                         contextName);
                 // The frameset-ok flag is set even though <frameset> never
@@ -661,12 +796,12 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 StackNode<T> node = createStackNode(elementName, elt,
                         elementName.getName(), false
                         // [NOCPP[
-                        , errorHandler == null ? null
-                                : new TaintableLocatorImpl(tokenizer)
+                        , currentPosition()
                 // ]NOCPP]
                 );
                 currentPtr++;
                 stack[currentPtr] = node;
+                indexPushed();
                 tokenizer.setStateAndEndTagExpectation(Tokenizer.DATA,
                         contextName);
                 // The frameset-ok flag is set even though <frameset> never
@@ -675,12 +810,12 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             } else { // html
                 StackNode<T> node = createStackNode(ElementName.HTML, elt
                 // [NOCPP[
-                        , errorHandler == null ? null
-                                : new TaintableLocatorImpl(tokenizer)
+                        , currentPosition()
                 // ]NOCPP]
                 );
                 currentPtr++;
                 stack[currentPtr] = node;
+                indexPushed();
                 if ("template" == contextName) {
                     pushTemplateMode(IN_TEMPLATE);
                 }
@@ -722,12 +857,18 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             // CPPONLY: elt);
             // CPPONLY: currentPtr++;
             // CPPONLY: stack[currentPtr] = node;
+            // CPPONLY: indexPushed();
             // CPPONLY: }
         }
     }
 
     public final void doctype(@Local String name, String publicIdentifier,
             String systemIdentifier, boolean forceQuirks) throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        // ]NOCPP]
         needToDropLF = false;
         if (!isInForeign() && mode == INITIAL) {
             // [NOCPP[
@@ -805,6 +946,11 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     public final void comment(@NoLength char[] buf, int start, int length)
             throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        // ]NOCPP]
         needToDropLF = false;
         // [NOCPP[
         if (!wantingComments) {
@@ -858,6 +1004,11 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         // CPPONLY: if (tokenizer.isViewingXmlSource()) {
         // CPPONLY: return;
         // CPPONLY: }
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        // ]NOCPP]
         if (needToDropLF) {
             needToDropLF = false;
             if (buf[start] == '\n') {
@@ -868,6 +1019,15 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 }
             }
         }
+        // [NOCPP[
+        if (length > maxTextLength - textLength) {
+            length = textTooLong();
+            if (length == 0) {
+                return;
+            }
+        }
+        textLength += length;
+        // ]NOCPP]
 
         // optimize the most common case
         switch (mode) {
@@ -1236,6 +1396,16 @@ public abstract class TreeBuilder<T> implements TokenHandler,
      * @see nu.validator.htmlparser.common.TokenHandler#zeroOriginatingReplacementCharacter()
      */
     public void zeroOriginatingReplacementCharacter() throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        if (textLength == maxTextLength) {
+            textTooLong();
+            return;
+        }
+        textLength++;
+        // ]NOCPP]
         if (mode == TEXT) {
             accumulateCharacters(REPLACEMENT_CHARACTER, 0, 1);
             return;
@@ -1352,7 +1522,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     // fall through to IN_TEMPLATE
                     // CPPONLY: MOZ_FALLTHROUGH;
                 case IN_TEMPLATE:
-                    int eltPos = findLast("template");
+                    int eltPos = findLast(TreeBuilder.TEMPLATE, "template");
                     if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                         assert fragment;
                         break eofloop;
@@ -1418,6 +1588,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
      * @see nu.validator.htmlparser.common.TokenHandler#endTokenization()
      */
     public final void endTokenization() throws SAXException {
+        // [NOCPP[
+        StackNode<T>[] usedStackNodes = stackNodes;
+        StackNode<T>[] usedStack = stack;
+        StackNode<T>[] usedListOfActiveFormattingElements = listOfActiveFormattingElements;
+        int[] usedTemplateModeStack = templateModeStack;
+        char[] usedCharBuffer = charBuffer;
+        // ]NOCPP]
         formPointer = null;
         headPointer = null;
         templateModeStack = null;
@@ -1443,19 +1620,79 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 Portability.delete(stackNodes[i]);
             }
             numStackNodes = 0;
-            stackNodesIdx = 0;
             stackNodes = null;
+            unusedStackNodes = null;
+            unusedStackNodesPtr = -1;
         }
         // [NOCPP[
         idLocations.clear();
+        keepBuffersForNextParse(usedStackNodes, usedStack,
+                usedListOfActiveFormattingElements, usedTemplateModeStack,
+                usedCharBuffer);
         // ]NOCPP]
         charBuffer = null;
         end();
     }
 
+    // [NOCPP[
+
+    /**
+     * Stashes the buffers of the parse that just ended for reuse by the next
+     * one unless they have grown, in which case they are left for the garbage
+     * collector. This runs after the stacks have been released, so that a
+     * parse that stopped with an exception before getting here keeps
+     * nothing.
+     */
+    private void keepBuffersForNextParse(StackNode<T>[] usedStackNodes,
+            StackNode<T>[] usedStack,
+            StackNode<T>[] usedListOfActiveFormattingElements,
+            int[] usedTemplateModeStack, char[] usedCharBuffer) {
+        if (usedStack != null && usedStack.length == 64
+                && usedStackNodes.length == 64
+                && usedListOfActiveFormattingElements.length == 64
+                && usedTemplateModeStack.length == 64) {
+            // The stack nodes are normally all unused by now, but they still
+            // refer to nodes of the tree that was just built. An exception
+            // thrown in the middle of a tree operation can leave a stack node
+            // retained; the buffers are not kept then.
+            boolean unused = true;
+            for (int i = 0; i < usedStackNodes.length; i++) {
+                StackNode<T> node = usedStackNodes[i];
+                if (node == null) {
+                    break;
+                }
+                if (!node.isUnused()) {
+                    unused = false;
+                    break;
+                }
+                node.dropReferencesForReuse();
+            }
+            if (unused) {
+                spareStackNodes = usedStackNodes;
+                spareStack = usedStack;
+                spareListOfActiveFormattingElements = usedListOfActiveFormattingElements;
+                spareTemplateModeStack = usedTemplateModeStack;
+            }
+        }
+        if (usedCharBuffer != null
+                && usedCharBuffer.length <= MAX_SPARE_BUFFER_LENGTH) {
+            spareCharBuffer = usedCharBuffer;
+        }
+    }
+
+    // ]NOCPP]
+
     public final void startTag(ElementName elementName,
             HtmlAttributes attributes, boolean selfClosing) throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        // ]NOCPP]
         flushCharacters();
+        // [NOCPP[
+        textLength = 0;
+        // ]NOCPP]
 
         // [NOCPP[
         if (errorHandler != null) {
@@ -1729,7 +1966,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 break intableloop;
                             case TABLE:
                                 errTableSeenWhileTableOpen();
-                                eltPos = findLastInTableScope(name);
+                                eltPos = findLastInTableScope(group, name);
                                 if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                     assert fragment || isTemplateContents();
                                     break starttagloop;
@@ -1805,7 +2042,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case TBODY_OR_THEAD_OR_TFOOT:
                         case TR:
                         case TD_OR_TH:
-                            eltPos = findLastInTableScope("caption");
+                            eltPos = findLastInTableScope(TreeBuilder.CAPTION, "caption");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment || isTemplateContents();
                                 errStrayStartTag(name);
@@ -2053,7 +2290,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 break starttagloop;
                             case NOBR:
                                 reconstructTheActiveFormattingElements();
-                                if (TreeBuilder.NOT_FOUND_ON_STACK != findLastInScope("nobr")) {
+                                if (TreeBuilder.NOT_FOUND_ON_STACK != findLastInScope(TreeBuilder.NOBR, "nobr")) {
                                     errFooSeenWhenFooOpen(name);
                                     adoptionAgencyEndTag("nobr");
                                     reconstructTheActiveFormattingElements();
@@ -2064,7 +2301,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 attributes = null; // CPP
                                 break starttagloop;
                             case BUTTON:
-                                eltPos = findLastInScope(name);
+                                eltPos = findLastInScope(group, name);
                                 if (eltPos != TreeBuilder.NOT_FOUND_ON_STACK) {
                                     errFooSeenWhenFooOpen(name);
                                     generateImpliedEndTags();
@@ -2219,7 +2456,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 attributes = null; // CPP
                                 break starttagloop;
                             case RB_OR_RTC:
-                                eltPos = findLastInScope("ruby");
+                                eltPos = findLastInScope(TreeBuilder.RUBY_OR_SPAN_OR_SUB_OR_SUP_OR_VAR, "ruby");
                                 if (eltPos != NOT_FOUND_ON_STACK) {
                                     generateImpliedEndTags();
                                 }
@@ -2236,7 +2473,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 attributes = null; // CPP
                                 break starttagloop;
                             case RT_OR_RP:
-                                eltPos = findLastInScope("ruby");
+                                eltPos = findLastInScope(TreeBuilder.RUBY_OR_SPAN_OR_SUB_OR_SUP_OR_VAR, "ruby");
                                 if (eltPos != NOT_FOUND_ON_STACK) {
                                     generateImpliedEndTagsExceptFor("rtc");
                                 }
@@ -2463,7 +2700,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case TD_OR_TH:
                         case TABLE:
                             errStartTagWithSelectOpen(name);
-                            eltPos = findLastInTableScope("select");
+                            eltPos = findLastInTableScope(TreeBuilder.SELECT, "select");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment;
                                 break starttagloop; // http://www.w3.org/Bugs/Public/show_bug.cgi?id=8375
@@ -2509,7 +2746,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             break starttagloop;
                         case SELECT:
                             errStartSelectWhereEndSelectExpected();
-                            eltPos = findLastInTableScope(name);
+                            eltPos = findLastInTableScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment;
                                 errNoSelectInTableScope();
@@ -2525,7 +2762,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case TEXTAREA:
                         case KEYGEN:
                             errStartTagWithSelectOpen(name);
-                            eltPos = findLastInTableScope("select");
+                            eltPos = findLastInTableScope(TreeBuilder.SELECT, "select");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment;
                                 break starttagloop;
@@ -2884,7 +3121,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     private boolean isTemplateContents() {
-        return TreeBuilder.NOT_FOUND_ON_STACK != findLast("template");
+        return TreeBuilder.NOT_FOUND_ON_STACK != findLast(TreeBuilder.TEMPLATE, "template");
     }
 
     private boolean isTemplateModeStackEmpty() {
@@ -3102,7 +3339,15 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     public final void endTag(ElementName elementName) throws SAXException {
+        // [NOCPP[
+        if (truncated) {
+            return;
+        }
+        // ]NOCPP]
         flushCharacters();
+        // [NOCPP[
+        textLength = 0;
+        // ]NOCPP]
         needToDropLF = false;
         int eltPos;
         int group = elementName.getGroup();
@@ -3170,7 +3415,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             mode = IN_TABLE_BODY;
                             continue;
                         case TBODY_OR_THEAD_OR_TFOOT:
-                            if (findLastInTableScope(name) == TreeBuilder.NOT_FOUND_ON_STACK) {
+                            if (findLastInTableScope(group, name) == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errStrayEndTag(name);
                                 break endtagloop;
                             }
@@ -3199,7 +3444,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 case IN_TABLE_BODY:
                     switch (group) {
                         case TBODY_OR_THEAD_OR_TFOOT:
-                            eltPos = findLastOrRoot(name);
+                            eltPos = findLastOrRoot(group, name);
                             if (eltPos == 0) {
                                 errStrayEndTag(name);
                                 break endtagloop;
@@ -3235,7 +3480,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 case IN_TABLE:
                     switch (group) {
                         case TABLE:
-                            eltPos = findLast("table");
+                            eltPos = findLast(TreeBuilder.TABLE, "table");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment || isTemplateContents();
                                 errStrayEndTag(name);
@@ -3267,7 +3512,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 case IN_CAPTION:
                     switch (group) {
                         case CAPTION:
-                            eltPos = findLastInTableScope("caption");
+                            eltPos = findLastInTableScope(TreeBuilder.CAPTION, "caption");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 break endtagloop;
                             }
@@ -3282,7 +3527,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             mode = IN_TABLE;
                             break endtagloop;
                         case TABLE:
-                            eltPos = findLastInTableScope("caption");
+                            eltPos = findLastInTableScope(TreeBuilder.CAPTION, "caption");
 
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment || isTemplateContents();
@@ -3315,7 +3560,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 case IN_CELL:
                     switch (group) {
                         case TD_OR_TH:
-                            eltPos = findLastInTableScope(name);
+                            eltPos = findLastInTableScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errStrayEndTag(name);
                                 break endtagloop;
@@ -3333,7 +3578,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case TABLE:
                         case TBODY_OR_THEAD_OR_TFOOT:
                         case TR:
-                            if (findLastInTableScope(name) == TreeBuilder.NOT_FOUND_ON_STACK) {
+                            if (findLastInTableScope(group, name) == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert name == "tbody" || name == "tfoot" || name == "thead" || fragment || isTemplateContents();
                                 errStrayEndTag(name);
                                 break endtagloop;
@@ -3415,7 +3660,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case FIELDSET:
                         case BUTTON:
                         case ADDRESS_OR_ARTICLE_OR_ASIDE_OR_DETAILS_OR_DIALOG_OR_DIR_OR_FIGCAPTION_OR_FIGURE_OR_FOOTER_OR_HEADER_OR_HGROUP_OR_MAIN_OR_NAV_OR_SECTION_OR_SUMMARY:
-                            eltPos = findLastInScope(name);
+                            eltPos = findLastInScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errStrayEndTag(name);
                             } else {
@@ -3435,7 +3680,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                     break endtagloop;
                                 }
                                 formPointer = null;
-                                eltPos = findLastInScope(name);
+                                eltPos = findLastInScope(group, name);
                                 if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                     errStrayEndTag(name);
                                     break endtagloop;
@@ -3447,7 +3692,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 removeFromStack(eltPos);
                                 break endtagloop;
                             } else {
-                                eltPos = findLastInScope(name);
+                                eltPos = findLastInScope(group, name);
                                 if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                     errStrayEndTag(name);
                                     break endtagloop;
@@ -3462,7 +3707,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                                 break endtagloop;
                             }
                         case P:
-                            eltPos = findLastInButtonScope("p");
+                            eltPos = findLastInButtonScope(TreeBuilder.P, "p");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errNoElementToCloseButEndTagSeen("p");
                                 // XXX Can the 'in foreign' case happen anymore?
@@ -3489,7 +3734,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             }
                             break endtagloop;
                         case LI:
-                            eltPos = findLastInListScope(name);
+                            eltPos = findLastInListScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errNoElementToCloseButEndTagSeen(name);
                             } else {
@@ -3504,7 +3749,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             }
                             break endtagloop;
                         case DD_OR_DT:
-                            eltPos = findLastInScope(name);
+                            eltPos = findLastInScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errNoElementToCloseButEndTagSeen(name);
                             } else {
@@ -3534,7 +3779,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             break endtagloop;
                         case OBJECT:
                         case MARQUEE_OR_APPLET:
-                            eltPos = findLastInScope(name);
+                            eltPos = findLastInScope(group, name);
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 errStrayEndTag(name);
                             } else {
@@ -3697,8 +3942,8 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         case TR:
                         case TD_OR_TH:
                             errEndTagSeenWithSelectOpen(name);
-                            if (findLastInTableScope(name) != TreeBuilder.NOT_FOUND_ON_STACK) {
-                                eltPos = findLastInTableScope("select");
+                            if (findLastInTableScope(group, name) != TreeBuilder.NOT_FOUND_ON_STACK) {
+                                eltPos = findLastInTableScope(TreeBuilder.SELECT, "select");
                                 if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                     assert fragment;
                                     break endtagloop; // http://www.w3.org/Bugs/Public/show_bug.cgi?id=8375
@@ -3737,7 +3982,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                             }
                             break endtagloop;
                         case SELECT:
-                            eltPos = findLastInTableScope("select");
+                            eltPos = findLastInTableScope(TreeBuilder.SELECT, "select");
                             if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
                                 assert fragment;
                                 errStrayEndTag(name);
@@ -3885,7 +4130,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     private void endTagTemplateInHead() throws SAXException {
-        int eltPos = findLast("template");
+        int eltPos = findLast(TreeBuilder.TEMPLATE, "template");
         if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
             errStrayEndTag("template");
             return;
@@ -3903,17 +4148,20 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     private int findLastInTableScopeOrRootTemplateTbodyTheadTfoot() {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].getGroup() == TreeBuilder.TBODY_OR_THEAD_OR_TFOOT ||
-                    stack[i].getGroup() == TreeBuilder.TEMPLATE) {
-                return i;
-            }
+        int i = lastInGroup[TreeBuilder.TBODY_OR_THEAD_OR_TFOOT];
+        int template = lastInGroup[TreeBuilder.TEMPLATE];
+        if (template > i) {
+            i = template;
         }
-        return 0;
+        return i > 0 ? i : 0;
     }
 
-    private int findLast(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
+    /**
+     * Finds the topmost HTML element called <code>name</code> of the group
+     * <code>group</code> that is not below <code>boundary</code>.
+     */
+    private int findLastAbove(int group, @Local String name, int boundary) {
+        for (int i = lastInGroup[group]; i > 0 && i >= boundary; i = previousInGroup[i]) {
             if (stack[i].ns == "http://www.w3.org/1999/xhtml" && stack[i].name == name) {
                 return i;
             }
@@ -3921,71 +4169,59 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         return TreeBuilder.NOT_FOUND_ON_STACK;
     }
 
-    private int findLastInTableScope(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml") {
-                if (stack[i].name == name) {
-                    return i;
-                } else if (stack[i].name == "table" || stack[i].name == "template") {
-                    return TreeBuilder.NOT_FOUND_ON_STACK;
-                }
-            }
-        }
-        return TreeBuilder.NOT_FOUND_ON_STACK;
+    private int findLast(int group, @Local String name) {
+        return findLastAbove(group, name, 0);
     }
 
-    private int findLastInButtonScope(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml") {
-                if (stack[i].name == name) {
-                    return i;
-                } else if (stack[i].name == "button") {
-                    return TreeBuilder.NOT_FOUND_ON_STACK;
-                }
-            }
+    /**
+     * Like <code>findLast</code> but returns -1 if there is no such element
+     * so that the result can be used as a scope boundary.
+     */
+    private int findBoundary(int group, @Local String name) {
+        int i = findLast(group, name);
+        return i == TreeBuilder.NOT_FOUND_ON_STACK ? -1 : i;
+    }
 
-            if (stack[i].isScoping()) {
-                return TreeBuilder.NOT_FOUND_ON_STACK;
-            }
-        }
-        return TreeBuilder.NOT_FOUND_ON_STACK;
+    /**
+     * Returns the position of the topmost HTML <code>table</code> or
+     * <code>template</code>, which bound the table scope.
+     */
+    private int tableScopeBoundary() {
+        int table = findBoundary(TreeBuilder.TABLE, "table");
+        int template = findBoundary(TreeBuilder.TEMPLATE, "template");
+        return table > template ? table : template;
     }
 
-    private int findLastInScope(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml" && stack[i].name == name) {
-                return i;
-            } else if (stack[i].isScoping()) {
-                return TreeBuilder.NOT_FOUND_ON_STACK;
-            }
-        }
-        return TreeBuilder.NOT_FOUND_ON_STACK;
+    private int findLastInTableScope(int group, @Local String name) {
+        return findLastAbove(group, name, tableScopeBoundary());
     }
 
-    private int findLastInListScope(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml") {
-                if (stack[i].name == name) {
-                    return i;
-                } else if (stack[i].name == "ul" || stack[i].name == "ol") {
-                    return TreeBuilder.NOT_FOUND_ON_STACK;
-                }
-            }
+    private int findLastInButtonScope(int group, @Local String name) {
+        int button = findBoundary(TreeBuilder.BUTTON, "button");
+        return findLastAbove(group, name, lastScoping > button ? lastScoping
+                : button);
+    }
 
-            if (stack[i].isScoping()) {
-                return TreeBuilder.NOT_FOUND_ON_STACK;
+    private int findLastInScope(int group, @Local String name) {
+        return findLastAbove(group, name, lastScoping);
+    }
+
+    private int findLastInListScope(int group, @Local String name) {
+        int boundary = lastScoping;
+        for (int i = lastInGroup[TreeBuilder.UL_OR_OL_OR_DL]; i > boundary; i = previousInGroup[i]) {
+            if (stack[i].ns == "http://www.w3.org/1999/xhtml"
+                    && (stack[i].name == "ul" || stack[i].name == "ol")) {
+                boundary = i;
+                break;
             }
         }
-        return TreeBuilder.NOT_FOUND_ON_STACK;
+        return findLastAbove(group, name, boundary);
     }
 
     private int findLastInScopeHn() {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].getGroup() == TreeBuilder.H1_OR_H2_OR_H3_OR_H4_OR_H5_OR_H6) {
-                return i;
-            } else if (stack[i].isScoping()) {
-                return TreeBuilder.NOT_FOUND_ON_STACK;
-            }
+        int i = lastInGroup[TreeBuilder.H1_OR_H2_OR_H3_OR_H4_OR_H5_OR_H6];
+        if (i > 0 && i >= lastScoping) {
+            return i;
         }
         return TreeBuilder.NOT_FOUND_ON_STACK;
     }
@@ -4168,14 +4404,12 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     private int findLastInTableScopeTdTh() {
-        for (int i = currentPtr; i > 0; i--) {
+        int boundary = tableScopeBoundary();
+        for (int i = lastInGroup[TreeBuilder.TD_OR_TH]; i > 0 && i >= boundary; i = previousInGroup[i]) {
             @Local String name = stack[i].name;
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml") {
-                if ("td" == name || "th" == name) {
-                    return i;
-                } else if (name == "table" || name == "template") {
-                    return TreeBuilder.NOT_FOUND_ON_STACK;
-                }
+            if (stack[i].ns == "http://www.w3.org/1999/xhtml"
+                    && ("td" == name || "th" == name)) {
+                return i;
             }
         }
         return TreeBuilder.NOT_FOUND_ON_STACK;
@@ -4288,7 +4522,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
      *
      */
     private void implicitlyCloseP() throws SAXException {
-        int eltPos = findLastInButtonScope("p");
+        int eltPos = findLastInButtonScope(TreeBuilder.P, "p");
         if (eltPos == TreeBuilder.NOT_FOUND_ON_STACK) {
             return;
         }
@@ -4321,6 +4555,63 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         templateModeStack[templateModePtr] = mode;
     }
 
+    /**
+     * Links the element just pushed to the top of the stack into the chains
+     * of its group and of the scoping elements.
+     */
+    private void indexPushed() {
+        if (currentPtr == previousInGroup.length) {
+            int[] newPrevious = new int[previousInGroup.length + 64];
+            System.arraycopy(previousInGroup, 0, newPrevious, 0,
+                    previousInGroup.length);
+            previousInGroup = newPrevious;
+            newPrevious = new int[previousScoping.length + 64];
+            System.arraycopy(previousScoping, 0, newPrevious, 0,
+                    previousScoping.length);
+            previousScoping = newPrevious;
+        }
+        StackNode<T> node = stack[currentPtr];
+        int group = node.getGroup();
+        node.stackPos = currentPtr;
+        previousInGroup[currentPtr] = lastInGroup[group];
+        lastInGroup[group] = currentPtr;
+        if (node.isScoping()) {
+            previousScoping[currentPtr] = lastScoping;
+            lastScoping = currentPtr;
+        }
+    }
+
+    /**
+     * Unlinks the element about to be popped off the top of the stack.
+     */
+    private void indexPopped() {
+        lastInGroup[stack[currentPtr].getGroup()] = previousInGroup[currentPtr];
+        if (lastScoping == currentPtr) {
+            lastScoping = previousScoping[currentPtr];
+        }
+    }
+
+    /**
+     * Rebuilds the chains after the stack has changed from <code>pos</code>
+     * up. The links below <code>pos</code> still hold, so the chains are
+     * first followed down past it and then extended again.
+     */
+    private void reindexStackFrom(int pos) {
+        for (int i = 0; i < lastInGroup.length; i++) {
+            while (lastInGroup[i] >= pos) {
+                lastInGroup[i] = previousInGroup[lastInGroup[i]];
+            }
+        }
+        while (lastScoping >= pos) {
+            lastScoping = previousScoping[lastScoping];
+        }
+        int top = currentPtr;
+        for (currentPtr = pos; currentPtr <= top; currentPtr++) {
+            indexPushed();
+        }
+        currentPtr = top;
+    }
+
     @SuppressWarnings("unchecked") private void push(StackNode<T> node) throws SAXException {
         currentPtr++;
         if (currentPtr == stack.length) {
@@ -4329,6 +4620,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             stack = newStack;
         }
         stack[currentPtr] = node;
+        indexPushed();
+        // [NOCPP[
+        if (currentPtr >= maxDepth) {
+            depthLimitReached();
+        }
+        elementCreated();
+        // ]NOCPP]
         elementPushed(node.ns, node.popName, node.node);
     }
 
@@ -4340,6 +4638,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             stack = newStack;
         }
         stack[currentPtr] = node;
+        indexPushed();
     }
 
     @SuppressWarnings("unchecked") private void append(StackNode<T> node) {
@@ -4382,6 +4681,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             System.arraycopy(stack, pos + 1, stack, pos, currentPtr - pos);
             assert debugOnlyClearLastStackSlot();
             currentPtr--;
+            reindexStackFrom(pos);
         }
     }
 
@@ -4401,6 +4701,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             node.release(this);
             System.arraycopy(stack, pos + 1, stack, pos, currentPtr - pos);
             currentPtr--;
+            reindexStackFrom(pos);
         }
     }
 
@@ -4419,6 +4720,34 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         listPtr--;
     }
 
+    /**
+     * Tells whether the adoption agency budget of the document is spent and
+     * reports it the first time. From then on, formatting elements are
+     * treated like other elements: they are no longer added to the list of
+     * active formatting elements, the list is no longer reconstructed and
+     * their end tags are handled like any other end tag. The tree stays one
+     * that the spec could produce for markup with ordinary elements.
+     */
+    private boolean isAdoptionAgencyBudgetSpent() throws SAXException {
+        if (adoptionAgencyWork < adoptionAgencyBudget) {
+            return false;
+        }
+        if (adoptionAgencyWork != Integer.MAX_VALUE) {
+            adoptionAgencyWork = Integer.MAX_VALUE;
+            errAdoptionAgencyBudgetSpent();
+        }
+        return true;
+    }
+
+    /**
+     * Counts entries visited by the adoption agency algorithm without
+     * overflowing.
+     */
+    private void chargeAdoptionAgency(int entries) {
+        int room = Integer.MAX_VALUE - adoptionAgencyWork;
+        adoptionAgencyWork += entries < room ? entries : room;
+    }
+
     /**
      * Adoption agency algorithm.
      *
@@ -4429,6 +4758,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
      * @throws SAXException
      */
     private boolean adoptionAgencyEndTag(@Local String name) throws SAXException {
+        if (isAdoptionAgencyBudgetSpent()) {
+            return false;
+        }
         // This check intends to ensure that for properly nested tags, closing tags will match
         // against the stack instead of the listOfActiveFormattingElements.
         if (stack[currentPtr].ns == "http://www.w3.org/1999/xhtml" &&
@@ -4446,6 +4778,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         // If you crash around here, perhaps some stack node variable claimed to
         // be a weak ref isn't.
         for (int i = 0; i < 8; ++i) {
+            chargeAdoptionAgency(listPtr + 1);
             int formattingEltListPos = listPtr;
             while (formattingEltListPos > -1) {
                 StackNode<T> listNode = listOfActiveFormattingElements[formattingEltListPos]; // weak ref
@@ -4462,17 +4795,8 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             }
             // this *looks* like a weak ref to the list of formatting elements
             StackNode<T> formattingElt = listOfActiveFormattingElements[formattingEltListPos];
-            int formattingEltStackPos = currentPtr;
-            boolean inScope = true;
-            while (formattingEltStackPos > -1) {
-                StackNode<T> node = stack[formattingEltStackPos]; // weak ref
-                if (node == formattingElt) {
-                    break;
-                } else if (node.isScoping()) {
-                    inScope = false;
-                }
-                formattingEltStackPos--;
-            }
+            int formattingEltStackPos = findInStack(formattingElt);
+            boolean inScope = formattingEltStackPos >= lastScoping;
             if (formattingEltStackPos == -1) {
                 errNoElementToCloseButEndTagSeen(name);
                 removeFromListOfActiveFormattingElements(formattingEltListPos);
@@ -4513,6 +4837,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             int bookmark = formattingEltListPos;
             int nodePos = furthestBlockPos;
             StackNode<T> lastNode = furthestBlock; // weak ref
+            // Nodes removed from the stack below are only nulled out and
+            // the stack is compacted once after the loop.
+            int removed = 0;
             int j = 0;
             for (;;) {
                 ++j;
@@ -4520,6 +4847,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 if (nodePos == formattingEltStackPos) {
                     break;
                 }
+                chargeAdoptionAgency(listPtr + 2);
                 StackNode<T> node = stack[nodePos]; // weak ref
                 int nodeListPos = findInListOfActiveFormattingElements(node);
 
@@ -4543,7 +4871,10 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     assert formattingEltStackPos < nodePos;
                     assert bookmark < nodePos;
                     assert furthestBlockPos > nodePos;
-                    removeFromStack(nodePos); // node is now a bad pointer in C++
+                    fatal();
+                    node.release(this); // node is now a bad pointer in C++
+                    stack[nodePos] = null;
+                    removed++;
                     furthestBlockPos--;
                     continue;
                 }
@@ -4562,11 +4893,15 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         node.name, clone, node.popName, node.attributes
                         // CPPONLY: , node.getHtmlCreator()
                         // [NOCPP[
-                        , node.getLocator()
+                        , node.getPosition(), node.isTainted()
                         // ]NOCPP]
                 ); // creation ownership goes to stack
                 node.dropAttributes(); // adopt ownership to newNode
                 stack[nodePos] = newNode;
+                newNode.stackPos = nodePos;
+                // [NOCPP[
+                elementCreated();
+                // ]NOCPP]
                 newNode.retain(); // retain for list
                 listOfActiveFormattingElements[nodeListPos] = newNode;
                 node.release(this); // release from stack
@@ -4577,6 +4912,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 appendElement(lastNode.node, nodeFromStackWithBlinkCompat(nodePos));
                 lastNode = node;
             }
+            if (removed != 0) {
+                compactStack(formattingEltStackPos + 1);
+            }
             // If we insert into a foster parent, for simplicity, we insert
             // accoding to the spec without Blink's depth limit.
             if (commonAncestor.isFosterParenting()) {
@@ -4598,7 +4936,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     formattingElt.attributes
                     // CPPONLY: , formattingElt.getHtmlCreator()
                     // [NOCPP[
-                    , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                    , currentPosition(), false
                     // ]NOCPP]
             ); // Ownership transfers to stack below
             formattingElt.dropAttributes(); // transfer ownership to
@@ -4616,6 +4954,24 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         return true;
     }
 
+    /**
+     * Closes the gaps left by nulled-out stack slots from <code>pos</code>
+     * up.
+     */
+    private void compactStack(int pos) {
+        int to = pos;
+        for (int from = pos; from <= currentPtr; from++) {
+            if (stack[from] != null) {
+                stack[to++] = stack[from];
+            }
+        }
+        for (int i = to; i <= currentPtr; i++) {
+            stack[i] = null;
+        }
+        currentPtr = to - 1;
+        reindexStackFrom(pos);
+    }
+
     private void insertIntoStack(StackNode<T> node, int position)
             throws SAXException {
         assert currentPtr + 1 < stack.length;
@@ -4627,6 +4983,10 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     (currentPtr - position) + 1);
             currentPtr++;
             stack[position] = node;
+            reindexStackFrom(position);
+            // [NOCPP[
+            elementCreated();
+            // ]NOCPP]
         }
     }
 
@@ -4655,6 +5015,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     private int findInListOfActiveFormattingElementsContainsBetweenEndAndLastMarker(
             @Local String name) {
         for (int i = listPtr; i >= 0; i--) {
+            chargeAdoptionAgency(1);
             StackNode<T> node = listOfActiveFormattingElements[i];
             if (node == null) {
                 return -1;
@@ -4668,6 +5029,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private void maybeForgetEarlierDuplicateFormattingElement(
             @Local String name, HtmlAttributes attributes) throws SAXException {
+        if (isAdoptionAgencyBudgetSpent()) {
+            return;
+        }
         int candidate = -1;
         int count = 0;
         for (int i = listPtr; i >= 0; i--) {
@@ -4675,6 +5039,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
             if (node == null) {
                 break;
             }
+            chargeAdoptionAgency(1);
             if (node.name == name && node.attributes.equalsAnother(attributes)) {
                 candidate = i;
                 ++count;
@@ -4685,22 +5050,14 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
     }
 
-    private int findLastOrRoot(@Local String name) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].ns == "http://www.w3.org/1999/xhtml" && stack[i].name == name) {
-                return i;
-            }
-        }
-        return 0;
+    private int findLastOrRoot(int group, @Local String name) {
+        int i = findLast(group, name);
+        return i == TreeBuilder.NOT_FOUND_ON_STACK ? 0 : i;
     }
 
     private int findLastOrRoot(int group) {
-        for (int i = currentPtr; i > 0; i--) {
-            if (stack[i].getGroup() == group) {
-                return i;
-            }
-        }
-        return 0;
+        int i = lastInGroup[group];
+        return i > 0 ? i : 0;
     }
 
     /**
@@ -4738,7 +5095,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         fatal();
         silentPush(createStackNode(ElementName.HEAD, headPointer
         // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         ));
     }
@@ -4755,8 +5112,12 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         if (mostRecent == null || isInStack(mostRecent)) {
             return;
         }
+        if (isAdoptionAgencyBudgetSpent()) {
+            return;
+        }
         int entryPos = listPtr;
         for (;;) {
+            chargeAdoptionAgency(1);
             entryPos--;
             if (entryPos == -1) {
                 break;
@@ -4768,6 +5129,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 break;
             }
         }
+        chargeAdoptionAgency(listPtr - entryPos);
         while (entryPos < listPtr) {
             entryPos++;
             StackNode<T> entry = listOfActiveFormattingElements[entryPos];
@@ -4793,7 +5155,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     entry.attributes
                     // CPPONLY: , entry.getHtmlCreator()
                     // [NOCPP[
-                    , entry.getLocator()
+                    , entry.getPosition(), entry.isTainted()
                     // ]NOCPP]
             );
 
@@ -4809,52 +5171,50 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     }
 
     void notifyUnusedStackNode(int idxInStackNodes) {
-        // stackNodesIdx is the earliest possible index of a stack node that might be unused,
-        // so update the index if necessary.
-        if (idxInStackNodes < stackNodesIdx) {
-            stackNodesIdx = idxInStackNodes;
-        }
+        unusedStackNodes[++unusedStackNodesPtr] = idxInStackNodes;
     }
 
     @SuppressWarnings("unchecked") private StackNode<T> getUnusedStackNode() {
-        // Search for an unused stack node.
-        while (stackNodesIdx < numStackNodes) {
-            if (stackNodes[stackNodesIdx].isUnused()) {
-                return stackNodes[stackNodesIdx++];
-            }
-            stackNodesIdx++;
+        // Reuse the stack node that became unused last.
+        if (unusedStackNodesPtr > -1) {
+            StackNode<T> unused = stackNodes[unusedStackNodes[unusedStackNodesPtr--]];
+            assert unused.isUnused();
+            return unused;
         }
 
-        if (stackNodesIdx < stackNodes.length) {
-            // No unused stack nodes, but there is still space in the storage array.
-            stackNodes[stackNodesIdx] = new StackNode<T>(stackNodesIdx);
-            numStackNodes++;
-            return stackNodes[stackNodesIdx++];
+        if (numStackNodes == stackNodes.length) {
+            // No unused stack nodes and storage array is full.
+            StackNode<T>[] newStack = new StackNode[stackNodes.length + 64];
+            System.arraycopy(stackNodes, 0, newStack, 0, stackNodes.length);
+            stackNodes = newStack;
+            unusedStackNodes = new int[stackNodes.length];
         }
 
-        // Could not find an unused stack node and storage array is full.
-        StackNode<T>[] newStack = new StackNode[stackNodes.length + 64];
-        System.arraycopy(stackNodes, 0, newStack, 0, stackNodes.length);
-        stackNodes = newStack;
-
-        // Create a new stack node and return it.
-        stackNodes[stackNodesIdx] = new StackNode<T>(stackNodesIdx);
-        numStackNodes++;
-        return stackNodes[stackNodesIdx++];
+        // [NOCPP[
+        // The slot may hold an unused stack node left over from the
+        // previous parse.
+        if (stackNodes[numStackNodes] == null) {
+            // ]NOCPP]
+            // Create a new stack node and return it.
+            stackNodes[numStackNodes] = new StackNode<T>(numStackNodes);
+            // [NOCPP[
+        }
+        // ]NOCPP]
+        return stackNodes[numStackNodes++];
     }
 
     private StackNode<T> createStackNode(int flags, @NsUri String ns, @Local String name, T node,
             @Local String popName, HtmlAttributes attributes
             // CPPONLY: , @HtmlCreator Object htmlCreator
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position, boolean tainted
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(flags, ns, name, node, popName, attributes
                 // CPPONLY: , htmlCreator
                 // [NOCPP[
-                , locator
+                , position, tainted
                 // ]NOCPP]
         );
         return instance;
@@ -4862,13 +5222,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private StackNode<T> createStackNode(ElementName elementName, T node
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(elementName, node
                 // [NOCPP[
-                , locator
+                , position
                 // ]NOCPP]
         );
         return instance;
@@ -4876,13 +5236,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private StackNode<T> createStackNode(ElementName elementName, T node, HtmlAttributes attributes
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(elementName, node, attributes
                 // [NOCPP[
-                , locator
+                , position
                 // ]NOCPP]
         );
         return instance;
@@ -4890,13 +5250,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private StackNode<T> createStackNode(ElementName elementName, T node, @Local String popName
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(elementName, node, popName
                 // [NOCPP[
-                , locator
+                , position
                 // ]NOCPP]
         );
         return instance;
@@ -4904,13 +5264,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private StackNode<T> createStackNode(ElementName elementName, @Local String popName, T node
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(elementName, popName, node
                 // [NOCPP[
-                , locator
+                , position
                 // ]NOCPP]
         );
         return instance;
@@ -4919,13 +5279,13 @@ public abstract class TreeBuilder<T> implements TokenHandler,
     private StackNode<T> createStackNode(ElementName elementName, T node, @Local String popName,
             boolean markAsIntegrationPoint
             // [NOCPP[
-            , TaintableLocatorImpl locator
+            , long position
             // ]NOCPP]
     ) {
         StackNode<T> instance = getUnusedStackNode();
         instance.setValues(elementName, node, popName, markAsIntegrationPoint
                 // [NOCPP[
-                , locator
+                , position
                 // ]NOCPP]
         );
         return instance;
@@ -4974,13 +5334,21 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 );
     }
 
-    private boolean isInStack(StackNode<T> node) {
-        for (int i = currentPtr; i >= 0; i--) {
-            if (stack[i] == node) {
-                return true;
-            }
+    /**
+     * Returns the position of <code>node</code> on the stack or -1. The
+     * position recorded when the node was indexed is stale once the node has
+     * left the stack, so it only counts if the node is still there.
+     */
+    private int findInStack(StackNode<T> node) {
+        int pos = node.stackPos;
+        if (pos >= 0 && pos <= currentPtr && stack[pos] == node) {
+            return pos;
         }
-        return false;
+        return -1;
+    }
+
+    private boolean isInStack(StackNode<T> node) {
+        return findInStack(node) != -1;
     }
 
     private void popTemplateMode() {
@@ -4989,6 +5357,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private void pop() throws SAXException {
         StackNode<T> node = stack[currentPtr];
+        indexPopped();
         assert debugOnlyClearLastStackSlot();
         currentPtr--;
         elementPopped(node.ns, node.popName, node.node);
@@ -4997,6 +5366,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private void popForeign(int origPos) throws SAXException {
     	StackNode<T> node = stack[currentPtr];
+        indexPopped();
     	if (origPos != currentPtr) {
             markMalformedIfScript(node.node);    		
     	}
@@ -5008,6 +5378,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private void silentPop() throws SAXException {
         StackNode<T> node = stack[currentPtr];
+        indexPopped();
         assert debugOnlyClearLastStackSlot();
         currentPtr--;
         node.release(this);
@@ -5015,6 +5386,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
 
     private void popOnEof() throws SAXException {
         StackNode<T> node = stack[currentPtr];
+        indexPopped();
         assert debugOnlyClearLastStackSlot();
         currentPtr--;
         markMalformedIfScript(node.node);
@@ -5120,7 +5492,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         StackNode<T> node = createStackNode(ElementName.HTML,
                 elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5147,7 +5519,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         StackNode<T> node = createStackNode(ElementName.HEAD,
                 elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5191,7 +5563,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         StackNode<T> node = createStackNode(ElementName.FORM,
                 elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
                 // ]NOCPP]
         );
         push(node);
@@ -5223,12 +5595,14 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
         StackNode<T> node = createStackNode(elementName, elt, clone
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
-        append(node);
-        node.retain(); // append doesn't retain itself
+        if (!isAdoptionAgencyBudgetSpent()) {
+            append(node);
+            node.retain(); // append doesn't retain itself
+        }
     }
 
     private void appendToCurrentNodeAndPushElement(ElementName elementName,
@@ -5248,7 +5622,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
         StackNode<T> node = createStackNode(elementName, elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5280,7 +5654,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
         StackNode<T> node = createStackNode(elementName, elt, popName
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5320,7 +5694,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         StackNode<T> node = createStackNode(elementName, elt, popName,
                 markAsHtmlIntegrationPoint
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5373,7 +5747,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
         StackNode<T> node = createStackNode(elementName, popName, elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5405,7 +5779,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
         StackNode<T> node = createStackNode(elementName, elt
                 // [NOCPP[
-                , errorHandler == null ? null : new TaintableLocatorImpl(tokenizer)
+                , currentPosition()
         // ]NOCPP]
         );
         push(node);
@@ -5435,6 +5809,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     );
             appendElement(elt, currentNode);
         }
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/1999/xhtml", name, elt);
         elementPopped("http://www.w3.org/1999/xhtml", name, elt);
     }
@@ -5463,6 +5840,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     );
             appendElement(elt, currentNode);
         }
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/1999/xhtml", popName, elt);
         elementPopped("http://www.w3.org/1999/xhtml", popName, elt);
     }
@@ -5491,6 +5871,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     );
             appendElement(elt, currentNode);
         }
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/2000/svg", popName, elt);
         elementPopped("http://www.w3.org/2000/svg", popName, elt);
     }
@@ -5519,6 +5902,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                     );
             appendElement(elt, currentNode);
         }
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/1998/Math/MathML", popName, elt);
         elementPopped("http://www.w3.org/1998/Math/MathML", popName, elt);
     }
@@ -5534,6 +5920,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         // CPPONLY: , htmlCreator(NS_NewHTMLInputElement)
                         );
         appendElement(elt, currentNode);
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/1999/xhtml", "input", elt);
         elementPopped("http://www.w3.org/1999/xhtml", "input", elt);
     }
@@ -5550,6 +5939,9 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         formPointer = elt;
         // ownership transferred to form pointer
         appendElement(elt, currentNode);
+        // [NOCPP[
+        elementCreated();
+        // ]NOCPP]
         elementPushed("http://www.w3.org/1999/xhtml", "form", elt);
         elementPopped("http://www.w3.org/1999/xhtml", "form", elt);
     }
@@ -5567,6 +5959,10 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         // TODO: Unify Tokenizer.strBuf and TreeBuilder.charBuffer so that
         // this method becomes unnecessary.
         int worstCase = charBufferLen + inputLength;
+        if (worstCase > maxTextLength) {
+            // Accumulating stops at the limit.
+            worstCase = maxTextLength;
+        }
         if (charBuffer == null) {
             // Add an arbitrary small value to avoid immediate reallocation
             // once there are a few characters in the buffer.
@@ -5584,6 +5980,67 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         }
     }
 
+    private void startLimits(ParserLimits limits) {
+        if (limits == null) {
+            maxDepth = Integer.MAX_VALUE;
+            maxElements = Integer.MAX_VALUE;
+            maxTextLength = Integer.MAX_VALUE;
+            truncatingAtLimits = false;
+        } else {
+            maxDepth = limits.getMaxDepth();
+            maxElements = limits.getMaxElements();
+            maxTextLength = limits.getMaxTextLength();
+            truncatingAtLimits = limits.getPolicy() == LimitPolicy.TRUNCATE;
+        }
+        elementCount = 0;
+        textLength = 0;
+        truncated = false;
+    }
+
+    /**
+     * Fails or makes this the last token of the document, since the tree
+     * cannot be left half-built.
+     */
+    private void documentLimitReached(String message) throws SAXException {
+        if (!truncatingAtLimits) {
+            fatal(message);
+        }
+        if (!truncated) {
+            truncated = true;
+            err(message + " Ignoring the rest of the document.");
+            tokenizer.truncate();
+        }
+    }
+
+    private void depthLimitReached() throws SAXException {
+        documentLimitReached("The document tree is more than the limit of "
+                + maxDepth + " elements deep.");
+    }
+
+    @Inline private void elementCreated() throws SAXException {
+        if (++elementCount > maxElements) {
+            documentLimitReached("The document has more than the limit of "
+                    + maxElements + " elements.");
+        }
+    }
+
+    /**
+     * Reports a run of text going over the limit and returns how many more
+     * characters fit.
+     */
+    private int textTooLong() throws SAXException {
+        String message = "A run of text is longer than the limit of "
+                + maxTextLength + " characters.";
+        if (!truncatingAtLimits) {
+            fatal(message);
+        }
+        int room = maxTextLength - textLength;
+        if (room > 0) {
+            err(message + " Dropping the rest of it.");
+        }
+        return room;
+    }
+
     // ]NOCPP]
 
     protected void accumulateCharacters(@Const @NoLength char[] buf, int start,
@@ -5805,6 +6262,30 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         this.scriptingEnabled = scriptingEnabled;
     }
 
+    /**
+     * Returns the adoption agency budget.
+     *
+     * @return the adoption agency budget
+     */
+    public int getAdoptionAgencyBudget() {
+        return adoptionAgencyBudget;
+    }
+
+    /**
+     * Sets how many entries of the list of active formatting elements and
+     * of the stack of open elements the adoption agency algorithm and the
+     * reconstruction of the active formatting elements may visit per
+     * document. Once the budget is spent, formatting elements are treated
+     * like ordinary elements for the rest of the document. The default is
+     * <code>Integer.MAX_VALUE</code>, which is as good as no limit.
+     *
+     * @param adoptionAgencyBudget
+     *            the adoption agency budget to set
+     */
+    public void setAdoptionAgencyBudget(int adoptionAgencyBudget) {
+        this.adoptionAgencyBudget = adoptionAgencyBudget;
+    }
+
     public void setIsSrcdocDocument(boolean isSrcdocDocument) {
         this.isSrcdocDocument = isSrcdocDocument;
     }
@@ -5912,7 +6393,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         node.attributes.cloneAttributes()
                         // CPPONLY: , node.getHtmlCreator()
                         // [NOCPP[
-                        , node.getLocator()
+                        , node.getPosition(), node.isTainted()
                         // ]NOCPP]
                 );
                 listCopy[i] = newNode;
@@ -5931,7 +6412,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         null
                         // CPPONLY: , node.getHtmlCreator()
                         // [NOCPP[
-                        , node.getLocator()
+                        , node.getPosition(), node.isTainted()
                         // ]NOCPP]
                 );
                 stackCopy[i] = newNode;
@@ -6037,7 +6518,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         node.attributes.cloneAttributes()
                         // CPPONLY: , node.getHtmlCreator()
                         // [NOCPP[
-                        , node.getLocator()
+                        , node.getPosition(), node.isTainted()
                 // ]NOCPP]
                 );
                 listOfActiveFormattingElements[i] = newNode;
@@ -6055,7 +6536,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                         null
                         // CPPONLY: , node.getHtmlCreator()
                         // [NOCPP[
-                        , node.getLocator()
+                        , node.getPosition(), node.isTainted()
                 // ]NOCPP]
                 );
                 stack[i] = newNode;
@@ -6064,6 +6545,7 @@ public abstract class TreeBuilder<T> implements TokenHandler,
                 stack[i].retain();
             }
         }
+        reindexStackFrom(0);
         System.arraycopy(templateModeStackCopy, 0, templateModeStack, 0, templateModeStackLen);
         formPointer = snapshot.getFormPointer();
         headPointer = snapshot.getHeadPointer();
@@ -6235,6 +6717,10 @@ public abstract class TreeBuilder<T> implements TokenHandler,
         err("The document tree is more than 513 elements deep, which causes Firefox and Chrome flatten the tree.");
     }
 
+    private void errAdoptionAgencyBudgetSpent() throws SAXException {
+        err("Misnested formatting elements took too much work. Treating formatting elements as ordinary elements from here on.");
+    }
+
     /**
      * Reports a stray start tag.
      * @param name the name of the stray tag
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import nu.validator.htmlparser.common.ByteReadable;
+import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.extra.ChardetSniffer;
+import nu.validator.htmlparser.extra.IcuDetectorSniffer;
+import nu.validator.htmlparser.extra.StatisticalSniffer;
+import nu.validator.htmlparser.impl.Tokenizer;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * A driver that the caller pushes input into chunk by chunk instead of
+ * handing it a stream to read. Nothing ever blocks, so one thread can
+ * advance any number of documents as their bytes arrive.
+ * 
+ * <p>A document is started with <code>start()</code>, fed with either
+ * <code>feed(ByteBuffer)</code> or <code>feed(char[], int, int)</code> (not
+ * both) and ended with <code>finish()</code>. Each chunk is tokenized
+ * before <code>feed()</code> returns.
+ * 
+ * <p>When bytes are fed without a declared encoding, the first 1024 bytes
+ * are held back for BOM and <code>meta</code> sniffing as in
+ * <code>HtmlInputStreamReader</code>; chunk boundaries do not matter. Since
+ * the input is not kept, an encoding change requested later by a
+ * <code>meta</code> element is fatal, as in the streaming mode of the SAX
+ * parser.
+ * 
+ * <p>If <code>feed()</code> or <code>finish()</code> throws, the document
+ * has been ended and must be started again.
+ */
+public class AsyncDriver extends Driver {
+
+    private static final int SNIFFING_LIMIT = 1024;
+
+    private static final int IDLE = 0;
+
+    private static final int SNIFFING = 1;
+
+    private static final int DECODING = 2;
+
+    private static final int CHARS = 3;
+
+    private final Tokenizer tokenizer;
+
+    private int state = IDLE;
+
+    /**
+     * Whether bytes or chars have been fed since <code>start()</code>.
+     */
+    private boolean fed;
+
+    /**
+     * The bytes held back for sniffing.
+     */
+    private final byte[] sniffArray = new byte[SNIFFING_LIMIT];
+
+    private int sniffLength;
+
+    /**
+     * The read position of the sniffers in <code>sniffArray</code>.
+     */
+    private int sniffPosition;
+
+    private CharsetDecoder decoder;
+
+    /**
+     * Bytes waiting to be decoded, including the start of a byte sequence
+     * that was split between chunks. Kept in write mode between calls.
+     */
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(4096);
+
+    private final char[] charArray = new char[2048];
+
+    private final CharBuffer charBuffer = CharBuffer.wrap(charArray);
+
+    /**
+     * The number of bytes decoded, counted up to the sniffing limit.
+     */
+    private int bytesDecoded;
+
+    private final ByteReadable sniffSource = new ByteReadable() {
+        public int readByte() {
+            if (sniffPosition == sniffLength) {
+                return -1;
+            }
+            return sniffArray[sniffPosition++] & 0xFF;
+        }
+    };
+
+    public AsyncDriver(Tokenizer tokenizer) {
+        super(tokenizer);
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Starts a document whose encoding is sniffed if it is fed bytes.
+     * 
+     * @param publicId
+     *            the public id or <code>null</code>
+     * @param systemId
+     *            the system id or <code>null</code>
+     * @throws SAXException
+     *             if the token handler threw
+     */
+    public void start(String publicId, String systemId) throws SAXException {
+        start(publicId, systemId, null);
+    }
+
+    /**
+     * Starts a document.
+     * 
+     * @param publicId
+     *            the public id or <code>null</code>
+     * @param systemId
+     *            the system id or <code>null</code>
+     * @param encoding
+     *            the encoding declared by the transport, used if the
+     *            document is fed bytes, or <code>null</code> to sniff
+     * @throws SAXException
+     *             if the token handler threw
+     */
+    public void start(String publicId, String systemId, String encoding)
+            throws SAXException {
+        if (state != IDLE) {
+            throw new IllegalStateException("A document is already in progress.");
+        }
+        startFeeding(publicId, systemId);
+        fed = false;
+        sniffLength = 0;
+        sniffPosition = 0;
+        bytesDecoded = 0;
+        ((Buffer) byteBuffer).clear();
+        Encoding declared = encodingFromExternalDeclaration(encoding);
+        if (declared == null) {
+            state = SNIFFING;
+            decoder = null;
+        } else {
+            if (declared != Encoding.UTF8) {
+                errorWithoutLocation("Legacy encoding \u201C"
+                        + declared.getCanonName()
+                        + "\u201D used. Documents must use UTF-8.");
+            }
+            setEncoding(declared, Confidence.CERTAIN);
+            initDecoder(declared);
+            state = DECODING;
+        }
+    }
+
+    /**
+     * Tokenizes a chunk of bytes. The buffer is consumed entirely.
+     * 
+     * @param bytes
+     *            the chunk
+     * @throws SAXException
+     *             on fatal error or if the token handler threw
+     * @throws IOException
+     *             if ending the document after an error threw
+     */
+    public void feed(ByteBuffer bytes) throws SAXException, IOException {
+        if (state != SNIFFING && state != DECODING) {
+            throw new IllegalStateException(state == CHARS ? "Cannot feed bytes after chars."
+                    : "No document in progress.");
+        }
+        fed = true;
+        try {
+            if (state == SNIFFING) {
+                int len = Math.min(bytes.remaining(), SNIFFING_LIMIT
+                        - sniffLength);
+                bytes.get(sniffArray, sniffLength, len);
+                sniffLength += len;
+                if (sniffLength < SNIFFING_LIMIT) {
+                    return;
+                }
+                endSniffing();
+            }
+            while (bytes.hasRemaining()) {
+                int len = Math.min(bytes.remaining(), byteBuffer.remaining());
+                int oldLimit = bytes.limit();
+                ((Buffer) bytes).limit(bytes.position() + len);
+                byteBuffer.put(bytes);
+                ((Buffer) bytes).limit(oldLimit);
+                decode(false);
+            }
+        } catch (Throwable t) {
+            abort(t);
+        }
+    }
+
+    /**
+     * Tokenizes a chunk of chars. The input is then taken to be in UTF-16,
+     * and no encoding sniffing takes place.
+     * 
+     * @param buf
+     *            the buffer
+     * @param offset
+     *            the start of the chunk in the buffer
+     * @param length
+     *            the length of the chunk
+     * @throws SAXException
+     *             on fatal error or if the token handler threw
+     * @throws IOException
+     *             if ending the document after an error threw
+     */
+    public void feed(char[] buf, int offset, int length) throws SAXException,
+            IOException {
+        if (state == IDLE || (fed && state != CHARS)) {
+            throw new IllegalStateException(state == IDLE ? "No document in progress."
+                    : "Cannot feed chars after bytes.");
+        }
+        if (state != CHARS) {
+            state = CHARS;
+            setEncoding(null, Confidence.CERTAIN);
+        }
+        fed = true;
+        try {
+            feedChars(buf, offset, length);
+        } catch (Throwable t) {
+            abort(t);
+        }
+    }
+
+    /**
+     * Tokenizes the rest of the input and ends the document.
+     * 
+     * @throws SAXException
+     *             on fatal error or if the token handler threw
+     * @throws IOException
+     *             if a character handler threw
+     */
+    public void finish() throws SAXException, IOException {
+        if (state == IDLE) {
+            throw new IllegalStateException("No document in progress.");
+        }
+        Throwable t = null;
+        try {
+            if (state == SNIFFING) {
+                endSniffing();
+            }
+            if (state == DECODING) {
+                decode(true);
+            }
+            endFeeding();
+        } catch (Throwable tr) {
+            t = tr;
+        } finally {
+            state = IDLE;
+            finishFeeding(t);
+        }
+    }
+
+    private void abort(Throwable t) throws SAXException, IOException {
+        state = IDLE;
+        finishFeeding(t);
+    }
+
+    /**
+     * Picks the encoding from the held back bytes and decodes them.
+     */
+    private void endSniffing() throws SAXException, IOException {
+        ErrorHandler errorHandler = tokenizer.getErrorHandler();
+        Heuristics heuristics = getHeuristics();
+        sniffPosition = 0;
+        Encoding encoding = (new BomSniffer(sniffSource)).sniff();
+        if (encoding == null) {
+            sniffPosition = 0;
+            encoding = (new MetaSniffer(errorHandler, tokenizer)).sniff(sniffSource);
+            boolean declared = true;
+            if (encoding == null) {
+                declared = false;
+            } else if (encoding != Encoding.UTF8) {
+                errorWithoutLocation("Legacy encoding \u201C"
+                        + encoding.getCanonName()
+                        + "\u201D used. Documents must use UTF-8.");
+            }
+            if (encoding == null
+                    && (heuristics == Heuristics.CHARDET || heuristics == Heuristics.ALL)) {
+                encoding = (new ChardetSniffer(sniffArray, sniffLength)).sniff();
+            }
+            if (encoding == null
+                    && (heuristics == Heuristics.ICU || heuristics == Heuristics.ALL)) {
+                sniffPosition = 0;
+                encoding = (new IcuDetectorSniffer(sniffSource)).sniff();
+            }
+            if (encoding == null && heuristics == Heuristics.STATISTICAL) {
+                sniffPosition = 0;
+                encoding = (new StatisticalSniffer()).sniff(sniffSource);
+            }
+            if (encoding == null) {
+                encoding = Encoding.WINDOWS1252;
+            }
+            if (!declared) {
+                errorWithoutLocation("The character encoding was not declared. Proceeding using \u201C"
+                        + encoding.getCanonName() + "\u201D.");
+            }
+            setEncoding(encoding, Confidence.TENTATIVE);
+        } else if (encoding == Encoding.UTF8) {
+            setEncoding(Encoding.UTF8, Confidence.CERTAIN);
+        } else {
+            errorWithoutLocation("Legacy encoding \u201C"
+                    + encoding.getCanonName()
+                    + "\u201D used. Documents must use UTF-8.");
+            setEncoding(Encoding.UTF16, Confidence.CERTAIN);
+        }
+        initDecoder(encoding);
+        state = DECODING;
+        byteBuffer.put(sniffArray, 0, sniffLength);
+        decode(false);
+    }
+
+    private void initDecoder(Encoding encoding) {
+        decoder = encoding.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPORT);
+        decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    /**
+     * Decodes and tokenizes the bytes in <code>byteBuffer</code>, leaving
+     * behind the start of a split byte sequence unless
+     * <code>endOfInput</code>.
+     */
+    private void decode(boolean endOfInput) throws SAXException {
+        ((Buffer) byteBuffer).flip();
+        if (bytesDecoded < SNIFFING_LIMIT) {
+            // Tokenize the first 1024 bytes on their own so that the
+            // tokenizer can tell which meta elements come after them.
+            int end = byteBuffer.limit();
+            int room = SNIFFING_LIMIT - bytesDecoded;
+            if (byteBuffer.remaining() >= room) {
+                ((Buffer) byteBuffer).limit(byteBuffer.position() + room);
+                decodeRange(false);
+                ((Buffer) byteBuffer).limit(end);
+                bytesDecoded = SNIFFING_LIMIT;
+                notifyAboutMetaBoundary();
+            } else {
+                bytesDecoded += byteBuffer.remaining();
+            }
+        }
+        decodeRange(endOfInput);
+        if (endOfInput) {
+            while (decoder.flush(charBuffer) == CoderResult.OVERFLOW) {
+                flushChars();
+            }
+            flushChars();
+        }
+        byteBuffer.compact();
+    }
+
+    private void decodeRange(boolean endOfInput) throws SAXException {
+        for (;;) {
+            CoderResult cr = decoder.decode(byteBuffer, charBuffer, endOfInput);
+            if (cr == CoderResult.OVERFLOW) {
+                flushChars();
+            } else if (cr == CoderResult.UNDERFLOW) {
+                flushChars();
+                return;
+            } else {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < cr.length(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append('\u201C');
+                    sb.append(Integer.toHexString(byteBuffer.get() & 0xFF));
+                    sb.append('\u201D');
+                }
+                // Tokenize up to the replacement character, so that the
+                // error is reported at its location.
+                charBuffer.put('\uFFFD');
+                flushChars();
+                if (cr.isMalformed()) {
+                    err("Malformed byte sequence: " + sb + ".");
+                } else {
+                    err("Unmappable byte sequence: " + sb + ".");
+                }
+            }
+        }
+    }
+
+    private void flushChars() throws SAXException {
+        int len = charBuffer.position();
+        if (len > 0) {
+            feedChars(charArray, 0, len);
+            ((Buffer) charBuffer).clear();
+        }
+    }
+
+    private void err(String message) throws SAXException {
+        ErrorHandler errorHandler = tokenizer.getErrorHandler();
+        if (errorHandler != null) {
+            errorHandler.error(new SAXParseException(message, tokenizer));
+        }
+    }
+}
@@ -23,18 +23,31 @@
 
 package nu.validator.htmlparser.io;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import nu.validator.htmlparser.common.CharacterHandler;
 import nu.validator.htmlparser.common.EncodingDeclarationHandler;
 import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.common.ParserLimits;
 import nu.validator.htmlparser.common.TransitionHandler;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
 import nu.validator.htmlparser.extra.NormalizationChecker;
+import nu.validator.htmlparser.impl.AttributeValueCache;
 import nu.validator.htmlparser.impl.ErrorReportingTokenizer;
+import nu.validator.htmlparser.impl.TokenBuffer;
 import nu.validator.htmlparser.impl.Tokenizer;
 import nu.validator.htmlparser.impl.UTF16Buffer;
 import nu.validator.htmlparser.rewindable.RewindableInputStream;
@@ -47,9 +60,21 @@ import org.xml.sax.SAXParseException;
 
 public class Driver implements EncodingDeclarationHandler {
 
+    /**
+     * The length in chars from which documents held in memory are split
+     * into chunks that are tokenized speculatively.
+     */
+    private static final int SPECULATION_CHUNK_LENGTH = 128 * 1024;
+
+    /**
+     * How many chunks may be tokenized ahead of the chunk being replayed.
+     */
+    private static final int SPECULATION_CHUNKS_AHEAD = 16;
+
     /**
      * The input UTF-16 code unit stream. If a byte stream was given, this
-     * object is an instance of <code>HtmlInputStreamReader</code>.
+     * object is an instance of <code>HtmlInputStreamReader</code> or, when
+     * decoding on another thread, of <code>PipelinedReader</code>.
      */
     private Reader reader;
 
@@ -65,6 +90,12 @@ public class Driver implements EncodingDeclarationHandler {
 
     private boolean allowRewinding = true;
 
+    private int rewindLimit = Integer.MAX_VALUE;
+
+    private boolean pipelined = false;
+
+    private Executor speculationExecutor = null;
+
     private Heuristics heuristics = Heuristics.NONE;
     
     private final Tokenizer tokenizer;
@@ -77,6 +108,60 @@ public class Driver implements EncodingDeclarationHandler {
      */
     private CharacterHandler[] characterHandlers = new CharacterHandler[0];
 
+    /**
+     * The buffer the <code>Reader</code> is read into. Kept across parses.
+     */
+    private final char[] buffer = new char[2048];
+
+    /**
+     * The view of <code>buffer</code> handed to the tokenizer.
+     */
+    private final UTF16Buffer bufr = new UTF16Buffer(buffer, 0, 0);
+
+    /**
+     * Whether the last buffer ended with a CR.
+     */
+    private boolean lastWasCR;
+
+    /**
+     * Whether the next buffer read is the first one.
+     */
+    private boolean atStart;
+
+    /**
+     * The offset of the start of <code>buffer</code> in the stream.
+     */
+    private int streamOffset;
+
+    /**
+     * The offset in the stream of the first char in <code>buffer</code>.
+     */
+    private int bufferOffset;
+
+    /**
+     * An encoding to change to without a reparse once the tokenizer has
+     * suspended after the <code>meta</code> that declared it, or
+     * <code>null</code>.
+     */
+    private Encoding pendingEncoding;
+
+    /**
+     * The label that <code>pendingEncoding</code> was declared with.
+     */
+    private String pendingCharset;
+
+    /**
+     * The number of internal encoding declarations that called for reading
+     * the input again.
+     */
+    private long reparseCount;
+
+    /**
+     * The number of internal encoding declarations that were acted on
+     * without reading the input again.
+     */
+    private long inPlaceEncodingChangeCount;
+
     public Driver(Tokenizer tokenizer) {
         this.tokenizer = tokenizer;
         tokenizer.setEncodingDeclarationHandler(this);
@@ -173,6 +258,393 @@ public class Driver implements EncodingDeclarationHandler {
      *             if the stream threw
      */
     public void tokenize(InputSource is) throws SAXException, IOException {
+        prepare(is, allowRewinding);
+        Throwable t = null;
+        try {
+            for (;;) {
+                try {
+                    for (int i = 0; i < characterHandlers.length; i++) {
+                        CharacterHandler ch = characterHandlers[i];
+                        ch.start();
+                    }
+                    runStates();
+                    break;
+                } catch (ReparseException e) {
+                    if (rewindableInputStream == null
+                            || !rewindableInputStream.canRewind()) {
+                        tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
+                    } else {
+                        stopDecodingAhead();
+                        rewindableInputStream.rewind();
+                        becomeConfident();
+                        this.reader = decodeAhead(new HtmlInputStreamReader(
+                                rewindableInputStream, tokenizer.getErrorHandler(), tokenizer,
+                                this, this.characterEncoding));
+                    }
+                    continue;
+                }
+            }
+        } catch (Throwable tr) {
+            t = tr;
+        } finally {
+            finish(t);
+        }
+    }
+
+    /**
+     * Tokenizes a local file by mapping it into memory. The bytes are
+     * sniffed and decoded where they lie, and a change of encoding starts
+     * over from the mapping instead of from a copy.
+     * 
+     * @param file
+     *            the file
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if the file could not be mapped
+     */
+    public void tokenize(File file) throws SAXException, IOException {
+        ByteBuffer bytes;
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } finally {
+            in.close();
+        }
+        tokenize(bytes, null, file.toURI().toASCIIString());
+    }
+
+    /**
+     * Tokenizes the bytes from the position to the limit of a buffer,
+     * sniffing their encoding. The buffer itself is not moved.
+     * 
+     * @param bytes
+     *            the document
+     * @param publicId
+     *            the public id or <code>null</code>
+     * @param systemId
+     *            the system id or <code>null</code>
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if a character handler threw
+     */
+    public void tokenize(ByteBuffer bytes, String publicId, String systemId)
+            throws SAXException, IOException {
+        tokenizer.start();
+        confidence = Confidence.TENTATIVE;
+        swallowBom = true;
+        rewindableInputStream = null;
+        characterEncoding = null;
+        tokenizer.initLocation(publicId, systemId);
+        Throwable t = null;
+        try {
+            this.reader = new HtmlByteBufferReader(bytes,
+                    tokenizer.getErrorHandler(), tokenizer, this, heuristics);
+            for (;;) {
+                try {
+                    for (int i = 0; i < characterHandlers.length; i++) {
+                        CharacterHandler ch = characterHandlers[i];
+                        ch.start();
+                    }
+                    runStates();
+                    break;
+                } catch (ReparseException e) {
+                    if (!allowRewinding) {
+                        tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
+                    } else {
+                        becomeConfident();
+                        this.reader = new HtmlByteBufferReader(bytes,
+                                tokenizer.getErrorHandler(), tokenizer, this,
+                                this.characterEncoding);
+                    }
+                    continue;
+                }
+            }
+        } catch (Throwable tr) {
+            t = tr;
+        } finally {
+            finish(t);
+        }
+    }
+
+    /**
+     * Tokenizes a document held in memory. The tokenizer runs over the
+     * array in place instead of over copies read through a
+     * <code>Reader</code>. Since there are no bytes, there is no encoding
+     * to sniff.
+     * 
+     * <p>If the tokenizer replaces characters in its input (see
+     * <code>Tokenizer.isAlteringBuffer()</code>), the array is copied once
+     * so that the caller's copy stays intact.
+     * 
+     * @param buf
+     *            the document
+     * @param offset
+     *            the start of the document in the array
+     * @param length
+     *            the length of the document
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if a character handler threw
+     */
+    public void tokenize(char[] buf, int offset, int length)
+            throws SAXException, IOException {
+        if (offset < 0 || length < 0 || offset + length > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (tokenizer.isAlteringBuffer()) {
+            char[] copy = new char[length];
+            System.arraycopy(buf, offset, copy, 0, length);
+            buf = copy;
+            offset = 0;
+        }
+        tokenizeInPlace(buf, offset, length);
+    }
+
+    /**
+     * Tokenizes a document held in memory as a <code>CharSequence</code>.
+     * The characters of a <code>CharBuffer</code> backed by an array are
+     * tokenized in place. Otherwise, they are copied into an array once.
+     * 
+     * @param text
+     *            the document
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if a character handler threw
+     */
+    public void tokenize(CharSequence text) throws SAXException, IOException {
+        if (text instanceof CharBuffer && ((CharBuffer) text).hasArray()) {
+            CharBuffer cb = (CharBuffer) text;
+            tokenize(cb.array(), cb.arrayOffset() + cb.position(),
+                    cb.remaining());
+            return;
+        }
+        int length = text.length();
+        char[] buf;
+        if (text instanceof String) {
+            buf = ((String) text).toCharArray();
+        } else if (text instanceof StringBuilder) {
+            buf = new char[length];
+            ((StringBuilder) text).getChars(0, length, buf, 0);
+        } else if (text instanceof StringBuffer) {
+            buf = new char[length];
+            ((StringBuffer) text).getChars(0, length, buf, 0);
+        } else {
+            buf = new char[length];
+            for (int i = 0; i < length; i++) {
+                buf[i] = text.charAt(i);
+            }
+        }
+        tokenizeInPlace(buf, 0, length);
+    }
+
+    private void tokenizeInPlace(char[] buf, int offset, int length)
+            throws SAXException, IOException {
+        Throwable t = null;
+        try {
+            startFeeding(null, null);
+            becomeConfident();
+            int end = offset + length;
+            if (swallowBom && length > 0 && buf[offset] == '\uFEFF') {
+                offset++;
+            }
+            if (offset < end) {
+                for (int i = 0; i < characterHandlers.length; i++) {
+                    CharacterHandler ch = characterHandlers[i];
+                    ch.characters(buf, offset, end - offset);
+                }
+                tokenizer.setTransitionBaseOffset(-offset);
+                if (speculationExecutor != null
+                        && end - offset >= 2 * SPECULATION_CHUNK_LENGTH
+                        && TokenBuffer.canSpeculate(tokenizer)) {
+                    tokenizeSpeculatively(buf, offset, end);
+                } else {
+                    tokenizeRange(buf, offset, offset, end);
+                }
+            }
+            tokenizer.eof();
+        } catch (Throwable tr) {
+            t = tr;
+        } finally {
+            finish(t);
+        }
+    }
+
+    /**
+     * Tokenizes a range of an array in place. The tokenizer is handed the
+     * array a buffer's worth at a time counted from <code>origin</code>, so
+     * that a range tokenized after speculation failed is split as it would
+     * have been without speculation.
+     */
+    private void tokenizeRange(char[] buf, int origin, int start, int end)
+            throws SAXException {
+        // One buffer over the array, but with its end moved along a
+        // buffer's worth at a time. Handing the tokenizer the whole array
+        // in one call measured slower on long text.
+        UTF16Buffer window = new UTF16Buffer(buf, start, start);
+        while (window.getEnd() < end) {
+            int windowEnd = window.getEnd() - origin;
+            window.setEnd(Math.min(end, origin + windowEnd + buffer.length
+                    - windowEnd % buffer.length));
+            while (tokenizeBuffered(window)) {
+                // keep going
+            }
+        }
+    }
+
+    /**
+     * Tokenizes chunks of an array on the speculation executor while
+     * replaying the chunks already tokenized in order on this thread. A
+     * chunk that turns out not to start in the data state, or whose tokens
+     * stop matching what the tree builder does with them, is tokenized
+     * again here from where they stopped matching.
+     */
+    private void tokenizeSpeculatively(char[] buf, int start, int end)
+            throws SAXException, IOException {
+        LinkedList<FutureTask<TokenBuffer>> pending = new LinkedList<FutureTask<TokenBuffer>>();
+        LinkedList<Integer> pendingEnds = new LinkedList<Integer>();
+        int submitted = start;
+        int replayed = start;
+        try {
+            while (replayed < end) {
+                while (submitted < end
+                        && pending.size() < SPECULATION_CHUNKS_AHEAD) {
+                    int chunkEnd = speculationChunkEnd(buf, submitted, end);
+                    FutureTask<TokenBuffer> task = new FutureTask<TokenBuffer>(
+                            new TokenBuffer(tokenizer, buf, submitted,
+                                    chunkEnd, start, buffer.length));
+                    try {
+                        speculationExecutor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        task.run();
+                    }
+                    pending.add(task);
+                    pendingEnds.add(Integer.valueOf(chunkEnd));
+                    submitted = chunkEnd;
+                }
+                TokenBuffer tokens = speculationResult(pending.removeFirst());
+                int chunkEnd = pendingEnds.removeFirst().intValue();
+                int resume = tokens.replay(tokenizer);
+                if (resume != -1) {
+                    lastWasCR = false;
+                    tokenizeRange(buf, start, resume, chunkEnd);
+                }
+                replayed = chunkEnd;
+            }
+        } finally {
+            for (FutureTask<TokenBuffer> task : pending) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Finds the end of a speculation chunk: the first point after a chunk's
+     * length where a <code>&gt;</code> is followed by something else than
+     * <code>&lt;</code>, since the tokenizer is most likely in the data
+     * state there.
+     */
+    private static int speculationChunkEnd(char[] buf, int start, int end) {
+        for (int i = start + SPECULATION_CHUNK_LENGTH; i < end; i++) {
+            if (buf[i - 1] == '>' && buf[i] != '<') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Waits for a speculation task and passes on what it threw.
+     */
+    private static TokenBuffer speculationResult(FutureTask<TokenBuffer> task)
+            throws SAXException, IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            throw new IOException(
+                    "Interrupted while waiting for speculative tokenization.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Starts an incremental tokenization. The caller then calls
+     * <code>tokenizeMore()</code> until it returns <code>false</code> and
+     * finally <code>endTokenizing()</code>, also when giving up early. Since
+     * the token handler may already have acted on the tokens, the input is
+     * never rewound to change the encoding.
+     * 
+     * @param is
+     *            the input source
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if the stream threw
+     */
+    public void startTokenizing(InputSource is) throws SAXException,
+            IOException {
+        prepare(is, false);
+        for (int i = 0; i < characterHandlers.length; i++) {
+            CharacterHandler ch = characterHandlers[i];
+            ch.start();
+        }
+        resetStates();
+    }
+
+    /**
+     * Tokenizes until the tokenizer suspends or the current buffer runs out,
+     * reading the next buffer if needed.
+     * 
+     * @return <code>false</code> once the end of the input has been
+     *         tokenized
+     * @throws SAXException
+     *             on fatal error (if configured to treat XML violations as
+     *             fatal) or if the token handler threw
+     * @throws IOException
+     *             if the stream threw
+     */
+    public boolean tokenizeMore() throws SAXException, IOException {
+        try {
+            return runStatesStep();
+        } catch (ReparseException e) {
+            tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
+            return false;
+        }
+    }
+
+    /**
+     * Ends an incremental tokenization and closes the input.
+     * 
+     * @throws SAXException
+     *             if the token handler threw
+     * @throws IOException
+     *             if the stream threw
+     */
+    public void endTokenizing() throws SAXException, IOException {
+        finish(null);
+    }
+
+    private void prepare(InputSource is, boolean rewindable)
+            throws SAXException, IOException {
         if (is == null) {
             throw new IllegalArgumentException("InputSource was null.");
         }
@@ -189,12 +661,12 @@ public class Driver implements EncodingDeclarationHandler {
                 throw new SAXException("Both streams in InputSource were null.");
             }
             if (this.characterEncoding == null) {
-                if (allowRewinding) {
+                if (rewindable) {
                     inputStream = rewindableInputStream = new RewindableInputStream(
-                            inputStream);
+                            inputStream, rewindLimit);
                 }
-                this.reader = new HtmlInputStreamReader(inputStream,
-                        tokenizer.getErrorHandler(), tokenizer, this, heuristics);
+                this.reader = decodeAhead(new HtmlInputStreamReader(inputStream,
+                        tokenizer.getErrorHandler(), tokenizer, this, heuristics));
             } else {
                 if (this.characterEncoding != Encoding.UTF8) {
                     errorWithoutLocation("Legacy encoding \u201C"
@@ -202,66 +674,47 @@ public class Driver implements EncodingDeclarationHandler {
                             + "\u201D used. Documents must use UTF-8.");
                 }
                 becomeConfident();
-                this.reader = new HtmlInputStreamReader(inputStream,
-                        tokenizer.getErrorHandler(), tokenizer, this, this.characterEncoding);
+                this.reader = decodeAhead(new HtmlInputStreamReader(inputStream,
+                        tokenizer.getErrorHandler(), tokenizer, this, this.characterEncoding));
             }
         } else {
             becomeConfident();
         }
-        Throwable t = null;
+    }
+
+    private void finish(Throwable t) throws SAXException, IOException {
         try {
-            for (;;) {
-                try {
-                    for (int i = 0; i < characterHandlers.length; i++) {
-                        CharacterHandler ch = characterHandlers[i];
-                        ch.start();
-                    }
-                    runStates();
-                    break;
-                } catch (ReparseException e) {
-                    if (rewindableInputStream == null) {
-                        tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
-                    } else {
-                        rewindableInputStream.rewind();
-                        becomeConfident();
-                        this.reader = new HtmlInputStreamReader(
-                                rewindableInputStream, tokenizer.getErrorHandler(), tokenizer,
-                                this, this.characterEncoding);
-                    }
-                    continue;
-                }
+            tokenizer.end();
+            characterEncoding = null;
+            for (int i = 0; i < characterHandlers.length; i++) {
+                CharacterHandler ch = characterHandlers[i];
+                ch.end();
             }
-        } catch (Throwable tr) {
-            t = tr;
-        } finally {
-            try {
-                tokenizer.end();
-                characterEncoding = null;
-                for (int i = 0; i < characterHandlers.length; i++) {
-                    CharacterHandler ch = characterHandlers[i];
-                    ch.end();
-                }
+            if (reader != null) {
                 reader.close();
                 reader = null;
+            }
+            if (rewindableInputStream != null) {
+                rewindableInputStream.willNotRewind();
                 rewindableInputStream = null;
-            } catch (Throwable tr) {
-                if (t == null) {
-                    t = tr;
-                } // else drop the later throwable
-            }
-            if (t != null) {
-                if (t instanceof IOException) {
-                    throw (IOException) t;
-                } else if (t instanceof SAXException) {
-                    throw (SAXException) t;
-                } else if (t instanceof RuntimeException) {
-                    throw (RuntimeException) t;
-                } else if (t instanceof Error) {
-                    throw (Error) t;
-                } else {
-                    // impossible
-                    throw new RuntimeException(t);
-                }
+            }
+        } catch (Throwable tr) {
+            if (t == null) {
+                t = tr;
+            } // else drop the later throwable
+        }
+        if (t != null) {
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof SAXException) {
+                throw (SAXException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else {
+                // impossible
+                throw new RuntimeException(t);
             }
         }
     }
@@ -270,60 +723,155 @@ public class Driver implements EncodingDeclarationHandler {
         swallowBom = false;
     }
 
+    private void resetStates() {
+        lastWasCR = false;
+        atStart = true;
+        streamOffset = 0;
+        pendingEncoding = null;
+        pendingCharset = null;
+        bufr.setStart(0);
+        bufr.setEnd(0);
+    }
+
     private void runStates() throws SAXException, IOException {
-        char[] buffer = new char[2048];
-        UTF16Buffer bufr = new UTF16Buffer(buffer, 0, 0);
-        boolean lastWasCR = false;
-        int len = -1;
-        if ((len = reader.read(buffer)) != -1) {
-            assert len > 0;
-            int streamOffset = 0;
-            int offset = 0;
-            int length = len;
-            if (swallowBom) {
-                if (buffer[0] == '\uFEFF') {
-                    streamOffset = -1;
-                    offset = 1;
-                    length--;
+        resetStates();
+        while (runStatesStep()) {
+            // keep going
+        }
+    }
+
+    private boolean runStatesStep() throws SAXException, IOException {
+        for (;;) {
+            if (tokenizeBuffered(bufr)) {
+                if (pendingEncoding != null) {
+                    changePendingEncoding();
                 }
+                return true;
             }
-            if (length > 0) {
-                for (int i = 0; i < characterHandlers.length; i++) {
-                    CharacterHandler ch = characterHandlers[i];
-                    ch.characters(buffer, offset, length);
-                }
-                tokenizer.setTransitionBaseOffset(streamOffset);
-                bufr.setStart(offset);
-                bufr.setEnd(offset + length);
-                while (bufr.hasMore()) {
-                    bufr.adjust(lastWasCR);
-                    lastWasCR = false;
-                    if (bufr.hasMore()) {
-                        lastWasCR = tokenizer.tokenizeBuffer(bufr);                    
-                    }
-                }
+            if (tokenizer.isTruncated()) {
+                tokenizer.eof();
+                return false;
             }
-            streamOffset = length;
-            while ((len = reader.read(buffer)) != -1) {
-                assert len > 0;
-                for (int i = 0; i < characterHandlers.length; i++) {
-                    CharacterHandler ch = characterHandlers[i];
-                    ch.characters(buffer, 0, len);
-                }
-                tokenizer.setTransitionBaseOffset(streamOffset);
-                bufr.setStart(0);
-                bufr.setEnd(len);
-                while (bufr.hasMore()) {
-                    bufr.adjust(lastWasCR);
-                    lastWasCR = false;
-                    if (bufr.hasMore()) {
-                        lastWasCR = tokenizer.tokenizeBuffer(bufr);                    
-                    }
+            int len = reader.read(buffer);
+            if (len == -1) {
+                tokenizer.eof();
+                return false;
+            }
+            assert len > 0;
+            bufferFilled(len);
+        }
+    }
+
+    /**
+     * Runs the tokenizer on what is left in <code>buf</code> until it
+     * suspends or the buffer runs out.
+     * 
+     * @return <code>false</code> if there was nothing left to tokenize
+     */
+    private boolean tokenizeBuffered(UTF16Buffer buf) throws SAXException {
+        while (buf.hasMore()) {
+            int start = buf.getStart();
+            buf.adjust(lastWasCR);
+            if (buf.getStart() != start) {
+                tokenizer.lineFeedSkipped();
+            }
+            lastWasCR = false;
+            if (buf.hasMore()) {
+                lastWasCR = tokenizer.tokenizeBuffer(buf);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes the first <code>len</code> chars of <code>buffer</code> the
+     * next input for the tokenizer.
+     */
+    private void bufferFilled(int len) throws SAXException {
+        int offset = 0;
+        if (atStart) {
+            atStart = false;
+            if (swallowBom && buffer[0] == '\uFEFF') {
+                streamOffset = -1;
+                offset = 1;
+            }
+        }
+        int length = len - offset;
+        if (length > 0) {
+            for (int i = 0; i < characterHandlers.length; i++) {
+                CharacterHandler ch = characterHandlers[i];
+                ch.characters(buffer, offset, length);
+            }
+            tokenizer.setTransitionBaseOffset(streamOffset);
+            bufr.setStart(offset);
+            bufr.setEnd(offset + length);
+        }
+        bufferOffset = streamOffset;
+        streamOffset += len;
+    }
+
+    /**
+     * Starts a tokenization whose input the caller pushes with
+     * <code>feedChars()</code>. The caller sets the encoding.
+     */
+    void startFeeding(String publicId, String systemId) throws SAXException {
+        tokenizer.start();
+        confidence = Confidence.TENTATIVE;
+        swallowBom = true;
+        rewindableInputStream = null;
+        reader = null;
+        characterEncoding = null;
+        tokenizer.initLocation(publicId, systemId);
+        for (int i = 0; i < characterHandlers.length; i++) {
+            CharacterHandler ch = characterHandlers[i];
+            ch.start();
+        }
+        resetStates();
+    }
+
+    /**
+     * Tokenizes pushed input. Since the tokens have already been acted on,
+     * a change of encoding is fatal.
+     */
+    void feedChars(char[] buf, int offset, int length) throws SAXException {
+        try {
+            while (length > 0) {
+                int len = Math.min(length, buffer.length);
+                System.arraycopy(buf, offset, buffer, 0, len);
+                bufferFilled(len);
+                while (tokenizeBuffered(bufr)) {
+                    // keep going
                 }
-                streamOffset += len;
+                offset += len;
+                length -= len;
             }
+        } catch (ReparseException e) {
+            tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
         }
-        tokenizer.eof();
+    }
+
+    /**
+     * Tells the tokenizer that the pushed input has ended.
+     */
+    void endFeeding() throws SAXException {
+        try {
+            tokenizer.eof();
+        } catch (ReparseException e) {
+            tokenizer.fatal("Changing encoding at this point would need non-streamable behavior.");
+        }
+    }
+
+    /**
+     * Ends a tokenization started with <code>startFeeding()</code> and
+     * rethrows <code>t</code> if not <code>null</code>.
+     */
+    void finishFeeding(Throwable t) throws SAXException, IOException {
+        finish(t);
+    }
+
+    Heuristics getHeuristics() {
+        return heuristics;
     }
 
     public void setEncoding(Encoding encoding, Confidence confidence) {
@@ -365,6 +913,9 @@ public class Driver implements EncodingDeclarationHandler {
             }
             if (characterEncoding == actual) {
                 becomeConfident();
+                if (reader instanceof HtmlInputStreamReader) {
+                    reader = decodeAhead((HtmlInputStreamReader) reader);
+                }
                 return true;
             }
             if (confidence == Confidence.CERTAIN && actual != characterEncoding) {
@@ -375,10 +926,53 @@ public class Driver implements EncodingDeclarationHandler {
             } else {
                 Encoding newEnc = whineAboutEncodingAndReturnActual(
                         internalCharset, cs);
-                tokenizer.errTreeBuilder("Changing character encoding \u201C"
-                        + internalCharset + "\u201D and reparsing.");
-                characterEncoding = newEnc;
-                throw new ReparseException();
+                HtmlInputStreamReader inputStreamReader = stopDecodingAhead();
+                if (inputStreamReader != null
+                        && characterEncoding.decodesAsciiAsAscii()) {
+                    if (inputStreamReader.switchEncodingInPlace(newEnc)) {
+                        changedEncodingInPlace(internalCharset, newEnc);
+                        return true;
+                    }
+                    if (rewindableInputStream != null
+                            && rewindableInputStream.canRewind()
+                            && characterHandlers.length == 0
+                            && newEnc.decodesAsciiAsAscii()
+                            && inputStreamReader.getNonAsciiOffset() >= bufferOffset
+                                    + tokenizer.getTagEnd()) {
+                        // Some of the bytes decoded ahead of the tokenizer
+                        // were not ASCII, but only after this tag. The
+                        // stream is rewound to the end of the tag once the
+                        // tokenizer has suspended there. If a non-ASCII
+                        // byte came before, this tag must not reach the
+                        // tree, so the reparse below happens right away.
+                        pendingEncoding = newEnc;
+                        pendingCharset = internalCharset;
+                        return true;
+                    }
+                }
+                if (reader instanceof HtmlByteBufferReader
+                        && characterEncoding.decodesAsciiAsAscii()
+                        && characterHandlers.length == 0
+                        && newEnc.decodesAsciiAsAscii()
+                        && ((HtmlByteBufferReader) reader).isAscii(bufferOffset
+                                + tokenizer.getTagEnd())) {
+                    // Every byte up to the end of this tag is ASCII and
+                    // still in memory, so the rest is decoded again from
+                    // there once the tokenizer has suspended.
+                    pendingEncoding = newEnc;
+                    pendingCharset = internalCharset;
+                    return true;
+                }
+                if (rewindableInputStream != null
+                        && !rewindableInputStream.canRewind()) {
+                    tokenizer.errTreeBuilder("Internal encoding declaration \u201C"
+                            + internalCharset
+                            + "\u201D found too late to change the encoding. Proceeding using \u201C"
+                            + characterEncoding.getCanonName() + "\u201D.");
+                    becomeConfident();
+                    return false;
+                }
+                reparse(internalCharset, newEnc);
             }
             return true;
         } catch (UnsupportedCharsetException e) {
@@ -388,6 +982,100 @@ public class Driver implements EncodingDeclarationHandler {
         }
     }
 
+    private void reparse(String internalCharset, Encoding newEnc)
+            throws SAXException {
+        tokenizer.errTreeBuilder("Changing character encoding \u201C"
+                + internalCharset + "\u201D and reparsing.");
+        characterEncoding = newEnc;
+        reparseCount++;
+        throw new ReparseException();
+    }
+
+    private void changedEncodingInPlace(String internalCharset,
+            Encoding newEnc) throws SAXException {
+        tokenizer.errTreeBuilder("Changing character encoding \u201C"
+                + internalCharset
+                + "\u201D. No reparse needed, because the document was ASCII so far.");
+        characterEncoding = newEnc;
+        inPlaceEncodingChangeCount++;
+        becomeConfident();
+    }
+
+    /**
+     * Acts on an encoding declaration after the tokenizer has suspended at
+     * the end of the tag. If every byte up to there was ASCII, the chars
+     * read ahead are dropped and the stream is decoded again from the end
+     * of the tag with the new encoding. Otherwise, the document is reparsed.
+     * A document in a <code>ByteBuffer</code> was checked when the tag was
+     * seen and is decoded again from the buffer.
+     */
+    private void changePendingEncoding() throws SAXException, IOException {
+        Encoding newEnc = pendingEncoding;
+        String internalCharset = pendingCharset;
+        pendingEncoding = null;
+        pendingCharset = null;
+        int offset = bufferOffset + bufr.getStart();
+        if (reader instanceof HtmlByteBufferReader) {
+            changedEncodingInPlace(internalCharset, newEnc);
+            this.reader = ((HtmlByteBufferReader) reader).continueAt(newEnc,
+                    offset);
+            bufr.setStart(bufr.getEnd());
+            streamOffset = offset;
+            return;
+        }
+        int nonAsciiOffset = stopDecodingAhead().getNonAsciiOffset();
+        if (nonAsciiOffset != -1 && offset > nonAsciiOffset) {
+            reparse(internalCharset, newEnc);
+        }
+        rewindableInputStream.rewind();
+        long toSkip = offset;
+        while (toSkip > 0) {
+            long skipped = rewindableInputStream.skip(toSkip);
+            if (skipped <= 0) {
+                throw new IOException("Stream ended before the offset of the encoding change.");
+            }
+            toSkip -= skipped;
+        }
+        changedEncodingInPlace(internalCharset, newEnc);
+        this.reader = decodeAhead(new HtmlInputStreamReader(rewindableInputStream,
+                tokenizer.getErrorHandler(), tokenizer, this, newEnc, offset));
+        bufr.setStart(bufr.getEnd());
+        streamOffset = offset;
+    }
+
+    /**
+     * Starts decoding on another thread if asked to. While the encoding is
+     * tentative, decoding ahead makes a late encoding declaration more
+     * likely to find non-ASCII bytes already decoded, so this waits for
+     * confidence unless the whole stream can be rewound.
+     */
+    private Reader decodeAhead(HtmlInputStreamReader inputStreamReader) {
+        if (pipelined
+                && (confidence == Confidence.CERTAIN || (rewindableInputStream != null
+                        && rewindLimit == Integer.MAX_VALUE))) {
+            return new PipelinedReader(inputStreamReader, buffer.length);
+        }
+        return inputStreamReader;
+    }
+
+    /**
+     * Stops decoding on another thread, so that the decoder and the byte
+     * stream can be changed.
+     * 
+     * @return the reader decoding the byte stream or <code>null</code> if
+     *         chars were given
+     */
+    private HtmlInputStreamReader stopDecodingAhead() {
+        if (reader instanceof PipelinedReader) {
+            PipelinedReader pipelinedReader = (PipelinedReader) reader;
+            pipelinedReader.stop();
+            return pipelinedReader.getSource();
+        } else if (reader instanceof HtmlInputStreamReader) {
+            return (HtmlInputStreamReader) reader;
+        }
+        return null;
+    }
+
     /**
      * 
      */
@@ -399,6 +1087,28 @@ public class Driver implements EncodingDeclarationHandler {
         tokenizer.becomeConfident();
     }
 
+    /**
+     * Returns the number of times an internal encoding declaration called
+     * for reading the input again, whether or not that was possible, over
+     * the lifetime of this driver.
+     * 
+     * @return the number of reparses
+     */
+    public long getReparseCount() {
+        return reparseCount;
+    }
+
+    /**
+     * Returns the number of times an internal encoding declaration changed
+     * the encoding without reading the input again, because the input had
+     * been ASCII up to that point, over the lifetime of this driver.
+     * 
+     * @return the number of encoding changes without a reparse
+     */
+    public long getInPlaceEncodingChangeCount() {
+        return inPlaceEncodingChangeCount;
+    }
+
     /**
      * Sets the encoding sniffing heuristics.
      * 
@@ -409,6 +1119,77 @@ public class Driver implements EncodingDeclarationHandler {
         this.heuristics = heuristics;
     }
 
+    /**
+     * Returns the rewindLimit.
+     * 
+     * @return the rewindLimit
+     */
+    public int getRewindLimit() {
+        return rewindLimit;
+    }
+
+    /**
+     * Sets the number of bytes kept for reading the input again when an
+     * internal encoding declaration calls for it. Once a document is longer,
+     * a later declaration no longer changes the encoding. Defaults to
+     * <code>Integer.MAX_VALUE</code>.
+     * 
+     * @param rewindLimit
+     *            the rewindLimit to set
+     */
+    public void setRewindLimit(int rewindLimit) {
+        this.rewindLimit = rewindLimit;
+    }
+
+    /**
+     * Returns the pipelined.
+     * 
+     * @return the pipelined
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Sets whether byte streams are decoded on a thread of their own while
+     * this thread tokenizes. This only pays off for large documents on a
+     * machine with a spare core. Errors, encoding changes and reparsing
+     * work the same either way. Defaults to <code>false</code>.
+     * 
+     * @param pipelined
+     *            the pipelined to set
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * Returns the speculationExecutor.
+     * 
+     * @return the speculationExecutor
+     */
+    public Executor getSpeculationExecutor() {
+        return speculationExecutor;
+    }
+
+    /**
+     * Sets the executor on which large documents given as chars are split
+     * into chunks and tokenized ahead of the tree builder, each chunk on
+     * the assumption that it starts in the data state. Chunks for which the
+     * assumption fails are tokenized again on the parsing thread, so the
+     * result is the same, except that text may be split into different
+     * <code>characters()</code> calls. Only applies without an error
+     * reporting tokenizer. If the executor rejects a chunk, the chunk is
+     * tokenized on the parsing thread. <code>null</code> (the default)
+     * means no speculation.
+     * 
+     * @param speculationExecutor
+     *            the speculationExecutor to set
+     */
+    public void setSpeculationExecutor(Executor speculationExecutor) {
+        this.speculationExecutor = speculationExecutor;
+    }
+
     /**
      * Reports a warning without line/col
      * 
@@ -562,6 +1343,38 @@ public class Driver implements EncodingDeclarationHandler {
         tokenizer.setMappingLangToXmlLang(mappingLangToXmlLang);
     }
 
+    /**
+     * @param lazyAttributeValues
+     * @see nu.validator.htmlparser.impl.Tokenizer#setLazyAttributeValues(boolean)
+     */
+    public void setLazyAttributeValues(boolean lazyAttributeValues) {
+        tokenizer.setLazyAttributeValues(lazyAttributeValues);
+    }
+
+    /**
+     * @param limits
+     * @see nu.validator.htmlparser.impl.Tokenizer#setLimits(nu.validator.htmlparser.common.ParserLimits)
+     */
+    public void setLimits(ParserLimits limits) {
+        tokenizer.setLimits(limits);
+    }
+
+    /**
+     * @return the limits
+     * @see nu.validator.htmlparser.impl.Tokenizer#getLimits()
+     */
+    public ParserLimits getLimits() {
+        return tokenizer.getLimits();
+    }
+
+    /**
+     * @param attributeValueCache
+     * @see nu.validator.htmlparser.impl.Tokenizer#setAttributeValueCache(nu.validator.htmlparser.impl.AttributeValueCache)
+     */
+    public void setAttributeValueCache(AttributeValueCache attributeValueCache) {
+        tokenizer.setAttributeValueCache(attributeValueCache);
+    }
+
     /**
      * @param namePolicy
      * @see nu.validator.htmlparser.impl.Tokenizer#setNamePolicy(nu.validator.htmlparser.common.XmlViolationPolicy)
@@ -27,6 +27,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
@@ -343,6 +346,57 @@ public class Encoding {
         return shouldNot;
     }
 
+    /**
+     * Checks whether every ASCII byte decodes to the same code point on its
+     * own and in a run of all of them, so that ASCII-only input decodes the
+     * same as in any other encoding for which this holds. Stateful
+     * encodings that switch modes on control bytes fail the check.
+     * 
+     * @return <code>true</code> if ASCII bytes decode as ASCII
+     */
+    public boolean decodesAsciiAsAscii() {
+        if (!asciiSuperset) {
+            return false;
+        }
+        byte[] bytes = new byte[0x80];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        CharsetDecoder dec = charset.newDecoder();
+        dec.onMalformedInput(CodingErrorAction.REPORT);
+        dec.onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            if (!decodesAsItself(dec, bytes, 0, bytes.length)) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (!decodesAsItself(dec, bytes, i, 1)) {
+                    return false;
+                }
+            }
+        } catch (CharacterCodingException e) {
+            return false;
+        } catch (CoderMalfunctionError e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean decodesAsItself(CharsetDecoder dec, byte[] bytes,
+            int offset, int length) throws CharacterCodingException {
+        dec.reset();
+        CharBuffer chars = dec.decode(ByteBuffer.wrap(bytes, offset, length));
+        if (chars.remaining() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars.get(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isRegistered() {
         return !canonName.startsWith("x-");
     }
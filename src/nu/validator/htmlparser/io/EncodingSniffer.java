@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import nu.validator.htmlparser.common.ByteReadable;
+import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.extra.ChardetSniffer;
+import nu.validator.htmlparser.extra.IcuDetectorSniffer;
+import nu.validator.htmlparser.extra.StatisticalSniffer;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Sniffs the encoding of a document from the start of its bytes the same way
+ * the parser does, but without a tokenizer or a driver: a byte order mark,
+ * then a <code>meta</code> in the first 1024 bytes, then the heuristics if
+ * asked for, and finally windows-1252.
+ *
+ * <p>An instance can be reused for any number of documents but by one
+ * thread at a time. Without heuristics or with the statistical one, sniffing
+ * allocates nothing except the strings for a declared encoding label. No errors are reported.
+ */
+public final class EncodingSniffer {
+
+    private static final int SNIFFING_LIMIT = 1024;
+
+    private final Heuristics heuristics;
+
+    private final BomSniffer bomSniffer;
+
+    private final MetaSniffer metaSniffer = new MetaSniffer(null, null);
+
+    /**
+     * The array sniffed or <code>null</code> if sniffing a buffer without
+     * one.
+     */
+    private byte[] sniffArray;
+
+    /**
+     * The buffer sniffed if it has no array.
+     */
+    private ByteBuffer sniffBuffer;
+
+    private int sniffStart;
+
+    private int sniffPosition;
+
+    private int sniffEnd;
+
+    /**
+     * The bytes of a buffer without an array copied for chardet.
+     */
+    private byte[] chardetArray;
+
+    private StatisticalSniffer statisticalSniffer;
+
+    private Confidence confidence;
+
+    private boolean declared;
+
+    private final ByteReadable sniffSource = new ByteReadable() {
+        public int readByte() {
+            if (sniffPosition == sniffEnd) {
+                return -1;
+            }
+            if (sniffArray == null) {
+                return sniffBuffer.get(sniffPosition++) & 0xFF;
+            }
+            return sniffArray[sniffPosition++] & 0xFF;
+        }
+    };
+
+    /**
+     * Instantiates a sniffer that uses no heuristics.
+     */
+    public EncodingSniffer() {
+        this(Heuristics.NONE);
+    }
+
+    /**
+     * Instantiates a sniffer.
+     *
+     * @param heuristics
+     *            the heuristics to try when there is neither a BOM nor a
+     *            <code>meta</code>
+     */
+    public EncodingSniffer(Heuristics heuristics) {
+        this.heuristics = heuristics;
+        this.bomSniffer = new BomSniffer(sniffSource);
+    }
+
+    /**
+     * Sniffs the encoding of a document starting with the given bytes. Only
+     * the first 1024 bytes are looked at, so the rest of the document does
+     * not need to be there.
+     *
+     * @param bytes
+     *            the array holding the start of the document
+     * @param offset
+     *            the start of the document in the array
+     * @param length
+     *            the number of bytes of the document in the array
+     * @return the encoding
+     * @throws IOException
+     *             if a heuristic detector threw
+     */
+    public Encoding sniff(byte[] bytes, int offset, int length)
+            throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        sniffArray = bytes;
+        sniffBuffer = null;
+        try {
+            return sniff(offset, offset + Math.min(length, SNIFFING_LIMIT));
+        } finally {
+            sniffArray = null;
+        }
+    }
+
+    /**
+     * Sniffs the encoding of a document starting with the bytes from the
+     * position to the limit of <code>buffer</code>. The buffer itself is not
+     * moved.
+     *
+     * @param buffer
+     *            the start of the document
+     * @return the encoding
+     * @throws IOException
+     *             if a heuristic detector threw
+     */
+    public Encoding sniff(ByteBuffer buffer) throws IOException {
+        int position = buffer.position();
+        int length = Math.min(buffer.remaining(), SNIFFING_LIMIT);
+        if (buffer.hasArray()) {
+            return sniff(buffer.array(), buffer.arrayOffset() + position,
+                    length);
+        }
+        sniffArray = null;
+        sniffBuffer = buffer;
+        try {
+            return sniff(position, position + length);
+        } finally {
+            sniffBuffer = null;
+        }
+    }
+
+    private Encoding sniff(int start, int end) throws IOException {
+        sniffStart = start;
+        sniffPosition = start;
+        sniffEnd = end;
+        Encoding encoding = bomSniffer.sniff();
+        if (encoding != null) {
+            confidence = Confidence.CERTAIN;
+            declared = true;
+            return encoding;
+        }
+        confidence = Confidence.TENTATIVE;
+        sniffPosition = start;
+        try {
+            encoding = metaSniffer.sniff(sniffSource);
+        } catch (SAXException e) {
+            // Only the error handler throws and there is none.
+            throw new RuntimeException(e);
+        }
+        declared = encoding != null;
+        if (encoding == null
+                && (heuristics == Heuristics.CHARDET || heuristics == Heuristics.ALL)) {
+            encoding = chardet();
+        }
+        if (encoding == null
+                && (heuristics == Heuristics.ICU || heuristics == Heuristics.ALL)) {
+            sniffPosition = start;
+            encoding = (new IcuDetectorSniffer(sniffSource)).sniff();
+        }
+        if (encoding == null && heuristics == Heuristics.STATISTICAL) {
+            if (statisticalSniffer == null) {
+                statisticalSniffer = new StatisticalSniffer();
+            }
+            sniffPosition = start;
+            encoding = statisticalSniffer.sniff(sniffSource);
+        }
+        if (encoding == null) {
+            encoding = Encoding.WINDOWS1252;
+        }
+        return encoding;
+    }
+
+    private Encoding chardet() throws IOException {
+        int length = sniffEnd - sniffStart;
+        if (sniffArray != null && sniffStart == 0) {
+            return (new ChardetSniffer(sniffArray, length)).sniff();
+        }
+        if (chardetArray == null) {
+            chardetArray = new byte[SNIFFING_LIMIT];
+        }
+        if (sniffArray != null) {
+            System.arraycopy(sniffArray, sniffStart, chardetArray, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chardetArray[i] = sniffBuffer.get(sniffStart + i);
+            }
+        }
+        return (new ChardetSniffer(chardetArray, length)).sniff();
+    }
+
+    /**
+     * Returns how sure the last sniff was: <code>CERTAIN</code> for a byte
+     * order mark and <code>TENTATIVE</code> otherwise, since the parser may
+     * still find a <code>meta</code> later in the document.
+     *
+     * @return the confidence
+     */
+    public Confidence getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Tells whether the encoding found by the last sniff came from a byte
+     * order mark or a <code>meta</code> rather than from heuristics or the
+     * default.
+     *
+     * @return <code>true</code> if the encoding was declared
+     */
+    public boolean isDeclared() {
+        return declared;
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import nu.validator.htmlparser.common.ByteReadable;
+import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.extra.ChardetSniffer;
+import nu.validator.htmlparser.extra.IcuDetectorSniffer;
+import nu.validator.htmlparser.extra.StatisticalSniffer;
+import nu.validator.htmlparser.impl.Tokenizer;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * The counterpart of <code>HtmlInputStreamReader</code> for input that is
+ * all in memory already, such as a mapped file. The sniffers read straight
+ * from the buffer, and the decoder reads from it in large slices. Starting
+ * over in another encoding only takes a new instance over the same
+ * buffer.
+ * 
+ * Like <code>HtmlInputStreamReader</code>, this is only the minimal
+ * <code>Reader</code> that <code>Driver</code> needs.
+ */
+public final class HtmlByteBufferReader extends Reader implements
+        ByteReadable, Locator {
+
+    private static final int SNIFFING_LIMIT = 1024;
+
+    private static final int SLICE_LENGTH = 8192;
+
+    /**
+     * The document as given, which is not moved.
+     */
+    private final ByteBuffer document;
+
+    private final ByteBuffer bytes;
+
+    /**
+     * What the decoder reads from: <code>bytes</code> itself if it is backed
+     * by an array, otherwise <code>slice</code>.
+     */
+    private ByteBuffer in;
+
+    /**
+     * The bytes of a direct buffer, such as a mapping, are copied here a
+     * slice at a time, since the JDK decoders go byte by byte through
+     * buffers that are not backed by an array.
+     */
+    private ByteBuffer slice;
+
+    private final int end;
+
+    private final ErrorHandler errorHandler;
+
+    private final Tokenizer tokenizer;
+
+    private final Driver driver;
+
+    private CharsetDecoder decoder;
+
+    private boolean sniffing;
+
+    private int sniffPosition;
+
+    private int sniffEnd;
+
+    private boolean charsetBoundaryPassed = false;
+
+    private boolean needToNotifyTokenizer = false;
+
+    private boolean eofSeen = false;
+
+    private boolean hasPendingReplacementCharacter = false;
+
+    private int line = -1;
+
+    private int col = -1;
+
+    private int lineColPos;
+
+    private boolean nextCharOnNewLine;
+
+    private boolean prevWasCR;
+
+    /**
+     * Sniffs the encoding of the bytes from the position to the limit of
+     * <code>buffer</code>. The buffer itself is not moved.
+     */
+    public HtmlByteBufferReader(ByteBuffer buffer, ErrorHandler errorHandler,
+            Tokenizer tokenizer, Driver driver, Heuristics heuristics)
+            throws SAXException, IOException {
+        this.document = buffer.duplicate();
+        this.bytes = buffer.duplicate();
+        this.end = bytes.limit();
+        this.errorHandler = errorHandler;
+        this.tokenizer = tokenizer;
+        this.driver = driver;
+        this.sniffing = true;
+        this.sniffEnd = Math.min(end, bytes.position() + SNIFFING_LIMIT);
+        this.sniffPosition = bytes.position();
+        Encoding encoding = (new BomSniffer(this)).sniff();
+        if (encoding == null) {
+            sniffPosition = bytes.position();
+            encoding = (new MetaSniffer(errorHandler, this)).sniff(this);
+            boolean declared = true;
+            if (encoding == null) {
+                declared = false;
+            } else if (encoding != Encoding.UTF8) {
+                err("Legacy encoding \u201C"
+                        + encoding.getCanonName()
+                        + "\u201D used. Documents must use UTF-8.");
+            }
+            if (encoding == null
+                    && (heuristics == Heuristics.CHARDET || heuristics == Heuristics.ALL)) {
+                byte[] head = new byte[sniffEnd - bytes.position()];
+                bytes.duplicate().get(head);
+                encoding = (new ChardetSniffer(head, head.length)).sniff();
+            }
+            if (encoding == null
+                    && (heuristics == Heuristics.ICU || heuristics == Heuristics.ALL)) {
+                sniffPosition = bytes.position();
+                encoding = (new IcuDetectorSniffer(this)).sniff();
+            }
+            if (encoding == null && heuristics == Heuristics.STATISTICAL) {
+                sniffPosition = bytes.position();
+                encoding = (new StatisticalSniffer()).sniff(this);
+            }
+            sniffing = false;
+            if (encoding == null) {
+                encoding = Encoding.WINDOWS1252;
+            }
+            if (!declared) {
+                err("The character encoding was not declared. Proceeding using \u201C" + encoding.getCanonName() + "\u201D.");
+            }
+            if (driver != null) {
+                driver.setEncoding(encoding, Confidence.TENTATIVE);
+            }
+        } else {
+            if (encoding == Encoding.UTF8) {
+                if (driver != null) {
+                    driver.setEncoding(Encoding.UTF8, Confidence.CERTAIN);
+                }
+            } else {
+                err("Legacy encoding \u201C"
+                        + encoding.getCanonName()
+                        + "\u201D used. Documents must use UTF-8.");
+                if (driver != null) {
+                    driver.setEncoding(Encoding.UTF16, Confidence.CERTAIN);
+                }
+            }
+        }
+        sniffing = false;
+        initDecoder(encoding, bytes.position() + SNIFFING_LIMIT);
+    }
+
+    /**
+     * Decodes the bytes from the position to the limit of
+     * <code>buffer</code> in a known encoding. The buffer itself is not
+     * moved.
+     */
+    public HtmlByteBufferReader(ByteBuffer buffer, ErrorHandler errorHandler,
+            Tokenizer tokenizer, Driver driver, Encoding encoding) {
+        this(buffer, errorHandler, tokenizer, driver, encoding, 0);
+    }
+
+    /**
+     * Decodes a document from which the first <code>offset</code> bytes
+     * have already been decoded.
+     */
+    private HtmlByteBufferReader(ByteBuffer buffer, ErrorHandler errorHandler,
+            Tokenizer tokenizer, Driver driver, Encoding encoding, int offset) {
+        this.document = buffer.duplicate();
+        this.bytes = buffer.duplicate();
+        this.end = bytes.limit();
+        this.errorHandler = errorHandler;
+        this.tokenizer = tokenizer;
+        this.driver = driver;
+        this.sniffing = false;
+        int boundary = bytes.position() + SNIFFING_LIMIT;
+        ((Buffer) bytes).position(bytes.position() + offset);
+        initDecoder(encoding, boundary);
+    }
+
+    /**
+     * Returns whether the first <code>length</code> bytes of the document
+     * are all ASCII.
+     */
+    boolean isAscii(int length) {
+        int start = document.position();
+        for (int i = start; i < start + length && i < end; i++) {
+            if (document.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a reader that decodes the rest of the document from
+     * <code>offset</code> in another encoding.
+     */
+    HtmlByteBufferReader continueAt(Encoding encoding, int offset) {
+        return new HtmlByteBufferReader(document, errorHandler, tokenizer,
+                driver, encoding, offset);
+    }
+
+    /**
+     * Sets up decoding from the position of <code>bytes</code>, stopping
+     * once at <code>boundary</code> unless it has been passed already.
+     */
+    private void initDecoder(Encoding encoding, int boundary) {
+        this.decoder = encoding.newDecoder();
+        this.decoder.onMalformedInput(CodingErrorAction.REPORT);
+        this.decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
+        if (bytes.hasArray()) {
+            in = bytes;
+        } else {
+            slice = ByteBuffer.allocate(SLICE_LENGTH);
+            ((Buffer) slice).limit(0);
+            in = slice;
+        }
+        if (bytes.position() < boundary && end >= boundary) {
+            // Stop at the boundary once so that the tokenizer can be told
+            // when it has been passed.
+            ((Buffer) bytes).limit(boundary);
+        } else {
+            charsetBoundaryPassed = true;
+        }
+    }
+
+    @Override public void close() throws IOException {
+        // Nothing to release. A mapping goes away with the buffer.
+    }
+
+    @Override public int read(char[] charArray) throws IOException {
+        lineColPos = 0;
+        assert !sniffing;
+        assert charArray.length >= 2;
+        if (needToNotifyTokenizer) {
+            if (driver != null) {
+                driver.notifyAboutMetaBoundary();
+            }
+            needToNotifyTokenizer = false;
+        }
+        if (eofSeen) {
+            return -1;
+        }
+        CharBuffer charBuffer = CharBuffer.wrap(charArray);
+        if (hasPendingReplacementCharacter) {
+            charBuffer.put('\uFFFD');
+            hasPendingReplacementCharacter = false;
+        }
+        for (;;) {
+            CoderResult cr = decoder.decode(in, charBuffer,
+                    charsetBoundaryPassed
+                            && (slice == null || !bytes.hasRemaining()));
+            if (cr == CoderResult.OVERFLOW) {
+                // Decoder will remember surrogates
+                return charBuffer.position();
+            } else if (cr == CoderResult.UNDERFLOW) {
+                if (fillSlice()) {
+                    continue;
+                }
+                if (!charsetBoundaryPassed) {
+                    // An incomplete byte sequence at the boundary stays in
+                    // the buffer and is decoded with what follows.
+                    charsetBoundaryPassed = true;
+                    needToNotifyTokenizer = true;
+                    ((Buffer) bytes).limit(end);
+                    if (charBuffer.position() > 0) {
+                        return charBuffer.position();
+                    }
+                    continue;
+                }
+                if (decoder.flush(charBuffer) == CoderResult.OVERFLOW) {
+                    return charBuffer.position();
+                }
+                eofSeen = true;
+                int cPos = charBuffer.position();
+                return cPos == 0 ? -1 : cPos;
+            } else {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < cr.length(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append('\u201C');
+                    sb.append(Integer.toHexString(in.get() & 0xFF));
+                    sb.append('\u201D');
+                }
+                if (charBuffer.hasRemaining()) {
+                    charBuffer.put('\uFFFD');
+                } else {
+                    hasPendingReplacementCharacter = true;
+                }
+                calculateLineAndCol(charBuffer);
+                if (cr.isMalformed()) {
+                    err("Malformed byte sequence: " + sb + ".");
+                } else {
+                    err("Unmappable byte sequence: " + sb + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the next slice of <code>bytes</code> after what is left in
+     * <code>slice</code>.
+     * 
+     * @return <code>false</code> if there was nothing to move
+     */
+    private boolean fillSlice() {
+        if (slice == null || !bytes.hasRemaining()) {
+            return false;
+        }
+        slice.compact();
+        int len = Math.min(slice.remaining(), bytes.remaining());
+        int oldLimit = bytes.limit();
+        ((Buffer) bytes).limit(bytes.position() + len);
+        slice.put(bytes);
+        ((Buffer) bytes).limit(oldLimit);
+        ((Buffer) slice).flip();
+        return true;
+    }
+
+    private void calculateLineAndCol(CharBuffer charBuffer) {
+        if (tokenizer != null) {
+            if (lineColPos == 0) {
+                line = tokenizer.getLine();
+                col = tokenizer.getCol();
+                nextCharOnNewLine = tokenizer.isNextCharOnNewLine();
+                prevWasCR = tokenizer.isPrevCR();
+            }
+
+            char[] charArray = charBuffer.array();
+            int i = lineColPos;
+            while (i < charBuffer.position()) {
+                char c;
+                if (nextCharOnNewLine) {
+                    line++;
+                    col = 1;
+                    nextCharOnNewLine = false;
+                } else {
+                    col++;
+                }
+
+                c = charArray[i];
+                switch (c) {
+                    case '\r':
+                        nextCharOnNewLine = true;
+                        prevWasCR = true;
+                        break;
+                    case '\n':
+                        if (prevWasCR) {
+                            col--;
+                        } else {
+                            nextCharOnNewLine = true;
+                        }
+                        break;
+                }
+                i++;
+            }
+            lineColPos = i;
+        }
+    }
+
+    public int readByte() throws IOException {
+        if (!sniffing) {
+            throw new IllegalStateException(
+                    "readByte() called when not in the sniffing state.");
+        }
+        if (sniffPosition == sniffEnd) {
+            return -1;
+        }
+        return bytes.get(sniffPosition++) & 0xFF;
+    }
+
+    public int getColumnNumber() {
+        if (tokenizer != null) {
+            return col;
+        }
+        return -1;
+    }
+
+    public int getLineNumber() {
+        if (tokenizer != null) {
+            return line;
+        }
+        return -1;
+    }
+
+    public String getPublicId() {
+        if (tokenizer != null) {
+            return tokenizer.getPublicId();
+        }
+        return null;
+    }
+
+    public String getSystemId() {
+        if (tokenizer != null) {
+            return tokenizer.getSystemId();
+        }
+        return null;
+    }
+
+    private void err(String message) throws IOException {
+        try {
+            if (errorHandler != null) {
+                SAXParseException spe = new SAXParseException(message, this);
+                errorHandler.error(spe);
+            }
+        } catch (SAXException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        }
+    }
+
+    /**
+     * @see java.io.Reader#read()
+     */
+    @Override public int read() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override public int read(char[] cbuf, int off, int len) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -33,12 +33,15 @@ import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
 
 import nu.validator.htmlparser.common.ByteReadable;
 import nu.validator.htmlparser.common.Heuristics;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
 import nu.validator.htmlparser.extra.ChardetSniffer;
 import nu.validator.htmlparser.extra.IcuDetectorSniffer;
+import nu.validator.htmlparser.extra.StatisticalSniffer;
 import nu.validator.htmlparser.impl.Tokenizer;
 
 import org.xml.sax.ErrorHandler;
@@ -97,6 +100,12 @@ public final class HtmlInputStreamReader extends Reader implements
 
     private boolean flushing = false;
 
+    /**
+     * The stream offset of the first non-ASCII or malformed byte decoded or
+     * -1 if every byte decoded so far was ASCII.
+     */
+    private int nonAsciiOffset = -1;
+
     private int line = -1;
 
     private int col = -1;
@@ -109,6 +118,34 @@ public final class HtmlInputStreamReader extends Reader implements
 
     private boolean prevWasCR;
 
+    /**
+     * Whether decoding errors and the meta boundary are recorded for
+     * <code>deliverDeferredReports()</code> instead of reported right away.
+     */
+    private boolean deferringReports = false;
+
+    private List<DeferredReport> deferredReports = null;
+
+    /**
+     * A decoding error recorded while decoding ahead of the tokenizer.
+     */
+    static final class DeferredReport {
+        /**
+         * The message or <code>null</code> for the meta boundary.
+         */
+        final String message;
+
+        /**
+         * The number of chars of the read the error comes after.
+         */
+        final int position;
+
+        DeferredReport(String message, int position) {
+            this.message = message;
+            this.position = position;
+        }
+    }
+
     /**
      * @param inputStream
      * @param errorHandler
@@ -145,6 +182,10 @@ public final class HtmlInputStreamReader extends Reader implements
                 position = 0;
                 encoding = (new IcuDetectorSniffer(this)).sniff();
             }
+            if (encoding == null && heuristics == Heuristics.STATISTICAL) {
+                position = 0;
+                encoding = (new StatisticalSniffer()).sniff(this);
+            }
             sniffing = false;
             if (encoding == null) {
                 encoding = Encoding.WINDOWS1252;
@@ -189,6 +230,17 @@ public final class HtmlInputStreamReader extends Reader implements
     public HtmlInputStreamReader(InputStream inputStream,
             ErrorHandler errorHandler, Tokenizer tokenizer, Driver driver,
             Encoding encoding) throws SAXException, IOException {
+        this(inputStream, errorHandler, tokenizer, driver, encoding, 0);
+    }
+
+    /**
+     * Reads a stream from which the first <code>streamOffset</code> bytes
+     * have already been read and decoded.
+     */
+    HtmlInputStreamReader(InputStream inputStream,
+            ErrorHandler errorHandler, Tokenizer tokenizer, Driver driver,
+            Encoding encoding, int streamOffset) throws SAXException,
+            IOException {
         this.inputStream = inputStream;
         this.errorHandler = errorHandler;
         this.tokenizer = tokenizer;
@@ -196,7 +248,8 @@ public final class HtmlInputStreamReader extends Reader implements
         this.decoder = encoding.newDecoder();
         this.sniffing = false;
         position = 0;
-        bytesRead = 0;
+        bytesRead = streamOffset;
+        charsetBoundaryPassed = streamOffset >= SNIFFING_LIMIT;
         ((Buffer) byteBuffer).position(0);
         ((Buffer) byteBuffer).limit(0);
         shouldReadBytes = true;
@@ -208,14 +261,21 @@ public final class HtmlInputStreamReader extends Reader implements
     }
 
     @Override public int read(char[] charArray) throws IOException {
-        lineColPos = 0;
         assert !sniffing;
         assert charArray.length >= 2;
-        if (needToNotifyTokenizer) {
-            if (driver != null) {
-                driver.notifyAboutMetaBoundary();
+        if (deferringReports) {
+            if (needToNotifyTokenizer) {
+                defer(null, 0);
+                needToNotifyTokenizer = false;
+            }
+        } else {
+            lineColPos = 0;
+            if (needToNotifyTokenizer) {
+                if (driver != null) {
+                    driver.notifyAboutMetaBoundary();
+                }
+                needToNotifyTokenizer = false;
             }
-            needToNotifyTokenizer = false;
         }
         CharBuffer charBuffer = CharBuffer.wrap(charArray);
         ((Buffer) charBuffer).limit(charArray.length);
@@ -254,7 +314,16 @@ public final class HtmlInputStreamReader extends Reader implements
                 int oldBytePos = ((Buffer) byteBuffer).position();
                 CoderResult cr = decoder.decode(byteBuffer, charBuffer,
                         finalDecode);
-                bytesRead += ((Buffer) byteBuffer).position() - oldBytePos;
+                int newBytePos = ((Buffer) byteBuffer).position();
+                if (nonAsciiOffset == -1) {
+                    for (int i = oldBytePos; i < newBytePos; i++) {
+                        if (byteArray[i] < 0) {
+                            nonAsciiOffset = bytesRead + i - oldBytePos;
+                            break;
+                        }
+                    }
+                }
+                bytesRead += newBytePos - oldBytePos;
                 if (cr == CoderResult.OVERFLOW) {
                     // Decoder will remember surrogates
                     return charBuffer.position();
@@ -307,6 +376,9 @@ public final class HtmlInputStreamReader extends Reader implements
                     }
                 } else {
                     // The result is in error. No need to test.
+                    if (nonAsciiOffset == -1) {
+                        nonAsciiOffset = bytesRead;
+                    }
                     StringBuilder sb = new StringBuilder();
                     for (int i = 0; i < cr.length(); i++) {
                         if (i > 0) {
@@ -322,15 +394,21 @@ public final class HtmlInputStreamReader extends Reader implements
                     } else {
                         hasPendingReplacementCharacter = true;
                     }
-                    calculateLineAndCol(charBuffer);
+                    String message;
                     if (cr.isMalformed()) {
-                        err("Malformed byte sequence: " + sb + ".");
+                        message = "Malformed byte sequence: " + sb + ".";
                     } else if (cr.isUnmappable()) {
-                        err("Unmappable byte sequence: " + sb + ".");
+                        message = "Unmappable byte sequence: " + sb + ".";
                     } else {
                         throw new RuntimeException(
                                 "CoderResult was none of overflow, underflow, malformed or unmappable.");
                     }
+                    if (deferringReports) {
+                        defer(message, charBuffer.position());
+                    } else {
+                        calculateLineAndCol(charBuffer);
+                        err(message);
+                    }
                     if (finalDecode) {
                         // These were the last bytes of input. Return without
                         // relooping.
@@ -343,6 +421,67 @@ public final class HtmlInputStreamReader extends Reader implements
         }
     }
 
+    private void defer(String message, int position) {
+        if (deferredReports == null) {
+            deferredReports = new ArrayList<DeferredReport>();
+        }
+        deferredReports.add(new DeferredReport(message, position));
+    }
+
+    /**
+     * Sets whether decoding errors and the meta boundary are recorded
+     * instead of reported. While recording, <code>read()</code> does not
+     * touch the tokenizer, the driver or the error handler, so it may run
+     * on another thread than the tokenizer.
+     * 
+     * @param deferringReports
+     *            whether to record reports
+     */
+    void setDeferringReports(boolean deferringReports) {
+        this.deferringReports = deferringReports;
+    }
+
+    /**
+     * Returns the reports recorded by the last <code>read()</code> and
+     * forgets them.
+     * 
+     * @return the reports or <code>null</code> if there were none
+     */
+    List<DeferredReport> takeDeferredReports() {
+        List<DeferredReport> reports = deferredReports;
+        deferredReports = null;
+        return reports;
+    }
+
+    /**
+     * Reports what a <code>read()</code> recorded. This has to be called
+     * just before the tokenizer gets the chars of that read, which is when
+     * <code>read()</code> would have reported them when not recording.
+     * 
+     * @param reports
+     *            the reports from <code>takeDeferredReports()</code>
+     * @param charArray
+     *            the chars of the read
+     * @throws IOException
+     *             if the error handler threw
+     */
+    void deliverDeferredReports(List<DeferredReport> reports,
+            char[] charArray) throws IOException {
+        lineColPos = 0;
+        CharBuffer charBuffer = CharBuffer.wrap(charArray);
+        for (DeferredReport report : reports) {
+            if (report.message == null) {
+                if (driver != null) {
+                    driver.notifyAboutMetaBoundary();
+                }
+            } else {
+                ((Buffer) charBuffer).position(report.position);
+                calculateLineAndCol(charBuffer);
+                err(report.message);
+            }
+        }
+    }
+
     private void calculateLineAndCol(CharBuffer charBuffer) {
         if (tokenizer != null) {
             if (lineColPos == 0) {
@@ -510,4 +649,38 @@ public final class HtmlInputStreamReader extends Reader implements
         this.decoder = newEnc.newDecoder();
         initDecoder();
     }
+
+    /**
+     * Switches to another encoding without going back in the stream. This
+     * is only possible if every byte decoded so far was ASCII and the new
+     * encoding decodes ASCII bytes as ASCII, since then the characters
+     * already read would have been the same in the new encoding.
+     * 
+     * @param newEnc
+     *            the new encoding
+     * @return <code>true</code> if the encoding was switched and
+     *         <code>false</code> if the input needs to be read again
+     */
+    boolean switchEncodingInPlace(Encoding newEnc) {
+        if (nonAsciiOffset != -1 || !newEnc.decodesAsciiAsAscii()) {
+            return false;
+        }
+        switchEncoding(newEnc);
+        if (flushing) {
+            // The input has run out, so flush() is the next call. Put the
+            // new decoder in the state it expects.
+            decoder.decode(byteBuffer, CharBuffer.allocate(0), true);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the stream offset of the first byte decoded so far that was
+     * not ASCII. Up to that offset, each char read came from one byte.
+     * 
+     * @return the offset or -1 if every byte decoded so far was ASCII
+     */
+    int getNonAsciiOffset() {
+        return nonAsciiOffset;
+    }
 }
@@ -84,7 +84,7 @@ public class MetaSniffer extends MetaScanner implements Locator {
     }
 
     /**
-     * Main loop.
+     * Main loop. May be called again to sniff another document.
      * 
      * @return
      * 
@@ -93,7 +93,12 @@ public class MetaSniffer extends MetaScanner implements Locator {
      * @throws
      */
     public Encoding sniff(ByteReadable readable) throws SAXException, IOException {
+        reset();
         this.readable = readable;
+        this.characterEncoding = null;
+        this.line = 1;
+        this.col = 0;
+        this.prevWasCR = false;
         stateLoop(stateSave);
         return characterEncoding;
     }
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Runs an <code>HtmlInputStreamReader</code> on a thread of its own, so
+ * that decoding overlaps with tokenizing. The decoding thread fills the
+ * chunks of a ring and the tokenizing thread empties them in the same
+ * order. Each chunk is exactly what one <code>read()</code> of the
+ * underlying reader returned, and the errors of that read are reported
+ * when the chunk is handed out, so the tokenizer sees the same reads and
+ * errors as without the thread.
+ *
+ * <code>stop()</code> ends the decoding thread. The chunks already decoded
+ * are still handed out, and after them the underlying reader is read
+ * directly. <code>Driver</code> stops the thread before touching the
+ * decoder or the stream because of an encoding declaration.
+ *
+ * Like <code>HtmlInputStreamReader</code>, this is only the minimal
+ * <code>Reader</code> that <code>Driver</code> needs.
+ */
+final class PipelinedReader extends Reader implements Runnable {
+
+    private static final int RING_LENGTH = 8;
+
+    private static final class Chunk {
+        final char[] chars;
+
+        int length;
+
+        List<HtmlInputStreamReader.DeferredReport> reports;
+
+        Throwable throwable;
+
+        Chunk(int chunkLength) {
+            chars = new char[chunkLength];
+        }
+    }
+
+    private final HtmlInputStreamReader source;
+
+    private final Chunk[] ring = new Chunk[RING_LENGTH];
+
+    /**
+     * The number of chunks filled. Guarded by <code>this</code>.
+     */
+    private long filled = 0;
+
+    /**
+     * The number of chunks handed out. Guarded by <code>this</code>.
+     */
+    private long emptied = 0;
+
+    /**
+     * Guarded by <code>this</code>.
+     */
+    private boolean stopping = false;
+
+    /**
+     * Whether the decoding thread has ended. Guarded by <code>this</code>.
+     */
+    private boolean decoderDone = false;
+
+    /**
+     * Starts decoding <code>source</code> on a new thread.
+     *
+     * @param source
+     *            the reader to decode with
+     * @param chunkLength
+     *            the length of the arrays <code>read()</code> will be
+     *            called with
+     */
+    PipelinedReader(HtmlInputStreamReader source, int chunkLength) {
+        this.source = source;
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Chunk(chunkLength);
+        }
+        source.setDeferringReports(true);
+        Thread thread = new Thread(this, "HTML decoder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The loop of the decoding thread.
+     *
+     * @see java.lang.Runnable#run()
+     */
+    public void run() {
+        try {
+            for (;;) {
+                Chunk chunk;
+                synchronized (this) {
+                    while (!stopping && filled - emptied == ring.length) {
+                        wait();
+                    }
+                    if (stopping) {
+                        return;
+                    }
+                    chunk = ring[(int) (filled % ring.length)];
+                }
+                boolean last;
+                try {
+                    chunk.length = source.read(chunk.chars);
+                    chunk.reports = source.takeDeferredReports();
+                    last = chunk.length == -1;
+                } catch (Throwable t) {
+                    chunk.throwable = t;
+                    last = true;
+                }
+                synchronized (this) {
+                    filled++;
+                    notifyAll();
+                }
+                if (last) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // end decoding
+        } finally {
+            synchronized (this) {
+                decoderDone = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns the reader that does the decoding.
+     *
+     * @return the underlying reader
+     */
+    HtmlInputStreamReader getSource() {
+        return source;
+    }
+
+    /**
+     * Ends the decoding thread and waits for it to finish the chunk it is
+     * decoding.
+     */
+    void stop() {
+        boolean interrupted = false;
+        synchronized (this) {
+            stopping = true;
+            notifyAll();
+            while (!decoderDone) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        source.setDeferringReports(false);
+    }
+
+    @Override public int read(char[] charArray) throws IOException {
+        Chunk chunk;
+        synchronized (this) {
+            while (emptied == filled && !decoderDone) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted while waiting for the decoder.");
+                }
+            }
+            if (emptied == filled) {
+                chunk = null;
+            } else {
+                chunk = ring[(int) (emptied % ring.length)];
+            }
+        }
+        if (chunk == null) {
+            if (stopping) {
+                return source.read(charArray);
+            }
+            // The decoder ended with end of input or an error, which is in
+            // the last chunk handed out.
+            return -1;
+        }
+        Throwable t = chunk.throwable;
+        chunk.throwable = null;
+        int length = chunk.length;
+        if (length > 0) {
+            System.arraycopy(chunk.chars, 0, charArray, 0, length);
+        }
+        List<HtmlInputStreamReader.DeferredReport> reports = chunk.reports;
+        chunk.reports = null;
+        synchronized (this) {
+            emptied++;
+            notifyAll();
+        }
+        if (t != null) {
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new RuntimeException(t);
+        }
+        if (reports != null) {
+            source.deliverDeferredReports(reports, charArray);
+        }
+        return length;
+    }
+
+    @Override public void close() throws IOException {
+        stop();
+        source.close();
+    }
+
+    /**
+     * @see java.io.Reader#read()
+     */
+    @Override public int read() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see java.io.Reader#read(char[], int, int)
+     */
+    @Override public int read(char[] cbuf, int off, int len)
+            throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.pull;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * A queued event. Slots are reused from one event to the next, so the
+ * arrays in here only ever grow.
+ */
+final class Event {
+
+    int type;
+
+    String uri;
+
+    String localName;
+
+    final AttributesImpl attributes = new AttributesImpl();
+
+    char[] text = new char[64];
+
+    int textLength;
+
+    void setElement(int type, String uri, String localName) {
+        this.type = type;
+        this.uri = uri;
+        this.localName = localName;
+        attributes.clear();
+        textLength = 0;
+    }
+
+    void setText(int type, char[] buf, int start, int length) {
+        this.type = type;
+        uri = null;
+        localName = null;
+        attributes.clear();
+        textLength = 0;
+        appendText(buf, start, length);
+    }
+
+    void appendText(char[] buf, int start, int length) {
+        int newLength = textLength + length;
+        if (newLength > text.length) {
+            char[] newText = new char[Math.max(newLength, text.length << 1)];
+            System.arraycopy(text, 0, newText, 0, textLength);
+            text = newText;
+        }
+        System.arraycopy(buf, start, text, textLength, length);
+        textLength = newLength;
+    }
+
+    void copyAttributes(Attributes atts) {
+        for (int i = 0; i < atts.getLength(); i++) {
+            attributes.addAttribute(atts.getURI(i), atts.getLocalName(i),
+                    atts.getQName(i), atts.getType(i), atts.getValue(i));
+        }
+    }
+}
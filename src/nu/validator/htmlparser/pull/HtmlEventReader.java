@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.pull;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.impl.ErrorReportingTokenizer;
+import nu.validator.htmlparser.impl.Tokenizer;
+import nu.validator.htmlparser.io.Driver;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * An HTML5 parser that hands out the document one event at a time. The
+ * tokenizer runs only as far as needed to produce the next event, so a
+ * caller can stop early or interleave several documents on one thread.
+ * 
+ * <p>The reader itself is the view of the current event, in the spirit of
+ * StAX's <code>XMLStreamReader</code>: the getters describe the event
+ * returned by the last call to <code>next()</code> and are only valid until
+ * the next call. The events are reused, so reading a document does not
+ * allocate per event.
+ * 
+ * <p>Like the streaming mode of <code>HtmlParser</code>, this parser cannot
+ * go back to earlier nodes. Input that would need it (for example content
+ * foster-parented out of a table) makes <code>next()</code> throw.
+ * 
+ * <p>Instances can be reused for any number of documents, but only by one
+ * thread at a time.
+ */
+public class HtmlEventReader {
+
+    /**
+     * The start of an element.
+     */
+    public static final int START_ELEMENT = 1;
+
+    /**
+     * The end of an element.
+     */
+    public static final int END_ELEMENT = 2;
+
+    /**
+     * Text. A run of text may be split across several events.
+     */
+    public static final int CHARACTERS = 4;
+
+    /**
+     * A comment.
+     */
+    public static final int COMMENT = 5;
+
+    /**
+     * The end of the document. Always the last event.
+     */
+    public static final int END_DOCUMENT = 8;
+
+    private Driver driver = null;
+
+    private PullTreeBuilder treeBuilder = null;
+
+    private ErrorHandler errorHandler = null;
+
+    private boolean scriptingEnabled = false;
+
+    private boolean ignoringComments = false;
+
+    /**
+     * The queued events. Slots up to <code>queueLength</code> are in use.
+     */
+    private Event[] queue = new Event[8];
+
+    private int queueLength = 0;
+
+    /**
+     * The index of the current event in <code>queue</code>.
+     */
+    private int current = -1;
+
+    /**
+     * Whether the input is open.
+     */
+    private boolean open = false;
+
+    /**
+     * Whether <code>END_DOCUMENT</code> has been returned.
+     */
+    private boolean done = true;
+
+    /**
+     * The exception that stopped the tokenizer while it was queueing
+     * events. It is thrown once those events have been handed out.
+     */
+    private Exception failure = null;
+
+    /**
+     * Whether the input is being closed after a failure. Events queued
+     * meanwhile are dropped.
+     */
+    private boolean aborting = false;
+
+    /**
+     * The slot handed to the tree builder while aborting.
+     */
+    private final Event discarded = new Event();
+
+    /**
+     * Instantiates the reader.
+     */
+    public HtmlEventReader() {
+        super();
+    }
+
+    private void lazyInit() {
+        if (driver == null) {
+            treeBuilder = new PullTreeBuilder(this);
+            Tokenizer tokenizer = errorHandler == null ? new Tokenizer(
+                    treeBuilder, false) : new ErrorReportingTokenizer(
+                    treeBuilder, false);
+            driver = new Driver(tokenizer);
+            driver.setErrorHandler(errorHandler);
+            driver.setCommentPolicy(XmlViolationPolicy.ALLOW);
+            driver.setContentNonXmlCharPolicy(XmlViolationPolicy.ALLOW);
+            driver.setContentSpacePolicy(XmlViolationPolicy.ALLOW);
+            driver.setNamePolicy(XmlViolationPolicy.ALLOW);
+            driver.setXmlnsPolicy(XmlViolationPolicy.ALLOW);
+            treeBuilder.setErrorHandler(errorHandler);
+            treeBuilder.setScriptingEnabled(scriptingEnabled);
+            treeBuilder.setIgnoringComments(ignoringComments);
+            treeBuilder.setNamePolicy(XmlViolationPolicy.ALLOW);
+        }
+    }
+
+    /**
+     * Starts reading a document. A document that was still open is closed
+     * first.
+     * 
+     * @param is
+     *            the input source
+     * @throws SAXException
+     *             if the encoding declaration or the start of the document
+     *             could not be handled
+     * @throws IOException
+     *             if the stream threw
+     */
+    public void open(InputSource is) throws SAXException, IOException {
+        close();
+        lazyInit();
+        queueLength = 0;
+        current = -1;
+        done = false;
+        driver.startTokenizing(is);
+        open = true;
+    }
+
+    /**
+     * Whether <code>next()</code> has another event to return.
+     * 
+     * @return <code>false</code> after <code>END_DOCUMENT</code> or when no
+     *         document is open
+     */
+    public boolean hasNext() {
+        return !done;
+    }
+
+    /**
+     * Advances to the next event.
+     * 
+     * @return the type of the event
+     * @throws SAXException
+     *             on a fatal error or if the error handler threw; the
+     *             document is closed. The events queued before the error
+     *             are returned first.
+     * @throws IOException
+     *             if the stream threw; the document is closed. The events
+     *             queued before the error are returned first.
+     */
+    public int next() throws SAXException, IOException {
+        if (done) {
+            throw new NoSuchElementException();
+        }
+        if (current + 1 == queueLength) {
+            queueLength = 0;
+            current = -1;
+            if (failure == null) {
+                fill();
+            }
+            if (queueLength == 0) {
+                throwFailure();
+            }
+        }
+        current++;
+        int type = queue[current].type;
+        if (type == END_DOCUMENT) {
+            done = true;
+        }
+        return type;
+    }
+
+    /**
+     * Runs the tokenizer until at least one event has been queued. If the
+     * tokenizer throws, the document is closed and the exception is kept
+     * for <code>next()</code> to throw after the events queued so far.
+     */
+    private void fill() throws SAXException, IOException {
+        boolean ok = false;
+        try {
+            while (queueLength == 0) {
+                if (!open) {
+                    throw new IllegalStateException(
+                            "The tree builder did not end the document.");
+                }
+                if (!driver.tokenizeMore()) {
+                    // Ending the tokenization ends the tree builder, which
+                    // queues END_DOCUMENT.
+                    endTokenizing();
+                }
+            }
+            ok = true;
+        } catch (SAXException e) {
+            failure = e;
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (!ok) {
+                abort();
+                done = failure == null;
+            }
+        }
+    }
+
+    private void throwFailure() throws SAXException, IOException {
+        Exception e = failure;
+        failure = null;
+        done = true;
+        if (e instanceof SAXException) {
+            throw (SAXException) e;
+        }
+        throw (IOException) e;
+    }
+
+    /**
+     * Stops reading the current document and closes its input. Does
+     * nothing if no document is open.
+     * 
+     * @throws SAXException
+     *             if the error handler threw
+     * @throws IOException
+     *             if the stream threw
+     */
+    public void close() throws SAXException, IOException {
+        done = true;
+        failure = null;
+        endTokenizing();
+    }
+
+    private void endTokenizing() throws SAXException, IOException {
+        if (open) {
+            open = false;
+            driver.endTokenizing();
+        }
+    }
+
+    private void abort() {
+        Exception e = failure;
+        aborting = true;
+        try {
+            close();
+        } catch (Throwable t) {
+            // drop the later throwable
+        } finally {
+            aborting = false;
+            failure = e;
+        }
+    }
+
+    /**
+     * Returns a slot at the end of the queue for the tree builder to fill.
+     */
+    Event queue() {
+        if (aborting) {
+            return discarded;
+        }
+        if (queueLength == queue.length) {
+            Event[] newQueue = new Event[queue.length << 1];
+            System.arraycopy(queue, 0, newQueue, 0, queue.length);
+            queue = newQueue;
+        }
+        Event event = queue[queueLength];
+        if (event == null) {
+            event = new Event();
+            queue[queueLength] = event;
+        }
+        queueLength++;
+        return event;
+    }
+
+    /**
+     * Returns the last queued event that has not been handed out yet or
+     * <code>null</code>.
+     */
+    Event lastQueued() {
+        if (aborting || queueLength == 0 || queueLength - 1 <= current) {
+            return null;
+        }
+        return queue[queueLength - 1];
+    }
+
+    private Event currentEvent() {
+        if (current < 0 || current >= queueLength) {
+            throw new IllegalStateException("No current event.");
+        }
+        return queue[current];
+    }
+
+    /**
+     * Returns the type of the current event.
+     * 
+     * @return the event type
+     */
+    public int getEventType() {
+        return currentEvent().type;
+    }
+
+    /**
+     * Returns the namespace URI of the current element event.
+     * 
+     * @return the namespace URI or <code>null</code> for other events
+     */
+    public String getNamespaceURI() {
+        return currentEvent().uri;
+    }
+
+    /**
+     * Returns the local name of the current element event.
+     * 
+     * @return the local name or <code>null</code> for other events
+     */
+    public String getLocalName() {
+        return currentEvent().localName;
+    }
+
+    /**
+     * Returns the attributes of the current event. The object is reused for
+     * later events.
+     * 
+     * @return the attributes; empty except for <code>START_ELEMENT</code>
+     */
+    public Attributes getAttributes() {
+        return currentEvent().attributes;
+    }
+
+    /**
+     * Returns the array holding the text of the current
+     * <code>CHARACTERS</code> or <code>COMMENT</code> event. The array is
+     * reused for later events.
+     * 
+     * @return the text array
+     * @see #getTextStart()
+     * @see #getTextLength()
+     */
+    public char[] getTextCharacters() {
+        return currentEvent().text;
+    }
+
+    /**
+     * Returns the start of the text in <code>getTextCharacters()</code>.
+     * 
+     * @return the start offset
+     */
+    public int getTextStart() {
+        return 0;
+    }
+
+    /**
+     * Returns the length of the text of the current event.
+     * 
+     * @return the text length; zero for element events
+     */
+    public int getTextLength() {
+        return currentEvent().textLength;
+    }
+
+    /**
+     * Returns the text of the current event as a new string.
+     * 
+     * @return the text
+     */
+    public String getText() {
+        Event event = currentEvent();
+        return new String(event.text, 0, event.textLength);
+    }
+
+    /**
+     * Sets the error handler.
+     * 
+     * @param errorHandler
+     *            the error handler
+     * @throws IllegalStateException
+     *             if a document is open
+     */
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        if (open) {
+            throw new IllegalStateException(
+                    "Cannot change the error handler while a document is open.");
+        }
+        this.errorHandler = errorHandler;
+        driver = null;
+    }
+
+    /**
+     * Sets the scripting flag, which affects how <code>noscript</code> is
+     * parsed.
+     * 
+     * @param scriptingEnabled
+     *            <code>true</code> if scripting is enabled
+     */
+    public void setScriptingEnabled(boolean scriptingEnabled) {
+        this.scriptingEnabled = scriptingEnabled;
+        if (treeBuilder != null) {
+            treeBuilder.setScriptingEnabled(scriptingEnabled);
+        }
+    }
+
+    /**
+     * Sets whether comments are skipped instead of reported.
+     * 
+     * @param ignoringComments
+     *            <code>true</code> to skip comments
+     */
+    public void setIgnoringComments(boolean ignoringComments) {
+        this.ignoringComments = ignoringComments;
+        if (treeBuilder != null) {
+            treeBuilder.setIgnoringComments(ignoringComments);
+        }
+    }
+}
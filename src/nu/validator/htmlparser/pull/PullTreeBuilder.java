@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.pull;
+
+import nu.validator.htmlparser.impl.HtmlAttributes;
+import nu.validator.htmlparser.impl.TreeBuilder;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * A streaming tree builder that queues events on an
+ * <code>HtmlEventReader</code> instead of calling a handler. Like the SAX
+ * streamer, it cannot go back to earlier nodes, so the tree building steps
+ * that would need to are fatal. After each element event it asks the
+ * tokenizer to suspend so that the reader gets control back.
+ */
+class PullTreeBuilder extends TreeBuilder<Attributes> {
+
+    private final HtmlEventReader reader;
+
+    PullTreeBuilder(HtmlEventReader reader) {
+        super();
+        this.reader = reader;
+    }
+
+    @Override
+    protected void elementPushed(String ns, String name, Attributes node)
+            throws SAXException {
+        Event event = reader.queue();
+        event.setElement(HtmlEventReader.START_ELEMENT, ns, name);
+        event.copyAttributes(node);
+        requestSuspension();
+    }
+
+    @Override
+    protected void elementPopped(String ns, String name, Attributes node)
+            throws SAXException {
+        reader.queue().setElement(
+                HtmlEventReader.END_ELEMENT, ns, name);
+        requestSuspension();
+    }
+
+    @Override
+    protected void appendCharacters(Attributes parent, char[] buf, int start,
+            int length) throws SAXException {
+        Event last = reader.lastQueued();
+        if (last != null && last.type == HtmlEventReader.CHARACTERS) {
+            last.appendText(buf, start, length);
+        } else {
+            reader.queue().setText(
+                    HtmlEventReader.CHARACTERS, buf, start, length);
+        }
+    }
+
+    @Override
+    protected void appendComment(Attributes parent, char[] buf, int start,
+            int length) throws SAXException {
+        appendCommentToDocument(buf, start, length);
+    }
+
+    @Override
+    protected void appendCommentToDocument(char[] buf, int start, int length)
+            throws SAXException {
+        reader.queue().setText(HtmlEventReader.COMMENT,
+                buf, start, length);
+    }
+
+    @Override
+    protected void end() throws SAXException {
+        reader.queue().setElement(
+                HtmlEventReader.END_DOCUMENT, null, null);
+    }
+
+    @Override
+    protected Attributes createElement(String ns, String name,
+            HtmlAttributes attributes, Attributes intendedParent)
+            throws SAXException {
+        return attributes;
+    }
+
+    @Override
+    protected Attributes createHtmlElementSetAsRoot(HtmlAttributes attributes)
+            throws SAXException {
+        return attributes;
+    }
+
+    @Override
+    protected void appendElement(Attributes child, Attributes newParent)
+            throws SAXException {
+    }
+
+    @Override
+    protected boolean hasChildren(Attributes element) throws SAXException {
+        return false;
+    }
+
+    @Override
+    protected void addAttributesToElement(Attributes element,
+            HtmlAttributes attributes) throws SAXException {
+        Attributes existingAttrs = element;
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String qName = attributes.getQNameNoBoundsCheck(i);
+            if (existingAttrs.getIndex(qName) < 0) {
+                fatal();
+            }
+        }
+    }
+
+    @Override
+    protected void detachFromParent(Attributes element) throws SAXException {
+        fatal();
+    }
+
+    @Override
+    protected void appendChildrenToNewParent(Attributes oldParent,
+            Attributes newParent) throws SAXException {
+        fatal();
+    }
+
+    @Override
+    protected Attributes createAndInsertFosterParentedElement(String ns,
+            String name, HtmlAttributes attributes, Attributes table,
+            Attributes stackParent) throws SAXException {
+        fatal();
+        throw new RuntimeException("Unreachable");
+    }
+
+    @Override
+    protected void insertFosterParentedCharacters(char[] buf, int start,
+            int length, Attributes table, Attributes stackParent)
+            throws SAXException {
+        fatal();
+    }
+
+    @Override
+    protected void insertFosterParentedChild(Attributes child,
+            Attributes table, Attributes stackParent) throws SAXException {
+        fatal();
+    }
+
+    @Override
+    protected void fatal() throws SAXException {
+        SAXParseException spe = new SAXParseException(
+                "Cannot recover after last error. Any further errors will be ignored.",
+                tokenizer);
+        if (errorHandler != null) {
+            errorHandler.fatalError(spe);
+        }
+        throw spe;
+    }
+}
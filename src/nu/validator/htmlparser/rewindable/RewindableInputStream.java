@@ -38,29 +38,61 @@ import java.io.InputStream;
 
 public class RewindableInputStream extends InputStream implements Rewindable {
     static class Block {
+        static final int SIZE = 4096;
+
+        private static final int MAX_POOLED = 64;
+
+        /**
+         * Blocks that parses have finished with, shared by all streams.
+         */
+        private static final Block[] pool = new Block[MAX_POOLED];
+
+        private static int pooled = 0;
+
         Block next;
 
-        final byte[] buf;
+        final byte[] buf = new byte[SIZE];
 
         int used = 0;
 
-        static final int MIN_SIZE = 1024;
-
-        Block(int minSize) {
-            buf = new byte[Math.max(MIN_SIZE, minSize)];
+        static Block obtain() {
+            synchronized (pool) {
+                if (pooled > 0) {
+                    Block b = pool[--pooled];
+                    pool[pooled] = null;
+                    return b;
+                }
+            }
+            return new Block();
         }
 
-        Block() {
-            this(0);
+        /**
+         * Returns a block and the ones after it up to, but not including,
+         * <code>end</code> to the pool.
+         */
+        static void recycle(Block b, Block end) {
+            synchronized (pool) {
+                while (b != end) {
+                    Block next = b.next;
+                    b.next = null;
+                    b.used = 0;
+                    if (pooled < MAX_POOLED) {
+                        pool[pooled++] = b;
+                    }
+                    b = next;
+                }
+            }
         }
 
         void append(byte b) {
             buf[used++] = b;
         }
 
-        void append(byte[] b, int off, int len) {
-            System.arraycopy(b, off, buf, used, len);
-            used += len;
+        int append(byte[] b, int off, int len) {
+            int n = Math.min(len, SIZE - used);
+            System.arraycopy(b, off, buf, used, n);
+            used += n;
+            return n;
         }
     }
 
@@ -79,10 +111,17 @@ public class RewindableInputStream extends InputStream implements Rewindable {
     private Block lastBlock;
 
     /**
-     * true unless willNotRewind has been called
+     * true unless willNotRewind has been called or the limit was exceeded
      */
     private boolean saving = true;
 
+    /**
+     * The number of bytes saved for rewinding
+     */
+    private int saved = 0;
+
+    private final int limit;
+
     private final InputStream in;
 
     private boolean pretendClosed = false;
@@ -93,9 +132,26 @@ public class RewindableInputStream extends InputStream implements Rewindable {
     private boolean eof;
 
     public RewindableInputStream(InputStream in) {
+        this(in, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Instantiates a stream that saves at most <code>limit</code> bytes for
+     * rewinding. Once more bytes have been read, the saved bytes are
+     * dropped and <code>canRewind()</code> returns <code>false</code>.
+     * 
+     * @param in
+     *            the underlying stream
+     * @param limit
+     *            the maximum number of bytes to save
+     */
+    public RewindableInputStream(InputStream in, int limit) {
         if (in == null)
             throw new NullPointerException();
+        if (limit < 0)
+            throw new IllegalArgumentException("Negative rewind limit.");
         this.in = in;
+        this.limit = limit;
     }
 
     public void close() throws IOException {
@@ -104,6 +160,9 @@ public class RewindableInputStream extends InputStream implements Rewindable {
             curBlock = null;
             pretendClosed = true;
         } else {
+            if (curBlock != null) {
+                Block.recycle(curBlock, null);
+            }
             head = null;
             curBlock = null;
             lastBlock = null;
@@ -115,7 +174,7 @@ public class RewindableInputStream extends InputStream implements Rewindable {
 
     public void rewind() {
         if (!saving)
-            throw new IllegalStateException("rewind() after willNotRewind()");
+            throw new IllegalStateException("rewind() after willNotRewind() or past the rewind limit");
         pretendClosed = false;
         if (head == null)
             return;
@@ -129,9 +188,9 @@ public class RewindableInputStream extends InputStream implements Rewindable {
     }
 
     public void willNotRewind() {
-        saving = false;
-        head = null;
-        lastBlock = null;
+        if (saving) {
+            stopSaving();
+        }
         if (pretendClosed) {
             pretendClosed = false;
             try {
@@ -141,25 +200,73 @@ public class RewindableInputStream extends InputStream implements Rewindable {
         }
     }
 
+    /**
+     * Drops the saved blocks except the ones still to be read again, which
+     * are recycled as they are finished.
+     */
+    private void stopSaving() {
+        saving = false;
+        if (head != null) {
+            Block.recycle(head, curBlockAvail > 0 ? curBlock : null);
+        }
+        head = null;
+        lastBlock = null;
+    }
+
+    private void nextBlock() {
+        Block done = curBlock;
+        curBlock = done.next;
+        if (!saving) {
+            done.next = null;
+            Block.recycle(done, null);
+        }
+        if (curBlock != null) {
+            curBlockPos = 0;
+            curBlockAvail = curBlock.used;
+        }
+    }
+
+    /**
+     * Saves bytes just read from the underlying stream unless doing so
+     * would exceed the limit.
+     */
+    private void save(byte[] b, int off, int len) {
+        if (len > limit - saved) {
+            stopSaving();
+            return;
+        }
+        saved += len;
+        while (len > 0) {
+            if (lastBlock == null)
+                lastBlock = head = Block.obtain();
+            else if (lastBlock.used == Block.SIZE)
+                lastBlock = lastBlock.next = Block.obtain();
+            int n = lastBlock.append(b, off, len);
+            off += n;
+            len -= n;
+        }
+    }
+
     public int read() throws IOException {
         if (curBlockAvail > 0) {
             int c = curBlock.buf[curBlockPos++] & 0xFF;
             --curBlockAvail;
             if (curBlockAvail == 0) {
-                curBlock = curBlock.next;
-                if (curBlock != null) {
-                    curBlockPos = 0;
-                    curBlockAvail = curBlock.used;
-                }
+                nextBlock();
             }
             return c;
         }
         int c = in.read();
         if (saving && c != -1) {
+            if (saved == limit) {
+                stopSaving();
+                return c;
+            }
+            saved++;
             if (lastBlock == null)
-                lastBlock = head = new Block();
-            else if (lastBlock.used == lastBlock.buf.length)
-                lastBlock = lastBlock.next = new Block();
+                lastBlock = head = Block.obtain();
+            else if (lastBlock.used == Block.SIZE)
+                lastBlock = lastBlock.next = Block.obtain();
             lastBlock.append((byte) c);
         }
         return c;
@@ -177,16 +284,17 @@ public class RewindableInputStream extends InputStream implements Rewindable {
             for (;;) {
                 if (len == 0)
                     return nRead;
-                b[off++] = curBlock.buf[curBlockPos++];
-                --len;
-                nRead++;
-                --curBlockAvail;
+                int n = Math.min(len, curBlockAvail);
+                System.arraycopy(curBlock.buf, curBlockPos, b, off, n);
+                curBlockPos += n;
+                curBlockAvail -= n;
+                off += n;
+                len -= n;
+                nRead += n;
                 if (curBlockAvail == 0) {
-                    curBlock = curBlock.next;
+                    nextBlock();
                     if (curBlock == null)
                         break;
-                    curBlockAvail = curBlock.used;
-                    curBlockPos = 0;
                 }
             }
         }
@@ -202,18 +310,7 @@ public class RewindableInputStream extends InputStream implements Rewindable {
             }
             nRead += n;
             if (saving) {
-                if (lastBlock == null)
-                    lastBlock = head = new Block(n);
-                else if (lastBlock.buf.length - lastBlock.used < n) {
-                    if (lastBlock.used != lastBlock.buf.length) {
-                        int free = lastBlock.buf.length - lastBlock.used;
-                        lastBlock.append(b, off, free);
-                        off += free;
-                        n -= free;
-                    }
-                    lastBlock = lastBlock.next = new Block(n);
-                }
-                lastBlock.append(b, off, n);
+                save(b, off, n);
             }
         } catch (IOException e) {
             eof = true;
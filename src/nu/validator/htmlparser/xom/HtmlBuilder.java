@@ -24,7 +24,6 @@
 package nu.validator.htmlparser.xom;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -37,9 +36,11 @@ import java.util.List;
 import nu.validator.htmlparser.common.CharacterHandler;
 import nu.validator.htmlparser.common.DocumentModeHandler;
 import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.common.ParserLimits;
 import nu.validator.htmlparser.common.TokenHandler;
 import nu.validator.htmlparser.common.TransitionHandler;
 import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.impl.AttributeValueCache;
 import nu.validator.htmlparser.impl.ErrorReportingTokenizer;
 import nu.validator.htmlparser.impl.Tokenizer;
 import nu.validator.htmlparser.io.Driver;
@@ -78,6 +79,12 @@ import org.xml.sax.SAXParseException;
  * XOM node factory may return multiple nodes instead of one confusing 
  * the assumptions of the DOM-oriented HTML5 parsing algorithm.
  * 
+ * <p>An instance can be used for any number of parses one after another and 
+ * keeps its internal buffers between them, so reusing one instance is 
+ * cheaper than creating a new one for each document. Instances are not 
+ * thread-safe; use one per thread (for example, via a 
+ * <code>ThreadLocal</code>) when parsing concurrently.
+ * 
  * @version $Id$
  * @author hsivonen
  */
@@ -99,6 +106,10 @@ public class HtmlBuilder extends Builder {
 
     private boolean scriptingEnabled = false;
 
+    private int adoptionAgencyBudget = Integer.MAX_VALUE;
+
+    private ParserLimits limits = null;
+
     private final List<CharacterHandler> characterHandlers = new LinkedList<CharacterHandler>();
     
     private XmlViolationPolicy contentSpacePolicy = XmlViolationPolicy.FATAL;
@@ -113,6 +124,8 @@ public class HtmlBuilder extends Builder {
     
     private boolean mappingLangToXmlLang = false;
 
+    private AttributeValueCache attributeValueCache = null;
+
     private XmlViolationPolicy xmlnsPolicy = XmlViolationPolicy.FATAL;
     
     private boolean reportingDoctype = true;
@@ -183,6 +196,7 @@ public class HtmlBuilder extends Builder {
             this.driver.setContentNonXmlCharPolicy(contentNonXmlCharPolicy);
             this.driver.setContentSpacePolicy(contentSpacePolicy);
             this.driver.setMappingLangToXmlLang(mappingLangToXmlLang);
+            this.driver.setAttributeValueCache(attributeValueCache);
             this.driver.setXmlnsPolicy(xmlnsPolicy);
             this.driver.setHeuristics(heuristics);
             for (CharacterHandler characterHandler : characterHandlers) {
@@ -190,6 +204,8 @@ public class HtmlBuilder extends Builder {
             }
             this.treeBuilder.setDocumentModeHandler(documentModeHandler);
             this.treeBuilder.setScriptingEnabled(scriptingEnabled);
+            this.treeBuilder.setAdoptionAgencyBudget(adoptionAgencyBudget);
+            this.driver.setLimits(limits);
             this.treeBuilder.setReportingDoctype(reportingDoctype);
             this.treeBuilder.setNamePolicy(namePolicy);
         }
@@ -277,7 +293,8 @@ public class HtmlBuilder extends Builder {
     }
     
     /**
-     * Parse from <code>File</code>.
+     * Parse from <code>File</code>. The file is mapped into memory instead
+     * of being read through a stream.
      * @param file the file
      * @return the document
      * @throws ParsingException in case of an XML violation
@@ -287,7 +304,17 @@ public class HtmlBuilder extends Builder {
     @Override
     public Document build(File file) throws ParsingException,
             ValidityException, IOException {
-        return build(new FileInputStream(file), file.toURI().toASCIIString());
+        lazyInit();
+        treeBuilder.setFragmentContext(null);
+        try {
+            driver.tokenize(file);
+        } catch (SAXParseException e) {
+            throw new ParsingException(e.getMessage(), e.getSystemId(), e.getLineNumber(),
+                    e.getColumnNumber(), e);
+        } catch (SAXException e) {
+            throw new ParsingException(e.getMessage(), e);
+        }
+        return treeBuilder.getDocument();
     }
 
     /**
@@ -487,6 +514,55 @@ public class HtmlBuilder extends Builder {
         }
     }
 
+    /**
+     * Returns the adoption agency budget.
+     * 
+     * @return the adoption agency budget
+     * @see nu.validator.htmlparser.impl.TreeBuilder#getAdoptionAgencyBudget()
+     */
+    public int getAdoptionAgencyBudget() {
+        return adoptionAgencyBudget;
+    }
+
+    /**
+     * Sets how much work misnested formatting elements may cost per
+     * document before they are treated like ordinary elements.
+     * 
+     * @param adoptionAgencyBudget the adoption agency budget to set
+     * @see nu.validator.htmlparser.impl.TreeBuilder#setAdoptionAgencyBudget(int)
+     */
+    public void setAdoptionAgencyBudget(int adoptionAgencyBudget) {
+        this.adoptionAgencyBudget = adoptionAgencyBudget;
+        if (treeBuilder != null) {
+            treeBuilder.setAdoptionAgencyBudget(adoptionAgencyBudget);
+        }
+    }
+
+    /**
+     * Returns the limits.
+     * 
+     * @return the limits or <code>null</code> if there are none
+     * @see nu.validator.htmlparser.impl.Tokenizer#getLimits()
+     */
+    public ParserLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Sets the limits on how large and deep a document may get and what
+     * happens when it goes over them. <code>null</code> (the default) means
+     * no limits.
+     * 
+     * @param limits the limits to set
+     * @see nu.validator.htmlparser.impl.Tokenizer#setLimits(nu.validator.htmlparser.common.ParserLimits)
+     */
+    public void setLimits(ParserLimits limits) {
+        this.limits = limits;
+        if (driver != null) {
+            driver.setLimits(limits);
+        }
+    }
+
     /**
      * Returns the document mode handler.
      * 
@@ -557,6 +633,29 @@ public class HtmlBuilder extends Builder {
         return mappingLangToXmlLang;
     }
 
+    /**
+     * Sets the cache that lets repeated attribute values share one
+     * <code>String</code> instance. The cache keeps hit and miss counts, so
+     * it should not be shared with other parsers used at the same time.
+     * @param attributeValueCache the cache or <code>null</code> for none
+     * @see nu.validator.htmlparser.impl.Tokenizer#setAttributeValueCache(nu.validator.htmlparser.impl.AttributeValueCache)
+     */
+    public void setAttributeValueCache(AttributeValueCache attributeValueCache) {
+        this.attributeValueCache = attributeValueCache;
+        if (driver != null) {
+            driver.setAttributeValueCache(attributeValueCache);
+        }
+    }
+
+    /**
+     * Returns the cache for repeated attribute values.
+     * 
+     * @return the cache or <code>null</code>
+     */
+    public AttributeValueCache getAttributeValueCache() {
+        return attributeValueCache;
+    }
+
     /**
      * Whether the <code>xmlns</code> attribute on the root element is 
      * passed to through. (FATAL not allowed.)
@@ -61,6 +61,11 @@ public abstract class Node implements Locator {
      */
     private Node nextSibling = null;
     
+    /**
+     * The previous sibling.
+     */
+    private Node previousSibling = null;
+    
     /**
      * The parent.
      */
@@ -157,15 +162,7 @@ public abstract class Node implements Locator {
      * @return the previous sibling
      */
     public final Node getPreviousSibling() {
-        Node prev = null;
-        Node next = parentNode.getFirstChild();
-        for(;;) {
-            if (this == next) {
-                return prev;
-            }
-            prev = next;
-            next = next.nextSibling;
-        }
+        return previousSibling;
     }
 
     /**
@@ -176,6 +173,15 @@ public abstract class Node implements Locator {
     void setNextSibling(Node nextSibling) {
         this.nextSibling = nextSibling;
     }
+
+    /**
+     * Sets the previous sibling.
+     * 
+     * @param previousSibling the previous sibling to set
+     */
+    void setPreviousSibling(Node previousSibling) {
+        this.previousSibling = previousSibling;
+    }
     
     
     /**
@@ -103,21 +103,7 @@ public abstract class ParentNode extends Node {
             return appendChild(child);
         }
         child.detach();
-        child.setParentNode(this);
-        if (firstChild == sibling) {
-            child.setNextSibling(sibling);
-            firstChild = child;
-        } else {
-            Node prev = firstChild;
-            Node next = firstChild.getNextSibling();
-            while (next != sibling) {
-                prev = next;
-                next = next.getNextSibling();
-            }
-            prev.setNextSibling(child);
-            child.setNextSibling(next);
-        }
-        return child;
+        return insertBetween(child, sibling.getPreviousSibling(), sibling);
     }
     
     public Node insertBetween(Node child, Node prev, Node next) {
@@ -132,6 +118,8 @@ public abstract class ParentNode extends Node {
         child.detach();
         child.setParentNode(this);
         child.setNextSibling(next);
+        child.setPreviousSibling(prev);
+        next.setPreviousSibling(child);
         if (prev == null) {
             firstChild = child;
         } else {
@@ -149,6 +137,8 @@ public abstract class ParentNode extends Node {
     public Node appendChild(Node child) {
         child.detach();
         child.setParentNode(this);
+        child.setNextSibling(null);
+        child.setPreviousSibling(lastChild);
         if (firstChild == null) {
             firstChild = child;
         } else {
@@ -168,6 +158,7 @@ public abstract class ParentNode extends Node {
             return;
         }
         ParentNode another = (ParentNode) parent;
+        child.setPreviousSibling(lastChild);
         if (firstChild == null) {
             firstChild = child;
         } else {
@@ -187,22 +178,19 @@ public abstract class ParentNode extends Node {
      */
     void removeChild(Node node) {
         assert this == node.getParentNode();
-        if (firstChild == node) {
-            firstChild = node.getNextSibling();
-            if (lastChild == node) {
-                lastChild = null;
-            }
+        Node prev = node.getPreviousSibling();
+        Node next = node.getNextSibling();
+        if (prev == null) {
+            firstChild = next;
+        } else {
+            prev.setNextSibling(next);
+        }
+        if (next == null) {
+            lastChild = prev;
         } else {
-            Node prev = firstChild;
-            Node next = firstChild.getNextSibling();
-            while (next != node) {
-                prev = next;
-                next = next.getNextSibling();
-            }
-            prev.setNextSibling(node.getNextSibling());
-            if (lastChild == node) {
-                lastChild = prev;
-            }            
+            next.setPreviousSibling(prev);
         }
+        node.setNextSibling(null);
+        node.setPreviousSibling(null);
     }
 }
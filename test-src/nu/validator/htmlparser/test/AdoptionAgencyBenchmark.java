@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses inputs known to make the adoption agency algorithm or the
+ * reconstruction of the active formatting elements expensive, at sizes that
+ * double, and fails if the time per repetition grows more than
+ * <code>MAX_GROWTH</code> times from the smallest size to the largest. Linear
+ * work keeps it about flat while quadratic work multiplies it by 16.
+ * Inputs whose tree is itself quadratic per the spec are parsed with an
+ * adoption agency budget.
+ */
+public class AdoptionAgencyBenchmark {
+
+    private static final int SMALLEST = 1000;
+
+    private static final int LARGEST = 16000;
+
+    private static final double MAX_GROWTH = 4.0;
+
+    private static final int BUDGET = 200000;
+
+    private static String repeat(String prefix, String unit, String suffix,
+            int count) {
+        StringBuilder sb = new StringBuilder(prefix);
+        for (int i = 0; i < count; i++) {
+            sb.append(unit.replace("#", Integer.toString(i)));
+        }
+        sb.append(suffix);
+        return sb.toString();
+    }
+
+    private static long best(HtmlParser parser, String doc)
+            throws SAXException, IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            parser.parse(new InputSource(new StringReader(doc)));
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private static boolean run(String shape, int budget, String prefix,
+            String unit, String suffix) throws SAXException, IOException {
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+        parser.setAdoptionAgencyBudget(budget);
+        double first = 0;
+        double last = 0;
+        for (int count = SMALLEST; count <= LARGEST; count <<= 1) {
+            String doc = repeat(prefix, unit, suffix, count);
+            last = (double) best(parser, doc) / count;
+            if (count == SMALLEST) {
+                first = last;
+            }
+            System.out.println(shape + ", " + count + " times: "
+                    + Math.round(last) + " ns each");
+        }
+        double growth = last / first;
+        boolean ok = growth <= MAX_GROWTH;
+        System.out.println(shape + ": grew " + Math.round(growth * 10) / 10.0
+                + " times" + (ok ? "" : ", more than " + MAX_GROWTH));
+        return ok;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        boolean ok = true;
+        // Each <a> runs the algorithm for the previous one.
+        ok &= run("unclosed b, i and a", Integer.MAX_VALUE, "",
+                "<b><i><a>x", "");
+        // One end tag moves many elements between the formatting element
+        // and the furthest block.
+        ok &= run("spans before a block", Integer.MAX_VALUE, "<b>", "<span>",
+                "<div>x</b>");
+        // Many end tags that each find their formatting element under a
+        // deep stack.
+        ok &= run("blocks closing formatting elements", Integer.MAX_VALUE,
+                "", "<b><div>x</b>", "");
+        // Formatting elements that differ in attributes escape the Noah's
+        // Ark clause, so every new one scans them all.
+        ok &= run("distinct formatting elements", BUDGET, "",
+                "<b class=c#>x", "");
+        // Every paragraph reopens every formatting element before it, so
+        // the tree grows quadratically.
+        ok &= run("paragraphs reopening formatting elements", BUDGET, "",
+                "<p><i class=c#>x", "");
+        if (!ok) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.regex.Pattern;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the adoption agency budget. A budget that is never reached gives
+ * the same trees and errors as the default. With no budget at all,
+ * formatting elements are ordinary elements, so the tree is that of the
+ * same document with the formatting elements renamed to custom elements,
+ * as long as no raw text or foreign content sees the renamed tags.
+ * A budget spent halfway through a document is reported once per parse.
+ */
+public class AdoptionBudgetTester {
+
+    private static final Pattern FORMATTING = Pattern.compile(
+            "<(/?)(a|b|big|code|em|font|i|nobr|s|small|strike|strong|tt|u)(?=[\\s/>])");
+
+    /**
+     * Matches the elements whose content renaming would change, and the
+     * foreign elements, which formatting start tags break out of.
+     */
+    private static final Pattern UNRENAMEABLE = Pattern.compile(
+            "<(?:iframe|math|noembed|noframes|noscript|plaintext|script|style|svg|textarea|title|xmp)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern RENAMED = Pattern.compile("<x-");
+
+    private static final String SPENT = "Misnested formatting elements took too much work.";
+
+    private static final String[] TESTS = {
+            "<b><i>a</b>b</i>c",
+            "<a href=x><p>a<a href=y>b</a>c",
+            "<p><b><i><u>a</p>b<p>c",
+            "<b><b><b><b>a<p>b",
+            "<nobr>a<nobr>b<nobr>c",
+            "<table><b><tr><td>a</b>b</table>c",
+            "<div><b></div>a</b>",
+            "<b>1<p>2</b>3</p>",
+            "<font color=red><font color=red><font color=red><font color=red>a<p>b" };
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns documents that make the adoption agency algorithm and the
+     * reconstruction of the active formatting elements do a lot of work.
+     */
+    private static String[] pathologicalDocuments() {
+        return new String[] { repeat("<b><i><a>x", 2000),
+                repeat("<b>" + repeat("<span>", 100) + "<div>x</b>", 100),
+                repeat("<b><div>x</b>", 2000),
+                repeat("<p><i class=c>x", 2000) };
+    }
+
+    private static String parse(HtmlParser htmlParser, String doc, boolean errors)
+            throws SAXException, IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        try {
+            htmlParser.parse(new InputSource(new StringReader(doc)));
+        } catch (AssertionError e) {
+            // The tokenizer asserts on some malformed input under -ea.
+            sw.write(e.toString());
+        }
+        if (errors) {
+            for (String err : leh.getErrors()) {
+                sw.write(err);
+                sw.write('\n');
+            }
+        }
+        return sw.toString();
+    }
+
+    private static int countSpent(String output) {
+        int count = 0;
+        for (int i = output.indexOf(SPENT); i != -1; i = output.indexOf(SPENT,
+                i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        String[] corpus = DifferentialCorpus.documents(1000, 12);
+        String[] pathological = pathologicalDocuments();
+        String[] docs = new String[TESTS.length + pathological.length
+                + corpus.length];
+        System.arraycopy(TESTS, 0, docs, 0, TESTS.length);
+        System.arraycopy(pathological, 0, docs, TESTS.length,
+                pathological.length);
+        System.arraycopy(corpus, 0, docs, TESTS.length + pathological.length,
+                corpus.length);
+        HtmlParser unlimited = new HtmlParser(XmlViolationPolicy.ALLOW);
+        HtmlParser ample = new HtmlParser(XmlViolationPolicy.ALLOW);
+        ample.setAdoptionAgencyBudget(1 << 30);
+        HtmlParser none = new HtmlParser(XmlViolationPolicy.ALLOW);
+        none.setAdoptionAgencyBudget(0);
+        HtmlParser small = new HtmlParser(XmlViolationPolicy.ALLOW);
+        small.setAdoptionAgencyBudget(1000);
+        boolean failed = false;
+        for (int i = 0; i < docs.length; i++) {
+            String doc = docs[i];
+            String expected = parse(unlimited, doc, true);
+            if (!check(doc + "\nample budget", expected, parse(ample, doc,
+                    true))) {
+                failed = true;
+            }
+            if (UNRENAMEABLE.matcher(doc).find()) {
+                continue;
+            }
+            String renamed = FORMATTING.matcher(doc).replaceAll("<$1x-$2");
+            String ordinary = RENAMED.matcher(parse(unlimited, renamed, false)).replaceAll(
+                    "<");
+            if (!check(doc + "\nno budget", ordinary, parse(none, doc, false))) {
+                failed = true;
+            }
+        }
+        for (int i = 0; i < pathological.length; i++) {
+            // Twice, since each parse starts with a full budget.
+            for (int j = 0; j < 2; j++) {
+                String output = parse(small, pathological[i], true);
+                if (countSpent(output) != 1) {
+                    System.err.println("Failure.\nData:\npathological document "
+                            + i + "\nExpected the budget to be reported once, got "
+                            + countSpent(output) + " times.");
+                    failed = true;
+                }
+            }
+        }
+        if (countSpent(parse(unlimited, pathological[0], true)) != 0) {
+            System.err.println("Failure.\nData:\nthe default budget was spent.");
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.impl.AttributeValueCache;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures how many bytes the streaming SAX parser allocates per parse of a
+ * small document when one parser instance is reused, and how much of that
+ * lazy attribute values save on an attribute-heavy document whose handler
+ * reads none of the values, how often the attribute value cache finds a
+ * value it has seen before, and what re-creating formatting elements costs
+ * on legacy markup that leaves a <code>font</code> open across paragraphs.
+ * Needs a JVM whose
+ * <code>ThreadMXBean</code> implements
+ * <code>com.sun.management.ThreadMXBean</code>.
+ */
+public class AllocationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 1000;
+
+    private static final int MEASURED_ROUNDS = 10000;
+
+    private static final String DOC = "<!DOCTYPE html><title>Small</title>"
+            + "<ul class=nav><li><a href=/>Home</a><li><a href=/about>About</a></ul>"
+            + "<p>Lorem ipsum <b>dolor</b> sit amet &amp; consectetur.</p>";
+
+    private static final String ATTRIBUTE_DOC;
+
+    static {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html><title>Attributes</title>");
+        for (int i = 0; i < 20; i++) {
+            sb.append("<a href='/item/").append(i).append(
+                    "' class='link item' title='Item number ").append(i).append(
+                    "' data-id=").append(i).append(" rel=nofollow>x</a>");
+            sb.append("<img src='/img/").append(i).append(
+                    ".png' alt='Picture number ").append(i).append(
+                    "' width=64 height=64 loading=lazy>");
+        }
+        ATTRIBUTE_DOC = sb.toString();
+    }
+
+    private static final String FORMATTING_DOC;
+
+    static {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html><title>Legacy</title>");
+        sb.append("<p><font face='Verdana, Arial' size=2 color='#333366'>");
+        sb.append("<a href='/news' class=nav target=_top>");
+        for (int i = 0; i < 200; i++) {
+            sb.append("<p>Paragraph ").append(i).append(" of the news.");
+        }
+        FORMATTING_DOC = sb.toString();
+    }
+
+    private static long bytesPerParse(String doc, boolean lazyAttributeValues,
+            AttributeValueCache attributeValueCache) throws SAXException,
+            IOException {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setStreamabilityViolationPolicy(XmlViolationPolicy.FATAL);
+        parser.setLazyAttributeValues(lazyAttributeValues);
+        parser.setAttributeValueCache(attributeValueCache);
+        parser.setContentHandler(new DefaultHandler());
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parser.parse(new InputSource(new StringReader(doc)));
+        }
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            parser.parse(new InputSource(new StringReader(doc)));
+        }
+        long after = bean.getThreadAllocatedBytes(thread);
+        return (after - before) / MEASURED_ROUNDS;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        System.out.println(bytesPerParse(DOC, false, null) + " bytes per parse of "
+                + DOC.length() + " chars");
+        System.out.println(bytesPerParse(ATTRIBUTE_DOC, false, null)
+                + " bytes per parse of " + ATTRIBUTE_DOC.length()
+                + " attribute-heavy chars");
+        System.out.println(bytesPerParse(ATTRIBUTE_DOC, true, null)
+                + " bytes per parse of " + ATTRIBUTE_DOC.length()
+                + " attribute-heavy chars with lazy attribute values");
+        System.out.println(bytesPerParse(FORMATTING_DOC, false, null)
+                + " bytes per parse of " + FORMATTING_DOC.length()
+                + " chars re-creating formatting elements");
+        AttributeValueCache cache = new AttributeValueCache(1024);
+        System.out.println(bytesPerParse(ATTRIBUTE_DOC, false, cache)
+                + " bytes per parse of " + ATTRIBUTE_DOC.length()
+                + " attribute-heavy chars with an attribute value cache ("
+                + cache.getHits() + " hits, " + cache.getMisses()
+                + " misses)");
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import nu.validator.htmlparser.common.TokenHandler;
+import nu.validator.htmlparser.impl.ElementName;
+import nu.validator.htmlparser.impl.ErrorReportingTokenizer;
+import nu.validator.htmlparser.impl.HtmlAttributes;
+import nu.validator.htmlparser.impl.Tokenizer;
+import nu.validator.htmlparser.io.AsyncDriver;
+import nu.validator.htmlparser.io.Driver;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Checks that feeding <code>AsyncDriver</code> a document in chunks of
+ * various sizes gives the same tokens and errors as reading it with
+ * <code>Driver</code>, whether the chunks split byte sequences, line breaks,
+ * the BOM or the 1024 bytes sniffed for a <code>meta</code>.
+ */
+public class AsyncDriverTester {
+
+    private static final int[] CHUNK_SIZES = { 1, 2, 3, 7, 100, 1023, 1024,
+            1025, 4096, Integer.MAX_VALUE };
+
+    /**
+     * Records tokens, and errors with their locations. Adjacent text is
+     * merged, since chunks split it differently. The errors are listed
+     * after the tokens, since <code>Driver</code> reports decoding errors
+     * when it decodes ahead of the tokenizer. The tokenizer asserts on some
+     * malformed input under -ea, so an assertion is recorded like a token.
+     */
+    private static final class Recorder implements TokenHandler, ErrorHandler {
+
+        private final StringBuilder sb = new StringBuilder();
+
+        private final StringBuilder errors = new StringBuilder();
+
+        private boolean inText = false;
+
+        private Tokenizer tokenizer;
+
+        private void token(char kind, String text) {
+            inText = false;
+            sb.append(kind).append(text).append('\n');
+        }
+
+        private void problem(char kind, SAXParseException e) {
+            errors.append(kind).append(e.getLineNumber()).append(':');
+            errors.append(e.getColumnNumber()).append(' ');
+            errors.append(e.getMessage()).append('\n');
+        }
+
+        public void startTokenization(Tokenizer self) throws SAXException {
+            tokenizer = self;
+        }
+
+        public boolean wantsComments() throws SAXException {
+            return true;
+        }
+
+        public void doctype(String name, String publicIdentifier,
+                String systemIdentifier, boolean forceQuirks)
+                throws SAXException {
+            token('D', name + " " + forceQuirks);
+        }
+
+        public void startTag(ElementName eltName, HtmlAttributes attributes,
+                boolean selfClosing) throws SAXException {
+            StringBuilder tag = new StringBuilder(eltName.getName());
+            for (int i = 0; i < attributes.getLength(); i++) {
+                tag.append(' ').append(attributes.getQNameNoBoundsCheck(i));
+                tag.append('=').append(attributes.getValueNoBoundsCheck(i));
+            }
+            token('(', tag.toString());
+        }
+
+        public void endTag(ElementName eltName) throws SAXException {
+            token(')', eltName.getName());
+        }
+
+        public void comment(char[] buf, int start, int length)
+                throws SAXException {
+            token('!', new String(buf, start, length));
+        }
+
+        public void characters(char[] buf, int start, int length)
+                throws SAXException {
+            if (!inText) {
+                sb.append('-');
+                inText = true;
+            }
+            sb.append(buf, start, length);
+        }
+
+        public void zeroOriginatingReplacementCharacter() throws SAXException {
+            token('0', "");
+        }
+
+        public void eof() throws SAXException {
+            token('E', " line " + tokenizer.getLineNumber());
+        }
+
+        public void endTokenization() throws SAXException {
+        }
+
+        public boolean cdataSectionAllowed() throws SAXException {
+            return false;
+        }
+
+        public void ensureBufferSpace(int inputLength) throws SAXException {
+        }
+
+        public void error(SAXParseException exception) throws SAXException {
+            problem('R', exception);
+        }
+
+        public void fatalError(SAXParseException exception)
+                throws SAXException {
+            problem('F', exception);
+        }
+
+        public void warning(SAXParseException exception) throws SAXException {
+            problem('W', exception);
+        }
+
+        @Override public String toString() {
+            return sb.toString() + errors;
+        }
+    }
+
+    /**
+     * Returns a reader that hands out at most <code>chunkSize</code> chars
+     * per read, so that <code>Driver</code> tokenizes the same buffers as
+     * <code>AsyncDriver</code> is fed. Where a buffer ends changes the
+     * tokens of some malformed input, such as letters after an ampersand.
+     */
+    private static Reader chunked(String doc, final int chunkSize) {
+        return new FilterReader(new StringReader(doc)) {
+            @Override public int read(char[] cbuf, int off, int len)
+                    throws IOException {
+                return super.read(cbuf, off, Math.min(len, chunkSize));
+            }
+        };
+    }
+
+    private static String read(InputSource is) throws IOException {
+        Recorder recorder = new Recorder();
+        Driver driver = new Driver(new ErrorReportingTokenizer(recorder));
+        driver.setErrorHandler(recorder);
+        try {
+            driver.tokenize(is);
+        } catch (SAXException e) {
+            recorder.token('X', e.getMessage());
+        } catch (AssertionError e) {
+            recorder.token('A', e.getMessage());
+        }
+        return recorder.toString();
+    }
+
+    private static String feed(byte[] doc, String encoding, int chunkSize)
+            throws IOException {
+        Recorder recorder = new Recorder();
+        AsyncDriver driver = new AsyncDriver(new ErrorReportingTokenizer(
+                recorder));
+        driver.setErrorHandler(recorder);
+        try {
+            driver.start(null, null, encoding);
+            for (int i = 0; i < doc.length; i += chunkSize) {
+                driver.feed(ByteBuffer.wrap(doc, i, Math.min(chunkSize,
+                        doc.length - i)));
+            }
+            driver.finish();
+        } catch (SAXException e) {
+            recorder.token('X', e.getMessage());
+        } catch (AssertionError e) {
+            recorder.token('A', e.getMessage());
+        }
+        return recorder.toString();
+    }
+
+    private static String feed(String doc, int chunkSize) throws IOException {
+        Recorder recorder = new Recorder();
+        AsyncDriver driver = new AsyncDriver(new ErrorReportingTokenizer(
+                recorder));
+        driver.setErrorHandler(recorder);
+        char[] buf = doc.toCharArray();
+        try {
+            driver.start(null, null);
+            for (int i = 0; i < buf.length; i += chunkSize) {
+                driver.feed(buf, i, Math.min(chunkSize, buf.length - i));
+            }
+            driver.finish();
+        } catch (SAXException e) {
+            recorder.token('X', e.getMessage());
+        } catch (AssertionError e) {
+            recorder.token('A', e.getMessage());
+        }
+        return recorder.toString();
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean failed = false;
+        byte[][] docs = DifferentialCorpus.sniffedDocuments();
+        for (int i = 0; i < docs.length; i++) {
+            String expected = read(new InputSource(new ByteArrayInputStream(
+                    docs[i])));
+            for (int j = 0; j < CHUNK_SIZES.length; j++) {
+                if (!check("bytes " + i + ", chunks of " + CHUNK_SIZES[j],
+                        expected, feed(docs[i], null, CHUNK_SIZES[j]))) {
+                    failed = true;
+                }
+            }
+        }
+        // An encoding declared by the transport is not sniffed.
+        InputSource declared = new InputSource(new ByteArrayInputStream(
+                docs[0]));
+        declared.setEncoding("windows-1252");
+        String expected = read(declared);
+        for (int j = 0; j < CHUNK_SIZES.length; j++) {
+            if (!check("declared windows-1252, chunks of " + CHUNK_SIZES[j],
+                    expected, feed(docs[0], "windows-1252", CHUNK_SIZES[j]))) {
+                failed = true;
+            }
+        }
+        String[] texts = DifferentialCorpus.documents(200, 10);
+        for (int i = 0; i < texts.length; i++) {
+            for (int j = 0; j < CHUNK_SIZES.length; j++) {
+                expected = read(new InputSource(chunked(texts[i],
+                        CHUNK_SIZES[j])));
+                if (!check(texts[i] + "\nchunks of " + CHUNK_SIZES[j],
+                        expected, feed(texts[i], CHUNK_SIZES[j]))) {
+                    failed = true;
+                }
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
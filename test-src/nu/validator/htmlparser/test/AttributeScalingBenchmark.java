@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses a single tag with more and more attributes and prints the time per
+ * attribute, which should stay flat as the count doubles. Every other
+ * attribute is a duplicate, so the duplicate check is exercised for both
+ * hits and misses.
+ */
+public class AttributeScalingBenchmark {
+
+    private static String tagWithAttributes(int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<b");
+        for (int i = 0; i < count; i++) {
+            sb.append(" data-a").append(i >> 1).append("=v");
+        }
+        sb.append(">x</b><b>y</b>");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+        for (int count = 1000; count <= 128000; count <<= 1) {
+            String doc = tagWithAttributes(count);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                parser.parse(new InputSource(new StringReader(doc)));
+                long elapsed = System.nanoTime() - start;
+                if (elapsed < best) {
+                    best = elapsed;
+                }
+            }
+            System.out.println(count + " attributes: " + (best / count)
+                    + " ns per attribute");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses documents with more and more open elements and prints the time per
+ * element, which should stay flat as the depth doubles. Each shape makes the
+ * tree builder ask whether some element is in scope once per tag.
+ */
+public class DeepNestingBenchmark {
+
+    private static String nested(String prefix, String open, String inner,
+            int depth) {
+        StringBuilder sb = new StringBuilder(prefix);
+        for (int i = 0; i < depth; i++) {
+            sb.append(open);
+        }
+        for (int i = 0; i < depth; i++) {
+            sb.append(inner);
+        }
+        return sb.toString();
+    }
+
+    private static void run(HtmlParser parser, String shape, String prefix,
+            String open, String inner) throws SAXException, IOException {
+        for (int depth = 2500; depth <= 40000; depth <<= 1) {
+            String doc = nested(prefix, open, inner, depth);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                parser.parse(new InputSource(new StringReader(doc)));
+                long elapsed = System.nanoTime() - start;
+                if (elapsed < best) {
+                    best = elapsed;
+                }
+            }
+            System.out.println(shape + ", " + depth + " deep: "
+                    + (best / depth) + " ns per element");
+        }
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+        // Every <div> closes a <p> in button scope if there is one.
+        run(parser, "divs", "", "<div>", "");
+        // A <p> at the bottom is in scope all the way up.
+        run(parser, "divs in a p", "<p>", "<div>", "");
+        // Stray end tags for elements that are not open.
+        run(parser, "spans with stray end tags", "", "<span>",
+                "</li></dd></h2>");
+        // Text under formatting elements reconstructs them.
+        run(parser, "formatting elements with text", "", "<b><i>", "x");
+        // Table cells ask for table scope.
+        run(parser, "nested tables", "", "<table><tr><td>", "</p>");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Generates documents for the testers that parse the same input in two
+ * ways and compare the results. The documents are built from fragments
+ * that exercise the tree builder: misnested formatting elements, tables,
+ * foster parenting, templates, foreign content, comments, character
+ * references and raw text elements. There are also encoded documents for
+ * the testers that parse bytes.
+ */
+final class DifferentialCorpus {
+
+    private static final String[] FRAGMENTS = { "<p>", "</p>", "<b>", "</b>",
+            "<i>", "</i>", "<a href=x>", "</a>", "<div>", "</div>", "<span>",
+            "</span>", "<table>", "</table>", "<tr>", "<td>", "</td>",
+            "<tbody>", "<caption>", "<template>", "</template>", "<ul><li>",
+            "<li>", "</ul>", "<ol>", "<dl><dt>", "<dd>", "<button>",
+            "</button>", "<select><option>", "</select>", "<svg>", "</svg>",
+            "<math><mi>", "</math>", "<foreignObject>", "<h1>", "</h2>",
+            "<form>", "</form>", "<br>", "<img src=i>", "<hr>", "<nobr>",
+            "<font color=red>", "</font>", "<em>", "</em>", "<code>", "<u>",
+            "<s>", "<frameset>", "<!-- c -->", "<!--->", "<!doctype html>",
+            "<script>a<b</script>", "<style>p{}</style>",
+            "<textarea>&amp;t</textarea>", "<title>&lt;x</title>",
+            "<noscript>n</noscript>", "<plaintext>", "text", " ",
+            "&amp;", "&copy", "&#x41;", "&notin;", "&", "&#0;", "\u00E9",
+            "\u3042", "\r\n", "\n", "<?pi?>", "</>", "<p id=a class=b>",
+            "<html lang=en>", "<body onload=x>", "<head>", "</body>",
+            "</html>", "<input type=hidden>", "<colgroup><col>",
+            "<marquee>", "<object>", "<applet>", "<isindex>", "<image>",
+            "<ruby><rb>", "<rt>", "<meta charset=utf-8>", "<base href=/>" };
+
+    private DifferentialCorpus() {
+        super();
+    }
+
+    /**
+     * Returns a document of up to <code>maxFragments</code> fragments.
+     * 
+     * @param random
+     *            the source of randomness
+     * @param maxFragments
+     *            the largest number of fragments
+     * @return the document
+     */
+    static String document(Random random, int maxFragments) {
+        StringBuilder sb = new StringBuilder();
+        int n = 1 + random.nextInt(maxFragments);
+        for (int i = 0; i < n; i++) {
+            sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns <code>count</code> documents. The same seed gives the same
+     * documents.
+     * 
+     * @param count
+     *            the number of documents
+     * @param seed
+     *            the seed
+     * @return the documents
+     */
+    static String[] documents(int count, long seed) {
+        Random random = new Random(seed);
+        String[] docs = new String[count];
+        for (int i = 0; i < count; i++) {
+            docs[i] = document(random, 40);
+        }
+        return docs;
+    }
+
+    /**
+     * Returns the text of an encoded document: runs of markup with
+     * non-ASCII text and CRLF line breaks.
+     */
+    private static String text(int length) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (sb.length() < length) {
+            sb.append("<p class=c").append(i++);
+            sb.append(">caf\u00E9 &amp; cr\u00E8me<br>\r\n<!-- ").append(i);
+            sb.append(" --><b>\u00FC</b></p>\r");
+        }
+        return sb.toString();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] c = new byte[a.length + b.length];
+        System.arraycopy(a, 0, c, 0, a.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    /**
+     * Returns documents as bytes whose encoding is found by sniffing: by a
+     * BOM, by a <code>meta</code> within the first 1024 bytes, including
+     * one across that boundary, and by falling back to windows-1252.
+     * 
+     * @return the documents
+     * @throws UnsupportedEncodingException
+     *             if the VM lacks an encoding
+     */
+    static byte[][] sniffedDocuments() throws UnsupportedEncodingException {
+        String body = text(3000);
+        String utf8Body = body + "\u3042\uD83D\uDE00\u3044";
+        StringBuilder filler = new StringBuilder(
+                "<!DOCTYPE html><title>t</title>");
+        while (filler.length() < 1010) {
+            filler.append(' ');
+        }
+        return new byte[][] {
+                concat(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+                        utf8Body.getBytes("UTF-8")),
+                concat(new byte[] { (byte) 0xFF, (byte) 0xFE },
+                        utf8Body.getBytes("UTF-16LE")),
+                concat(new byte[] { (byte) 0xFE, (byte) 0xFF },
+                        utf8Body.getBytes("UTF-16BE")),
+                ("<meta charset=utf-8>" + utf8Body).getBytes("UTF-8"),
+                ("<meta http-equiv=Content-Type content='text/html; "
+                        + "charset=windows-1252'>" + body).getBytes(
+                        "windows-1252"),
+                (filler + "<meta charset=iso-8859-2>" + body).getBytes(
+                        "ISO-8859-2"),
+                body.getBytes("windows-1252"),
+                concat(("<meta charset=utf-8><p>"
+                        + body.substring(0, 500)).getBytes("UTF-8"),
+                        new byte[] { (byte) 0xFF, 'x', (byte) 0xE3, (byte) 0x81,
+                                '<', 'p', '>', (byte) 0xC3 }) };
+    }
+}
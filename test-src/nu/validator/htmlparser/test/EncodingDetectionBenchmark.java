@@ -0,0 +1,644 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.validator.htmlparser.common.ByteReadable;
+import nu.validator.htmlparser.extra.IcuDetectorSniffer;
+import nu.validator.htmlparser.extra.StatisticalSniffer;
+import nu.validator.htmlparser.io.Encoding;
+
+/**
+ * Measures how often and how fast <code>StatisticalSniffer</code> and, if
+ * ICU4J is on the class path, <code>IcuDetectorSniffer</code> guess the
+ * encoding of documents without a declaration. A guess counts as right if it
+ * decodes the sniffed bytes to the same text as the real encoding does.
+ * Every sample is tried in its legacy encodings and in UTF-8, both as a
+ * whole 1024-byte sniffing window and as a short title only.
+ */
+public class EncodingDetectionBenchmark {
+
+    private static final int SNIFFING_LIMIT = 1024;
+
+    private static final int ROUNDS = 2000;
+
+    private static final String[][] SAMPLES = {
+            { "French",
+                    "windows-1252",
+                    "Le gouvernement a pr\u00E9sent\u00E9 mercredi un projet de"
+                    + " loi qui pr\u00E9voit une r\u00E9forme compl\u00E8te du sy"
+                    + "st\u00E8me de sant\u00E9. Selon le ministre, les h\u00F4pi"
+                    + "taux recevront des cr\u00E9dits suppl\u00E9mentaires d"
+                    + "\u00E8s l'ann\u00E9e prochaine, et les m\u00E9decins g"
+                    + "\u00E9n\u00E9ralistes seront mieux r\u00E9mun\u00E9r\u00E9"
+                    + "s. Les syndicats ont r\u00E9agi avec prudence : ils craign"
+                    + "ent que les \u00E9conomies annonc\u00E9es ne p\u00E8sent s"
+                    + "ur le personnel soignant." },
+            { "German",
+                    "windows-1252",
+                    "Die Bundesregierung hat am Mittwoch ein Gesetz beschlossen"
+                    + ", das die F\u00F6rderung erneuerbarer Energien deutlich au"
+                    + "sweiten soll. K\u00FCnftig m\u00FCssen Hausbesitzer beim A"
+                    + "ustausch ihrer Heizung auf klimafreundliche L\u00F6sungen "
+                    + "achten. Kritiker bef\u00FCrchten hohe Kosten f\u00FCr Miet"
+                    + "er, w\u00E4hrend Umweltverb\u00E4nde die Ma\u00DFnahmen f"
+                    + "\u00FCr unzureichend halten." },
+            { "Spanish",
+                    "windows-1252",
+                    "El ayuntamiento anunci\u00F3 ayer que las obras de la nuev"
+                    + "a l\u00EDnea de metro comenzar\u00E1n en oto\u00F1o. Seg"
+                    + "\u00FAn el alcalde, el proyecto permitir\u00E1 reducir el "
+                    + "tr\u00E1fico en el centro de la ciudad y mejorar la calida"
+                    + "d del aire. Los vecinos afectados recibir\u00E1n informaci"
+                    + "\u00F3n detallada sobre los cortes de calles durante los p"
+                    + "r\u00F3ximos d\u00EDas." },
+            { "Portuguese",
+                    "windows-1252",
+                    "O governo anunciou nesta ter\u00E7a-feira um conjunto de m"
+                    + "edidas para conter a infla\u00E7\u00E3o, que atingiu o n"
+                    + "\u00EDvel mais alto dos \u00FAltimos anos. As a\u00E7"
+                    + "\u00F5es incluem a redu\u00E7\u00E3o de impostos sobre ali"
+                    + "mentos b\u00E1sicos e a cria\u00E7\u00E3o de um programa d"
+                    + "e cr\u00E9dito para pequenas empresas. Economistas questio"
+                    + "nam a efic\u00E1cia das decis\u00F5es." },
+            { "Italian",
+                    "windows-1252",
+                    "Il consiglio comunale ha approvato ieri sera il nuovo pian"
+                    + "o del traffico, che prevede pi\u00F9 zone pedonali e una r"
+                    + "ete di piste ciclabili lungo le principali vie del centro."
+                    + " Secondo l'assessore, la citt\u00E0 sar\u00E0 pi\u00F9 viv"
+                    + "ibile gi\u00E0 entro la fine dell'anno. I commercianti per"
+                    + "\u00F2 temono un calo delle vendite e chiedono pi\u00F9 pa"
+                    + "rcheggi." },
+            { "Catalan",
+                    "windows-1252",
+                    "El Govern ha aprovat aquest dimecres un decret que permetr"
+                    + "\u00E0 agilitzar els tr\u00E0mits per obrir nous negocis. "
+                    + "Segons la consellera d'Empresa, la mesura reduir\u00E0 a l"
+                    + "a meitat el temps d'espera per obtenir les llic\u00E8ncies"
+                    + ". Les patronals n'han valorat positivament l'objectiu, per"
+                    + "\u00F2 reclamen m\u00E9s ajudes per a les petites empreses"
+                    + "." },
+            { "Dutch",
+                    "windows-1252",
+                    "Het kabinet heeft woensdag een wetsvoorstel goedgekeurd da"
+                    + "t het oprichten van nieuwe bedrijven moet vereenvoudigen. "
+                    + "Volgens de minister van Economische Zaken wordt de tijd di"
+                    + "e nodig is om vergunningen te krijgen daardoor aanzienlijk"
+                    + " korter. Ondernemersorganisaties zijn tevreden, maar vrage"
+                    + "n om extra steun voor kleine ondernemingen \u00E9n zzp'ers"
+                    + "." },
+            { "Swedish",
+                    "windows-1252",
+                    "Regeringen beslutade p\u00E5 onsdagen om ett lagf\u00F6rsl"
+                    + "ag som ska f\u00F6renkla reglerna f\u00F6r att starta nya "
+                    + "f\u00F6retag. Enligt n\u00E4ringsministern kommer handl"
+                    + "\u00E4ggningstiden f\u00F6r tillst\u00E5nd att kortas bety"
+                    + "dligt. F\u00F6retagarnas organisationer v\u00E4lkomnar f"
+                    + "\u00F6r\u00E4ndringen men efterfr\u00E5gar ocks\u00E5 ytte"
+                    + "rligare st\u00F6d till sm\u00E5f\u00F6retag i glesbygden." },
+            { "Danish",
+                    "windows-1252",
+                    "Regeringen fremlagde onsdag et lovforslag, der skal g"
+                    + "\u00F8re det lettere at starte nye virksomheder. If\u00F8l"
+                    + "ge erhvervsministeren vil sagsbehandlingstiden for tillade"
+                    + "lser blive v\u00E6sentligt kortere. Erhvervsorganisationer"
+                    + "ne hilser forslaget velkommen, men de efterlyser samtidig "
+                    + "st\u00F8rre st\u00F8tte til sm\u00E5 virksomheder p\u00E5 "
+                    + "landet." },
+            { "Finnish",
+                    "windows-1252",
+                    "Hallitus hyv\u00E4ksyi keskiviikkona lakiesityksen, jonka "
+                    + "tarkoituksena on helpottaa uusien yritysten perustamista. "
+                    + "Elinkeinoministerin mukaan lupien k\u00E4sittelyaika lyhen"
+                    + "ee merkitt\u00E4v\u00E4sti. Yritt\u00E4j\u00E4j\u00E4rjest"
+                    + "\u00F6t pit\u00E4v\u00E4t muutosta my\u00F6nteisen\u00E4, "
+                    + "mutta vaativat lis\u00E4\u00E4 tukea pienille yrityksille "
+                    + "erityisesti harvaan asutuilla alueilla." },
+            { "Icelandic",
+                    "windows-1252",
+                    "R\u00EDkisstj\u00F3rnin sam\u00FEykkti \u00E1 mi\u00F0viku"
+                    + "dag frumvarp sem \u00E1 a\u00F0 einfalda stofnun n\u00FDrr"
+                    + "a fyrirt\u00E6kja. A\u00F0 s\u00F6gn r\u00E1\u00F0herrans "
+                    + "mun afgrei\u00F0slut\u00EDmi leyfa styttast verulega. Samt"
+                    + "\u00F6k atvinnul\u00EDfsins fagna breytingunni en kalla ja"
+                    + "fnframt eftir frekari stu\u00F0ningi vi\u00F0 l\u00EDtil f"
+                    + "yrirt\u00E6ki \u00E1 landsbygg\u00F0inni." },
+            { "English",
+                    "windows-1252",
+                    "The committee\u2019s report, published on Wednesday, found"
+                    + " that the \u201Cnew rules\u201D had cut waiting times by a"
+                    + "lmost a third \u2013 a result that surprised even the sche"
+                    + "me\u2019s supporters. Ministers said the findings showed t"
+                    + "he reforms were working; critics said the data covered too"
+                    + " short a period to be trusted." },
+            { "English with loanwords",
+                    "windows-1252",
+                    "We had a long lunch at a small caf\u00E9 near the station,"
+                    + " then walked over to the museum. The exhibition on Art Nou"
+                    + "veau was excellent, although the audio guide was rather na"
+                    + "\u00EFve in places. \u00A9 2024 The Weekend Review. All ri"
+                    + "ghts reserved." },
+            { "Polish",
+                    "iso-8859-2 windows-1250",
+                    "Rz\u0105d przyj\u0105\u0142 we wtorek projekt ustawy, kt"
+                    + "\u00F3ry ma u\u0142atwi\u0107 m\u0142odym rodzinom zakup p"
+                    + "ierwszego mieszkania. Wed\u0142ug ministra rozwoju program"
+                    + " obejmie kredyty z dop\u0142at\u0105 pa\u0144stwa oraz ulg"
+                    + "i podatkowe. Eksperci ostrzegaj\u0105 jednak, \u017Ce zwi"
+                    + "\u0119kszony popyt mo\u017Ce doprowadzi\u0107 do dalszego "
+                    + "wzrostu cen nieruchomo\u015Bci w du\u017Cych miastach." },
+            { "Czech",
+                    "windows-1250 iso-8859-2",
+                    "Vl\u00E1da ve st\u0159edu schv\u00E1lila n\u00E1vrh z"
+                    + "\u00E1kona, kter\u00FD m\u00E1 zjednodu\u0161it stavebn"
+                    + "\u00ED \u0159\u00EDzen\u00ED. Podle ministra pro m\u00EDst"
+                    + "n\u00ED rozvoj se t\u00EDm v\u00FDrazn\u011B zkr\u00E1t"
+                    + "\u00ED doba pot\u0159ebn\u00E1 k z\u00EDsk\u00E1n\u00ED po"
+                    + "volen\u00ED. Opozice v\u0161ak upozor\u0148uje, \u017Ee zm"
+                    + "\u011Bny mohou oslabit ochranu p\u0159\u00EDrody a pr"
+                    + "\u00E1va obyvatel dot\u010Den\u00FDch obc\u00ED." },
+            { "Hungarian",
+                    "iso-8859-2",
+                    "A korm\u00E1ny szerd\u00E1n elfogadta a j\u00F6v\u0151 "
+                    + "\u00E9vi k\u00F6lts\u00E9gvet\u00E9s tervezet\u00E9t, amel"
+                    + "y jelent\u0151s \u00F6sszegeket ir\u00E1nyoz el\u0151 az e"
+                    + "g\u00E9szs\u00E9g\u00FCgy \u00E9s az oktat\u00E1s fejleszt"
+                    + "\u00E9s\u00E9re. A p\u00E9nz\u00FCgyminiszter szerint a ga"
+                    + "zdas\u00E1g n\u00F6veked\u00E9se lehet\u0151v\u00E9 teszi "
+                    + "a hi\u00E1ny cs\u00F6kkent\u00E9s\u00E9t. Az ellenz\u00E9k"
+                    + " b\u00EDr\u00E1lta a tervet, mert szerint\u00FCk nem kezel"
+                    + "i a magas infl\u00E1ci\u00F3t." },
+            { "Slovak",
+                    "windows-1250 iso-8859-2",
+                    "Vl\u00E1da v stredu schv\u00E1lila n\u00E1vrh z\u00E1kona,"
+                    + " ktor\u00FD m\u00E1 zjednodu\u0161i\u0165 zakladanie nov"
+                    + "\u00FDch firiem. Pod\u013Ea ministra hospod\u00E1rstva sa "
+                    + "t\u00FDm v\u00FDrazne skr\u00E1ti \u010Das potrebn\u00FD n"
+                    + "a z\u00EDskanie povolen\u00ED. Podnikate\u013Esk\u00E9 zv"
+                    + "\u00E4zy zmenu priv\u00EDtali, no po\u017Eaduj\u00FA aj "
+                    + "\u010Fal\u0161iu podporu pre mal\u00E9 a stredn\u00E9 podn"
+                    + "iky v regi\u00F3noch." },
+            { "Romanian",
+                    "windows-1250 iso-8859-2",
+                    "Guvernul a aprobat miercuri un proiect de lege care urm"
+                    + "\u0103re\u015Fte simplificarea procedurii de \u00EEnfiin"
+                    + "\u0163are a firmelor noi. Potrivit ministrului economiei, "
+                    + "timpul necesar pentru ob\u0163inerea autoriza\u0163iilor v"
+                    + "a sc\u0103dea considerabil. Asocia\u0163iile oamenilor de "
+                    + "afaceri au salutat m\u0103sura, dar cer sprijin suplimenta"
+                    + "r pentru \u00EEntreprinderile mici." },
+            { "Croatian",
+                    "windows-1250 iso-8859-2",
+                    "Vlada je u srijedu usvojila prijedlog zakona kojim se poje"
+                    + "dnostavljuje osnivanje novih poduze\u0107a. Prema rije"
+                    + "\u010Dima ministra gospodarstva, vrijeme potrebno za dobiv"
+                    + "anje dozvola znatno \u0107e se skratiti. Udruge poslodavac"
+                    + "a pozdravile su promjenu, ali tra\u017Ee i dodatnu potporu"
+                    + " za male tvrtke u manjim sredinama." },
+            { "Turkish",
+                    "windows-1254",
+                    "H\u00FCk\u00FCmet \u00E7ar\u015Famba g\u00FCn\u00FC a"
+                    + "\u00E7\u0131klad\u0131\u011F\u0131 yeni ekonomik paketle k"
+                    + "\u00FC\u00E7\u00FCk i\u015Fletmelere d\u00FC\u015F\u00FCk "
+                    + "faizli kredi deste\u011Fi sa\u011Flanaca\u011F\u0131n"
+                    + "\u0131 duyurdu. Bakan\u0131n a\u00E7\u0131klamas\u0131na g"
+                    + "\u00F6re ba\u015Fvurular \u00F6n\u00FCm\u00FCzdeki ay ba"
+                    + "\u015Flayacak ve destekten yakla\u015F\u0131k iki y\u00FCz"
+                    + " bin i\u015Fletme yararlanacak. Ekonomistler ise enflasyon"
+                    + "un kontrol alt\u0131na al\u0131nmas\u0131n\u0131n \u00F6nc"
+                    + "elikli olmas\u0131 gerekti\u011Fini s\u00F6yl\u00FCyor." },
+            { "Russian",
+                    "windows-1251 koi8-r ibm866 iso-8859-5",
+                    "\u041F\u0440\u0430\u0432\u0438\u0442\u0435\u043B\u044C"
+                    + "\u0441\u0442\u0432\u043E \u0432 \u0441\u0440\u0435\u0434"
+                    + "\u0443 \u043E\u0434\u043E\u0431\u0440\u0438\u043B\u043E "
+                    + "\u0437\u0430\u043A\u043E\u043D\u043E\u043F\u0440\u043E"
+                    + "\u0435\u043A\u0442, \u043A\u043E\u0442\u043E\u0440\u044B"
+                    + "\u0439 \u0434\u043E\u043B\u0436\u0435\u043D \u0443\u043F"
+                    + "\u0440\u043E\u0441\u0442\u0438\u0442\u044C \u043F\u043E"
+                    + "\u0440\u044F\u0434\u043E\u043A \u0440\u0435\u0433\u0438"
+                    + "\u0441\u0442\u0440\u0430\u0446\u0438\u0438 \u043D\u043E"
+                    + "\u0432\u044B\u0445 \u043F\u0440\u0435\u0434\u043F\u0440"
+                    + "\u0438\u044F\u0442\u0438\u0439. \u041F\u043E \u0441\u043B"
+                    + "\u043E\u0432\u0430\u043C \u043C\u0438\u043D\u0438\u0441"
+                    + "\u0442\u0440\u0430 \u044D\u043A\u043E\u043D\u043E\u043C"
+                    + "\u0438\u0447\u0435\u0441\u043A\u043E\u0433\u043E \u0440"
+                    + "\u0430\u0437\u0432\u0438\u0442\u0438\u044F, \u044D\u0442"
+                    + "\u043E \u043F\u043E\u0437\u0432\u043E\u043B\u0438\u0442 "
+                    + "\u0441\u043E\u043A\u0440\u0430\u0442\u0438\u0442\u044C "
+                    + "\u0441\u0440\u043E\u043A\u0438 \u043E\u0444\u043E\u0440"
+                    + "\u043C\u043B\u0435\u043D\u0438\u044F \u0434\u043E\u043A"
+                    + "\u0443\u043C\u0435\u043D\u0442\u043E\u0432 \u0432 \u043D"
+                    + "\u0435\u0441\u043A\u043E\u043B\u044C\u043A\u043E \u0440"
+                    + "\u0430\u0437. \u042D\u043A\u0441\u043F\u0435\u0440\u0442"
+                    + "\u044B \u043E\u0442\u043C\u0435\u0447\u0430\u044E\u0442, "
+                    + "\u0447\u0442\u043E \u0440\u0435\u0444\u043E\u0440\u043C"
+                    + "\u0430 \u043C\u043E\u0436\u0435\u0442 \u043F\u0440\u0438"
+                    + "\u0432\u043B\u0435\u0447\u044C \u0434\u043E\u043F\u043E"
+                    + "\u043B\u043D\u0438\u0442\u0435\u043B\u044C\u043D\u044B"
+                    + "\u0435 \u0438\u043D\u0432\u0435\u0441\u0442\u0438\u0446"
+                    + "\u0438\u0438 \u0432 \u0440\u0435\u0433\u0438\u043E\u043D"
+                    + "\u044B." },
+            { "Ukrainian",
+                    "windows-1251",
+                    "\u0423\u0440\u044F\u0434 \u0443 \u0441\u0435\u0440\u0435"
+                    + "\u0434\u0443 \u0441\u0445\u0432\u0430\u043B\u0438\u0432 "
+                    + "\u0437\u0430\u043A\u043E\u043D\u043E\u043F\u0440\u043E"
+                    + "\u0435\u043A\u0442, \u044F\u043A\u0438\u0439 \u043C\u0430"
+                    + "\u0454 \u0441\u043F\u0440\u043E\u0441\u0442\u0438\u0442"
+                    + "\u0438 \u043F\u043E\u0440\u044F\u0434\u043E\u043A \u0440"
+                    + "\u0435\u0454\u0441\u0442\u0440\u0430\u0446\u0456\u0457 "
+                    + "\u043D\u043E\u0432\u0438\u0445 \u043F\u0456\u0434\u043F"
+                    + "\u0440\u0438\u0454\u043C\u0441\u0442\u0432. \u0417\u0430 "
+                    + "\u0441\u043B\u043E\u0432\u0430\u043C\u0438 \u043C\u0456"
+                    + "\u043D\u0456\u0441\u0442\u0440\u0430 \u0435\u043A\u043E"
+                    + "\u043D\u043E\u043C\u0456\u043A\u0438, \u0446\u0435 \u0434"
+                    + "\u043E\u0437\u0432\u043E\u043B\u0438\u0442\u044C \u0441"
+                    + "\u043A\u043E\u0440\u043E\u0442\u0438\u0442\u0438 \u0442"
+                    + "\u0435\u0440\u043C\u0456\u043D\u0438 \u043E\u0444\u043E"
+                    + "\u0440\u043C\u043B\u0435\u043D\u043D\u044F \u0434\u043E"
+                    + "\u043A\u0443\u043C\u0435\u043D\u0442\u0456\u0432 \u0443 "
+                    + "\u043A\u0456\u043B\u044C\u043A\u0430 \u0440\u0430\u0437"
+                    + "\u0456\u0432. \u0415\u043A\u0441\u043F\u0435\u0440\u0442"
+                    + "\u0438 \u0437\u0430\u0437\u043D\u0430\u0447\u0430\u044E"
+                    + "\u0442\u044C, \u0449\u043E \u0440\u0435\u0444\u043E\u0440"
+                    + "\u043C\u0430 \u043C\u043E\u0436\u0435 \u0437\u0430\u043B"
+                    + "\u0443\u0447\u0438\u0442\u0438 \u0434\u043E\u0434\u0430"
+                    + "\u0442\u043A\u043E\u0432\u0456 \u0456\u043D\u0432\u0435"
+                    + "\u0441\u0442\u0438\u0446\u0456\u0457 \u0432 \u0440\u0435"
+                    + "\u0433\u0456\u043E\u043D\u0438 \u043A\u0440\u0430\u0457"
+                    + "\u043D\u0438." },
+            { "Bulgarian",
+                    "windows-1251",
+                    "\u041F\u0440\u0430\u0432\u0438\u0442\u0435\u043B\u0441"
+                    + "\u0442\u0432\u043E\u0442\u043E \u043E\u0434\u043E\u0431"
+                    + "\u0440\u0438 \u0432 \u0441\u0440\u044F\u0434\u0430 \u0437"
+                    + "\u0430\u043A\u043E\u043D\u043E\u043F\u0440\u043E\u0435"
+                    + "\u043A\u0442, \u043A\u043E\u0439\u0442\u043E \u0442\u0440"
+                    + "\u044F\u0431\u0432\u0430 \u0434\u0430 \u043E\u0431\u043B"
+                    + "\u0435\u043A\u0447\u0438 \u0440\u0435\u0433\u0438\u0441"
+                    + "\u0442\u0440\u0430\u0446\u0438\u044F\u0442\u0430 \u043D"
+                    + "\u0430 \u043D\u043E\u0432\u0438 \u0444\u0438\u0440\u043C"
+                    + "\u0438. \u0421\u043F\u043E\u0440\u0435\u0434 \u043C\u0438"
+                    + "\u043D\u0438\u0441\u0442\u044A\u0440\u0430 \u043D\u0430 "
+                    + "\u0438\u043A\u043E\u043D\u043E\u043C\u0438\u043A\u0430"
+                    + "\u0442\u0430 \u0442\u043E\u0432\u0430 \u0449\u0435 \u0441"
+                    + "\u044A\u043A\u0440\u0430\u0442\u0438 \u043D\u044F\u043A"
+                    + "\u043E\u043B\u043A\u043E \u043F\u044A\u0442\u0438 \u0441"
+                    + "\u0440\u043E\u043A\u043E\u0432\u0435\u0442\u0435 \u0437"
+                    + "\u0430 \u043F\u043E\u0434\u0430\u0432\u0430\u043D\u0435 "
+                    + "\u043D\u0430 \u0434\u043E\u043A\u0443\u043C\u0435\u043D"
+                    + "\u0442\u0438. \u0415\u043A\u0441\u043F\u0435\u0440\u0442"
+                    + "\u0438\u0442\u0435 \u0441\u043C\u044F\u0442\u0430\u0442, "
+                    + "\u0447\u0435 \u0440\u0435\u0444\u043E\u0440\u043C\u0430"
+                    + "\u0442\u0430 \u043C\u043E\u0436\u0435 \u0434\u0430 \u043F"
+                    + "\u0440\u0438\u0432\u043B\u0435\u0447\u0435 \u0434\u043E"
+                    + "\u043F\u044A\u043B\u043D\u0438\u0442\u0435\u043B\u043D"
+                    + "\u0438 \u0438\u043D\u0432\u0435\u0441\u0442\u0438\u0446"
+                    + "\u0438\u0438 \u0432 \u0440\u0435\u0433\u0438\u043E\u043D"
+                    + "\u0438\u0442\u0435." },
+            { "Greek",
+                    "windows-1253 iso-8859-7",
+                    "\u0397 \u03BA\u03C5\u03B2\u03AD\u03C1\u03BD\u03B7\u03C3"
+                    + "\u03B7 \u03B5\u03BD\u03AD\u03BA\u03C1\u03B9\u03BD\u03B5 "
+                    + "\u03C4\u03B7\u03BD \u03A4\u03B5\u03C4\u03AC\u03C1\u03C4"
+                    + "\u03B7 \u03BD\u03BF\u03BC\u03BF\u03C3\u03C7\u03AD\u03B4"
+                    + "\u03B9\u03BF \u03C0\u03BF\u03C5 \u03B1\u03C0\u03BB\u03BF"
+                    + "\u03C0\u03BF\u03B9\u03B5\u03AF \u03C4\u03B7 \u03B4\u03B9"
+                    + "\u03B1\u03B4\u03B9\u03BA\u03B1\u03C3\u03AF\u03B1 \u03AF"
+                    + "\u03B4\u03C1\u03C5\u03C3\u03B7\u03C2 \u03BD\u03AD\u03C9"
+                    + "\u03BD \u03B5\u03C0\u03B9\u03C7\u03B5\u03B9\u03C1\u03AE"
+                    + "\u03C3\u03B5\u03C9\u03BD. \u03A3\u03CD\u03BC\u03C6\u03C9"
+                    + "\u03BD\u03B1 \u03BC\u03B5 \u03C4\u03BF\u03BD \u03C5\u03C0"
+                    + "\u03BF\u03C5\u03C1\u03B3\u03CC \u0391\u03BD\u03AC\u03C0"
+                    + "\u03C4\u03C5\u03BE\u03B7\u03C2, \u03BF \u03C7\u03C1\u03CC"
+                    + "\u03BD\u03BF\u03C2 \u03AD\u03BA\u03B4\u03BF\u03C3\u03B7"
+                    + "\u03C2 \u03C4\u03C9\u03BD \u03B1\u03C0\u03B1\u03C1\u03B1"
+                    + "\u03AF\u03C4\u03B7\u03C4\u03C9\u03BD \u03B1\u03B4\u03B5"
+                    + "\u03B9\u03CE\u03BD \u03B8\u03B1 \u03BC\u03B5\u03B9\u03C9"
+                    + "\u03B8\u03B5\u03AF \u03C3\u03B7\u03BC\u03B1\u03BD\u03C4"
+                    + "\u03B9\u03BA\u03AC. \u039F\u03B9 \u03B5\u03BA\u03C0\u03C1"
+                    + "\u03CC\u03C3\u03C9\u03C0\u03BF\u03B9 \u03C4\u03C9\u03BD "
+                    + "\u03B5\u03C0\u03B1\u03B3\u03B3\u03B5\u03BB\u03BC\u03B1"
+                    + "\u03C4\u03B9\u03CE\u03BD \u03C7\u03B1\u03B9\u03C1\u03AD"
+                    + "\u03C4\u03B9\u03C3\u03B1\u03BD \u03C4\u03B7\u03BD \u03C0"
+                    + "\u03C1\u03C9\u03C4\u03BF\u03B2\u03BF\u03C5\u03BB\u03AF"
+                    + "\u03B1, \u03B1\u03BB\u03BB\u03AC \u03B6\u03B7\u03C4\u03BF"
+                    + "\u03CD\u03BD \u03C0\u03B5\u03C1\u03B9\u03C3\u03C3\u03CC"
+                    + "\u03C4\u03B5\u03C1\u03B1 \u03BC\u03AD\u03C4\u03C1\u03B1 "
+                    + "\u03C3\u03C4\u03AE\u03C1\u03B9\u03BE\u03B7\u03C2." },
+            { "Hebrew",
+                    "windows-1255",
+                    "\u05D4\u05DE\u05DE\u05E9\u05DC\u05D4 \u05D0\u05D9\u05E9"
+                    + "\u05E8\u05D4 \u05D1\u05D9\u05D5\u05DD \u05E8\u05D1\u05D9"
+                    + "\u05E2\u05D9 \u05D4\u05E6\u05E2\u05EA \u05D7\u05D5\u05E7 "
+                    + "\u05E9\u05E0\u05D5\u05E2\u05D3\u05D4 \u05DC\u05E4\u05E9"
+                    + "\u05D8 \u05D0\u05EA \u05D4\u05DC\u05D9\u05DA \u05D4\u05E8"
+                    + "\u05D9\u05E9\u05D5\u05DD \u05E9\u05DC \u05E2\u05E1\u05E7"
+                    + "\u05D9\u05DD \u05D7\u05D3\u05E9\u05D9\u05DD. \u05DC\u05D3"
+                    + "\u05D1\u05E8\u05D9 \u05E9\u05E8 \u05D4\u05DB\u05DC\u05DB"
+                    + "\u05DC\u05D4, \u05D4\u05E8\u05E4\u05D5\u05E8\u05DE\u05D4 "
+                    + "\u05EA\u05E7\u05E6\u05E8 \u05D1\u05D0\u05D5\u05E4\u05DF "
+                    + "\u05DE\u05E9\u05DE\u05E2\u05D5\u05EA\u05D9 \u05D0\u05EA "
+                    + "\u05D4\u05D6\u05DE\u05DF \u05D4\u05D3\u05E8\u05D5\u05E9 "
+                    + "\u05DC\u05E7\u05D1\u05DC\u05EA \u05D4\u05D0\u05D9\u05E9"
+                    + "\u05D5\u05E8\u05D9\u05DD. \u05D0\u05E8\u05D2\u05D5\u05E0"
+                    + "\u05D9 \u05D4\u05E2\u05E1\u05E7\u05D9\u05DD \u05D4\u05E7"
+                    + "\u05D8\u05E0\u05D9\u05DD \u05D1\u05D9\u05E8\u05DB\u05D5 "
+                    + "\u05E2\u05DC \u05D4\u05DE\u05D4\u05DC\u05DA, \u05D0\u05DA "
+                    + "\u05D1\u05D9\u05E7\u05E9\u05D5 \u05E6\u05E2\u05D3\u05D9"
+                    + "\u05DD \u05E0\u05D5\u05E1\u05E4\u05D9\u05DD \u05DC\u05D4"
+                    + "\u05E7\u05DC\u05EA \u05D4\u05E0\u05D8\u05DC \u05D4\u05D1"
+                    + "\u05D9\u05E8\u05D5\u05E7\u05E8\u05D8\u05D9." },
+            { "Arabic",
+                    "windows-1256 iso-8859-6",
+                    "\u0648\u0627\u0641\u0642\u062A \u0627\u0644\u062D\u0643"
+                    + "\u0648\u0645\u0629 \u064A\u0648\u0645 \u0627\u0644\u0623"
+                    + "\u0631\u0628\u0639\u0627\u0621 \u0639\u0644\u0649 \u0645"
+                    + "\u0634\u0631\u0648\u0639 \u0642\u0627\u0646\u0648\u0646 "
+                    + "\u064A\u0647\u062F\u0641 \u0625\u0644\u0649 \u062A\u0628"
+                    + "\u0633\u064A\u0637 \u0625\u062C\u0631\u0627\u0621\u0627"
+                    + "\u062A \u062A\u0633\u062C\u064A\u0644 \u0627\u0644\u0634"
+                    + "\u0631\u0643\u0627\u062A \u0627\u0644\u062C\u062F\u064A"
+                    + "\u062F\u0629. \u0648\u0642\u0627\u0644 \u0648\u0632\u064A"
+                    + "\u0631 \u0627\u0644\u0627\u0642\u062A\u0635\u0627\u062F "
+                    + "\u0625\u0646 \u0627\u0644\u0625\u0635\u0644\u0627\u062D "
+                    + "\u0633\u064A\u0642\u0644\u0635 \u0628\u0634\u0643\u0644 "
+                    + "\u0643\u0628\u064A\u0631 \u0627\u0644\u0648\u0642\u062A "
+                    + "\u0627\u0644\u0644\u0627\u0632\u0645 \u0644\u0644\u062D"
+                    + "\u0635\u0648\u0644 \u0639\u0644\u0649 \u0627\u0644\u062A"
+                    + "\u0631\u0627\u062E\u064A\u0635. \u0648\u0631\u062D\u0628"
+                    + "\u062A \u063A\u0631\u0641 \u0627\u0644\u062A\u062C\u0627"
+                    + "\u0631\u0629 \u0628\u0647\u0630\u0647 \u0627\u0644\u062E"
+                    + "\u0637\u0648\u0629\u060C \u0644\u0643\u0646\u0647\u0627 "
+                    + "\u0637\u0627\u0644\u0628\u062A \u0628\u0645\u0632\u064A"
+                    + "\u062F \u0645\u0646 \u0627\u0644\u0625\u062C\u0631\u0627"
+                    + "\u0621\u0627\u062A \u0644\u062F\u0639\u0645 \u0627\u0644"
+                    + "\u0645\u0634\u0627\u0631\u064A\u0639 \u0627\u0644\u0635"
+                    + "\u063A\u064A\u0631\u0629." },
+            { "Thai",
+                    "windows-874",
+                    "\u0E23\u0E31\u0E10\u0E1A\u0E32\u0E25\u0E44\u0E14\u0E49"
+                    + "\u0E2D\u0E19\u0E38\u0E21\u0E31\u0E15\u0E34\u0E23\u0E48"
+                    + "\u0E32\u0E07\u0E01\u0E0E\u0E2B\u0E21\u0E32\u0E22\u0E40"
+                    + "\u0E21\u0E37\u0E48\u0E2D\u0E27\u0E31\u0E19\u0E1E\u0E38"
+                    + "\u0E18 \u0E0B\u0E36\u0E48\u0E07\u0E21\u0E35\u0E40\u0E1B"
+                    + "\u0E49\u0E32\u0E2B\u0E21\u0E32\u0E22\u0E40\u0E1E\u0E37"
+                    + "\u0E48\u0E2D\u0E25\u0E14\u0E02\u0E31\u0E49\u0E19\u0E15"
+                    + "\u0E2D\u0E19\u0E01\u0E32\u0E23\u0E08\u0E14\u0E17\u0E30"
+                    + "\u0E40\u0E1A\u0E35\u0E22\u0E19\u0E18\u0E38\u0E23\u0E01"
+                    + "\u0E34\u0E08\u0E43\u0E2B\u0E21\u0E48 \u0E23\u0E31\u0E10"
+                    + "\u0E21\u0E19\u0E15\u0E23\u0E35\u0E27\u0E48\u0E32\u0E01"
+                    + "\u0E32\u0E23\u0E01\u0E23\u0E30\u0E17\u0E23\u0E27\u0E07"
+                    + "\u0E1E\u0E32\u0E13\u0E34\u0E0A\u0E22\u0E4C\u0E01\u0E25"
+                    + "\u0E48\u0E32\u0E27\u0E27\u0E48\u0E32 \u0E01\u0E32\u0E23"
+                    + "\u0E1B\u0E0F\u0E34\u0E23\u0E39\u0E1B\u0E04\u0E23\u0E31"
+                    + "\u0E49\u0E07\u0E19\u0E35\u0E49\u0E08\u0E30\u0E0A\u0E48"
+                    + "\u0E27\u0E22\u0E25\u0E14\u0E23\u0E30\u0E22\u0E30\u0E40"
+                    + "\u0E27\u0E25\u0E32\u0E43\u0E19\u0E01\u0E32\u0E23\u0E02"
+                    + "\u0E2D\u0E2D\u0E19\u0E38\u0E0D\u0E32\u0E15\u0E25\u0E07"
+                    + "\u0E2D\u0E22\u0E48\u0E32\u0E07\u0E21\u0E32\u0E01 \u0E1C"
+                    + "\u0E39\u0E49\u0E1B\u0E23\u0E30\u0E01\u0E2D\u0E1A\u0E01"
+                    + "\u0E32\u0E23\u0E23\u0E32\u0E22\u0E22\u0E48\u0E2D\u0E22"
+                    + "\u0E15\u0E48\u0E32\u0E07\u0E41\u0E2A\u0E14\u0E07\u0E04"
+                    + "\u0E27\u0E32\u0E21\u0E22\u0E34\u0E19\u0E14\u0E35 \u0E41"
+                    + "\u0E15\u0E48\u0E01\u0E47\u0E02\u0E2D\u0E43\u0E2B\u0E49"
+                    + "\u0E21\u0E35\u0E21\u0E32\u0E15\u0E23\u0E01\u0E32\u0E23"
+                    + "\u0E2A\u0E19\u0E31\u0E1A\u0E2A\u0E19\u0E38\u0E19\u0E40"
+                    + "\u0E1E\u0E34\u0E48\u0E21\u0E40\u0E15\u0E34\u0E21" },
+            { "Japanese",
+                    "shift_jis euc-jp",
+                    "\u653F\u5E9C\u306F\u6C34\u66DC\u65E5\u3001\u65B0\u3057"
+                    + "\u3044\u4F1A\u793E\u306E\u8A2D\u7ACB\u624B\u7D9A\u304D"
+                    + "\u3092\u7C21\u5358\u306B\u3059\u308B\u305F\u3081\u306E"
+                    + "\u6CD5\u6848\u3092\u95A3\u8B70\u6C7A\u5B9A\u3057\u305F"
+                    + "\u3002\u7D4C\u6E08\u7523\u696D\u5927\u81E3\u306B\u3088"
+                    + "\u308B\u3068\u3001\u3053\u306E\u6539\u9769\u306B\u3088"
+                    + "\u308A\u5FC5\u8981\u306A\u8A31\u53EF\u3092\u5F97\u308B"
+                    + "\u307E\u3067\u306E\u6642\u9593\u304C\u5927\u5E45\u306B"
+                    + "\u77ED\u304F\u306A\u308B\u3068\u3044\u3046\u3002\u4E2D"
+                    + "\u5C0F\u4F01\u696D\u306E\u56E3\u4F53\u306F\u3053\u306E"
+                    + "\u52D5\u304D\u3092\u6B53\u8FCE\u3057\u305F\u304C\u3001"
+                    + "\u3055\u3089\u306A\u308B\u652F\u63F4\u7B56\u3092\u6C42"
+                    + "\u3081\u3066\u3044\u308B\u3002" },
+            { "Chinese (simplified)",
+                    "gbk",
+                    "\u653F\u5E9C\u661F\u671F\u4E09\u6279\u51C6\u4E86\u4E00"
+                    + "\u9879\u65E8\u5728\u7B80\u5316\u65B0\u4F01\u4E1A\u6CE8"
+                    + "\u518C\u7A0B\u5E8F\u7684\u6CD5\u5F8B\u8349\u6848\u3002"
+                    + "\u7ECF\u6D4E\u90E8\u957F\u8868\u793A\uFF0C\u8FD9\u9879"
+                    + "\u6539\u9769\u5C06\u5927\u5927\u7F29\u77ED\u83B7\u5F97"
+                    + "\u8BB8\u53EF\u6240\u9700\u7684\u65F6\u95F4\u3002\u4E2D"
+                    + "\u5C0F\u4F01\u4E1A\u534F\u4F1A\u5BF9\u8FD9\u4E00\u4E3E"
+                    + "\u63AA\u8868\u793A\u6B22\u8FCE\uFF0C\u4F46\u540C\u65F6"
+                    + "\u547C\u5401\u653F\u5E9C\u51FA\u53F0\u66F4\u591A\u652F"
+                    + "\u6301\u63AA\u65BD\uFF0C\u4EE5\u51CF\u8F7B\u4F01\u4E1A"
+                    + "\u7684\u884C\u653F\u8D1F\u62C5\u3002" },
+            { "Chinese (traditional)",
+                    "big5",
+                    "\u653F\u5E9C\u661F\u671F\u4E09\u6279\u51C6\u4E86\u4E00"
+                    + "\u9805\u65E8\u5728\u7C21\u5316\u65B0\u4F01\u696D\u8A3B"
+                    + "\u518A\u7A0B\u5E8F\u7684\u6CD5\u5F8B\u8349\u6848\u3002"
+                    + "\u7D93\u6FDF\u90E8\u9577\u8868\u793A\uFF0C\u9019\u9805"
+                    + "\u6539\u9769\u5C07\u5927\u5927\u7E2E\u77ED\u7372\u5F97"
+                    + "\u8A31\u53EF\u6240\u9700\u7684\u6642\u9593\u3002\u4E2D"
+                    + "\u5C0F\u4F01\u696D\u5354\u6703\u5C0D\u9019\u4E00\u8209"
+                    + "\u63AA\u8868\u793A\u6B61\u8FCE\uFF0C\u4F46\u540C\u6642"
+                    + "\u547C\u7C72\u653F\u5E9C\u51FA\u53F0\u66F4\u591A\u652F"
+                    + "\u6301\u63AA\u65BD\uFF0C\u4EE5\u6E1B\u8F15\u4F01\u696D"
+                    + "\u7684\u884C\u653F\u8CA0\u64D4\u3002" },
+            { "Korean",
+                    "euc-kr",
+                    "\uC815\uBD80\uB294 \uC218\uC694\uC77C \uC0C8\uB85C\uC6B4 "
+                    + "\uAE30\uC5C5\uC758 \uC124\uB9BD \uC808\uCC28\uB97C \uAC04"
+                    + "\uC18C\uD654\uD558\uAE30 \uC704\uD55C \uBC95\uC548\uC744 "
+                    + "\uC2B9\uC778\uD588\uB2E4. \uACBD\uC81C\uBD80 \uC7A5\uAD00"
+                    + "\uC5D0 \uB530\uB974\uBA74 \uC774\uBC88 \uAC1C\uD601\uC73C"
+                    + "\uB85C \uD544\uC694\uD55C \uD5C8\uAC00\uB97C \uBC1B\uB294 "
+                    + "\uB370 \uAC78\uB9AC\uB294 \uC2DC\uAC04\uC774 \uD06C\uAC8C "
+                    + "\uC904\uC5B4\uB4E4 \uAC83\uC774\uB77C\uACE0 \uD55C\uB2E4. "
+                    + "\uC911\uC18C\uAE30\uC5C5 \uB2E8\uCCB4\uB4E4\uC740 \uC774"
+                    + "\uB7EC\uD55C \uC870\uCE58\uB97C \uD658\uC601\uD588\uC9C0"
+                    + "\uB9CC \uCD94\uAC00\uC801\uC778 \uC9C0\uC6D0 \uB300\uCC45"
+                    + "\uC744 \uC694\uAD6C\uD588\uB2E4." } };
+
+    private static class Document implements ByteReadable {
+
+        final String name;
+
+        final Charset charset;
+
+        final byte[] bytes;
+
+        int position;
+
+        Document(String name, Charset charset, byte[] bytes) {
+            this.name = name;
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+
+        public int readByte() {
+            if (position == bytes.length) {
+                return -1;
+            }
+            return bytes[position++] & 0xFF;
+        }
+    }
+
+    private static byte[] encode(String html, Charset charset) {
+        byte[] bytes = html.getBytes(charset);
+        byte[] window = new byte[Math.min(bytes.length, SNIFFING_LIMIT)];
+        System.arraycopy(bytes, 0, window, 0, window.length);
+        return window;
+    }
+
+    private static List<Document> documents() {
+        List<Document> documents = new ArrayList<Document>();
+        for (String[] sample : SAMPLES) {
+            String text = sample[2];
+            StringBuilder sb = new StringBuilder();
+            sb.append("<!DOCTYPE html><html><head><title>");
+            sb.append(text.substring(0, 24));
+            sb.append("</title></head><body>\n");
+            while (sb.length() < SNIFFING_LIMIT) {
+                sb.append("<p class=\"text\">");
+                sb.append(text);
+                sb.append("</p>\n");
+            }
+            String whole = sb.toString();
+            String title = "<!DOCTYPE html><title>" + text.substring(0, 24)
+                    + "</title>";
+            String[] labels = (sample[1] + " utf-8").split(" ");
+            for (String label : labels) {
+                Charset charset = Charset.forName(label);
+                documents.add(new Document(sample[0] + " in " + label,
+                        charset, encode(whole, charset)));
+                documents.add(new Document(sample[0] + " title in " + label,
+                        charset, encode(title, charset)));
+            }
+        }
+        return documents;
+    }
+
+    private static String decode(Charset charset, byte[] bytes) {
+        CharsetDecoder decoder = charset.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            return decoder.decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isRight(Document document, Encoding guess) {
+        Charset charset = Charset.forName(guess == null ? "windows-1252"
+                : guess.getCanonName());
+        return decode(charset, document.bytes).equals(
+                decode(document.charset, document.bytes));
+    }
+
+    private static Encoding icu(Document document) throws IOException {
+        document.position = 0;
+        return (new IcuDetectorSniffer(document)).sniff();
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean verbose = args.length > 0 && "-v".equals(args[0]);
+        List<Document> documents = documents();
+        StatisticalSniffer sniffer = new StatisticalSniffer();
+        boolean haveIcu = true;
+        int statisticalRight = 0;
+        int icuRight = 0;
+        for (Document document : documents) {
+            Encoding statistical = sniffer.sniff(document.bytes, 0,
+                    document.bytes.length);
+            boolean right = isRight(document, statistical);
+            if (right) {
+                statisticalRight++;
+            }
+            String icuName = "";
+            if (haveIcu) {
+                try {
+                    Encoding icu = icu(document);
+                    if (isRight(document, icu)) {
+                        icuRight++;
+                    }
+                    icuName = ", ICU: " + (icu == null ? "-" : icu.getCanonName());
+                } catch (LinkageError e) {
+                    haveIcu = false;
+                }
+            }
+            if (verbose || !right) {
+                System.out.println((right ? "  " : "! ") + document.name
+                        + ": " + (statistical == null ? "-"
+                                : statistical.getCanonName()) + icuName);
+            }
+        }
+        System.out.println("statistical: " + statisticalRight + "/"
+                + documents.size() + " right");
+        if (haveIcu) {
+            System.out.println("ICU: " + icuRight + "/" + documents.size()
+                    + " right");
+        } else {
+            System.out.println("ICU: not on the class path");
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                for (Document document : documents) {
+                    document.position = 0;
+                    sniffer.sniff(document);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.println("statistical: "
+                    + (elapsed / ((long) ROUNDS * documents.size()))
+                    + " ns per document");
+        }
+        if (haveIcu) {
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < ROUNDS / 10; i++) {
+                    for (Document document : documents) {
+                        icu(document);
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.println("ICU: "
+                        + (elapsed / ((long) ROUNDS / 10 * documents.size()))
+                        + " ns per document");
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import nu.validator.htmlparser.common.Heuristics;
+import nu.validator.htmlparser.io.Confidence;
+import nu.validator.htmlparser.io.Encoding;
+import nu.validator.htmlparser.io.EncodingSniffer;
+import nu.validator.htmlparser.io.HtmlInputStreamReader;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that <code>EncodingSniffer</code> finds the same encoding as
+ * <code>HtmlInputStreamReader</code> for the same bytes, whether they come
+ * in an array at an offset, a heap buffer or a direct buffer, and when one
+ * sniffer is reused for every document.
+ */
+public class EncodingSnifferTester {
+
+    private static final String[] TESTS = {
+            "",
+            "<",
+            "<meta charset=\"koi8-r\">",
+            "<meta charset='utf-16'>",
+            "<meta charset=x-user-defined>",
+            "<meta charset=bogus><meta charset=iso-8859-7>",
+            "<meta http-equiv=\"Content-Type\" "
+                    + "content=\"text/html; charset=shift_jis\">",
+            "<meta content='text/html; charset=euc-jp' "
+                    + "http-equiv=content-type>",
+            "<meta content='text/html; charset=euc-kr'>",
+            "<!-- <meta charset=koi8-r> --><meta charset=gbk>",
+            "<title><meta charset=big5></title>",
+            "<!doctype html><html lang=ru><head><meta charset=windows-1251>",
+            "<meta name=x content=y charset=iso-8859-15 charset=koi8-u>",
+            "<meta charset=\"   utf-8   \">",
+            "<?xml version='1.0' encoding='iso-8859-5'?><p>" };
+
+    private static final String RUSSIAN = "\u0421\u044A\u0435\u0448\u044C "
+            + "\u0436\u0435 \u0435\u0449\u0451 \u044D\u0442\u0438\u0445 "
+            + "\u043C\u044F\u0433\u043A\u0438\u0445 "
+            + "\u0444\u0440\u0430\u043D\u0446\u0443\u0437"
+            + "\u0441\u043A\u0438\u0445 "
+            + "\u0431\u0443\u043B\u043E\u043A, \u0434\u0430 "
+            + "\u0432\u044B\u043F\u0435\u0439 \u0447\u0430\u044E. ";
+
+    private static final Heuristics[] HEURISTICS = { Heuristics.NONE,
+            Heuristics.STATISTICAL };
+
+    /**
+     * Returns the documents: the handwritten ones, one whose
+     * <code>meta</code> comes after the first 1024 bytes, undeclared Russian
+     * text in two encodings, and the encoded documents of
+     * <code>DifferentialCorpus</code>.
+     */
+    private static byte[][] documents() throws UnsupportedEncodingException {
+        byte[][] sniffed = DifferentialCorpus.sniffedDocuments();
+        byte[][] docs = new byte[TESTS.length + 3 + sniffed.length][];
+        for (int i = 0; i < TESTS.length; i++) {
+            docs[i] = TESTS[i].getBytes("US-ASCII");
+        }
+        StringBuilder late = new StringBuilder();
+        while (late.length() < 1024) {
+            late.append("<p>x</p>");
+        }
+        late.append("<meta charset=koi8-r>");
+        docs[TESTS.length] = late.toString().getBytes("US-ASCII");
+        StringBuilder russian = new StringBuilder("<p>");
+        for (int i = 0; i < 20; i++) {
+            russian.append(RUSSIAN);
+        }
+        docs[TESTS.length + 1] = russian.toString().getBytes("KOI8-R");
+        docs[TESTS.length + 2] = russian.toString().getBytes("windows-1251");
+        System.arraycopy(sniffed, 0, docs, TESTS.length + 3, sniffed.length);
+        return docs;
+    }
+
+    private static boolean hasBom(byte[] doc) {
+        if (doc.length >= 3 && doc[0] == (byte) 0xEF && doc[1] == (byte) 0xBB
+                && doc[2] == (byte) 0xBF) {
+            return true;
+        }
+        return doc.length >= 2
+                && ((doc[0] == (byte) 0xFF && doc[1] == (byte) 0xFE)
+                        || (doc[0] == (byte) 0xFE && doc[1] == (byte) 0xFF));
+    }
+
+    /**
+     * Returns what <code>HtmlInputStreamReader</code> makes of a document:
+     * the charset it decodes with and whether the encoding was declared.
+     */
+    private static String read(byte[] doc, Heuristics heuristics)
+            throws IOException, SAXException {
+        ListErrorHandler leh = new ListErrorHandler();
+        HtmlInputStreamReader reader = new HtmlInputStreamReader(
+                new ByteArrayInputStream(doc), leh, null, null, heuristics);
+        boolean declared = true;
+        for (String err : leh.getErrors()) {
+            if (err.indexOf("was not declared") != -1) {
+                declared = false;
+            }
+        }
+        reader.close();
+        return describe(reader.getCharset().name(), declared,
+                hasBom(doc) ? Confidence.CERTAIN : Confidence.TENTATIVE);
+    }
+
+    private static String describe(String charset, boolean declared,
+            Confidence confidence) {
+        return charset + (declared ? ", declared, " : ", not declared, ")
+                + confidence + "\n";
+    }
+
+    private static String describe(EncodingSniffer sniffer, Encoding encoding) {
+        return describe(encoding.newDecoder().charset().name(),
+                sniffer.isDeclared(), sniffer.getConfidence());
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    private static boolean unmoved(String what, ByteBuffer buffer) {
+        if (buffer.position() == 5) {
+            return true;
+        }
+        System.err.println("Failure.\nData:\n" + what
+                + "the sniffer moved the buffer.");
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException, SAXException {
+        byte[][] docs = documents();
+        boolean failed = false;
+        for (int h = 0; h < HEURISTICS.length; h++) {
+            EncodingSniffer sniffer = new EncodingSniffer(HEURISTICS[h]);
+            for (int i = 0; i < docs.length; i++) {
+                byte[] doc = docs[i];
+                String what = "document " + i + ", " + HEURISTICS[h] + ", ";
+                String expected = read(doc, HEURISTICS[h]);
+                byte[] padded = new byte[doc.length + 7];
+                System.arraycopy(doc, 0, padded, 5, doc.length);
+                if (!check(what + "array", expected, describe(sniffer,
+                        sniffer.sniff(padded, 5, doc.length)))) {
+                    failed = true;
+                }
+                ByteBuffer heap = ByteBuffer.wrap(padded, 5, doc.length);
+                if (!check(what + "heap buffer", expected, describe(sniffer,
+                        sniffer.sniff(heap))) || !unmoved(what, heap)) {
+                    failed = true;
+                }
+                ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+                direct.put(padded);
+                direct.position(5);
+                direct.limit(5 + doc.length);
+                if (!check(what + "direct buffer", expected, describe(sniffer,
+                        sniffer.sniff(direct))) || !unmoved(what, direct)) {
+                    failed = true;
+                }
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
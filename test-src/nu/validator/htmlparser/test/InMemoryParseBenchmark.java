@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compares parsing a document held in memory through a
+ * <code>StringReader</code> with parsing the same characters from an array
+ * in place, on the synthetic documents of <code>ThroughputBenchmark</code>.
+ */
+public class InMemoryParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 100;
+
+    private static final int MEASURED_ROUNDS = 100;
+
+    private final HtmlParser parser;
+
+    public InMemoryParseBenchmark() {
+        parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+    }
+
+    private void parse(String doc, char[] buf, boolean inPlace)
+            throws SAXException, IOException {
+        if (inPlace) {
+            parser.parse(buf, 0, buf.length);
+        } else {
+            parser.parse(new InputSource(new StringReader(doc)));
+        }
+    }
+
+    private long best(String doc, char[] buf, boolean inPlace)
+            throws SAXException, IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse(doc, buf, inPlace);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parse(doc, buf, inPlace);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private void run(String name, String doc) throws SAXException,
+            IOException {
+        char[] buf = doc.toCharArray();
+        long inPlace = best(doc, buf, true);
+        long reader = best(doc, buf, false);
+        System.out.println(name + ": " + doc.length() + " chars, Reader "
+                + Math.round(doc.length() * 1000.0 / reader)
+                + " Mchars/s, in place "
+                + Math.round(doc.length() * 1000.0 / inPlace) + " Mchars/s");
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        InMemoryParseBenchmark benchmark = new InMemoryParseBenchmark();
+        benchmark.run("text-heavy", ThroughputBenchmark.textHeavy());
+        benchmark.run("script-heavy", ThroughputBenchmark.scriptHeavy());
+        benchmark.run("custom-elements", ThroughputBenchmark.customElements());
+    }
+}
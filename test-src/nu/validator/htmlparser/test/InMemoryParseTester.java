@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that parsing a document from a <code>char[]</code> or a
+ * <code>CharSequence</code> gives the same tree and errors as parsing it
+ * through a <code>Reader</code>, and that the caller's array is left as it
+ * was even when the parser alters the infoset.
+ */
+public class InMemoryParseTester {
+
+    private static final String[] TESTS = {
+            "",
+            "<!DOCTYPE html><title>t</title><p>a\r\nb\rc\u0000d",
+            "<p>&amp &ampx &#x110000; &#0; &notin; &notit;",
+            "<p>\u0001\uFFFE\uD800x\uDC00</p><!-- -- -->",
+            "<svg><foo:bar xmlns:foo=x foo:baz=y></svg><math><mi></math>",
+            "<table><tr><td>a<td>b</table><b><p>c</b>d" };
+
+    /**
+     * Returns a document longer than the 2048 chars the parser tokenizes at
+     * a time, so that line breaks, character references and tags fall on
+     * the window boundaries.
+     */
+    private static String longDocument() {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html>");
+        int i = 0;
+        while (sb.length() < 9000) {
+            sb.append("<p title='t").append(i++).append("'>caf\u00E9 &amp; ");
+            sb.append("&copy; &#x41; x\r\n<!-- c --></p>\r");
+        }
+        return sb.toString();
+    }
+
+    private static String parse(HtmlParser htmlParser, Object doc)
+            throws IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        try {
+            if (doc instanceof InputSource) {
+                htmlParser.parse((InputSource) doc);
+            } else if (doc instanceof char[]) {
+                char[] buf = (char[]) doc;
+                htmlParser.parse(buf, 3, buf.length - 6);
+            } else {
+                htmlParser.parseCharSequence((CharSequence) doc);
+            }
+        } catch (SAXException e) {
+            sw.write(e.toString());
+        } catch (AssertionError e) {
+            // The tokenizer asserts on some malformed input under -ea.
+            sw.write(e.toString());
+        }
+        for (String err : leh.getErrors()) {
+            sw.write(err);
+            sw.write('\n');
+        }
+        return sw.toString();
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    private static boolean check(HtmlParser htmlParser, String doc)
+            throws IOException {
+        boolean ok = true;
+        String expected = parse(htmlParser, new InputSource(new StringReader(
+                doc)));
+        char[] buf = ("xyz" + doc + "xyz").toCharArray();
+        char[] copy = buf.clone();
+        String what = doc + "\n" + htmlParser.getContentNonXmlCharPolicy()
+                + ", ";
+        ok &= check(what + "char[]", expected, parse(htmlParser, buf));
+        if (!Arrays.equals(copy, buf)) {
+            System.err.println("Failure.\nData:\n" + what
+                    + "the caller's array was changed.");
+            ok = false;
+        }
+        ok &= check(what + "String", expected, parse(htmlParser, doc));
+        ok &= check(what + "StringBuilder", expected, parse(htmlParser,
+                new StringBuilder(doc)));
+        ok &= check(what + "CharBuffer", expected, parse(htmlParser,
+                CharBuffer.wrap(buf, 3, doc.length()).slice()));
+        return ok;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] corpus = DifferentialCorpus.documents(500, 11);
+        String[] docs = new String[TESTS.length + 1 + corpus.length];
+        System.arraycopy(TESTS, 0, docs, 0, TESTS.length);
+        docs[TESTS.length] = longDocument();
+        System.arraycopy(corpus, 0, docs, TESTS.length + 1, corpus.length);
+        HtmlParser allow = new HtmlParser(XmlViolationPolicy.ALLOW);
+        HtmlParser alter = new HtmlParser(XmlViolationPolicy.ALTER_INFOSET);
+        boolean failed = false;
+        for (int i = 0; i < docs.length; i++) {
+            if (!check(allow, docs[i])) {
+                failed = true;
+            }
+            if (!check(alter, docs[i])) {
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
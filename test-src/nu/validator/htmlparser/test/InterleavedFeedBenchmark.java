@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+import nu.validator.htmlparser.impl.Tokenizer;
+import nu.validator.htmlparser.io.AsyncDriver;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Feeds many documents from one thread, one network-sized chunk at a time
+ * in round-robin order, as a fetcher driven by a selector would. Reports the
+ * throughput and the heap used per document in flight. The first argument
+ * is the number of documents (default 1000).
+ */
+public class InterleavedFeedBenchmark {
+
+    private static final int CHUNK = 1460;
+
+    private static final Writer DISCARD = new Writer() {
+        @Override public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override public void flush() {
+        }
+
+        @Override public void close() {
+        }
+    };
+
+    /**
+     * A page of about 28 KB with a meta charset and some non-ASCII text.
+     */
+    private static String page() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><meta charset=utf-8><title>Feed</title>");
+        for (int i = 0; i < 200; i++) {
+            sb.append("<p class=entry>Na\u00EFve caf\u00E9 r\u00E9sum\u00E9s, ");
+            sb.append("sed do eiusmod tempor incididunt ut labore et dolore magna aliqua ");
+            sb.append("<a href=\"/item/").append(i).append("\">more</a>.</p>\n");
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        int count = args.length == 0 ? 1000 : Integer.parseInt(args[0]);
+        byte[] doc = page().getBytes("UTF-8");
+        for (int round = 0; round < 3; round++) {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            AsyncDriver[] drivers = new AsyncDriver[count];
+            for (int i = 0; i < count; i++) {
+                drivers[i] = new AsyncDriver(new Tokenizer(new TokenPrinter(
+                        DISCARD)));
+                drivers[i].start(null, null);
+            }
+            long start = System.nanoTime();
+            long heapInFlight = 0;
+            for (int offset = 0; offset < doc.length; offset += CHUNK) {
+                int len = Math.min(CHUNK, doc.length - offset);
+                for (int i = 0; i < count; i++) {
+                    drivers[i].feed(ByteBuffer.wrap(doc, offset, len));
+                }
+                if (offset == 0) {
+                    System.gc();
+                    heapInFlight = runtime.totalMemory()
+                            - runtime.freeMemory() - heapBefore;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                drivers[i].finish();
+            }
+            long elapsed = System.nanoTime() - start;
+            double bytesPerSecond = ((double) doc.length) * count
+                    * 1000000000.0 / elapsed;
+            System.out.println(count + " documents of " + doc.length
+                    + " bytes: " + Math.round(bytesPerSecond / 1000000.0)
+                    + " MB/s, " + (heapInFlight / count)
+                    + " bytes of heap per document in flight");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses a windows-1251 page whose <code>meta</code> comes after a large
+ * inline script. In one variant, everything before the body is ASCII, so the
+ * encoding can change in place. In the other, the title has a non-ASCII
+ * byte, so the page has to be parsed again.
+ */
+public class LateMetaBenchmark {
+
+    private static final int WARMUP_ROUNDS = 300;
+
+    private static final int MEASURED_ROUNDS = 300;
+
+    private final HtmlParser parser;
+
+    public LateMetaBenchmark() {
+        parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+    }
+
+    private static byte[] page(boolean asciiTitle) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><title>");
+        sb.append(asciiTitle ? "News" : "\u041D\u043E\u0432\u043E\u0441\u0442\u0438");
+        sb.append("</title>\n");
+        for (int i = 0; i < 600; i++) {
+            sb.append("<link rel=stylesheet href=\"/static/css/site-");
+            sb.append(i);
+            sb.append(".css\">\n");
+        }
+        sb.append("<script>\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append("window.config");
+            sb.append(i);
+            sb.append(" = { id: ");
+            sb.append(i);
+            sb.append(", enabled: true, name: 'widget' };\n");
+        }
+        sb.append("</script>\n");
+        sb.append("<meta charset=windows-1251></head><body>\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append("<p>\u041F\u0440\u0438\u0432\u0435\u0442, ");
+            sb.append("\u043C\u0438\u0440! <a href=\"/a/");
+            sb.append(i);
+            sb.append("\">\u0414\u0430\u043B\u0435\u0435</a></p>\n");
+        }
+        sb.append("</body></html>\n");
+        byte[] bytes = new byte[sb.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = sb.charAt(i);
+            // The letters used are in the windows-1251 range U+0410..U+044F.
+            bytes[i] = (byte) (c < 0x80 ? c : c - 0x0410 + 0xC0);
+        }
+        return bytes;
+    }
+
+    private long best(byte[] page) throws SAXException, IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parser.parse(new InputSource(new ByteArrayInputStream(page)));
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parser.parse(new InputSource(new ByteArrayInputStream(page)));
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private void run(String name, byte[] page) throws SAXException,
+            IOException {
+        long reparses = parser.getReparseCount();
+        long inPlace = parser.getInPlaceEncodingChangeCount();
+        long best = best(page);
+        int rounds = WARMUP_ROUNDS + MEASURED_ROUNDS;
+        System.out.println(name + ": " + page.length + " bytes, "
+                + Math.round(page.length * 1000.0 / best) + " MB/s, "
+                + (parser.getReparseCount() - reparses) + " reparses and "
+                + (parser.getInPlaceEncodingChangeCount() - inPlace)
+                + " in-place changes in " + rounds + " parses");
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        LateMetaBenchmark benchmark = new LateMetaBenchmark();
+        benchmark.run("ASCII head", page(true));
+        benchmark.run("non-ASCII title", page(false));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the trees and the errors for documents whose <code>meta</code>
+ * charset comes after the first 1024 bytes. When a non-ASCII byte comes
+ * before the <code>meta</code>, the document is reparsed right away. When
+ * the bytes before it are all ASCII, the encoding is changed in place.
+ */
+public class LateMetaTester {
+
+    private static final String FILLER;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1100; i++) {
+            sb.append('x');
+        }
+        FILLER = sb.toString();
+    }
+
+    private static final String REPARSED = "| <html>\n" + "|   <head>\n"
+            + "|   <body>\n" + "|     <p>\n" + "|       \"\u00B1\"\n"
+            + "|     \"" + FILLER + "\"\n" + "|     <p>\n"
+            + "|       charset=\"iso-8859-2\"\n" + "|       \"\u0105\"\n"
+            + "|     \"" + FILLER + "\"\n" + "|     <meta>\n"
+            + "|       charset=\"iso-8859-2\"\n" + "|     <p>\n"
+            + "|       \"after \u0105\"\n"
+            + "-1: The character encoding was not declared. Proceeding using \u201Cwindows-1252\u201D.\n"
+            + "3: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+            + "1133: A \u201Ccharset\u201D attribute on a \u201Cmeta\u201D element found after the first 1024 bytes.\n"
+            + "1133: Changing character encoding \u201Ciso-8859-2\u201D and reparsing.\n"
+            + "2266: A \u201Ccharset\u201D attribute on a \u201Cmeta\u201D element found after the first 1024 bytes.\n";
+
+    /**
+     * Encodes a string of ASCII and U+00B1, which is byte
+     * 0xB1 in both windows-1252 and ISO-8859-2.
+     */
+    private static byte[] bytes(String doc) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < doc.length(); i++) {
+            char c = doc.charAt(i);
+            out.write(c == '\u00B1' ? 0xB1 : c);
+        }
+        return out.toByteArray();
+    }
+
+    private static String parse(byte[] doc, String encoding, boolean errors)
+            throws SAXException, IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        InputSource is = new InputSource(new ByteArrayInputStream(doc));
+        is.setEncoding(encoding);
+        htmlParser.parse(is);
+        if (errors) {
+            for (String err : leh.getErrors()) {
+                sw.write(err);
+                sw.write('\n');
+            }
+        }
+        return sw.toString();
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            System.err.println("Success.");
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        boolean failed = false;
+        String reparsed = "<p>\u00B1</p>" + FILLER
+                + "<meta charset=iso-8859-2><p>after \u00B1</p>";
+        if (!check(reparsed, REPARSED, parse(bytes(reparsed), null, true))) {
+            failed = true;
+        }
+        String inPlace = "<p>a</p>" + FILLER
+                + "<meta charset=iso-8859-2><p>after \u00B1</p>";
+        if (!check(inPlace, parse(bytes(inPlace), "iso-8859-2", false),
+                parse(bytes(inPlace), null, false))) {
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.impl.HtmlAttributes;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Checks that parsing with lazy attribute values gives the same tree and
+ * the same errors as parsing without, both when building a tree and when
+ * streaming with attribute holders reused across tokens. Also checks that
+ * a clone of lazy attributes that is written to keeps its values.
+ */
+public class LazyAttributeValuesTester {
+
+    private static final String[] TESTS = {
+            "<p a=1 b=2 c=3 id=x e=5 f=6 g=7 h=8 i=9 j=10 k=11 l=12>text",
+            // id and xmlns values are strings right away, so they grow the
+            // names past the recorded arena offsets.
+            "<b a=1 b=2 c=3 d=4 xmlns=x id=y f=6 g=7 h=8 i=9 j=10 k=11><p>x</b>y",
+            "<div id=a xmlns=b id=c class=d title=e lang=f dir=g data-a=h data-b=i>z</div>",
+            "<a href=/ id=i1 rel=r1 xmlns:xlink=x title=t1 class=c1 target=t2>one<p>two</a>three",
+            "<font face=f1 size=2 color=red id=f xmlns=x style=s1><p>1<p>2<p>3",
+            "<span a0=0 a1=1 a2=2 a3=3 a4=4 a5=5 a6=6 a7=7 a8=8 a9=9 a10=10"
+                    + " a11=11 a12=12 a13=13 a14=14 a15=15 id=16 a17=17 a18=18"
+                    + " xmlns=19 a20=20 a1=dup>" };
+
+    private static String parse(String doc, boolean lazy, boolean streaming)
+            throws SAXException, IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        if (streaming) {
+            htmlParser.setStreamabilityViolationPolicy(XmlViolationPolicy.ALLOW);
+        }
+        htmlParser.setLazyAttributeValues(lazy);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        htmlParser.parse(new InputSource(new StringReader(doc)));
+        for (String err : leh.getErrors()) {
+            sw.write(err);
+            sw.write('\n');
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Clones the attributes of the first element and merges the attributes
+     * of the second into the clone, which makes the clone copy the arrays it
+     * shares.
+     */
+    private static String mergeIntoClone(String doc) throws SAXException,
+            IOException {
+        final StringBuilder sb = new StringBuilder();
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        htmlParser.setLazyAttributeValues(true);
+        htmlParser.setContentHandler(new DefaultHandler() {
+            private HtmlAttributes clone;
+
+            @Override public void startElement(String uri, String localName,
+                    String qName, Attributes atts) throws SAXException {
+                if (!"p".equals(localName) && !"q".equals(localName)) {
+                    return;
+                }
+                HtmlAttributes attributes = (HtmlAttributes) atts;
+                if (clone == null) {
+                    clone = attributes.cloneAttributes();
+                    return;
+                }
+                clone.merge(attributes);
+                for (int i = 0; i < clone.getLength(); i++) {
+                    sb.append(clone.getQName(i)).append('=').append(
+                            clone.getValue(i)).append(' ');
+                }
+            }
+        });
+        htmlParser.parse(new InputSource(new StringReader(doc)));
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        boolean failed = false;
+        String expectedMerge = "a=1 b=2 c=3 d=4 e=5 id=x f=6 ";
+        String actualMerge;
+        try {
+            actualMerge = mergeIntoClone("<p a=1 b=2 c=3 d=4 e=5 id=x><q f=6>");
+        } catch (RuntimeException e) {
+            actualMerge = e.toString();
+        }
+        if (expectedMerge.equals(actualMerge)) {
+            System.err.println("Success.");
+        } else {
+            failed = true;
+            System.err.println("Failure.\nMerging into a clone\nExpected:\n"
+                    + expectedMerge + "\nGot: \n" + actualMerge);
+        }
+        for (int i = 0; i < TESTS.length; i++) {
+            for (int pass = 0; pass < 2; pass++) {
+                boolean streaming = pass == 1;
+                String expected = parse(TESTS[i], false, streaming);
+                String actual;
+                try {
+                    actual = parse(TESTS[i], true, streaming);
+                } catch (RuntimeException e) {
+                    actual = e.toString() + "\n";
+                }
+                if (expected.equals(actual)) {
+                    System.err.println("Success.");
+                } else {
+                    failed = true;
+                    System.err.print("Failure.\nData:\n" + TESTS[i]
+                            + (streaming ? "\nStreaming" : "")
+                            + "\nExpected:\n" + expected + "Got: \n" + actual);
+                }
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compares parsing a file through a <code>FileInputStream</code> with
+ * parsing it mapped into memory. Without arguments, the synthetic documents
+ * of <code>ThroughputBenchmark</code> are written to temporary files.
+ * Otherwise, the arguments are taken to be files.
+ */
+public class MappedFileBenchmark {
+
+    private static final int WARMUP_ROUNDS = 100;
+
+    private static final int MEASURED_ROUNDS = 100;
+
+    private final HtmlParser parser;
+
+    public MappedFileBenchmark() {
+        parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+    }
+
+    private void parse(File file, boolean mapped) throws SAXException,
+            IOException {
+        if (mapped) {
+            parser.parse(file);
+        } else {
+            InputStream in = new FileInputStream(file);
+            try {
+                parser.parse(new InputSource(in));
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private long best(File file, boolean mapped) throws SAXException,
+            IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse(file, mapped);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parse(file, mapped);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private void run(String name, File file) throws SAXException,
+            IOException {
+        long stream = best(file, false);
+        long mapped = best(file, true);
+        System.out.println(name + ": " + file.length() + " bytes, stream "
+                + Math.round(file.length() * 1000.0 / stream)
+                + " MB/s, mapped "
+                + Math.round(file.length() * 1000.0 / mapped) + " MB/s");
+    }
+
+    private static File write(String doc) throws IOException {
+        File file = File.createTempFile("benchmark", ".html");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(doc.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        MappedFileBenchmark benchmark = new MappedFileBenchmark();
+        if (args.length == 0) {
+            benchmark.run("text-heavy", write(ThroughputBenchmark.textHeavy()));
+            benchmark.run("script-heavy",
+                    write(ThroughputBenchmark.scriptHeavy()));
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                File file = new File(args[i]);
+                benchmark.run(file.getName(), file);
+            }
+        }
+    }
+}
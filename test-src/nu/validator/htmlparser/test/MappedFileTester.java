@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that parsing a file through a memory mapping gives the same tree
+ * and errors as parsing it through a <code>FileInputStream</code>, for
+ * encodings found by a BOM, by a <code>meta</code> within the first 1024
+ * bytes or after them, and by falling back to windows-1252.
+ */
+public class MappedFileTester {
+
+    /**
+     * Returns documents whose <code>meta</code> comes after the first 1024
+     * bytes, with and without a non-ASCII byte before it, and an empty one.
+     */
+    private static byte[][] lateMetaDocuments() {
+        StringBuilder filler = new StringBuilder();
+        while (filler.length() < 1100) {
+            filler.append("<i>x</i> ");
+        }
+        String late = filler + "<meta charset=iso-8859-2><p>after \u00B1</p>";
+        return new byte[][] { latin1("<p>\u00B1</p>" + late),
+                latin1("<p>a</p>" + late), new byte[0] };
+    }
+
+    private static byte[] latin1(String doc) {
+        byte[] bytes = new byte[doc.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) doc.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static String parse(HtmlParser htmlParser, File file,
+            boolean mapped) throws IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        InputStream in = null;
+        try {
+            if (mapped) {
+                htmlParser.parse(file);
+            } else {
+                in = new FileInputStream(file);
+                htmlParser.parse(new InputSource(in));
+            }
+        } catch (SAXException e) {
+            sw.write(e.toString());
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+        // The readers report malformed bytes when they decode them, and a
+        // mapping can be decoded further ahead of the tokenizer than a
+        // stream, so the errors are compared in sorted order.
+        List<String> errors = new ArrayList<String>(leh.getErrors());
+        Collections.sort(errors);
+        for (String err : errors) {
+            sw.write(err);
+            sw.write('\n');
+        }
+        return sw.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[][] sniffed = DifferentialCorpus.sniffedDocuments();
+        byte[][] late = lateMetaDocuments();
+        byte[][] docs = new byte[sniffed.length + late.length][];
+        System.arraycopy(sniffed, 0, docs, 0, sniffed.length);
+        System.arraycopy(late, 0, docs, sniffed.length, late.length);
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        boolean failed = false;
+        File file = File.createTempFile("mapped", ".html");
+        try {
+            for (int i = 0; i < docs.length; i++) {
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    out.write(docs[i]);
+                } finally {
+                    out.close();
+                }
+                String expected = parse(htmlParser, file, false);
+                String actual = parse(htmlParser, file, true);
+                if (!expected.equals(actual)) {
+                    System.err.print("Failure.\nData:\ndocument " + i
+                            + "\nExpected:\n" + expected + "Got: \n" + actual);
+                    failed = true;
+                }
+            }
+        } finally {
+            file.delete();
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import nu.validator.htmlparser.common.LimitPolicy;
+import nu.validator.htmlparser.common.ParserLimits;
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Checks the parser limits. Limits that are not reached give the same trees
+ * and errors as no limits. Truncating at the input length gives the tree of
+ * the document cut there. Every other limit is checked on documents that go
+ * over it, both failing and truncating, and a parser reused for the same
+ * document gives the same result again.
+ */
+public class ParserLimitsTester {
+
+    /**
+     * The limit, the data, and the expected tree and errors when truncating.
+     */
+    private static final String[][] TESTS = {
+            { "depth=4", "<div><div><div><div><div>x</div>y",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <div>\n"
+                    + "|       <div>\n"
+                    + "|         <div>\n"
+                    + "5: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "15: The document tree is more than the limit of 4 elements deep. Ignoring the rest of the document.\n"
+                    + "15: End of file seen and there were open elements.\n"
+                    + "15: Unclosed element \u201Cdiv\u201D.\n"
+                    + "10: Unclosed element \u201Cdiv\u201D.\n"
+                    + "5: Unclosed element \u201Cdiv\u201D.\n" },
+            { "depth=3", "<table><tr><td><b>x</b></table>",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <table>\n"
+                    + "|       <tbody>\n"
+                    + "|         <tr>\n"
+                    + "7: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "11: The document tree is more than the limit of 3 elements deep. Ignoring the rest of the document.\n"
+                    + "11: End of file seen and there were open elements.\n"
+                    + "7: Unclosed element \u201Ctable\u201D.\n" },
+            { "elements=5", "<p>a<p>b<p>c<p>d",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       \"a\"\n"
+                    + "|     <p>\n"
+                    + "|       \"b\"\n"
+                    + "|     <p>\n"
+                    + "3: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "11: The document has more than the limit of 5 elements. Ignoring the rest of the document.\n" },
+            { "elements=6", "<b><p>a</b>b<p>c",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <b>\n"
+                    + "|     <p>\n"
+                    + "|       <b>\n"
+                    + "|         \"a\"\n"
+                    + "|       \"b\"\n"
+                    + "|     <p>\n"
+                    + "3: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "11: End tag \u201Cb\u201D violates nesting rules.\n"
+                    + "15: The document has more than the limit of 6 elements. Ignoring the rest of the document.\n" },
+            { "attributes=2", "<p a=1 b=2 c=3 d=4>x<br e f>",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       a=\"1\"\n"
+                    + "|       b=\"2\"\n"
+                    + "|       \"x\"\n"
+                    + "|       <br>\n"
+                    + "|         e=\"\"\n"
+                    + "|         f=\"\"\n"
+                    + "13: A tag has more than the limit of 2 attributes. Dropping attribute \u201Cc\u201D.\n"
+                    + "17: A tag has more than the limit of 2 attributes. Dropping attribute \u201Cd\u201D.\n"
+                    + "19: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n" },
+            { "attributes=0", "<svg viewbox=0><path d=x></svg>",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <svg svg>\n"
+                    + "|       <svg path>\n"
+                    + "13: A tag has more than the limit of 0 attributes. Dropping attribute \u201Cviewbox\u201D.\n"
+                    + "15: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "23: A tag has more than the limit of 0 attributes. Dropping attribute \u201Cd\u201D.\n"
+                    + "31: End tag \u201Csvg\u201D did not match the name of the current open element (\u201Cpath\u201D).\n" },
+            { "token=3", "<!-- abcdef --><p title=abcdef>x",
+                    "| <!--  ab -->\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       tit=\"abc\"\n"
+                    + "|       \"x\"\n"
+                    + "8: A comment, doctype, name or attribute value is longer than the limit of 3 characters. Dropping the rest of it.\n"
+                    + "31: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n" },
+            { "token=3", "<!DOCTYPE htmlx><abcdef longname=1>",
+                    "| <!DOCTYPE htm>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <abc>\n"
+                    + "|       lon=\"1\"\n"
+                    + "6: A comment, doctype, name or attribute value is longer than the limit of 3 characters. Dropping the rest of it.\n"
+                    + "16: Quirky doctype. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "35: End of file seen and there were open elements.\n"
+                    + "35: Unclosed element \u201Cabc\u201D.\n" },
+            { "token=4", "<!-- a-b --!><!--ab--><!-- a -- b -->",
+                    "| <!--  a-b -->\n"
+                    + "| <!-- ab -->\n"
+                    + "| <!--  a - -->\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "9: A comment, doctype, name or attribute value is longer than the limit of 4 characters. Dropping the rest of it.\n"
+                    + "37: End of file seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n" },
+            { "token=0", "<!----><!-- a --!><!-x><!--",
+                    "| <!--  -->\n"
+                    + "| <!--  -->\n"
+                    + "| <!--  -->\n"
+                    + "| <!--  -->\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "3: A comment, doctype, name or attribute value is longer than the limit of 0 characters. Dropping the rest of it.\n"
+                    + "22: Bogus comment.\n"
+                    + "27: End of file inside comment.\n"
+                    + "27: End of file seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n" },
+            { "text=5", "<p>abcdefgh</p>x<p>&amp;&amp;&amp;&amp;&amp;&amp;",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       \"abcde\"\n"
+                    + "|     \"x\"\n"
+                    + "|     <p>\n"
+                    + "|       \"&&&&&\"\n"
+                    + "3: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "11: A run of text is longer than the limit of 5 characters. Dropping the rest of it.\n" },
+            { "text=5", "<textarea>\r\nabcdefgh</textarea><script>abcdefgh</script>",
+                    "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <textarea>\n"
+                    + "|       \"abcde\"\n"
+                    + "|     <script>\n"
+                    + "|       \"abcde\"\n"
+                    + "10: Start tag seen without seeing a doctype first. Expected \u201C<!DOCTYPE html>\u201D.\n"
+                    + "8: A run of text is longer than the limit of 5 characters. Dropping the rest of it.\n"
+                    + "35: A run of text is longer than the limit of 5 characters. Dropping the rest of it.\n" } };
+
+    private static ParserLimits limits(String limit, LimitPolicy policy) {
+        ParserLimits limits = new ParserLimits();
+        limits.setPolicy(policy);
+        int eq = limit.indexOf('=');
+        String name = limit.substring(0, eq);
+        int value = Integer.parseInt(limit.substring(eq + 1));
+        if ("depth".equals(name)) {
+            limits.setMaxDepth(value);
+        } else if ("elements".equals(name)) {
+            limits.setMaxElements(value);
+        } else if ("attributes".equals(name)) {
+            limits.setMaxAttributes(value);
+        } else if ("token".equals(name)) {
+            limits.setMaxTokenLength(value);
+        } else if ("text".equals(name)) {
+            limits.setMaxTextLength(value);
+        } else if ("input".equals(name)) {
+            limits.setMaxInputLength(value);
+        } else {
+            throw new IllegalArgumentException(limit);
+        }
+        return limits;
+    }
+
+    /**
+     * Returns limits that no document here reaches.
+     */
+    private static ParserLimits unreached(LimitPolicy policy) {
+        ParserLimits limits = new ParserLimits();
+        limits.setPolicy(policy);
+        limits.setMaxDepth(1 << 16);
+        limits.setMaxElements(1 << 20);
+        limits.setMaxAttributes(1 << 10);
+        limits.setMaxTokenLength(1 << 20);
+        limits.setMaxTextLength(1 << 20);
+        limits.setMaxInputLength(1L << 40);
+        return limits;
+    }
+
+    private static String parse(HtmlParser htmlParser, String doc)
+            throws IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        try {
+            htmlParser.parse(new InputSource(new StringReader(doc)));
+        } catch (SAXParseException e) {
+            sw.write(leh.isFatal() ? "Fatal: " : "Unreported: ");
+            sw.write(e.getMessage());
+            sw.write('\n');
+        } catch (SAXException e) {
+            sw.write(e.toString());
+            sw.write('\n');
+        } catch (AssertionError e) {
+            // The tokenizer asserts on some malformed input under -ea.
+            sw.write(e.toString());
+            sw.write('\n');
+        }
+        for (String err : leh.getErrors()) {
+            sw.write(err);
+            sw.write('\n');
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Drops the error reported for going over the input length.
+     */
+    private static String withoutInputError(String output) {
+        int i = output.indexOf(": The document is longer than the limit of ");
+        if (i == -1) {
+            return output;
+        }
+        int start = output.lastIndexOf('\n', i) + 1;
+        int end = output.indexOf('\n', i) + 1;
+        return output.substring(0, start) + output.substring(end);
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] corpus = DifferentialCorpus.documents(500, 13);
+        String[] docs = new String[TESTS.length + corpus.length];
+        for (int i = 0; i < TESTS.length; i++) {
+            docs[i] = TESTS[i][1];
+        }
+        System.arraycopy(corpus, 0, docs, TESTS.length, corpus.length);
+        HtmlParser none = new HtmlParser(XmlViolationPolicy.ALLOW);
+        HtmlParser defaults = new HtmlParser(XmlViolationPolicy.ALLOW);
+        defaults.setLimits(new ParserLimits());
+        HtmlParser fatal = new HtmlParser(XmlViolationPolicy.ALLOW);
+        fatal.setLimits(unreached(LimitPolicy.FATAL));
+        HtmlParser truncating = new HtmlParser(XmlViolationPolicy.ALLOW);
+        truncating.setLimits(unreached(LimitPolicy.TRUNCATE));
+        HtmlParser limited = new HtmlParser(XmlViolationPolicy.ALLOW);
+        boolean failed = false;
+        for (int i = 0; i < docs.length; i++) {
+            String doc = docs[i];
+            String expected = parse(none, doc);
+            if (!check(doc + "\ndefault limits", expected, parse(defaults, doc))) {
+                failed = true;
+            }
+            if (!check(doc + "\nunreached limits, failing", expected, parse(
+                    fatal, doc))) {
+                failed = true;
+            }
+            if (!check(doc + "\nunreached limits, truncating", expected,
+                    parse(truncating, doc))) {
+                failed = true;
+            }
+            // Cut where the document has a tag, an entity, a line break or
+            // text going on, at the start and one before the end.
+            int[] cuts = { 0, 1, doc.length() / 3, doc.length() / 2,
+                    doc.length() * 2 / 3, doc.length() - 1 };
+            for (int j = 0; j < cuts.length; j++) {
+                int cut = cuts[j];
+                if (cut < 0 || cut >= doc.length()) {
+                    continue;
+                }
+                limited.setLimits(limits("input=" + cut,
+                        LimitPolicy.TRUNCATE));
+                if (!check(doc + "\ninput=" + cut, parse(none, doc.substring(
+                        0, cut)), withoutInputError(parse(limited, doc)))) {
+                    failed = true;
+                }
+            }
+        }
+        for (int i = 0; i < TESTS.length; i++) {
+            String[] test = TESTS[i];
+            limited.setLimits(limits(test[0], LimitPolicy.TRUNCATE));
+            for (int j = 0; j < 2; j++) {
+                if (!check(test[1] + "\n" + test[0] + ", truncating", test[2],
+                        parse(limited, test[1]))) {
+                    failed = true;
+                }
+            }
+            limited.setLimits(limits(test[0], LimitPolicy.FATAL));
+            String output = parse(limited, test[1]);
+            if (output.indexOf("Fatal: ") == -1) {
+                System.err.print("Failure.\nData:\n" + test[1] + "\n"
+                        + test[0] + ", failing\nExpected a fatal error.\nGot: \n"
+                        + output);
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
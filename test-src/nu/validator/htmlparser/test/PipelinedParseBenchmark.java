@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses a large UTF-8 document with decoding on the parsing thread and on
+ * a thread of its own. The difference needs a second core to show.
+ */
+public class PipelinedParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 10;
+
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static byte[] document(int length) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><meta charset=utf-8>");
+        sb.append("<title>Benchmark</title></head><body>\n");
+        int i = 0;
+        while (sb.length() < length) {
+            sb.append("<div class=\"entry\" id=\"e");
+            sb.append(i++);
+            sb.append("\"><p>Caf\u00E9 na\u00EFve r\u00E9sum\u00E9, ");
+            sb.append("\u0437\u0434\u0440\u0430\u0432\u0441\u0442\u0432\u0443\u0439, ");
+            sb.append("\u65E5\u672C\u8A9E <a href=\"/x\">link</a></p></div>\n");
+        }
+        sb.append("</body></html>\n");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    private static long best(HtmlParser parser, byte[] document)
+            throws SAXException, IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parser.parse(new InputSource(new ByteArrayInputStream(document)));
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parser.parse(new InputSource(new ByteArrayInputStream(document)));
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        byte[] document = document(megabytes << 20);
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+        for (int pass = 0; pass < 2; pass++) {
+            boolean pipelined = pass == 1;
+            parser.setPipelined(pipelined);
+            long best = best(parser, document);
+            System.out.println((pipelined ? "pipelined: " : "one thread: ")
+                    + document.length + " bytes, "
+                    + Math.round(document.length * 1000.0 / best) + " MB/s, "
+                    + Runtime.getRuntime().availableProcessors()
+                    + " processors");
+        }
+    }
+}
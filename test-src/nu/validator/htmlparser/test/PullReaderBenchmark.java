@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import nu.validator.htmlparser.pull.HtmlEventReader;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Pulls all events out of the synthetic documents of
+ * <code>ThroughputBenchmark</code> and reports the throughput and the bytes
+ * allocated per event, which should be close to zero once the reader has
+ * warmed up. Needs a JVM whose <code>ThreadMXBean</code> implements
+ * <code>com.sun.management.ThreadMXBean</code>.
+ */
+public class PullReaderBenchmark {
+
+    private static final int WARMUP_ROUNDS = 100;
+
+    private static final int MEASURED_ROUNDS = 100;
+
+    private final HtmlEventReader reader = new HtmlEventReader();
+
+    private long pull(String doc) throws SAXException, IOException {
+        long events = 0;
+        reader.open(new InputSource(new StringReader(doc)));
+        while (reader.hasNext()) {
+            reader.next();
+            events++;
+        }
+        return events;
+    }
+
+    private void run(String name, String doc) throws SAXException,
+            IOException {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            pull(doc);
+        }
+        long best = Long.MAX_VALUE;
+        long events = 0;
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            events += pull(doc);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        long after = bean.getThreadAllocatedBytes(thread);
+        double charsPerSecond = ((double) doc.length()) * 1000000000.0 / best;
+        System.out.println(name + ": " + doc.length() + " chars, "
+                + Math.round(charsPerSecond / 1000000.0) + " Mchars/s, "
+                + ((double) (after - before) / events) + " bytes per event");
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        PullReaderBenchmark benchmark = new PullReaderBenchmark();
+        benchmark.run("text-heavy", ThroughputBenchmark.textHeavy());
+        benchmark.run("script-heavy", ThroughputBenchmark.scriptHeavy());
+        benchmark.run("custom-elements", ThroughputBenchmark.customElements());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.pull.HtmlEventReader;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+
+/**
+ * Checks that <code>HtmlEventReader</code> returns the same elements, text
+ * and comments as the streaming mode of <code>HtmlParser</code>, including
+ * the events before a fatal error on input that cannot be streamed.
+ */
+public class PullReaderTester {
+
+    private static final String[] TESTS = {
+            "<p>a<b>x<table>text<tr><td>y",
+            "<!-- c --><p>one<p>two<!-- d -->",
+            "<table><tr><td>a</td></tr></table><p>b",
+            "<b><p>x</b>y",
+            "<ul><li>a<li>b</ul><svg><circle/></svg>",
+            "<div>a<table>b" };
+
+    /**
+     * Records events the same way for both parsers. Adjacent text is
+     * merged, since the two may split it differently.
+     */
+    private static final class Log {
+
+        private final StringBuilder sb = new StringBuilder();
+
+        private boolean inText = false;
+
+        void element(String prefix, String localName, Attributes atts) {
+            inText = false;
+            sb.append(prefix).append(localName);
+            if (atts != null) {
+                for (int i = 0; i < atts.getLength(); i++) {
+                    sb.append(' ').append(atts.getLocalName(i)).append('=').append(
+                            atts.getValue(i));
+                }
+            }
+            sb.append('\n');
+        }
+
+        void text(char[] ch, int start, int length) {
+            if (!inText) {
+                sb.append('"');
+                inText = true;
+            }
+            sb.append(ch, start, length);
+        }
+
+        void comment(char[] ch, int start, int length) {
+            inText = false;
+            sb.append("<!--").append(ch, start, length).append("-->\n");
+        }
+
+        void fatal() {
+            inText = false;
+            sb.append("Fatal.\n");
+        }
+
+        @Override public String toString() {
+            return sb.toString();
+        }
+    }
+
+    private static String parse(String doc) throws IOException {
+        final Log log = new Log();
+        DefaultHandler2 handler = new DefaultHandler2() {
+
+            @Override public void startElement(String uri, String localName,
+                    String qName, Attributes atts) {
+                log.element("<", localName, atts);
+            }
+
+            @Override public void endElement(String uri, String localName,
+                    String qName) {
+                log.element("</", localName, null);
+            }
+
+            @Override public void characters(char[] ch, int start, int length) {
+                log.text(ch, start, length);
+            }
+
+            @Override public void comment(char[] ch, int start, int length) {
+                log.comment(ch, start, length);
+            }
+        };
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        htmlParser.setStreamabilityViolationPolicy(XmlViolationPolicy.FATAL);
+        htmlParser.setContentHandler(handler);
+        htmlParser.setLexicalHandler(handler);
+        try {
+            htmlParser.parse(new InputSource(new StringReader(doc)));
+        } catch (SAXException e) {
+            log.fatal();
+        }
+        return log.toString();
+    }
+
+    private static String pull(HtmlEventReader reader, String doc)
+            throws IOException {
+        Log log = new Log();
+        try {
+            reader.open(new InputSource(new StringReader(doc)));
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case HtmlEventReader.START_ELEMENT:
+                        log.element("<", reader.getLocalName(),
+                                reader.getAttributes());
+                        break;
+                    case HtmlEventReader.END_ELEMENT:
+                        log.element("</", reader.getLocalName(), null);
+                        break;
+                    case HtmlEventReader.CHARACTERS:
+                        log.text(reader.getTextCharacters(),
+                                reader.getTextStart(), reader.getTextLength());
+                        break;
+                    case HtmlEventReader.COMMENT:
+                        log.comment(reader.getTextCharacters(),
+                                reader.getTextStart(), reader.getTextLength());
+                        break;
+                }
+            }
+        } catch (SAXException e) {
+            log.fatal();
+        }
+        return log.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] corpus = DifferentialCorpus.documents(2000, 9);
+        String[] docs = new String[TESTS.length + corpus.length];
+        System.arraycopy(TESTS, 0, docs, 0, TESTS.length);
+        System.arraycopy(corpus, 0, docs, TESTS.length, corpus.length);
+        HtmlEventReader reader = new HtmlEventReader();
+        int failures = 0;
+        for (int i = 0; i < docs.length; i++) {
+            // The tokenizer asserts on some malformed input under -ea, so
+            // an assertion is compared like any other outcome.
+            String expected;
+            try {
+                expected = parse(docs[i]);
+            } catch (AssertionError e) {
+                expected = e.toString() + "\n";
+            }
+            String actual;
+            try {
+                actual = pull(reader, docs[i]);
+            } catch (RuntimeException e) {
+                actual = e.toString() + "\n";
+            } catch (AssertionError e) {
+                actual = e.toString() + "\n";
+                reader = new HtmlEventReader();
+            }
+            if (!expected.equals(actual)) {
+                failures++;
+                System.err.print("Failure.\nData:\n" + docs[i]
+                        + "\nExpected:\n" + expected + "Got: \n" + actual);
+            }
+        }
+        if (failures == 0) {
+            System.err.println("Success.");
+        } else {
+            System.err.println(failures + " of " + docs.length
+                    + " documents failed.");
+            System.exit(1);
+        }
+    }
+}
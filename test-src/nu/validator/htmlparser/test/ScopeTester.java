@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the trees and the errors for documents whose end tags and
+ * implied end tags depend on the element scopes: the default scope and
+ * the button, list item, table and select scopes, headings, templates and
+ * foreign content, also after the adoption agency algorithm and removals
+ * have changed the middle of the stack. The expected results are those of
+ * the parser before scope queries followed chains through the stack.
+ * Stacks thousands of elements deep are checked by comparing the tree with
+ * that of the same document with every end tag written out.
+ */
+public class ScopeTester {
+
+    /**
+     * The context element or <code>null</code> for a document, the data,
+     * and the expected tree and errors.
+     */
+    private static final String[][] TESTS = {
+            { null, "<!DOCTYPE html><p><button><p>a</button>b</p>c",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       <button>\n"
+                    + "|         <p>\n"
+                    + "|           \"a\"\n"
+                    + "|       \"b\"\n"
+                    + "|     \"c\"\n" },
+            { null, "<!DOCTYPE html><ul><li>a<div><li>b</div>c</ul><li>d",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <ul>\n"
+                    + "|       <li>\n"
+                    + "|         \"a\"\n"
+                    + "|         <div>\n"
+                    + "|       <li>\n"
+                    + "|         \"bc\"\n"
+                    + "|     <li>\n"
+                    + "|       \"d\"\n"
+                    + "33: End tag \u201Cli\u201D implied, but there were open elements.\n"
+                    + "29: Unclosed element \u201Cdiv\u201D.\n"
+                    + "40: Stray end tag \u201Cdiv\u201D.\n" },
+            { null, "<!DOCTYPE html><dl><dt>a<dd>b<div><dt>c</div></dl>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <dl>\n"
+                    + "|       <dt>\n"
+                    + "|         \"a\"\n"
+                    + "|       <dd>\n"
+                    + "|         \"b\"\n"
+                    + "|         <div>\n"
+                    + "|       <dt>\n"
+                    + "|         \"c\"\n"
+                    + "38: End tag \u201Cdt\u201D implied, but there were open elements.\n"
+                    + "34: Unclosed element \u201Cdiv\u201D.\n"
+                    + "45: Stray end tag \u201Cdiv\u201D.\n" },
+            { null, "<!DOCTYPE html><ol><li><button><li>a</button></ol>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <ol>\n"
+                    + "|       <li>\n"
+                    + "|         <button>\n"
+                    + "|           <li>\n"
+                    + "|             \"a\"\n" },
+            { null, "<!DOCTYPE html><table><tr><td><p>a<table><tr><td>b</td></tr></table>c</td></tr></table>d",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <table>\n"
+                    + "|       <tbody>\n"
+                    + "|         <tr>\n"
+                    + "|           <td>\n"
+                    + "|             <p>\n"
+                    + "|               \"a\"\n"
+                    + "|             <table>\n"
+                    + "|               <tbody>\n"
+                    + "|                 <tr>\n"
+                    + "|                   <td>\n"
+                    + "|                     \"b\"\n"
+                    + "|             \"c\"\n"
+                    + "|     \"d\"\n" },
+            { null, "<!DOCTYPE html><table><caption><p>a</caption>b</table>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     \"b\"\n"
+                    + "|     <table>\n"
+                    + "|       <caption>\n"
+                    + "|         <p>\n"
+                    + "|           \"a\"\n"
+                    + "54: Misplaced non-space characters inside a table.\n" },
+            { null, "<!DOCTYPE html><table><tr><td><select><option>a</td>b</table>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     \"b\"\n"
+                    + "|     <table>\n"
+                    + "|       <tbody>\n"
+                    + "|         <tr>\n"
+                    + "|           <td>\n"
+                    + "|             <select>\n"
+                    + "|               <option>\n"
+                    + "|                 \"a\"\n"
+                    + "52: \u201Ctd\u201D end tag with \u201Cselect\u201D open.\n"
+                    + "61: Misplaced non-space characters inside a table.\n" },
+            { null, "<!DOCTYPE html><h1><div><h2>a</h1>b</h2>c",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <h1>\n"
+                    + "|       <div>\n"
+                    + "|         <h2>\n"
+                    + "|           \"a\"\n"
+                    + "|         \"b\"\n"
+                    + "|     \"c\"\n"
+                    + "34: End tag \u201Ch1\u201D seen, but there were open elements.\n"
+                    + "40: End tag \u201Ch2\u201D seen, but there were open elements.\n"
+                    + "24: Unclosed element \u201Cdiv\u201D.\n" },
+            { null, "<!DOCTYPE html><p><template></p>a</template>b</p>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       <template>\n"
+                    + "|         content\n"
+                    + "|           \"a\"\n"
+                    + "|       \"b\"\n"
+                    + "32: Stray end tag \u201Cp\u201D.\n" },
+            { null, "<!DOCTYPE html><template><tr><td>a</template><p>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|     <template>\n"
+                    + "|       content\n"
+                    + "|         <tr>\n"
+                    + "|           <td>\n"
+                    + "|             \"a\"\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|       \"b\"\n" },
+            { null, "<!DOCTYPE html><math><mi><p>a</math>b</p>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <math math>\n"
+                    + "|       <math mi>\n"
+                    + "|         <p>\n"
+                    + "|           \"ab\"\n"
+                    + "36: Stray end tag \u201Cmath\u201D.\n"
+                    + "41: End of file seen and there were open elements.\n"
+                    + "25: Unclosed element \u201Cmi\u201D.\n"
+                    + "21: Unclosed element \u201Cmath\u201D.\n" },
+            { null, "<!DOCTYPE html><svg><foreignObject><ul><li>a</svg><li>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <svg svg>\n"
+                    + "|       <svg foreignObject>\n"
+                    + "|         <ul>\n"
+                    + "|           <li>\n"
+                    + "|             \"a\"\n"
+                    + "|           <li>\n"
+                    + "|             \"b\"\n"
+                    + "50: Stray end tag \u201Csvg\u201D.\n"
+                    + "55: End of file seen and there were open elements.\n"
+                    + "39: Unclosed element \u201Cul\u201D.\n"
+                    + "35: Unclosed element \u201CforeignObject\u201D.\n"
+                    + "20: Unclosed element \u201Csvg\u201D.\n" },
+            { null, "<!DOCTYPE html><b><p>a<i>b</b>c</i>d</p>e",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <b>\n"
+                    + "|     <p>\n"
+                    + "|       <b>\n"
+                    + "|         \"a\"\n"
+                    + "|         <i>\n"
+                    + "|           \"b\"\n"
+                    + "|       <i>\n"
+                    + "|         \"c\"\n"
+                    + "|       \"d\"\n"
+                    + "|     \"e\"\n"
+                    + "30: End tag \u201Cb\u201D violates nesting rules.\n"
+                    + "30: End tag \u201Cb\u201D violates nesting rules.\n" },
+            { null, "<!DOCTYPE html><a><div><a>a</div>b</a>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <a>\n"
+                    + "|     <div>\n"
+                    + "|       <a>\n"
+                    + "|       <a>\n"
+                    + "|         \"a\"\n"
+                    + "|     <a>\n"
+                    + "|       \"b\"\n"
+                    + "26: Start tag \u201Ca\u201D seen but an element of the same type was already open.\n"
+                    + "26: End tag \u201Ca\u201D violates nesting rules.\n"
+                    + "33: End tag \u201Cdiv\u201D seen, but there were open elements.\n"
+                    + "26: Unclosed element \u201Ca\u201D.\n" },
+            { null, "<!DOCTYPE html><form><div></form><p>a</p>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <form>\n"
+                    + "|       <div>\n"
+                    + "|         <p>\n"
+                    + "|           \"a\"\n"
+                    + "33: End tag \u201Cform\u201D seen, but there were open elements.\n"
+                    + "26: Unclosed element \u201Cdiv\u201D.\n"
+                    + "41: End of file seen and there were open elements.\n" },
+            { null, "<!DOCTYPE html><applet><p>a</applet>b</p>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <applet>\n"
+                    + "|       <p>\n"
+                    + "|         \"a\"\n"
+                    + "|     \"b\"\n"
+                    + "|     <p>\n"
+                    + "41: No \u201Cp\u201D element in scope but a \u201Cp\u201D end tag seen.\n" },
+            { null, "<!DOCTYPE html><marquee><li>a</marquee><li>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <marquee>\n"
+                    + "|       <li>\n"
+                    + "|         \"a\"\n"
+                    + "|     <li>\n"
+                    + "|       \"b\"\n" },
+            { null, "<!DOCTYPE html><object><button>a</object>b</button>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <object>\n"
+                    + "|       <button>\n"
+                    + "|         \"a\"\n"
+                    + "|     \"b\"\n"
+                    + "41: End tag \u201Cobject\u201D seen, but there were open elements.\n"
+                    + "31: Unclosed element \u201Cbutton\u201D.\n"
+                    + "51: Stray end tag \u201Cbutton\u201D.\n" },
+            { null, "<!DOCTYPE html><table><td><table><tr></td>a</table>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <table>\n"
+                    + "|       <tbody>\n"
+                    + "|         <tr>\n"
+                    + "|           <td>\n"
+                    + "|             \"a\"\n"
+                    + "|             <table>\n"
+                    + "|               <tbody>\n"
+                    + "|                 <tr>\n"
+                    + "26: \u201Ctd\u201D start tag in table body.\n"
+                    + "42: Stray end tag \u201Ctd\u201D.\n"
+                    + "51: Misplaced non-space characters inside a table.\n"
+                    + "51: End of file seen and there were open elements.\n"
+                    + "22: Unclosed element \u201Ctable\u201D.\n" },
+            { null, "<!DOCTYPE html><p><table></p>a</table>",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <p>\n"
+                    + "|     <p>\n"
+                    + "|     \"a\"\n"
+                    + "|     <table>\n"
+                    + "29: Stray end tag \u201Cp\u201D.\n"
+                    + "29: No \u201Cp\u201D element in scope but a \u201Cp\u201D end tag seen.\n"
+                    + "38: Misplaced non-space characters inside a table.\n" },
+            { null, "<!DOCTYPE html><div><p><span></div>a",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <div>\n"
+                    + "|       <p>\n"
+                    + "|         <span>\n"
+                    + "|     \"a\"\n"
+                    + "35: End tag \u201Cdiv\u201D seen, but there were open elements.\n"
+                    + "29: Unclosed element \u201Cspan\u201D.\n" },
+            { null, "<!DOCTYPE html><ul><li><ul><li>a</ul></li><li>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <ul>\n"
+                    + "|       <li>\n"
+                    + "|         <ul>\n"
+                    + "|           <li>\n"
+                    + "|             \"a\"\n"
+                    + "|       <li>\n"
+                    + "|         \"b\"\n"
+                    + "47: End of file seen and there were open elements.\n"
+                    + "19: Unclosed element \u201Cul\u201D.\n" },
+            { null, "<!DOCTYPE html><select><div><select>a</select>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <select>\n"
+                    + "|     \"ab\"\n"
+                    + "28: Stray start tag \u201Cdiv\u201D.\n"
+                    + "36: \u201Cselect\u201D start tag where end tag expected.\n"
+                    + "46: Stray end tag \u201Cselect\u201D.\n" },
+            { null, "<!DOCTYPE html><nobr><nobr><nobr>a</nobr>b",
+                    "| <!DOCTYPE html>\n"
+                    + "| <html>\n"
+                    + "|   <head>\n"
+                    + "|   <body>\n"
+                    + "|     <nobr>\n"
+                    + "|     <nobr>\n"
+                    + "|     <nobr>\n"
+                    + "|       \"a\"\n"
+                    + "|     \"b\"\n"
+                    + "27: Start tag \u201Cnobr\u201D seen but an element of the same type was already open.\n"
+                    + "33: Start tag \u201Cnobr\u201D seen but an element of the same type was already open.\n" },
+            { "td", "<p>a</td>b<button>c",
+                    "| <p>\n"
+                    + "|   \"ab\"\n"
+                    + "|   <button>\n"
+                    + "|     \"c\"\n"
+                    + "9: Stray end tag \u201Ctd\u201D.\n"
+                    + "19: End of file seen and there were open elements.\n"
+                    + "18: Unclosed element \u201Cbutton\u201D.\n" },
+            { "li", "a<li>b<ul><li>c",
+                    "| \"a\"\n"
+                    + "| <li>\n"
+                    + "|   \"b\"\n"
+                    + "|   <ul>\n"
+                    + "|     <li>\n"
+                    + "|       \"c\"\n"
+                    + "15: End of file seen and there were open elements.\n"
+                    + "10: Unclosed element \u201Cul\u201D.\n" },
+            { "button", "<p>a<button>b",
+                    "| <p>\n"
+                    + "|   \"a\"\n"
+                    + "|   <button>\n"
+                    + "|     \"b\"\n"
+                    + "13: End of file seen and there were open elements.\n"
+                    + "12: Unclosed element \u201Cbutton\u201D.\n" },
+            { "select", "<option>a<optgroup>b</select>c",
+                    "| <option>\n"
+                    + "|   \"a\"\n"
+                    + "| <optgroup>\n"
+                    + "|   \"bc\"\n"
+                    + "29: Stray end tag \u201Cselect\u201D.\n"
+                    + "30: End of file seen and there were open elements.\n" },
+            { "template", "<td>a</td><p>b",
+                    "| <td>\n"
+                    + "|   \"a\"\n"
+                    + "| <p>\n"
+                    + "|   \"b\"\n"
+                    + "13: Start tag \u201Cp\u201D seen in \u201Ctable\u201D.\n"
+                    + "14: Misplaced non-space characters inside a table.\n" },
+            { "table", "<tr><td>a<caption>b",
+                    "| <tbody>\n"
+                    + "|   <tr>\n"
+                    + "|     <td>\n"
+                    + "|       \"a\"\n"
+                    + "| <caption>\n"
+                    + "|   \"b\"\n"
+                    + "19: End of file seen and there were open elements.\n"
+                    + "18: Unclosed element \u201Ccaption\u201D.\n" },
+            { "ol", "<li>a</ol>b",
+                    "| <li>\n"
+                    + "|   \"ab\"\n"
+                    + "10: Stray end tag \u201Col\u201D.\n" },
+            { "p", "a</p>b<p>c",
+                    "| \"a\"\n"
+                    + "| <p>\n"
+                    + "| \"b\"\n"
+                    + "| <p>\n"
+                    + "|   \"c\"\n"
+                    + "5: No \u201Cp\u201D element in scope but a \u201Cp\u201D end tag seen.\n" } };
+
+    private static final int DEPTH = 3000;
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns pairs of deep documents with the same tree: the first leaves
+     * end tags to be implied by a scope query and the second writes them
+     * out.
+     */
+    private static String[][] deepDocuments() {
+        String divs = repeat("<div>", DEPTH);
+        String spans = repeat("<span>", DEPTH);
+        String endSpans = repeat("</span>", DEPTH);
+        return new String[][] {
+                { divs + "<p>" + spans + "</p>x",
+                        divs + "<p>" + spans + endSpans + "</p>x" },
+                { repeat("<ul><li>", DEPTH) + "<li>x",
+                        repeat("<ul><li>", DEPTH) + "</li><li>x" },
+                { repeat("<table><tr><td>", DEPTH) + "</table>x",
+                        repeat("<table><tr><td>", DEPTH) + "</td></tr></table>x" },
+                { divs + "<button>" + spans + "<p>a</button>b",
+                        divs + "<button>" + spans + "<p>a</p>" + endSpans
+                                + "</button>b" } };
+    }
+
+    private static String parse(String context, String doc, boolean errors)
+            throws SAXException, IOException {
+        StringWriter sw = new StringWriter();
+        ListErrorHandler leh = new ListErrorHandler();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setErrorHandler(leh);
+        InputSource is = new InputSource(new StringReader(doc));
+        if (context == null) {
+            htmlParser.parse(is);
+        } else {
+            htmlParser.parseFragment(is, context);
+        }
+        if (errors) {
+            for (String err : leh.getErrors()) {
+                sw.write(err);
+                sw.write('\n');
+            }
+        }
+        return sw.toString();
+    }
+
+    private static boolean check(String data, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        System.err.print("Failure.\nData:\n" + data + "\nExpected:\n"
+                + expected + "Got: \n" + actual);
+        return false;
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        boolean failed = false;
+        for (int i = 0; i < TESTS.length; i++) {
+            String[] test = TESTS[i];
+            String data = test[0] == null ? test[1] : test[0] + ": " + test[1];
+            if (!check(data, test[2], parse(test[0], test[1], true))) {
+                failed = true;
+            }
+        }
+        String[][] deep = deepDocuments();
+        for (int i = 0; i < deep.length; i++) {
+            if (!check("deep document " + i, parse(null, deep[i][1], false),
+                    parse(null, deep[i][0], false))) {
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.err.println("Success.");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.Random;
+
+import nu.validator.encoding.Encoding;
+
+/**
+ * Compares the single-byte decoders on array-backed buffers with the same
+ * decoders on buffers that hide their arrays, which takes the per-byte
+ * loop, and with the JDK decoders for the same encodings.
+ */
+public class SingleByteDecoderBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2000;
+
+    private static final int MEASURED_ROUNDS = 2000;
+
+    private static final int LENGTH = 64 * 1024;
+
+    private final byte[] src;
+
+    private final char[] dst = new char[LENGTH];
+
+    public SingleByteDecoderBenchmark(int percentUpperHalf) {
+        src = new byte[LENGTH];
+        Random random = new Random(LENGTH);
+        for (int i = 0; i < LENGTH; i++) {
+            if (random.nextInt(100) < percentUpperHalf) {
+                // Stay clear of bytes that are unmapped in some encodings.
+                src[i] = (byte) (0xC0 + random.nextInt(0x20));
+            } else if (random.nextInt(6) == 0) {
+                src[i] = ' ';
+            } else {
+                src[i] = (byte) ('a' + random.nextInt(26));
+            }
+        }
+    }
+
+    private long best(CharsetDecoder decoder, boolean hideArray) {
+        ByteBuffer in = ByteBuffer.wrap(src);
+        if (hideArray) {
+            in = in.asReadOnlyBuffer();
+        }
+        CharBuffer out = CharBuffer.wrap(dst);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            in.clear();
+            out.clear();
+            decoder.reset();
+            decoder.decode(in, out, true);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            in.clear();
+            out.clear();
+            decoder.reset();
+            long start = System.nanoTime();
+            decoder.decode(in, out, true);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private String rate(long nanos) {
+        return Math.round(LENGTH * 1000.0 / nanos) + " MB/s";
+    }
+
+    private void run(String name) {
+        Charset charset = Encoding.forName(name);
+        long arrays = best(charset.newDecoder(), false);
+        long loop = best(charset.newDecoder(), true);
+        long jdk = best(Charset.forName(name).newDecoder(), false);
+        System.out.println(name + ": arrays " + rate(arrays) + ", per-byte "
+                + rate(loop) + ", JDK " + rate(jdk));
+    }
+
+    public static void main(String[] args) {
+        int[] percentages = { 0, 5, 30 };
+        String[] names = { "windows-1252", "windows-1251", "iso-8859-2" };
+        for (int i = 0; i < percentages.length; i++) {
+            System.out.println(percentages[i] + "% upper half");
+            SingleByteDecoderBenchmark benchmark = new SingleByteDecoderBenchmark(
+                    percentages[i]);
+            for (int j = 0; j < names.length; j++) {
+                benchmark.run(names[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses a large document held in memory without speculation and with
+ * chunks tokenized ahead on pools of 1, 2, 4, 8 and 16 threads, or of the
+ * sizes given after the document size in megachars. Prints the speedup over
+ * parsing without speculation and checks that each pool size gives the
+ * same events. Speculation needs spare cores to show.
+ */
+public class SpeculativeParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 10;
+
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static char[] document(int length) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><title>Benchmark</title>");
+        sb.append("<style>p > a { color: red }</style></head><body>\n");
+        int i = 0;
+        while (sb.length() < length) {
+            sb.append("<div class=\"entry\" id=\"e");
+            sb.append(i++);
+            sb.append("\"><p>Some text &amp; a <a href=\"/x\">link</a>.</p>");
+            sb.append("<script>if (a < b) { c(); }</script>");
+            sb.append("<textarea>x < y</textarea></div>\n");
+        }
+        sb.append("</body></html>\n");
+        char[] document = new char[sb.length()];
+        sb.getChars(0, document.length, document, 0);
+        return document;
+    }
+
+    /**
+     * Hashes the events of a parse.
+     */
+    private static final class Checksum extends DefaultHandler {
+
+        long hash = 0;
+
+        @Override public void startElement(String uri, String localName,
+                String qName, Attributes atts) {
+            hash = hash * 31 + localName.hashCode();
+            for (int i = 0; i < atts.getLength(); i++) {
+                hash = hash * 31 + atts.getValue(i).hashCode();
+            }
+        }
+
+        @Override public void endElement(String uri, String localName,
+                String qName) {
+            hash = hash * 31 - localName.hashCode();
+        }
+
+        @Override public void characters(char[] ch, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                hash = hash * 31 + ch[i];
+            }
+        }
+    }
+
+    private static long checksum(HtmlParser parser, char[] document)
+            throws SAXException, IOException {
+        Checksum checksum = new Checksum();
+        parser.setContentHandler(checksum);
+        try {
+            parser.parse(document, 0, document.length);
+        } finally {
+            parser.setContentHandler(new DefaultHandler());
+        }
+        return checksum.hash;
+    }
+
+    private static long best(HtmlParser parser, char[] document)
+            throws SAXException, IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parser.parse(document, 0, document.length);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parser.parse(document, 0, document.length);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+
+    private static void print(String name, char[] document, long best,
+            long baseline) {
+        System.out.println(name + ": " + document.length + " chars, "
+                + Math.round(document.length * 1000.0 / best)
+                + " Mchars/s, speedup "
+                + Math.round(baseline * 100.0 / best) / 100.0 + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors");
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        int megachars = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int[] poolSizes = { 1, 2, 4, 8, 16 };
+        if (args.length > 1) {
+            poolSizes = new int[args.length - 1];
+            for (int i = 0; i < poolSizes.length; i++) {
+                poolSizes[i] = Integer.parseInt(args[i + 1]);
+            }
+        }
+        char[] document = document(megachars << 20);
+        HtmlParser parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+        long expected = checksum(parser, document);
+        long baseline = best(parser, document);
+        print("no speculation", document, baseline, baseline);
+        for (int i = 0; i < poolSizes.length; i++) {
+            ExecutorService pool = Executors.newFixedThreadPool(poolSizes[i]);
+            try {
+                parser.setSpeculationExecutor(pool);
+                if (checksum(parser, document) != expected) {
+                    System.out.println(poolSizes[i]
+                            + " threads: different events than without speculation");
+                    System.exit(1);
+                }
+                print(poolSizes[i] + " threads", document, best(parser,
+                        document), baseline);
+            } finally {
+                parser.setSpeculationExecutor(null);
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that parsing large documents held in memory with chunks tokenized
+ * ahead gives the same tree as parsing them without, both with an executor
+ * that runs the chunks on the calling thread and with a thread pool. Run
+ * with <code>-ea</code> to also check the tokenizer's assertions.
+ */
+public class SpeculativeParseTester {
+
+    /**
+     * Longer than two speculation chunks, so that speculation kicks in.
+     */
+    private static final int DOCUMENT_LENGTH = 300 * 1024;
+
+    private static final Executor INLINE = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final String[] TAILS = { "</title>", "</textarea>",
+            "</script>", "</style>", "</xmp>", "</p>", "" };
+
+    private static final String[] OPENERS = { "<title>", "<textarea>",
+            "<script>", "<style>", "<xmp>", "<p>", "<svg><title>",
+            "<math><mi>", "<noscript>", "<iframe>", "<template><td>",
+            "<table>", "<select>" };
+
+    /**
+     * Returns a run of text that leaves the tokenizer in the middle of
+     * something at a chunk boundary: a long character reference, a tag
+     * name, an attribute value or a comment.
+     */
+    private static String boundaryRun(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int n = 100 + random.nextInt(400);
+        switch (random.nextInt(6)) {
+            case 0:
+                sb.append('&');
+                for (int i = 0; i < n; i++) {
+                    sb.append('x');
+                }
+                sb.append('>');
+                break;
+            case 1:
+                sb.append("&amp");
+                for (int i = 0; i < n; i++) {
+                    sb.append(';');
+                }
+                sb.append('>');
+                break;
+            case 2:
+                sb.append("<a title='");
+                for (int i = 0; i < n; i++) {
+                    sb.append("v>");
+                }
+                sb.append("'>");
+                break;
+            case 3:
+                sb.append("<!--");
+                for (int i = 0; i < n; i++) {
+                    sb.append("->");
+                }
+                sb.append("-->");
+                break;
+            case 4:
+                sb.append("&#");
+                for (int i = 0; i < n; i++) {
+                    sb.append('1');
+                }
+                sb.append(">x");
+                break;
+            default:
+                sb.append("</");
+                for (int i = 0; i < n; i++) {
+                    sb.append('q');
+                }
+                sb.append(">y");
+                break;
+        }
+        return sb.toString();
+    }
+
+    private static String document(long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>");
+        while (sb.length() < DOCUMENT_LENGTH) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    sb.append(OPENERS[random.nextInt(OPENERS.length)]);
+                    sb.append(boundaryRun(random));
+                    sb.append(TAILS[random.nextInt(TAILS.length)]);
+                    break;
+                case 1:
+                    sb.append(boundaryRun(random));
+                    break;
+                default:
+                    String fragment = DifferentialCorpus.document(random, 20);
+                    if (fragment.indexOf("<plaintext>") == -1) {
+                        sb.append(fragment);
+                    }
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the tree dump, followed by what the parser threw if it threw
+     * something other than a <code>SAXException</code>, such as a failed
+     * assertion.
+     */
+    private static String parse(String doc, Executor executor)
+            throws SAXException, IOException {
+        StringWriter sw = new StringWriter();
+        TreeDumpContentHandler treeDumpContentHandler = new TreeDumpContentHandler(
+                sw);
+        HtmlParser htmlParser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        htmlParser.setContentHandler(treeDumpContentHandler);
+        htmlParser.setLexicalHandler(treeDumpContentHandler);
+        htmlParser.setSpeculationExecutor(executor);
+        try {
+            htmlParser.parseCharSequence(doc);
+        } catch (RuntimeException e) {
+            sw.write(e.toString());
+        } catch (AssertionError e) {
+            sw.write(e.toString());
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Returns a description of the first difference.
+     */
+    private static String difference(String expected, String actual) {
+        int i = 0;
+        while (i < expected.length() && i < actual.length()
+                && expected.charAt(i) == actual.charAt(i)) {
+            i++;
+        }
+        int from = i < 60 ? 0 : i - 60;
+        return "First difference at " + i + " of " + expected.length()
+                + " and " + actual.length() + " chars.\nExpected:\n"
+                + expected.substring(from, Math.min(expected.length(), i + 60))
+                + "\nGot: \n"
+                + actual.substring(from, Math.min(actual.length(), i + 60))
+                + "\n";
+    }
+
+    public static void main(String[] args) throws SAXException, IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        int failures = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                String doc = document(i);
+                String expected = parse(doc, null);
+                for (int pass = 0; pass < 2; pass++) {
+                    String actual = parse(doc, pass == 0 ? INLINE : pool);
+                    if (!expected.equals(actual)) {
+                        failures++;
+                        System.err.print("Failure.\nSeed: " + i
+                                + (pass == 0 ? ", inline" : ", pool") + "\n"
+                                + difference(expected, actual));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (failures == 0) {
+            System.err.println("Success.");
+        } else {
+            System.err.println(failures + " of " + (2 * count)
+                    + " parses failed.");
+            System.exit(1);
+        }
+    }
+}
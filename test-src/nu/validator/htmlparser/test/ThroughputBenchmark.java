@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+
+import nu.validator.htmlparser.common.XmlViolationPolicy;
+import nu.validator.htmlparser.sax.HtmlParser;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures how many UTF-16 code units per second the SAX parser gets through
+ * when the content handler does nothing. Without arguments, synthetic
+ * documents are used. Otherwise, the arguments are taken to be UTF-8 files.
+ *
+ * Run the same build with and without a change to compare.
+ */
+public class ThroughputBenchmark {
+
+    private static final int WARMUP_ROUNDS = 100;
+
+    private static final int MEASURED_ROUNDS = 100;
+
+    private final HtmlParser parser;
+
+    public ThroughputBenchmark() {
+        parser = new HtmlParser(XmlViolationPolicy.ALLOW);
+        parser.setContentHandler(new DefaultHandler());
+    }
+
+    private void parse(String doc) throws SAXException, IOException {
+        parser.parse(new InputSource(new StringReader(doc)));
+    }
+
+    private void run(String name, String doc) throws SAXException,
+            IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parse(doc);
+        }
+        // Report the fastest round, since the slower ones mostly measure
+        // whatever else the machine was doing at the time.
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parse(doc);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        double charsPerSecond = ((double) doc.length()) * 1000000000.0 / best;
+        System.out.println(name + ": " + doc.length() + " chars, "
+                + Math.round(charsPerSecond / 1000000.0) + " Mchars/s");
+    }
+
+    /**
+     * Long paragraphs of prose with few tags, as on article pages.
+     */
+    static String textHeavy() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><title>Text</title>");
+        for (int i = 0; i < 2000; i++) {
+            sb.append("<p>");
+            for (int j = 0; j < 8; j++) {
+                sb.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit, ");
+                sb.append("sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.\n");
+            }
+            sb.append("Ut enim ad minim veniam &amp; quis nostrud.</p>\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Inline JSON, style blocks and long data attributes, as on pages
+     * rendered by client-side frameworks.
+     */
+    static String scriptHeavy() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><title>Script</title><style>");
+        for (int i = 0; i < 200; i++) {
+            sb.append(".c").append(i).append(" > a:hover { color: #123456; margin: 0 auto; }\n");
+        }
+        sb.append("</style>");
+        for (int i = 0; i < 500; i++) {
+            sb.append("<div data-props=\"{&quot;id&quot;: ").append(i);
+            sb.append(", &quot;title&quot;: &quot;Lorem ipsum dolor sit amet, consectetur adipiscing elit&quot;}\"");
+            sb.append(" data-config='{\"lazy\": true, \"threshold\": 0.25, \"placeholder\": \"data:image/gif;base64,R0lGODlhAQABAIAAAAAAAP\"}'>");
+            sb.append("<script type=\"application/json\">{\"items\": [");
+            for (int j = 0; j < 10; j++) {
+                sb.append("{\"name\": \"item ").append(j);
+                sb.append("\", \"url\": \"https://example.com/a/b/c?x=1&y=2\", \"price\": 12.5},");
+            }
+            sb.append("{}]}</script><script>if (a < b && c) { render(document.body); }</script></div>\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Custom elements and framework attributes, none of which are in the
+     * built-in name tables.
+     */
+    static String customElements() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><title>Custom</title>");
+        for (int i = 0; i < 2000; i++) {
+            sb.append("<app-card v-bind:title=t ng-if=shown data-track-id=").append(i);
+            sb.append(" x-on:click=open><app-card-header :class=h>Title</app-card-header>");
+            sb.append("<app-card-body @mouseover=hover>Body</app-card-body></app-card>\n");
+        }
+        return sb.toString();
+    }
+
+    private static String readFile(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file),
+                "UTF-8");
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[4096];
+            int num;
+            while ((num = reader.read(buf)) != -1) {
+                sb.append(buf, 0, num);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @param args
+     *            files to parse instead of the synthetic documents
+     * @throws IOException
+     * @throws SAXException
+     */
+    public static void main(String[] args) throws SAXException, IOException {
+        ThroughputBenchmark benchmark = new ThroughputBenchmark();
+        if (args.length == 0) {
+            benchmark.run("text-heavy", textHeavy());
+            benchmark.run("script-heavy", scriptHeavy());
+            benchmark.run("custom-elements", customElements());
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                File file = new File(args[i]);
+                benchmark.run(file.getName(), readFile(file));
+            }
+        }
+    }
+}
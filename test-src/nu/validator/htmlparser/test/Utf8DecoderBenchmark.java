@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Mozilla Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package nu.validator.htmlparser.test;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import nu.validator.encoding.Utf8Decoder;
+
+/**
+ * Compares the array-based UTF-8 decoder with the JDK decoder, both fed
+ * 8 KB of bytes into 2 KB of chars at a time the way
+ * <code>HtmlInputStreamReader</code> feeds its decoder.
+ */
+public class Utf8DecoderBenchmark {
+
+    private static final int WARMUP_ROUNDS = 200;
+
+    private static final int MEASURED_ROUNDS = 200;
+
+    private static final int BYTES = 8192;
+
+    private static final int CHARS = 2048;
+
+    private final byte[] src;
+
+    private final char[] dst = new char[CHARS];
+
+    private final Utf8Decoder utf8 = new Utf8Decoder();
+
+    private final CharsetDecoder jdk = Charset.forName("UTF-8").newDecoder();
+
+    public Utf8DecoderBenchmark(byte[] src) {
+        this.src = src;
+        jdk.onMalformedInput(CodingErrorAction.REPLACE);
+    }
+
+    private int decodeArrays() {
+        int chars = 0;
+        int pos = 0;
+        while (pos < src.length) {
+            int end = Math.min(pos + BYTES, src.length);
+            int result;
+            do {
+                result = utf8.decode(src, pos, end, dst, 0, CHARS,
+                        end == src.length);
+                pos = utf8.getSrcPos();
+                chars += utf8.getDstPos();
+            } while (result != Utf8Decoder.INPUT_EMPTY);
+            if (end == src.length) {
+                break;
+            }
+        }
+        return chars;
+    }
+
+    private int decodeBuffers() {
+        int chars = 0;
+        jdk.reset();
+        CharBuffer out = CharBuffer.wrap(dst);
+        int pos = 0;
+        while (pos < src.length) {
+            int end = Math.min(pos + BYTES, src.length);
+            ByteBuffer in = ByteBuffer.wrap(src, pos, end - pos);
+            CoderResult result;
+            do {
+                out.clear();
+                result = jdk.decode(in, out, end == src.length);
+                chars += out.position();
+            } while (result.isOverflow());
+            pos = in.position();
+            if (end == src.length) {
+                break;
+            }
+        }
+        return chars;
+    }
+
+    private long best(boolean arrays) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += arrays ? decodeArrays() : decodeBuffers();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += arrays ? decodeArrays() : decodeBuffers();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return best;
+    }
+
+    private void run(String name) {
+        long buffers = best(false);
+        long arrays = best(true);
+        System.out.println(name + ": " + src.length + " bytes, JDK "
+                + Math.round(src.length * 1000.0 / buffers)
+                + " MB/s, arrays "
+                + Math.round(src.length * 1000.0 / arrays) + " MB/s");
+    }
+
+    private static byte[] repeat(String s, int length)
+            throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder(length + s.length());
+        while (sb.length() < length) {
+            sb.append(s);
+        }
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    public static void main(String[] args) throws UnsupportedEncodingException {
+        new Utf8DecoderBenchmark(
+                ThroughputBenchmark.textHeavy().getBytes("UTF-8")).run(
+                "text-heavy");
+        new Utf8DecoderBenchmark(repeat(
+                "<p>Gr\u00FC\u00DFe aus K\u00F6ln, \u00E9t\u00E9 \u00E0 Paris. ",
+                1 << 20)).run("latin");
+        new Utf8DecoderBenchmark(repeat(
+                "<p>\u65E5\u672C\u8A9E\u306E\u30C6\u30AD\u30B9\u30C8\u3002",
+                1 << 20)).run("cjk");
+    }
+}